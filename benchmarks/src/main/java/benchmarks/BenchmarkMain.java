@@ -0,0 +1,27 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks. Takes the same arguments as the JMH runner, and always adds the GC profiler so the
+ * allocation rate is reported next to the throughput and latency.
+ */
+public class BenchmarkMain {
+    /**
+     * Runs the benchmarks
+     *
+     * @param args JMH arguments, for example -p traders=1000 to only use the smallest marketplace
+     * @throws Exception if the benchmarks can't be run
+     */
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
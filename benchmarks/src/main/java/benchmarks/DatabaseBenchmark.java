@@ -0,0 +1,71 @@
+package benchmarks;
+
+import backend.Database;
+import backend.DatabaseFilePaths;
+import backend.DatabaseRegistry;
+import backend.exceptions.EntryNotFoundException;
+import backend.models.Idable;
+import backend.models.users.Trader;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing single users, and reading every user at once
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatabaseBenchmark {
+    private Database users;
+
+    /**
+     * Gets the user database
+     *
+     * @param marketplace the marketplace, which has to be set up first
+     */
+    @Setup(Level.Trial)
+    public void setUp(MarketplaceState marketplace) {
+        users = DatabaseRegistry.getDatabase(DatabaseFilePaths.USER);
+    }
+
+    /**
+     * Reads a random user
+     *
+     * @param marketplace the marketplace
+     * @return the user
+     * @throws EntryNotFoundException if the user wasn't found
+     */
+    @Benchmark
+    public Idable populate(MarketplaceState marketplace) throws EntryNotFoundException {
+        return users.populate(marketplace.randomTrader());
+    }
+
+    /**
+     * Writes a random user after changing it
+     *
+     * @param marketplace the marketplace
+     * @return the user
+     * @throws EntryNotFoundException if the user wasn't found
+     */
+    @Benchmark
+    public Idable update(MarketplaceState marketplace) throws EntryNotFoundException {
+        Trader trader = (Trader) users.populate(marketplace.randomTrader());
+        trader.setTradeCount(trader.getTradeCount() + 1);
+        return users.update(trader);
+    }
+
+    /**
+     * Reads every user
+     *
+     * @return the users
+     */
+    @Benchmark
+    public HashMap<String, Idable> getItems() {
+        return users.getItems();
+    }
+}
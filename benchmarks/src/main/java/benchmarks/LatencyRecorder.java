@@ -0,0 +1,76 @@
+package benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * Keeps every latency that was measured so that exact percentiles can be worked out afterwards.
+ * This isn't thread safe, so every thread should have its own and merge them at the end.
+ */
+public class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private int count;
+    private boolean sorted;
+
+    /**
+     * Records a latency
+     *
+     * @param nanos how long it took in nanoseconds
+     */
+    public void record(long nanos) {
+        if (count == latencies.length)
+            latencies = Arrays.copyOf(latencies, count * 2);
+        latencies[count++] = nanos;
+        sorted = false;
+    }
+
+    /**
+     * Adds every latency of another recorder to this one
+     *
+     * @param other the other recorder
+     */
+    public void addAll(LatencyRecorder other) {
+        if (count + other.count > latencies.length)
+            latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, count + other.count));
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        sorted = false;
+    }
+
+    /**
+     * Gets how many latencies were recorded
+     *
+     * @return the amount
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the latency that the given percent of latencies are at or below
+     *
+     * @param percentile from 0 to 100
+     * @return the latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) return 0;
+        if (!sorted) {
+            Arrays.sort(latencies, 0, count);
+            sorted = true;
+        }
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return latencies[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    /**
+     * Gets the average latency
+     *
+     * @return the average in nanoseconds, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        if (count == 0) return 0;
+        double total = 0;
+        for (int i = 0; i < count; i++)
+            total += latencies[i];
+        return total / count;
+    }
+}
@@ -0,0 +1,141 @@
+package benchmarks;
+
+import backend.DatabaseFilePaths;
+import backend.tradesystem.TraderProperties;
+import backend.tradesystem.queries.UserQuery;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * A made up marketplace in a directory of its own. The program is pointed at the directory through the
+ * tradingsystem.root system property, so this has to be made before any manager is, and only once per JVM.
+ * Making a marketplace of 100k traders takes a while, so the finished files are kept in the temp directory and
+ * copied when the same marketplace is asked for again.
+ */
+public class Marketplace {
+    /**
+     * How many items each generated trader has, unless it is given
+     */
+    public static final int ITEMS_PER_TRADER = 3;
+
+    /**
+     * How many items each generated trader wants
+     */
+    public static final int WISHES_PER_TRADER = 3;
+
+    private static final String FINISHED_MARKER = "finished";
+
+    private final Path DIRECTORY;
+    private final List<String> traderIds;
+
+    /**
+     * Makes a marketplace in a new temp directory and points the program at it
+     *
+     * @param numTraders how many traders the marketplace has
+     * @param seed       the seed used to generate the marketplace
+     * @throws Exception if the marketplace can't be made
+     */
+    public Marketplace(int numTraders, long seed) throws Exception {
+        this(numTraders, numTraders * ITEMS_PER_TRADER, seed);
+    }
+
+    /**
+     * Makes a marketplace in a new temp directory and points the program at it
+     *
+     * @param numTraders how many traders the marketplace has
+     * @param numItems   how many items the traders have between them
+     * @param seed       the seed used to generate the marketplace
+     * @throws Exception if the marketplace can't be made
+     */
+    public Marketplace(int numTraders, int numItems, long seed) throws Exception {
+        DIRECTORY = Files.createTempDirectory("tradingsystem-");
+        System.setProperty(DatabaseFilePaths.ROOT_DIRECTORY_PROPERTY, DIRECTORY.toString());
+
+        Path template = Paths.get(System.getProperty("java.io.tmpdir"), "tradingsystem-benchmarks",
+                numTraders + "-" + numItems + "-" + seed);
+        if (Files.exists(template.resolve(FINISHED_MARKER))) {
+            copy(template, DIRECTORY);
+        } else {
+            prepareDirectory();
+            new MarketplaceGenerator(numTraders, numItems, WISHES_PER_TRADER, seed).generate();
+            deleteDirectory(template);
+            copy(DIRECTORY, template);
+            Files.createFile(template.resolve(FINISHED_MARKER));
+        }
+
+        traderIds = new UserQuery().getAllTraders();
+        Collections.sort(traderIds);
+    }
+
+    /**
+     * Gets the ids of every trader in the marketplace, in the same order every time
+     *
+     * @return the trader ids
+     */
+    public List<String> getTraderIds() {
+        return traderIds;
+    }
+
+    /**
+     * Gets the directory the marketplace is in
+     *
+     * @return the directory
+     */
+    public Path getDirectory() {
+        return DIRECTORY;
+    }
+
+    /**
+     * Deletes the files of the marketplace
+     *
+     * @throws IOException if the files can't be deleted
+     */
+    public void delete() throws IOException {
+        deleteDirectory(DIRECTORY);
+    }
+
+    /**
+     * Makes the folders the program expects and writes trader settings with limits high enough that the generated
+     * traders can keep trading
+     */
+    private void prepareDirectory() throws IOException {
+        Files.createDirectories(Paths.get(DatabaseFilePaths.USER.getFilePath()).getParent());
+        Path propertyFile = Paths.get(DatabaseFilePaths.TRADER_CONFIG.getFilePath());
+        Files.createDirectories(propertyFile.getParent());
+        Properties properties = new Properties();
+        properties.setProperty(TraderProperties.TRADE_LIMIT.getProperty(), "" + Integer.MAX_VALUE);
+        properties.setProperty(TraderProperties.INCOMPLETE_TRADE_LIM.getProperty(), "" + Integer.MAX_VALUE);
+        properties.setProperty(TraderProperties.MINIMUM_AMOUNT_NEEDED_TO_BORROW.getProperty(), "0");
+        try (Writer writer = new FileWriter(propertyFile.toFile())) {
+            properties.store(writer, "");
+        }
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.walk(from)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().equals(FINISHED_MARKER)) continue;
+                Path target = to.resolve(from.relativize(file).toString());
+                if (Files.isDirectory(file))
+                    Files.createDirectories(target);
+                else
+                    Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) return;
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<Path> paths = new ArrayList<>();
+            files.forEach(paths::add);
+            // Children before their parents
+            Collections.reverse(paths);
+            for (Path path : paths)
+                Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package benchmarks;
+
+import backend.exceptions.*;
+import backend.tradesystem.UserTypes;
+import backend.tradesystem.admin_managers.HandleItemRequestsManager;
+import backend.tradesystem.general_managers.LoginManager;
+import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.trader_managers.SettingsManager;
+import backend.tradesystem.trader_managers.TraderManager;
+import backend.tradesystem.trader_managers.TradingManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills the databases with a made up marketplace, going through the managers the same way frontend.TemporarySetup
+ * does: traders register, move to a city, request items that an admin accepts, add other traders' items to their
+ * wishlist and send each other trade requests.
+ */
+public class MarketplaceGenerator {
+    /**
+     * The password of every generated user
+     */
+    public static final String PASSWORD = "Benchmark1Password";
+
+    /**
+     * The username of the generated admin
+     */
+    public static final String ADMIN_USERNAME = "admin";
+
+    private static final String[] CITIES = {"Toronto", "New York", "Dallas", "Vancouver", "Montreal", "Chicago",
+            "Boston", "Seattle", "Calgary", "Ottawa"};
+    private static final String[] ADJECTIVES = {"Red", "Blue", "Old", "New", "Small", "Large", "Wooden", "Metal",
+            "Vintage", "Electric", "Golden", "Silver", "Broken", "Shiny", "Handmade", "Used"};
+    private static final String[] NOUNS = {"Chair", "Table", "Lamp", "Guitar", "Bicycle", "Camera", "Laptop",
+            "Monitor", "Keyboard", "Mouse", "Watch", "Jacket", "Shoes", "Hat", "Book", "Phone", "Headphones",
+            "Backpack", "Bottle", "Sharpener", "Pencil", "Diamond", "Ruby", "Sapphire", "Motherboard", "Webcam"};
+
+    private final int NUM_TRADERS;
+    private final int NUM_ITEMS;
+    private final int WISHES_PER_TRADER;
+    private final Random random;
+
+    private final List<String> traderIds = new ArrayList<>();
+    private final List<String> itemIds = new ArrayList<>();
+    private final List<Integer> itemOwners = new ArrayList<>();
+
+    /**
+     * Makes a generator for a marketplace
+     *
+     * @param numTraders      how many traders to make
+     * @param numItems        how many items there are in all the inventories, spread evenly between the traders
+     * @param wishesPerTrader how many items of other traders each trader wants
+     * @param seed            the seed used for every random choice, so the same marketplace can be made again
+     */
+    public MarketplaceGenerator(int numTraders, int numItems, int wishesPerTrader, long seed) {
+        this.NUM_TRADERS = numTraders;
+        this.NUM_ITEMS = numItems;
+        this.WISHES_PER_TRADER = wishesPerTrader;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Gets the username of a generated trader
+     *
+     * @param index which trader it is
+     * @return the username
+     */
+    public static String getUsername(int index) {
+        return "trader" + index;
+    }
+
+    /**
+     * Makes up the name of an item
+     *
+     * @param random where the random choices come from
+     * @return the name
+     */
+    public static String getItemName(Random random) {
+        return ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)];
+    }
+
+    /**
+     * Picks a random city
+     *
+     * @param random where the random choices come from
+     * @return the city
+     */
+    public static String getCity(Random random) {
+        return CITIES[random.nextInt(CITIES.length)];
+    }
+
+    /**
+     * Makes the marketplace. The databases should be empty.
+     *
+     * @throws IOException if the databases can't be used
+     * @throws EntryNotFoundException if something that was just made can't be found
+     * @throws UserAlreadyExistsException if the databases weren't empty
+     * @throws BadPasswordException if the password isn't valid
+     * @throws AuthorizationException if a trader isn't allowed to do something
+     * @throws CannotTradeException if a trade request can't be sent
+     */
+    public void generate() throws IOException, EntryNotFoundException, UserAlreadyExistsException,
+            BadPasswordException, AuthorizationException, CannotTradeException {
+        LoginManager loginManager = new LoginManager();
+        SettingsManager settingsManager = new SettingsManager();
+        TraderManager traderManager = new TraderManager();
+        HandleItemRequestsManager itemRequestsManager = new HandleItemRequestsManager();
+        TradingManager tradingManager = new TradingManager();
+        UserQuery userQuery = new UserQuery();
+
+        loginManager.registerUser(ADMIN_USERNAME, PASSWORD, UserTypes.ADMIN);
+
+        // Traders with their inventories
+        for (int i = 0; i < NUM_TRADERS; i++) {
+            String traderId = loginManager.registerUser(getUsername(i), PASSWORD, UserTypes.TRADER);
+            settingsManager.setCity(traderId, getCity(random));
+            int numItems = NUM_ITEMS / NUM_TRADERS + (i < NUM_ITEMS % NUM_TRADERS ? 1 : 0);
+            for (int j = 0; j < numItems; j++) {
+                traderManager.addRequestItem(traderId, getItemName(random), "Generated item");
+                List<String> requestedItems = userQuery.getRequestedItems(traderId);
+                String itemId = requestedItems.get(requestedItems.size() - 1);
+                itemRequestsManager.processItemRequest(traderId, itemId, true);
+                itemIds.add(itemId);
+                itemOwners.add(i);
+            }
+            traderIds.add(traderId);
+        }
+
+        // Wishlists, made of items that other traders have
+        for (int i = 0; i < NUM_TRADERS && !itemIds.isEmpty(); i++) {
+            for (int j = 0; j < WISHES_PER_TRADER; j++) {
+                int item = random.nextInt(itemIds.size());
+                if (itemOwners.get(item) != i)
+                    traderManager.addToWishList(traderIds.get(i), itemIds.get(item));
+            }
+        }
+
+        // Every fourth trader has sent someone a trade request
+        Date meetingTime = new Date(System.currentTimeMillis() + 7L * 24 * 60 * 60 * 1000);
+        for (int i = 0; i < NUM_TRADERS && NUM_TRADERS > 1; i += 4) {
+            int other = random.nextInt(NUM_TRADERS - 1);
+            if (other >= i) other++;
+            String traderId = traderIds.get(i);
+            String otherTraderId = traderIds.get(other);
+            if (userQuery.getAvailableItems(traderId).isEmpty() || userQuery.getAvailableItems(otherTraderId).isEmpty())
+                continue;
+            tradingManager.requestTrade(traderId, otherTraderId, meetingTime, null, "Generated location",
+                    userQuery.getAvailableItems(traderId).get(0), userQuery.getAvailableItems(otherTraderId).get(0),
+                    3, "Generated trade request");
+        }
+    }
+
+    /**
+     * Gets the ids of the generated traders, in the order they were made
+     *
+     * @return the trader ids
+     */
+    public List<String> getTraderIds() {
+        return traderIds;
+    }
+
+    /**
+     * Gets the ids of the generated items
+     *
+     * @return the item ids
+     */
+    public List<String> getItemIds() {
+        return itemIds;
+    }
+}
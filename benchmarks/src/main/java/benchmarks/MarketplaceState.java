@@ -0,0 +1,87 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The marketplace a benchmark runs against. Every fork gets its own copy, so changes made by one benchmark don't
+ * leak into the next.
+ */
+@State(Scope.Benchmark)
+public class MarketplaceState {
+    /**
+     * How many traders the marketplace has
+     */
+    @Param({"1000", "10000", "100000"})
+    public int traders;
+
+    /**
+     * The seed used to generate the marketplace
+     */
+    @Param({"42"})
+    public long seed;
+
+    private Marketplace marketplace;
+    private Random random;
+
+    /**
+     * Makes the marketplace
+     *
+     * @throws Exception if the marketplace can't be made
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        marketplace = new Marketplace(traders, seed);
+        random = new Random(seed);
+    }
+
+    /**
+     * Deletes the marketplace
+     *
+     * @throws IOException if the files can't be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        marketplace.delete();
+    }
+
+    /**
+     * Gets the ids of every trader
+     *
+     * @return the trader ids
+     */
+    public List<String> getTraderIds() {
+        return marketplace.getTraderIds();
+    }
+
+    /**
+     * Gets a random trader
+     *
+     * @return the trader id
+     */
+    public String randomTrader() {
+        List<String> traderIds = marketplace.getTraderIds();
+        return traderIds.get(random.nextInt(traderIds.size()));
+    }
+
+    /**
+     * Gets a random index into the trader ids
+     *
+     * @return the index
+     */
+    public int randomTraderIndex() {
+        return random.nextInt(marketplace.getTraderIds().size());
+    }
+
+    /**
+     * Gets where random choices come from
+     *
+     * @return the random number generator
+     */
+    public Random getRandom() {
+        return random;
+    }
+}
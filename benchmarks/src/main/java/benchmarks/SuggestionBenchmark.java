@@ -0,0 +1,79 @@
+package benchmarks;
+
+import backend.exceptions.AuthorizationException;
+import backend.exceptions.UserNotFoundException;
+import backend.tradesystem.suggestion_strategies.ExactWishlistSuggestion;
+import backend.tradesystem.suggestion_strategies.SimilarWishlistSuggestion;
+import backend.tradesystem.suggestion_strategies.SuggestionStrategy;
+import backend.tradesystem.trader_managers.TradingInfoManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggesting what a random trader could lend or trade, with both suggestion strategies
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SuggestionBenchmark {
+    /**
+     * Which suggestion strategy is used
+     */
+    @Param({"exact", "similar"})
+    public String strategy;
+
+    /**
+     * Whether only traders in the same city are suggested
+     */
+    @Param({"false", "true"})
+    public boolean inCity;
+
+    private TradingInfoManager tradingInfoManager;
+    private SuggestionStrategy suggestionStrategy;
+
+    /**
+     * Makes the manager and the strategy
+     *
+     * @param marketplace the marketplace, which has to be set up first
+     * @throws IOException if the manager can't be made
+     */
+    @Setup(Level.Trial)
+    public void setUp(MarketplaceState marketplace) throws IOException {
+        tradingInfoManager = new TradingInfoManager();
+        if (strategy.equals("exact"))
+            suggestionStrategy = new ExactWishlistSuggestion();
+        else
+            suggestionStrategy = new SimilarWishlistSuggestion();
+    }
+
+    /**
+     * Suggests an item for a random trader to lend
+     *
+     * @param marketplace the marketplace
+     * @return the suggestion
+     * @throws UserNotFoundException  if the trader wasn't found
+     * @throws AuthorizationException if the user isn't a trader
+     */
+    @Benchmark
+    public String[] suggestLend(MarketplaceState marketplace) throws UserNotFoundException, AuthorizationException {
+        return tradingInfoManager.suggestLend(marketplace.randomTrader(), inCity, suggestionStrategy);
+    }
+
+    /**
+     * Suggests a trade for a random trader
+     *
+     * @param marketplace the marketplace
+     * @return the suggestion
+     * @throws UserNotFoundException  if the trader wasn't found
+     * @throws AuthorizationException if the user isn't a trader
+     */
+    @Benchmark
+    public String[] suggestTrade(MarketplaceState marketplace) throws UserNotFoundException, AuthorizationException {
+        return tradingInfoManager.suggestTrade(marketplace.randomTrader(), inCity, suggestionStrategy);
+    }
+}
@@ -0,0 +1,198 @@
+package benchmarks;
+
+import backend.exceptions.*;
+import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.trader_managers.TradingManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requesting, accepting and completing trades. Every trade is a temporary trade between two random traders that is
+ * undone or completed after it is measured, so the traders keep their items between invocations.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradingBenchmark {
+    private static final long DAY = 24 * 60 * 60 * 1000;
+
+    /**
+     * Two random traders and an item of each
+     */
+    @State(Scope.Thread)
+    public static class TradeState {
+        TradingManager tradingManager;
+        UserQuery userQuery;
+        String firstTrader;
+        String secondTrader;
+        String firstItem;
+        String secondItem;
+        String tradeId;
+
+        /**
+         * Makes the managers
+         *
+         * @param marketplace the marketplace, which has to be set up first
+         * @throws IOException if the managers can't be made
+         */
+        @Setup(Level.Trial)
+        public void setUpManagers(MarketplaceState marketplace) throws IOException {
+            tradingManager = new TradingManager();
+            userQuery = new UserQuery();
+        }
+
+        /**
+         * Picks the traders and items for the next invocation
+         *
+         * @param marketplace the marketplace
+         * @throws UserNotFoundException  if a trader wasn't found
+         * @throws AuthorizationException if a user isn't a trader
+         */
+        void pickTraders(MarketplaceState marketplace) throws UserNotFoundException, AuthorizationException {
+            do {
+                firstTrader = marketplace.randomTrader();
+                secondTrader = marketplace.randomTrader();
+            } while (firstTrader.equals(secondTrader) || userQuery.getAvailableItems(firstTrader).isEmpty() ||
+                    userQuery.getAvailableItems(secondTrader).isEmpty());
+            List<String> firstItems = userQuery.getAvailableItems(firstTrader);
+            List<String> secondItems = userQuery.getAvailableItems(secondTrader);
+            firstItem = firstItems.get(marketplace.getRandom().nextInt(firstItems.size()));
+            secondItem = secondItems.get(marketplace.getRandom().nextInt(secondItems.size()));
+        }
+
+        /**
+         * Sends a trade request between the picked traders
+         *
+         * @throws UserNotFoundException  if a trader wasn't found
+         * @throws AuthorizationException if a trader doesn't have their item
+         * @throws CannotTradeException   if the traders can't trade
+         */
+        void request() throws UserNotFoundException, AuthorizationException, CannotTradeException {
+            long now = System.currentTimeMillis();
+            tradeId = tradingManager.requestTrade(firstTrader, secondTrader, new Date(now + DAY),
+                    new Date(now + 2 * DAY), "Benchmark location", firstItem, secondItem, 3, "Benchmark trade");
+        }
+    }
+
+    /**
+     * Has the traders picked before each request is sent, and cancels the request afterwards
+     */
+    @State(Scope.Thread)
+    public static class RequestState extends TradeState {
+        /**
+         * Picks the traders
+         *
+         * @param marketplace the marketplace
+         * @throws UserNotFoundException  if a trader wasn't found
+         * @throws AuthorizationException if a user isn't a trader
+         */
+        @Setup(Level.Invocation)
+        public void setUp(MarketplaceState marketplace) throws UserNotFoundException, AuthorizationException {
+            pickTraders(marketplace);
+        }
+
+        /**
+         * Cancels the request
+         *
+         * @throws TradeNotFoundException if the request wasn't found
+         * @throws UserNotFoundException  if a trader wasn't found
+         * @throws AuthorizationException if a user isn't a trader
+         */
+        @TearDown(Level.Invocation)
+        public void tearDown() throws TradeNotFoundException, UserNotFoundException, AuthorizationException {
+            tradingManager.rescindTradeRequest(tradeId);
+        }
+    }
+
+    /**
+     * Has a request sent before each acceptance, and undoes the trade afterwards
+     */
+    @State(Scope.Thread)
+    public static class AcceptState extends TradeState {
+        /**
+         * Sends the request that gets accepted
+         *
+         * @param marketplace the marketplace
+         * @throws Exception if the request can't be sent
+         */
+        @Setup(Level.Invocation)
+        public void setUp(MarketplaceState marketplace) throws Exception {
+            pickTraders(marketplace);
+            request();
+        }
+
+        /**
+         * Undoes the trade so the traders get their items back
+         *
+         * @throws Exception if the trade can't be undone
+         */
+        @TearDown(Level.Invocation)
+        public void tearDown() throws Exception {
+            tradingManager.rescindOngoingTrade(tradeId);
+        }
+    }
+
+    /**
+     * Has a trade accepted with all but the last meeting confirmation done before each confirmation
+     */
+    @State(Scope.Thread)
+    public static class ConfirmState extends TradeState {
+        /**
+         * Sends and accepts the trade, then confirms the first meeting and half of the second
+         *
+         * @param marketplace the marketplace
+         * @throws Exception if the trade can't be made
+         */
+        @Setup(Level.Invocation)
+        public void setUp(MarketplaceState marketplace) throws Exception {
+            pickTraders(marketplace);
+            request();
+            tradingManager.acceptRequest(secondTrader, tradeId);
+            tradingManager.confirmMeetingGeneral(firstTrader, tradeId);
+            tradingManager.confirmMeetingGeneral(secondTrader, tradeId);
+            tradingManager.confirmMeetingGeneral(firstTrader, tradeId);
+        }
+    }
+
+    /**
+     * Sends a trade request
+     *
+     * @param state the traders
+     * @return the trade id
+     * @throws Exception if the request can't be sent
+     */
+    @Benchmark
+    public String requestTrade(RequestState state) throws Exception {
+        state.request();
+        return state.tradeId;
+    }
+
+    /**
+     * Accepts a trade request, which moves the items out of the inventories and checks the traders' other requests
+     *
+     * @param state the request
+     * @return if the request was accepted
+     * @throws Exception if the request can't be accepted
+     */
+    @Benchmark
+    public boolean acceptRequest(AcceptState state) throws Exception {
+        return state.tradingManager.acceptRequest(state.secondTrader, state.tradeId);
+    }
+
+    /**
+     * Confirms the last meeting of a trade, which completes it and gives the items back
+     *
+     * @param state the trade
+     * @throws Exception if the meeting can't be confirmed
+     */
+    @Benchmark
+    public void confirmMeetingGeneral(ConfirmState state) throws Exception {
+        state.tradingManager.confirmMeetingGeneral(state.secondTrader, state.tradeId);
+    }
+}
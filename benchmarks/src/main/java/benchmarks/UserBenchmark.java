@@ -0,0 +1,63 @@
+package benchmarks;
+
+import backend.exceptions.UserNotFoundException;
+import backend.tradesystem.general_managers.LoginManager;
+import backend.tradesystem.trader_managers.TradingInfoManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging in and searching for traders by name
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserBenchmark {
+    private LoginManager loginManager;
+    private TradingInfoManager tradingInfoManager;
+
+    /**
+     * Makes the managers
+     *
+     * @param marketplace the marketplace, which has to be set up first
+     * @throws IOException if the managers can't be made
+     */
+    @Setup(Level.Trial)
+    public void setUp(MarketplaceState marketplace) throws IOException {
+        loginManager = new LoginManager();
+        tradingInfoManager = new TradingInfoManager();
+    }
+
+    /**
+     * Logs in as a random trader
+     *
+     * @param marketplace the marketplace
+     * @return the id of the trader
+     * @throws UserNotFoundException if the trader wasn't found
+     */
+    @Benchmark
+    public String login(MarketplaceState marketplace) throws UserNotFoundException {
+        String username = MarketplaceGenerator.getUsername(marketplace.randomTraderIndex());
+        return loginManager.login(username, MarketplaceGenerator.PASSWORD);
+    }
+
+    /**
+     * Searches for part of the name of a random trader
+     *
+     * @param marketplace the marketplace
+     * @return the traders found
+     */
+    @Benchmark
+    public List<String> searchTrader(MarketplaceState marketplace) {
+        String username = MarketplaceGenerator.getUsername(marketplace.randomTraderIndex());
+        int start = marketplace.getRandom().nextInt(username.length());
+        int end = start + 1 + marketplace.getRandom().nextInt(username.length() - start);
+        return tradingInfoManager.searchTrader(username.substring(start, end));
+    }
+}
@@ -0,0 +1,511 @@
+package benchmarks;
+
+import backend.exceptions.*;
+import backend.tradesystem.UserTypes;
+import backend.tradesystem.admin_managers.HandleItemRequestsManager;
+import backend.tradesystem.general_managers.LoginManager;
+import backend.tradesystem.general_managers.MessageManager;
+import backend.tradesystem.queries.TradeQuery;
+import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.trader_managers.TraderManager;
+import backend.tradesystem.trader_managers.TradingManager;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replays a mix of what users do against the backend managers from many threads at once, then prints the latency
+ * percentiles and errors of every kind of operation. It runs against a generated marketplace in a temp directory,
+ * so the real database files are never touched.
+ * <p>
+ * Every thread has its own managers, just like every window of the program does, and the threads hand work to each
+ * other through queues: requested items wait for an admin to process them, and trades wait to be countered,
+ * accepted or have their meetings confirmed. An operation is skipped if there was nothing for it to work on.
+ */
+public class WorkloadDriver {
+    private static final long DAY = 24 * 60 * 60 * 1000;
+
+    /**
+     * What the driver can do
+     */
+    public enum Operation {
+        /**
+         * A new trader registers
+         */
+        REGISTER_USER("registerUser", 2),
+        /**
+         * A trader asks for an item to be added to their inventory
+         */
+        ADD_REQUEST_ITEM("addRequestItem", 10),
+        /**
+         * An admin accepts a requested item
+         */
+        PROCESS_ITEM_REQUEST("processItemRequest", 10),
+        /**
+         * A trader sends another trader a trade request
+         */
+        REQUEST_TRADE("requestTrade", 20),
+        /**
+         * A trader changes a trade request they were sent
+         */
+        COUNTER_TRADE_OFFER("counterTradeOffer", 8),
+        /**
+         * A trader accepts a trade request they were sent
+         */
+        ACCEPT_REQUEST("acceptRequest", 15),
+        /**
+         * A trader confirms a meeting of an accepted trade
+         */
+        CONFIRM_MEETING_GENERAL("confirmMeetingGeneral", 15),
+        /**
+         * A trader messages another trader
+         */
+        SEND_MESSAGE("sendMessage", 20);
+
+        private final String NAME;
+        private final int DEFAULT_WEIGHT;
+
+        Operation(String name, int defaultWeight) {
+            this.NAME = name;
+            this.DEFAULT_WEIGHT = defaultWeight;
+        }
+
+        /**
+         * Gets the name of the manager method the operation calls
+         *
+         * @return the name
+         */
+        public String getName() {
+            return NAME;
+        }
+
+        /**
+         * Gets how often the operation happens compared to the others when no mix is given
+         *
+         * @return the weight
+         */
+        public int getDefaultWeight() {
+            return DEFAULT_WEIGHT;
+        }
+
+        /**
+         * Gets the operation with the name
+         *
+         * @param name the name of the manager method
+         * @return the operation
+         * @throws IllegalArgumentException if no operation has that name
+         */
+        public static Operation fromName(String name) {
+            for (Operation operation : values())
+                if (operation.NAME.equalsIgnoreCase(name))
+                    return operation;
+            throw new IllegalArgumentException("Unknown operation " + name);
+        }
+    }
+
+    /**
+     * What happened to one kind of operation
+     */
+    private static class OperationResult {
+        final LatencyRecorder latencies = new LatencyRecorder();
+        final Map<String, Integer> errors = new TreeMap<>();
+        int skipped;
+
+        void addAll(OperationResult other) {
+            latencies.addAll(other.latencies);
+            other.errors.forEach((error, count) -> errors.merge(error, count, Integer::sum));
+            skipped += other.skipped;
+        }
+
+        int getErrorCount() {
+            int total = 0;
+            for (int count : errors.values())
+                total += count;
+            return total;
+        }
+    }
+
+    // Work that threads hand to each other
+    private final List<String> traderIds = Collections.synchronizedList(new ArrayList<>());
+    private final Queue<String[]> requestedItems = new ConcurrentLinkedQueue<>();
+    private final Queue<String> pendingTrades = new ConcurrentLinkedQueue<>();
+    private final Queue<String> acceptedTrades = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger registered = new AtomicInteger();
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+    /**
+     * Makes a driver for the traders
+     *
+     * @param traderIds the traders that already exist
+     * @param weights   how often each operation happens compared to the others
+     */
+    public WorkloadDriver(List<String> traderIds, Map<Operation, Integer> weights) {
+        this.traderIds.addAll(traderIds);
+        operations = weights.keySet().toArray(new Operation[0]);
+        cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) throw new IllegalArgumentException("At least one operation needs a weight");
+        totalWeight = total;
+    }
+
+    /**
+     * Runs operations from many threads at once
+     *
+     * @param numThreads    how many threads there are
+     * @param numOperations how many operations are done in total
+     * @param seed          the seed of the random choices, every thread gets a different one from it
+     * @return what happened to every kind of operation
+     * @throws Exception if the managers can't be made or a thread is interrupted
+     */
+    private Map<Operation, OperationResult> run(int numThreads, int numOperations, long seed) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Map<Operation, OperationResult>>> futures = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            Worker worker = new Worker(new Random(seed + i));
+            int workerOperations = numOperations / numThreads + (i < numOperations % numThreads ? 1 : 0);
+            futures.add(executor.submit(() -> {
+                start.await();
+                return worker.run(workerOperations);
+            }));
+        }
+        start.countDown();
+
+        Map<Operation, OperationResult> results = new EnumMap<>(Operation.class);
+        for (Operation operation : operations)
+            results.put(operation, new OperationResult());
+        try {
+            for (Future<Map<Operation, OperationResult>> future : futures)
+                future.get().forEach((operation, result) -> results.get(operation).addAll(result));
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Does operations on one thread with managers of its own
+     */
+    private class Worker {
+        private final Random random;
+        private final LoginManager loginManager;
+        private final TraderManager traderManager;
+        private final HandleItemRequestsManager itemRequestsManager;
+        private final TradingManager tradingManager;
+        private final MessageManager messageManager;
+        private final UserQuery userQuery;
+        private final TradeQuery tradeQuery;
+
+        Worker(Random random) throws IOException {
+            this.random = random;
+            loginManager = new LoginManager();
+            traderManager = new TraderManager();
+            itemRequestsManager = new HandleItemRequestsManager();
+            tradingManager = new TradingManager();
+            messageManager = new MessageManager();
+            userQuery = new UserQuery();
+            tradeQuery = new TradeQuery();
+        }
+
+        Map<Operation, OperationResult> run(int numOperations) {
+            Map<Operation, OperationResult> results = new EnumMap<>(Operation.class);
+            for (Operation operation : operations)
+                results.put(operation, new OperationResult());
+            for (int i = 0; i < numOperations; i++) {
+                Operation operation = pickOperation();
+                OperationResult result = results.get(operation);
+                long start = System.nanoTime();
+                try {
+                    if (perform(operation))
+                        result.latencies.record(System.nanoTime() - start);
+                    else
+                        result.skipped++;
+                } catch (Exception e) {
+                    result.errors.merge(e.getClass().getSimpleName(), 1, Integer::sum);
+                }
+            }
+            return results;
+        }
+
+        private Operation pickOperation() {
+            int weight = random.nextInt(totalWeight);
+            for (int i = 0; i < operations.length; i++)
+                if (weight < cumulativeWeights[i])
+                    return operations[i];
+            return operations[operations.length - 1];
+        }
+
+        /**
+         * Does an operation, the time this takes is what gets measured
+         *
+         * @param operation the operation
+         * @return false if there was nothing for the operation to work on
+         * @throws Exception if the manager didn't allow the operation
+         */
+        private boolean perform(Operation operation) throws Exception {
+            switch (operation) {
+                case REGISTER_USER:
+                    String username = "worker" + registered.getAndIncrement();
+                    traderIds.add(loginManager.registerUser(username, MarketplaceGenerator.PASSWORD, UserTypes.TRADER));
+                    return true;
+                case ADD_REQUEST_ITEM:
+                    return addRequestItem();
+                case PROCESS_ITEM_REQUEST:
+                    String[] request = requestedItems.poll();
+                    if (request == null) return false;
+                    itemRequestsManager.processItemRequest(request[0], request[1], true);
+                    return true;
+                case REQUEST_TRADE:
+                    return requestTrade();
+                case COUNTER_TRADE_OFFER:
+                    return counterTradeOffer();
+                case ACCEPT_REQUEST:
+                    return acceptRequest();
+                case CONFIRM_MEETING_GENERAL:
+                    return confirmMeetingGeneral();
+                case SEND_MESSAGE:
+                    String[] traders = pickTwoTraders();
+                    if (traders == null) return false;
+                    messageManager.sendMessage(traders[0], traders[1], "Are you still interested in trading?");
+                    return true;
+                default:
+                    throw new IllegalStateException("Unknown operation " + operation);
+            }
+        }
+
+        private boolean addRequestItem() throws UserNotFoundException, AuthorizationException {
+            String traderId = randomTrader();
+            traderManager.addRequestItem(traderId, MarketplaceGenerator.getItemName(random), "Requested by a worker");
+            List<String> requested = userQuery.getRequestedItems(traderId);
+            // Another thread may have processed it already
+            if (!requested.isEmpty())
+                requestedItems.add(new String[]{traderId, requested.get(requested.size() - 1)});
+            return true;
+        }
+
+        private boolean requestTrade() throws UserNotFoundException, AuthorizationException, CannotTradeException {
+            String[] traders = pickTwoTraders();
+            if (traders == null) return false;
+            String firstOffer = randomItem(traders[0]);
+            String secondOffer = randomItem(traders[1]);
+            if (firstOffer.equals("") && secondOffer.equals("")) return false;
+            long now = System.currentTimeMillis();
+            Date secondMeeting = random.nextBoolean() ? new Date(now + 30 * DAY) : null;
+            pendingTrades.add(tradingManager.requestTrade(traders[0], traders[1], new Date(now + DAY), secondMeeting,
+                    "Worker location", firstOffer, secondOffer, 3, "Requested by a worker"));
+            return true;
+        }
+
+        private boolean counterTradeOffer() throws Exception {
+            String tradeId = pendingTrades.poll();
+            if (tradeId == null) return false;
+            String traderId = tradeQuery.getUserTurnToEdit(tradeId);
+            String otherTraderId = tradeQuery.getOtherUserId(tradeId, traderId);
+            String thisOffer = randomItem(traderId);
+            String thatOffer = randomItem(otherTraderId);
+            if (thisOffer.equals("") && thatOffer.equals("")) {
+                pendingTrades.add(tradeId);
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            Date secondMeeting = tradeQuery.getSecondMeetingTime(tradeId) == null ? null : new Date(now + 30 * DAY);
+            tradingManager.counterTradeOffer(traderId, tradeId, new Date(now + 2 * DAY), secondMeeting,
+                    "Countered location", thisOffer, thatOffer, "Countered by a worker");
+            pendingTrades.add(tradeId);
+            return true;
+        }
+
+        private boolean acceptRequest() throws Exception {
+            String tradeId = pendingTrades.poll();
+            if (tradeId == null) return false;
+            // Whoever's turn it is to edit is the one who hasn't accepted yet
+            if (tradingManager.acceptRequest(tradeQuery.getUserTurnToEdit(tradeId), tradeId))
+                acceptedTrades.add(tradeId);
+            return true;
+        }
+
+        private boolean confirmMeetingGeneral() throws Exception {
+            String tradeId = acceptedTrades.poll();
+            if (tradeId == null) return false;
+            String firstTraderId = tradeQuery.getFirstUserId(tradeId);
+            String secondTraderId = tradeQuery.getSecondUserId(tradeId);
+            String traderId;
+            boolean lastConfirmation;
+            if (!tradeQuery.isFirstUserConfirmed1(tradeId)) {
+                traderId = firstTraderId;
+                lastConfirmation = false;
+            } else if (!tradeQuery.isSecondUserConfirmed1(tradeId)) {
+                traderId = secondTraderId;
+                lastConfirmation = tradeQuery.getSecondMeetingTime(tradeId) == null;
+            } else if (!tradeQuery.isFirstUserConfirmed2(tradeId)) {
+                traderId = firstTraderId;
+                lastConfirmation = false;
+            } else {
+                traderId = secondTraderId;
+                lastConfirmation = true;
+            }
+            tradingManager.confirmMeetingGeneral(traderId, tradeId);
+            if (!lastConfirmation)
+                acceptedTrades.add(tradeId);
+            return true;
+        }
+
+        private String randomTrader() {
+            return traderIds.get(random.nextInt(traderIds.size()));
+        }
+
+        private String[] pickTwoTraders() {
+            if (traderIds.size() < 2) return null;
+            String first = randomTrader();
+            String second;
+            do {
+                second = randomTrader();
+            } while (second.equals(first));
+            return new String[]{first, second};
+        }
+
+        /**
+         * Picks an item the trader has
+         *
+         * @param traderId the trader
+         * @return the item id, or an empty string if the trader has nothing, which means borrowing or lending
+         */
+        private String randomItem(String traderId) throws UserNotFoundException, AuthorizationException {
+            List<String> items = userQuery.getAvailableItems(traderId);
+            return items.isEmpty() ? "" : items.get(random.nextInt(items.size()));
+        }
+    }
+
+    /**
+     * Prints the results as a table
+     *
+     * @param results      what happened to every kind of operation
+     * @param elapsedNanos how long all the operations took
+     */
+    private static void printResults(Map<Operation, OperationResult> results, long elapsedNanos) {
+        System.out.printf("%-22s %9s %8s %8s %10s %10s %10s %10s %10s %10s%n", "Operation", "Count", "Errors",
+                "Skipped", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms");
+        long completed = 0;
+        for (Map.Entry<Operation, OperationResult> entry : results.entrySet()) {
+            OperationResult result = entry.getValue();
+            LatencyRecorder latencies = result.latencies;
+            completed += latencies.getCount();
+            System.out.printf("%-22s %9d %8d %8d %10.3f %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                    entry.getKey().getName(), latencies.getCount(), result.getErrorCount(), result.skipped,
+                    latencies.getMean() / 1e6, latencies.getPercentile(50) / 1e6, latencies.getPercentile(90) / 1e6,
+                    latencies.getPercentile(99) / 1e6, latencies.getPercentile(99.9) / 1e6,
+                    latencies.getPercentile(100) / 1e6);
+        }
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%nCompleted %d operations in %.1f s (%.1f operations per second)%n", completed, seconds,
+                completed / seconds);
+
+        boolean hasErrors = false;
+        for (Map.Entry<Operation, OperationResult> entry : results.entrySet()) {
+            for (Map.Entry<String, Integer> error : entry.getValue().errors.entrySet()) {
+                if (!hasErrors) System.out.println("\nErrors:");
+                hasErrors = true;
+                System.out.printf("  %-22s %-30s %d%n", entry.getKey().getName(), error.getKey(), error.getValue());
+            }
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: WorkloadDriver [--traders N] [--items M] [--threads T] [--operations K]");
+        System.out.println("                      [--warmup W] [--seed S] [--mix operation=weight,...]");
+        StringBuilder operations = new StringBuilder();
+        for (Operation operation : Operation.values())
+            operations.append(operations.length() == 0 ? "" : ",").append(operation.getName()).append("=")
+                    .append(operation.getDefaultWeight());
+        System.out.println("The default mix is " + operations);
+    }
+
+    /**
+     * Generates a marketplace and runs the workload against it
+     *
+     * @param args the options, see printUsage
+     * @throws Exception if the marketplace can't be made or a thread is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        int numTraders = 1000;
+        int numItems = -1;
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        int numOperations = 100000;
+        int numWarmup = 10000;
+        long seed = 42;
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values())
+            weights.put(operation, operation.getDefaultWeight());
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : "";
+                switch (args[i]) {
+                    case "--traders":
+                        numTraders = Integer.parseInt(value);
+                        break;
+                    case "--items":
+                        numItems = Integer.parseInt(value);
+                        break;
+                    case "--threads":
+                        numThreads = Integer.parseInt(value);
+                        break;
+                    case "--operations":
+                        numOperations = Integer.parseInt(value);
+                        break;
+                    case "--warmup":
+                        numWarmup = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--mix":
+                        weights.clear();
+                        for (String part : value.split(",")) {
+                            String[] operationWeight = part.split("=");
+                            if (operationWeight.length != 2)
+                                throw new IllegalArgumentException("Expected operation=weight but got " + part);
+                            weights.put(Operation.fromName(operationWeight[0].trim()),
+                                    Integer.parseInt(operationWeight[1].trim()));
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+                i++;
+            }
+            if (numTraders < 2 || numThreads < 1 || numOperations < 0 || numWarmup < 0)
+                throw new IllegalArgumentException("Needs at least two traders and one thread");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            printUsage();
+            return;
+        }
+        if (numItems < 0) numItems = numTraders * Marketplace.ITEMS_PER_TRADER;
+
+        System.out.printf("Generating %d traders with %d items%n", numTraders, numItems);
+        Marketplace marketplace = new Marketplace(numTraders, numItems, seed);
+        try {
+            WorkloadDriver driver = new WorkloadDriver(marketplace.getTraderIds(), weights);
+            if (numWarmup > 0) {
+                System.out.printf("Warming up with %d operations%n", numWarmup);
+                driver.run(numThreads, numWarmup, seed - 1);
+            }
+            System.out.printf("Running %d operations on %d threads%n%n", numOperations, numThreads);
+            long start = System.nanoTime();
+            Map<Operation, OperationResult> results = driver.run(numThreads, numOperations, seed);
+            printResults(results, System.nanoTime() - start);
+        } finally {
+            marketplace.delete();
+        }
+    }
+}
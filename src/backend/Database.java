@@ -1,41 +1,120 @@
 package backend;
 
 
+import backend.exceptions.ConflictException;
 import backend.exceptions.EntryNotFoundException;
 import backend.models.Idable;
+import backend.models.ModelCodec;
 
 import java.io.*;
 
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
 
 /**
  * This class is used to store a list of items with methods provided to update entries of that list.
- * The list of items is stored using a Linked List in .ser files. Any object being stored must be serializable.
+ * The list of items is stored in .ser files using the binary format of ModelCodec. Files that were saved with Java
+ * serialization by older versions are still read, and get saved in the new format as soon as they are read.
+ * The file is only read once, after that every lookup is served from the items kept in memory. The file is read
+ * again if another database object in this program saved it, or if something outside of this program changed it,
+ * which is only checked once in a while.
+ * <p>
+ * Saving an item replaces the instance kept in memory instead of changing it, so the instances can be handed out by
+ * read without copying them, as long as nobody changes them. Code that changes items gets copies with populate.
+ * <p>
+ * Updates and deletes don't rewrite the .ser file, instead they get appended as a single record to a log file that
+ * sits next to it. Several changes can be committed together as one record, so either all of them or none of them
+ * are read back. Once the log holds about as many changes as there are items, the items are saved into the .ser file
+ * and the log is emptied. When reading, the log is replayed on top of the .ser file.
+ * <p>
+ * Every item has a version that goes up each time it is saved. Updates can be made conditional on the version the
+ * caller last read, so that a change someone else saved in the meantime isn't silently overwritten.
+ * <p>
+ * Indexes can be added to find items by something other than their id. They are kept in memory only, built when
+ * the items are read and kept up to date by every update and delete.
  * Code is partially taken from logging.zip, StudentManager.java from week 6 slides and codes
  *
  */
 public class Database implements Serializable {
+    /**
+     * What gets added to the end of the .ser file path to get the path of its log file
+     */
+    public static final String LOG_FILE_EXTENSION = ".log";
+
+    // The log always gets to have at least this many changes before it is folded into the .ser file
+    private static final int MIN_LOGGED_CHANGES_BEFORE_COMPACTION = 64;
+    private static final byte UPDATE_RECORD = 1;
+    private static final byte DELETE_RECORD = 2;
+    // Files in the binary format start with these bytes, files saved with Java serialization start with 0xACED
+    private static final int FILE_MAGIC = 0x54524144;
+    // The first byte of a record written with Java serialization
+    private static final byte SERIALIZED_RECORD = (byte) 0xAC;
+    // How long the files are trusted to be unchanged by anything outside of this program
+    private static final long FILE_CHECK_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
     private final String FILE_PATH;
+    private final String LOG_FILE_PATH;
+    // Counts how many times the file was saved in this program
+    private final AtomicLong GENERATION;
+
+    // The items that are currently in the file, null if the file hasn't been read yet
+    private HashMap<String, Idable> items;
+    // Whether the items were read from a file saved with Java serialization
+    private boolean isOldFormat;
+    private int loggedChanges;
+    private long loadedGeneration;
+    private long loadedLastModified;
+    private long loadedLength;
+    private long loadedLogLastModified;
+    private long loadedLogLength;
+    private long filesCheckedAt;
+    private final Map<String, DatabaseIndex> indexes = new HashMap<>();
+    private final Map<String, SortedDatabaseIndex> sortedIndexes = new HashMap<>();
+
+    // Counts how many times each file was saved in this program, so other databases using the same file know to reload
+    private static final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
 
     private static final Logger logger = Logger.getLogger(Database.class.getName());
     private static final Handler consoleHandler = new ConsoleHandler();
 
+    static {
+        logger.setLevel(Level.ALL);
+        consoleHandler.setLevel(Level.WARNING);
+        logger.addHandler(consoleHandler);
+    }
+
     /**
-     * For storing the file path of the .ser file
+     * For storing the file path of the .ser file. Nothing is read or created until the database is first used.
+     * Managers should get their databases from DatabaseRegistry so that every part of the program shares the same
+     * items in memory.
      *
      * @param filePath must take in .ser file
-     * @throws IOException if creating a file causes issues
      */
-    public Database(String filePath) throws IOException {
-        logger.setLevel(Level.ALL);
-        consoleHandler.setLevel(Level.WARNING);
-        logger.addHandler(consoleHandler);
+    public Database(String filePath) {
         this.FILE_PATH = filePath;
-        new File(filePath).createNewFile();
+        this.LOG_FILE_PATH = filePath + LOG_FILE_EXTENSION;
+        this.GENERATION = generations.computeIfAbsent(new File(filePath).getAbsolutePath(), path -> new AtomicLong());
     }
 
     /**
@@ -44,48 +123,350 @@ public class Database implements Serializable {
      * @param newItem the item to replace to existing entry (if it exists)
      * @return the old item in the entry, if it doesn't exist then the new item is returned
      */
-    public Idable update(Idable newItem) {
-        HashMap<String, Idable> allItems = getItems();
-        Idable oldItem = allItems.getOrDefault(newItem.getId(), newItem);
-        try {
-            allItems.put(newItem.getId(), newItem);
-            save(allItems);
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Input could not be read. Failed to update.", e);
-        }
+    public synchronized Idable update(Idable newItem) {
+        Idable oldItem = getResidentItems().getOrDefault(newItem.getId(), newItem);
+        commit(Collections.singletonList(newItem), Collections.emptyList());
         return oldItem;
 
     }
 
+    /**
+     * Updates the entry with the same id, but only if nobody saved it since the given version was read
+     *
+     * @param newItem         the item to replace the existing entry with
+     * @param expectedVersion the version of the entry when it was read, 0 for an entry that doesn't exist yet
+     * @return the old item in the entry, if it doesn't exist then the new item is returned
+     * @throws ConflictException if the entry isn't at the expected version anymore
+     */
+    public synchronized Idable update(Idable newItem, long expectedVersion) {
+        Idable oldItem = getResidentItems().getOrDefault(newItem.getId(), newItem);
+        commit(Collections.singletonList(newItem), Collections.emptyList(),
+                Collections.singletonMap(newItem.getId(), expectedVersion));
+        return oldItem;
+    }
+
+    /**
+     * Gets the version of an entry
+     *
+     * @param id the entry id
+     * @return the version
+     * @throws EntryNotFoundException if the entry doesn't exist
+     */
+    public synchronized long getVersion(String id) throws EntryNotFoundException {
+        Idable item = getResidentItems().get(id);
+        if (item == null) throw new EntryNotFoundException("Could not find item " + id);
+        return item.getVersion();
+    }
+
     /**
      * Deletes an entry in the list of items if it exists
      *
      * @param id the entry id
      */
-    public void delete(String id) {
-        HashMap<String, Idable> allItems = getItems();
-        if (allItems.containsKey(id)) {
-            allItems.remove(id);
+    public synchronized void delete(String id) {
+        if (getResidentItems().containsKey(id))
+            commit(Collections.emptyList(), Collections.singletonList(id));
+    }
+
+    /**
+     * Updates and deletes several entries at once. All of the changes are written as a single record, so if the
+     * program stops while they are being written none of them will be kept.
+     *
+     * @param newItems the items to replace existing entries with (or to add if the entry doesn't exist)
+     * @param deletedIds the ids of entries to delete
+     * @throws UncheckedIOException if the changes couldn't be written, in which case none of them are made
+     */
+    public synchronized void commit(Collection<? extends Idable> newItems, Collection<String> deletedIds) {
+        commit(newItems, deletedIds, Collections.emptyMap());
+    }
+
+    /**
+     * Updates and deletes several entries at once, but only if the entries are still at the versions they were
+     * read at. Either every change is made or none of them are. The changes are written to the log before they are
+     * made in memory, so what is in memory is never ahead of what is in the files.
+     *
+     * @param newItems         the items to replace existing entries with (or to add if the entry doesn't exist)
+     * @param deletedIds       the ids of entries to delete
+     * @param expectedVersions the version each entry was read at, entries that aren't in here aren't checked
+     * @throws ConflictException    if an entry isn't at the expected version anymore
+     * @throws UncheckedIOException if the changes couldn't be written, in which case none of them are made
+     */
+    public synchronized void commit(Collection<? extends Idable> newItems, Collection<String> deletedIds,
+                                    Map<String, Long> expectedVersions) {
+        checkVersions(expectedVersions);
+        if (newItems.isEmpty() && deletedIds.isEmpty()) return;
+        byte[] record = prepareRecord(newItems, deletedIds);
+        try {
+            appendRecord(record, newItems.size() + deletedIds.size());
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "The changes to " + FILE_PATH + " could not be saved.", e);
+            throw new UncheckedIOException("Could not save the changes to " + FILE_PATH, e);
+        }
+        apply(newItems, deletedIds);
+    }
+
+    /**
+     * Commits changes to several databases as one, so that either all of them are kept or none of them are, even if
+     * the program stops halfway through. Every database is checked before anything is written.
+     * <p>
+     * When more than one database changes, the records of all of them are first written together to the journal of
+     * the directory the databases are in. That is the point where the changes are kept: they are then appended to the
+     * log of each database, and the journal is emptied once every log has them. If the program stops before that,
+     * the journal is appended to the logs again the next time a database in the directory is read. A record that
+     * couldn't be appended to its log is kept by the journal and appended the next time the program starts, which
+     * can put it after newer records of the same items. Reading a log skips records that are older than what was
+     * already read, so this never brings back an older item.
+     *
+     * @param batches the changes to each database, in the order they are made
+     * @throws ConflictException        if an entry isn't at the expected version anymore, nothing is changed then
+     * @throws UncheckedIOException     if the journal couldn't be written, nothing is changed then
+     * @throws IllegalArgumentException if the databases aren't all in the same directory
+     */
+    public static void commitAll(List<Batch> batches) {
+        TreeMap<String, Database> databases = new TreeMap<>();
+        for (Batch batch : batches)
+            databases.put(batch.DATABASE.FILE_PATH, batch.DATABASE);
+        if (databases.isEmpty()) return;
+        TransactionJournal journal = TransactionJournal.get(databases.firstEntry().getValue().getDirectory());
+        for (Database database : databases.values()) {
+            if (!database.getDirectory().equals(journal.getDirectory()))
+                throw new IllegalArgumentException(database.FILE_PATH + " isn't in " + journal.getDirectory());
+        }
+        // The databases are always locked in the order of their paths, so two commits can't wait on each other
+        synchronized (journal) {
+            runLocked(new ArrayList<>(databases.values()), 0, () -> commitLocked(journal, batches));
+        }
+    }
+
+    /**
+     * Commits changes to several databases while holding the lock of every one of them
+     *
+     * @param journal the journal of the directory the databases are in
+     * @param batches the changes to each database
+     */
+    private static void commitLocked(TransactionJournal journal, List<Batch> batches) {
+        List<Batch> changed = new ArrayList<>();
+        for (Batch batch : batches) {
+            batch.DATABASE.checkVersions(batch.EXPECTED_VERSIONS);
+            if (!batch.NEW_ITEMS.isEmpty() || !batch.DELETED_IDS.isEmpty())
+                changed.add(batch);
+        }
+        if (changed.size() == 1) {
+            Batch batch = changed.get(0);
+            batch.DATABASE.commit(batch.NEW_ITEMS, batch.DELETED_IDS);
+        }
+        if (changed.size() <= 1) return;
+
+        LinkedHashMap<String, byte[]> records = new LinkedHashMap<>();
+        for (Batch batch : changed)
+            records.put(batch.DATABASE.getFileName(), batch.DATABASE.prepareRecord(batch.NEW_ITEMS, batch.DELETED_IDS));
+        try {
+            journal.write(records);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "The changes could not be saved to the journal.", e);
+            throw new UncheckedIOException("Could not save the changes to the journal", e);
+        }
+        Map<String, byte[]> unlogged = new LinkedHashMap<>();
+        for (Batch batch : changed) {
+            Database database = batch.DATABASE;
             try {
-                save(allItems);
-            } catch (FileNotFoundException e) {
-                logger.log(Level.SEVERE, "Could not save when deleting.", e);
+                database.appendRecord(records.get(database.getFileName()),
+                        batch.NEW_ITEMS.size() + batch.DELETED_IDS.size());
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "The changes to " + database.FILE_PATH + " are only in the journal.", e);
+                unlogged.put(database.getFileName(), records.get(database.getFileName()));
             }
         }
+        // The changes are kept by the journal even if a log couldn't be written to
+        journal.finish(unlogged);
+        for (Batch batch : changed)
+            batch.DATABASE.apply(batch.NEW_ITEMS, batch.DELETED_IDS);
     }
 
+    /**
+     * Runs something while holding the locks of databases, taking them in the order they are given
+     *
+     * @param databases the databases
+     * @param next      the index of the next database to lock
+     * @param runnable  what is run once every database is locked
+     */
+    private static void runLocked(List<Database> databases, int next, Runnable runnable) {
+        if (next == databases.size()) {
+            runnable.run();
+            return;
+        }
+        synchronized (databases.get(next)) {
+            runLocked(databases, next + 1, runnable);
+        }
+    }
 
     /**
-     * Returns the object instance equivalent of the id given
+     * Checks that entries are still at the versions they were read at
+     *
+     * @param expectedVersions the version each entry was read at, 0 for entries that didn't exist
+     * @throws ConflictException if an entry isn't at the expected version anymore
+     */
+    public synchronized void checkVersions(Map<String, Long> expectedVersions) {
+        if (expectedVersions.isEmpty()) return;
+        HashMap<String, Idable> allItems = getResidentItems();
+        for (Map.Entry<String, Long> expected : expectedVersions.entrySet()) {
+            Idable item = allItems.get(expected.getKey());
+            long version = item == null ? 0 : item.getVersion();
+            if (version != expected.getValue())
+                throw new ConflictException("The entry " + expected.getKey() + " was changed by someone else");
+        }
+    }
+
+    /**
+     * Returns a copy of the object instance of the id given. The copy can be changed without affecting the database
+     * until it is updated.
+     *
+     * @param id the id of the object that is requested
+     * @return a copy of the object instance of the id
+     * @throws EntryNotFoundException if the id given does not exist in the list of items
+     */
+    public synchronized Idable populate(String id) throws EntryNotFoundException {
+        Idable item = getResidentItems().get(id);
+        if (item == null) throw new EntryNotFoundException("Could not find item " + id);
+        try {
+            return ModelCodec.copy(item);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not copy item " + id, e);
+            throw new EntryNotFoundException(id);
+        }
+    }
+
+    /**
+     * Returns the object instance of the id given as it is kept in memory, without copying it. The instance must not
+     * be changed, use populate to get one that can be. It stays the same even if the item is saved again later.
      *
      * @param id the id of the object that is requested
      * @return the object instance of the id
      * @throws EntryNotFoundException if the id given does not exist in the list of items
      */
-    public Idable populate(String id) throws EntryNotFoundException {
-        HashMap<String, Idable> allItems = getItems();
-        if (allItems.containsKey(id)) return allItems.get(id);
-        throw new EntryNotFoundException("Could not find item " + id);
+    public synchronized Idable read(String id) throws EntryNotFoundException {
+        Idable item = getResidentItems().get(id);
+        if (item == null) throw new EntryNotFoundException("Could not find item " + id);
+        return item;
+    }
+
+    /**
+     * Returns the object instances of the ids given as they are kept in memory, see read(String)
+     *
+     * @param ids the ids of the objects that are requested
+     * @return the objects by their id, in the order of the ids. Ids that don't exist are left out.
+     */
+    public synchronized LinkedHashMap<String, Idable> readAll(Collection<String> ids) {
+        HashMap<String, Idable> allItems = getResidentItems();
+        LinkedHashMap<String, Idable> result = new LinkedHashMap<>();
+        for (String id : ids) {
+            Idable item = allItems.get(id);
+            if (item != null) result.put(id, item);
+        }
+        return result;
+    }
+
+    /**
+     * Returns copies of the object instances of the ids given, reading the file at most once for all of them
+     *
+     * @param ids the ids of the objects that are requested
+     * @return copies of the objects by their id, in the order of the ids. Ids that don't exist are left out.
+     */
+    public synchronized LinkedHashMap<String, Idable> populateAll(Collection<String> ids) {
+        HashMap<String, Idable> allItems = getResidentItems();
+        LinkedHashMap<String, Idable> result = new LinkedHashMap<>();
+        for (String id : ids) {
+            Idable item = allItems.get(id);
+            if (item != null) result.put(id, copyOf(item));
+        }
+        return result;
+    }
+
+    /**
+     * Adds an index that finds items by the keys given by a function. Nothing happens if there is already an index
+     * with the same name.
+     *
+     * @param name the name of the index
+     * @param keys gets the keys of an item, an item can have any number of keys
+     */
+    public synchronized void addIndex(String name, Function<Idable, ? extends Collection<String>> keys) {
+        addIndex(name, keys, null);
+    }
+
+    /**
+     * Adds an index whose keys also depend on something other than the items, like a setting. The index is built
+     * again the next time it is used after what it depends on changed. Nothing happens if there is already an index
+     * with the same name.
+     *
+     * @param name      the name of the index
+     * @param keys      gets the keys of an item, an item can have any number of keys
+     * @param dependsOn gets what the keys depend on, compared with equals
+     */
+    public synchronized void addIndex(String name, Function<Idable, ? extends Collection<String>> keys,
+                                      Supplier<?> dependsOn) {
+        if (indexes.containsKey(name)) return;
+        DatabaseIndex index = new DatabaseIndex(keys, dependsOn);
+        if (items != null)
+            index.rebuild(items.values());
+        indexes.put(name, index);
+    }
+
+    /**
+     * Gets the ids of the items that have the key in an index
+     *
+     * @param name the name of the index
+     * @param key  the key
+     * @return the ids of the items that have the key, which can't be changed
+     * @throws IllegalArgumentException if there is no index with the name
+     */
+    public synchronized Set<String> getIndexed(String name, String key) {
+        HashMap<String, Idable> allItems = getResidentItems();
+        DatabaseIndex index = indexes.get(name);
+        if (index == null) throw new IllegalArgumentException("No index named " + name);
+        if (index.isOutdated())
+            index.rebuild(allItems.values());
+        return index.get(key);
+    }
+
+    /**
+     * Adds an index that keeps the items in an order, so a page of them can be read without sorting every item.
+     * Nothing happens if there is already a sorted index with the same name.
+     *
+     * @param name  the name of the index
+     * @param order the order of the items, only items with the same id can be equal. It can only depend on what
+     *              doesn't change while an item is in the database, like when it was made.
+     */
+    public synchronized void addSortedIndex(String name, Comparator<? super Idable> order) {
+        if (sortedIndexes.containsKey(name)) return;
+        SortedDatabaseIndex index = new SortedDatabaseIndex(order);
+        if (items != null)
+            index.rebuild(items.values());
+        sortedIndexes.put(name, index);
+    }
+
+    /**
+     * Gets the ids of a range of items in a sorted index
+     *
+     * @param name  the name of the index
+     * @param start the position of the first item in the order
+     * @param limit the most ids to get
+     * @return the ids of the items in the range, in order
+     * @throws IllegalArgumentException if there is no sorted index with the name
+     */
+    public synchronized List<String> getSorted(String name, int start, int limit) {
+        getResidentItems();
+        SortedDatabaseIndex index = sortedIndexes.get(name);
+        if (index == null) throw new IllegalArgumentException("No sorted index named " + name);
+        return index.get(Math.max(start, 0), limit);
+    }
+
+    /**
+     * Gets how many items there are
+     *
+     * @return the amount of items in the database
+     */
+    public synchronized int size() {
+        return getResidentItems().size();
     }
 
     /**
@@ -94,61 +475,534 @@ public class Database implements Serializable {
      * @param id the id being checked
      * @return true if the database contains the id
      */
-    public boolean contains(String id) {
+    public synchronized boolean contains(String id) {
+        return getResidentItems().containsKey(id);
+    }
+
+    /**
+     * Return a hashmap of copies of the items in the database file
+     *
+     * @return a hashmap of copies of the items in the database file
+     */
+    public synchronized HashMap<String, Idable> getItems() {
+        HashMap<String, Idable> allItems = getResidentItems();
+        HashMap<String, Idable> result = new HashMap<>();
+        for (Map.Entry<String, Idable> entry : allItems.entrySet())
+            result.put(entry.getKey(), copyOf(entry.getValue()));
+        return result;
+    }
+
+    /**
+     * Return the ids of the items in the database file
+     *
+     * @return the ids of the items in the database file
+     */
+    public synchronized Set<String> getIds() {
+        return new HashSet<>(getResidentItems().keySet());
+    }
+
+    /**
+     * Overwrites the file and saves a new hashmap to it, emptying the log
+     *
+     * @param items the items that are being saved to the file
+     * @throws IOException if the file couldn't be written, in which case the items in memory stay the same
+     */
+    public synchronized void save(HashMap<String, Idable> items) throws IOException {
+        writeFile(new HashMap<>(items));
+        TransactionJournal.saved(getDirectory(), getFileName());
+    }
+
+    /**
+     * Copies an item, so what is kept in memory is never shared with whoever reads or saves it
+     *
+     * @param item the item
+     * @return a copy of the item
+     * @throws UncheckedIOException if the item can't be copied
+     */
+    private static Idable copyOf(Idable item) {
         try {
-            populate(id);
-        } catch (EntryNotFoundException e) {
-            return false;
+            return ModelCodec.copy(item);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not copy item " + item.getId(), e);
         }
-        return true;
     }
 
     /**
-     * Return a hashmap of items in the database file
+     * Gets the items kept in memory, reading the files first if they changed since they were last read or saved
+     *
+     * @return the items kept in memory
+     */
+    private HashMap<String, Idable> getResidentItems() {
+        long generation = GENERATION.get();
+        if (items == null || generation != loadedGeneration || haveFilesChanged()) {
+            // Commits that were only saved to the journal are appended to the logs before anything reads them
+            TransactionJournal.get(getDirectory());
+            items = readFile();
+            loadedGeneration = generation;
+            replayLog(items);
+            rememberFiles();
+            rebuildIndexes();
+            if (isOldFormat) {
+                logger.log(Level.INFO, "Converting " + FILE_PATH + " to the binary format.");
+                try {
+                    writeFile(items);
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, "Could not convert " + FILE_PATH, e);
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Checks if something outside of this program changed the files since they were last read or written. Saves made
+     * in this program are noticed through the generation instead, so the files are only looked at once in a while.
+     *
+     * @return whether the files have to be read again
+     */
+    private boolean haveFilesChanged() {
+        long now = System.nanoTime();
+        if (now - filesCheckedAt < FILE_CHECK_INTERVAL) return false;
+        filesCheckedAt = now;
+        File file = new File(FILE_PATH);
+        File logFile = new File(LOG_FILE_PATH);
+        return file.lastModified() != loadedLastModified || file.length() != loadedLength ||
+                logFile.lastModified() != loadedLogLastModified || logFile.length() != loadedLogLength;
+    }
+
+    /**
+     * Remembers what the files looked like after they were read or written, so outside changes can be noticed
+     */
+    private void rememberFiles() {
+        File file = new File(FILE_PATH);
+        File logFile = new File(LOG_FILE_PATH);
+        loadedLastModified = file.lastModified();
+        loadedLength = file.length();
+        loadedLogLastModified = logFile.lastModified();
+        loadedLogLength = logFile.length();
+        filesCheckedAt = System.nanoTime();
+    }
+
+    /**
+     * Reads every item from the database file
      *
      * @return a hashmap of items in the database file
      */
-    public HashMap<String, Idable> getItems() {
-        if (!new File(this.FILE_PATH).exists()) {
-            logger.log(Level.SEVERE, "The file " + FILE_PATH + " doesn't exist.");
+    private HashMap<String, Idable> readFile() {
+        isOldFormat = false;
+        if (!new File(this.FILE_PATH).exists())
             return new HashMap<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(this.FILE_PATH)))) {
+            input.mark(4);
+            int magic;
+            try {
+                magic = input.readInt();
+            } catch (EOFException e) {
+                logger.log(Level.INFO, "Empty file was used.");
+                return new HashMap<>();
+            }
+            if (magic != FILE_MAGIC) {
+                input.reset();
+                isOldFormat = true;
+                return readOldFile(input);
+            }
+            byte version = input.readByte();
+            ModelCodec.checkVersion(version);
+            int size = input.readInt();
+            HashMap<String, Idable> allItems = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+            for (int i = 0; i < size; i++) {
+                Idable item = ModelCodec.readVersionedItem(input, version);
+                allItems.put(item.getId(), item);
+            }
+            return allItems;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Input could not be read.", e);
         }
+        return new HashMap<>();
+
+    }
+
+    /**
+     * Reads every item from a database file that was saved with Java serialization
+     *
+     * @param input the contents of the file
+     * @return a hashmap of items in the database file
+     * @throws IOException if the file can't be read
+     */
+    private HashMap<String, Idable> readOldFile(InputStream input) throws IOException {
         try {
-            BufferedInputStream buffer = new BufferedInputStream(new FileInputStream(this.FILE_PATH));
-            ObjectInputStream input = new ObjectInputStream(buffer);
-            Object tmp = input.readObject();
-            input.close();
-            if (tmp instanceof HashMap)
-                return (HashMap<String, Idable>) tmp;
-            return new HashMap<>();
-        } catch (IOException e) {
-            logger.log(Level.INFO, "Empty file was used.");
+            Object tmp = new ObjectInputStream(input).readObject();
+            if (tmp instanceof HashMap) {
+                HashMap<String, Idable> allItems = new HashMap<>();
+                for (Map.Entry<?, ?> entry : ((HashMap<?, ?>) tmp).entrySet()) {
+                    if (!(entry.getKey() instanceof String) || !(entry.getValue() instanceof Idable)) {
+                        logger.log(Level.WARNING, "Skipping " + entry.getKey() + ", it isn't an item.");
+                        continue;
+                    }
+                    Idable item = (Idable) entry.getValue();
+                    // These were saved before items had versions
+                    item.setVersion(1);
+                    allItems.put((String) entry.getKey(), item);
+                }
+                return allItems;
+            }
         } catch (ClassNotFoundException e) {
             logger.log(Level.SEVERE, "Input could not be read.", e);
         }
         return new HashMap<>();
+    }
+
+    /**
+     * Applies every complete record in the log file to the items.
+     * A record that was only partially written (the program stopped while appending) ends the log, and in that case
+     * the items are saved right away so the broken record is dropped.
+     * <p>
+     * Commits kept by the journal can be appended after newer records of the same items, so an item is only replaced
+     * by a newer version of it, and an item that was deleted isn't brought back. Ids are never used again once their
+     * item is deleted.
+     *
+     * @param allItems the items read from the .ser file
+     */
+    private void replayLog(HashMap<String, Idable> allItems) {
+        loggedChanges = 0;
+        File logFile = new File(LOG_FILE_PATH);
+        if (!logFile.exists()) return;
+        boolean isLogBroken = false;
+        Set<String> deletedIds = new HashSet<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)))) {
+            byte[] record;
+            while ((record = readFramed(input, logFile.length())) != null)
+                loggedChanges += applyRecord(allItems, deletedIds, record);
+        } catch (StreamCorruptedException e) {
+            isLogBroken = true;
+        } catch (IOException | ClassNotFoundException e) {
+            logger.log(Level.SEVERE, "The log " + LOG_FILE_PATH + " could not be read.", e);
+            isLogBroken = true;
+        }
+        if (isLogBroken) {
+            logger.log(Level.WARNING, "Dropping the unfinished end of " + LOG_FILE_PATH);
+            try {
+                writeFile(allItems);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not save after reading the log.", e);
+            }
+        }
+    }
+
+    /**
+     * Applies a single log record to the items, skipping items that aren't newer than the ones already read
+     *
+     * @param allItems   the items the record is applied to
+     * @param deletedIds the ids deleted by the records read before, which the record can't bring back
+     * @param record     the record without its length and checksum
+     * @return the number of changes in the record
+     * @throws IOException            if the record can't be read
+     * @throws ClassNotFoundException if the item in the record is of an unknown class
+     */
+    private int applyRecord(HashMap<String, Idable> allItems, Set<String> deletedIds, byte[] record)
+            throws IOException, ClassNotFoundException {
+        if (record.length > 0 && record[0] == SERIALIZED_RECORD)
+            return applyOldRecord(allItems, record);
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+        byte version = input.readByte();
+        ModelCodec.checkVersion(version);
+        int changes = input.readInt();
+        for (int i = 0; i < changes; i++) {
+            byte type = input.readByte();
+            String id = ModelCodec.readId(input);
+            if (type == DELETE_RECORD) {
+                allItems.remove(id);
+                deletedIds.add(id);
+                continue;
+            }
+            Idable item = ModelCodec.readVersionedItem(input, version);
+            Idable current = allItems.get(id);
+            if (!deletedIds.contains(id) && (current == null || item.getVersion() > current.getVersion()))
+                allItems.put(id, item);
+        }
+        return changes;
+    }
+
+    /**
+     * Applies a single log record that was written with Java serialization to the items
+     *
+     * @param allItems the items the record is applied to
+     * @param record   the record without its length and checksum
+     * @return the number of changes in the record
+     * @throws IOException            if the record can't be read
+     * @throws ClassNotFoundException if the item in the record is of an unknown class
+     */
+    private int applyOldRecord(HashMap<String, Idable> allItems, byte[] record) throws IOException, ClassNotFoundException {
+        isOldFormat = true;
+        ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(record));
+        int changes = input.readInt();
+        for (int i = 0; i < changes; i++) {
+            byte type = input.readByte();
+            String id = input.readUTF();
+            if (type == DELETE_RECORD) {
+                allItems.remove(id);
+            } else {
+                Idable item = (Idable) input.readObject();
+                item.setVersion(1);
+                allItems.put(id, item);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Gives the items their new versions and writes the record that saves them
+     *
+     * @param newItems   the items that are updated
+     * @param deletedIds the ids of the items that are deleted
+     * @return the record without its length and checksum
+     * @throws UncheckedIOException if an item can't be written, in which case nothing was saved
+     */
+    private byte[] prepareRecord(Collection<? extends Idable> newItems, Collection<String> deletedIds) {
+        HashMap<String, Idable> allItems = getResidentItems();
+        for (Idable newItem : newItems) {
+            Idable oldItem = allItems.get(newItem.getId());
+            newItem.setVersion((oldItem == null ? 0 : oldItem.getVersion()) + 1);
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream recordOutput = new DataOutputStream(bytes);
+            recordOutput.writeByte(ModelCodec.VERSION);
+            recordOutput.writeInt(newItems.size() + deletedIds.size());
+            for (Idable item : newItems) {
+                recordOutput.writeByte(UPDATE_RECORD);
+                ModelCodec.writeId(recordOutput, item.getId());
+                ModelCodec.writeVersionedItem(recordOutput, item);
+            }
+            for (String id : deletedIds) {
+                recordOutput.writeByte(DELETE_RECORD);
+                ModelCodec.writeId(recordOutput, id);
+            }
+            recordOutput.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "The changes to " + FILE_PATH + " could not be written.", e);
+            throw new UncheckedIOException("Could not write the changes to " + FILE_PATH, e);
+        }
+    }
 
+    /**
+     * Appends a record to the end of the log
+     *
+     * @param record  the record without its length and checksum
+     * @param changes the number of changes in the record
+     * @throws IOException if the log couldn't be written to
+     */
+    private void appendRecord(byte[] record, int changes) throws IOException {
+        createFile();
+        appendFramed(LOG_FILE_PATH, record);
+        loggedChanges += changes;
+        loadedGeneration = GENERATION.incrementAndGet();
+        rememberFiles();
     }
 
     /**
-     * Overwrites the file and saves a new hashmap to it
+     * Makes changes to the items in memory and their indexes, after they were saved. The log is folded into the .ser
+     * file if it got too long.
+     *
+     * @param newItems   the items that were updated
+     * @param deletedIds the ids of the items that were deleted
+     */
+    private void apply(Collection<? extends Idable> newItems, Collection<String> deletedIds) {
+        HashMap<String, Idable> allItems = getResidentItems();
+        for (Idable newItem : newItems) {
+            Idable resident = copyOf(newItem);
+            allItems.put(newItem.getId(), resident);
+            for (DatabaseIndex index : indexes.values())
+                index.add(newItem);
+            for (SortedDatabaseIndex index : sortedIndexes.values())
+                index.add(resident);
+        }
+        for (String id : deletedIds) {
+            allItems.remove(id);
+            for (DatabaseIndex index : indexes.values())
+                index.remove(id);
+            for (SortedDatabaseIndex index : sortedIndexes.values())
+                index.remove(id);
+        }
+        if (loggedChanges >= Math.max(MIN_LOGGED_CHANGES_BEFORE_COMPACTION, allItems.size())) {
+            try {
+                writeFile(allItems);
+                // The file has every change the journal kept for it, so they don't have to be appended again
+                TransactionJournal.saved(getDirectory(), getFileName());
+            } catch (IOException e) {
+                // The changes are still in the log, so the log is folded in the next time instead
+                logger.log(Level.WARNING, "Could not fold the log into " + FILE_PATH, e);
+            }
+        }
+    }
+
+    /**
+     * Appends a record to the end of a log, with its length and checksum before it. If the record can't be written
+     * the log is cut back to where it ended, so records appended later aren't stuck behind a broken one.
+     *
+     * @param logFilePath the path of the log
+     * @param record      the record
+     * @throws IOException if the log couldn't be written to
+     */
+    static void appendFramed(String logFilePath, byte[] record) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        // The whole record is written at once so a crash can only leave an unfinished record at the end of the log
+        ByteArrayOutputStream framed = new ByteArrayOutputStream(record.length + 12);
+        DataOutputStream framedOutput = new DataOutputStream(framed);
+        framedOutput.writeInt(record.length);
+        framedOutput.writeLong(crc.getValue());
+        framedOutput.write(record);
+        long logLength = new File(logFilePath).length();
+        try (FileOutputStream output = new FileOutputStream(logFilePath, true)) {
+            output.write(framed.toByteArray());
+        } catch (IOException e) {
+            try (RandomAccessFile logFile = new RandomAccessFile(logFilePath, "rw")) {
+                logFile.setLength(logLength);
+            } catch (IOException truncateException) {
+                e.addSuppressed(truncateException);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next record of a log and checks it against its checksum
+     *
+     * @param input     the log, right before the length of the record
+     * @param logLength the length of the whole log, no record is longer than that
+     * @return the record without its length and checksum, or null if the log ended before the record
+     * @throws StreamCorruptedException if the record is broken, usually because it was only partially written
+     * @throws IOException              if the log can't be read
+     */
+    static byte[] readFramed(DataInputStream input, long logLength) throws IOException {
+        int length;
+        try {
+            length = input.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0 || length > logLength)
+            throw new StreamCorruptedException("Record of length " + length);
+        long checksum;
+        byte[] record = new byte[length];
+        try {
+            checksum = input.readLong();
+            input.readFully(record);
+        } catch (EOFException e) {
+            throw new StreamCorruptedException("Unfinished record");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        if (crc.getValue() != checksum)
+            throw new StreamCorruptedException("Wrong checksum");
+        return record;
+    }
+
+    /**
+     * Gets the directory the .ser file is in
+     *
+     * @return the directory
+     */
+    private File getDirectory() {
+        return new File(FILE_PATH).getAbsoluteFile().getParentFile();
+    }
+
+    /**
+     * Gets the name of the .ser file, without its directory
+     *
+     * @return the name of the file
+     */
+    private String getFileName() {
+        return new File(FILE_PATH).getName();
+    }
+
+    /**
+     * Overwrites the file with the items, empties the log and keeps the items as the items in memory.
+     * If the file can't be written, nothing in memory changes.
      *
      * @param items the items that are being saved to the file
-     * @throws FileNotFoundException if the file doesn't exist
+     * @throws IOException if the file couldn't be written
      */
-    public void save(HashMap<String, Idable> items) throws FileNotFoundException {
-        if (!new File(this.FILE_PATH).exists()) {
-            logger.log(Level.SEVERE, "The file " + FILE_PATH + " doesn't exist.");
-            throw new FileNotFoundException();
+    private void writeFile(HashMap<String, Idable> items) throws IOException {
+        createFile();
+        // Write to a separate file first so the .ser file is never left half written
+        File tmpFile = new File(FILE_PATH + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            output.writeInt(FILE_MAGIC);
+            output.writeByte(ModelCodec.VERSION);
+            output.writeInt(items.size());
+            for (Idable item : items.values())
+                ModelCodec.writeVersionedItem(output, item);
+        } catch (IOException e) {
+            tmpFile.delete();
+            throw e;
         }
+        Files.move(tmpFile.toPath(), new File(FILE_PATH).toPath(), StandardCopyOption.REPLACE_EXISTING);
         try {
-            BufferedOutputStream buffer = new BufferedOutputStream(new FileOutputStream(FILE_PATH));
-            ObjectOutputStream  output = new ObjectOutputStream(buffer);
-            output.writeObject(items);
-            output.close();
+            Files.deleteIfExists(new File(LOG_FILE_PATH).toPath());
+            loggedChanges = 0;
         } catch (IOException e) {
-            logger.log(Level.WARNING, "Unable to save.", e);
+            // The .ser file already has every change in the log, so the log is only read again for nothing
+            logger.log(Level.WARNING, "Could not empty " + LOG_FILE_PATH, e);
         }
+        boolean isNewItems = this.items != items;
+        this.items = items;
+        loadedGeneration = GENERATION.incrementAndGet();
+        rememberFiles();
+        if (isNewItems) rebuildIndexes();
+    }
+
+    /**
+     * Indexes every item in memory again
+     */
+    private void rebuildIndexes() {
+        for (DatabaseIndex index : indexes.values())
+            index.rebuild(items.values());
+        for (SortedDatabaseIndex index : sortedIndexes.values())
+            index.rebuild(items.values());
     }
-}
 
+    /**
+     * Creates the .ser file if it doesn't exist yet
+     *
+     * @throws FileNotFoundException if the file can't be created
+     */
+    private void createFile() throws FileNotFoundException {
+        File file = new File(FILE_PATH);
+        if (file.exists()) return;
+        try {
+            file.createNewFile();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "The file " + FILE_PATH + " couldn't be created.", e);
+        }
+        if (!file.exists()) throw new FileNotFoundException(FILE_PATH);
+    }
+
+    /**
+     * The changes made to one database by a commit of several databases
+     */
+    public static class Batch {
+        private final Database DATABASE;
+        private final Collection<? extends Idable> NEW_ITEMS;
+        private final Collection<String> DELETED_IDS;
+        private final Map<String, Long> EXPECTED_VERSIONS;
+
+        /**
+         * Makes the changes to one database
+         *
+         * @param database         the database
+         * @param newItems         the items to replace existing entries with (or to add if the entry doesn't exist)
+         * @param deletedIds       the ids of entries to delete
+         * @param expectedVersions the version each entry was read at, entries that aren't in here aren't checked
+         */
+        public Batch(Database database, Collection<? extends Idable> newItems, Collection<String> deletedIds,
+                     Map<String, Long> expectedVersions) {
+            this.DATABASE = database;
+            this.NEW_ITEMS = newItems;
+            this.DELETED_IDS = deletedIds;
+            this.EXPECTED_VERSIONS = expectedVersions;
+        }
+    }
+}
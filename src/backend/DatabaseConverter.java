@@ -0,0 +1,52 @@
+package backend;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts database files saved with Java serialization to the binary format used by Database.
+ * Databases convert old files by themselves the first time they read them, this is for converting every file at
+ * once, for example before shipping them. Files that are already converted are saved again as they are.
+ */
+public class DatabaseConverter {
+
+    private DatabaseConverter() {
+    }
+
+    /**
+     * Converts the database files given, or every database file if none are given
+     *
+     * @param args paths to .ser files
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            for (DatabaseFilePaths path : DatabaseFilePaths.values())
+                if (!path.isConfig()) convert(path.getFilePath());
+        } else {
+            for (String path : args)
+                convert(path);
+        }
+    }
+
+    /**
+     * Converts a single database file, printing how big it was before and after
+     *
+     * @param filePath path to the .ser file
+     */
+    private static void convert(String filePath) {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            System.out.println(filePath + " doesn't exist, skipping");
+            return;
+        }
+        long oldLength = file.length() + new File(filePath + Database.LOG_FILE_EXTENSION).length();
+        Database database = new Database(filePath);
+        try {
+            database.save(database.getItems());
+        } catch (IOException e) {
+            System.out.println("Could not convert " + filePath);
+            return;
+        }
+        System.out.println(filePath + ": " + oldLength + " bytes -> " + file.length() + " bytes");
+    }
+}
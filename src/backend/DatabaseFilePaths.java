@@ -2,26 +2,44 @@ package backend;
 
 
 /**
- * For paths to database files
+ * For paths to database files. The paths are relative to the working directory, unless the system property
+ * tradingsystem.root is set to another directory before any database is used.
  */
 public enum DatabaseFilePaths {
     /**
      * For the file path of all users
      */
-    USER("./src/backend/databasefiles/users.ser"),
+    USER("src/backend/databasefiles/users.ser"),
     /**
      * file path of all trades
      */
-    TRADE("./src/backend/databasefiles/trades.ser"),
+    TRADE("src/backend/databasefiles/trades.ser"),
     /**
      * file path for all items that are traded
      */
-    TRADABLE_ITEM("./src/backend/databasefiles/tradableitems.ser"),
+    TRADABLE_ITEM("src/backend/databasefiles/tradableitems.ser"),
+    /**
+     * file path of all messages
+     */
+    MESSAGE("src/backend/databasefiles/messages.ser"),
+    /**
+     * file path of the conversations the messages belong to
+     */
+    CONVERSATION("src/backend/databasefiles/conversations.ser"),
+    /**
+     * file path of all reports
+     */
+    REPORT("src/backend/databasefiles/reports.ser"),
 
     /**
      * file path for trader config file
      */
-    TRADER_CONFIG("./src/backend/tradesystem/trader.properties", true);
+    TRADER_CONFIG("src/backend/tradesystem/trader.properties", true);
+    /**
+     * The system property that holds the directory the paths are relative to
+     */
+    public static final String ROOT_DIRECTORY_PROPERTY = "tradingsystem.root";
+
     private final String FILE_PATH;
     private final boolean IS_CONFIG;
 
@@ -50,7 +68,7 @@ public enum DatabaseFilePaths {
      * @return file path
      */
     public String getFilePath() {
-        return FILE_PATH;
+        return System.getProperty(ROOT_DIRECTORY_PROPERTY, ".") + "/" + FILE_PATH;
     }
 
     public boolean isConfig() {
@@ -0,0 +1,125 @@
+package backend;
+
+import backend.models.Idable;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps track of which items have each key, so that items can be found by something other than their id.
+ * The keys of an item are remembered when it is indexed, so an item can be moved to its new keys even if the
+ * object was changed before it was indexed again.
+ * Ids are kept as their numbers in the IdTable, since an index can hold many ids for a single key. The ids of a key
+ * are turned into a snapshot the first time they are asked for after they changed, and that snapshot is handed out
+ * until they change again.
+ */
+class DatabaseIndex {
+    // Never equal to what an index depends on, so an index that couldn't tell what it was built with is built again
+    private static final Object UNKNOWN = new Object();
+
+    private final Function<Idable, ? extends Collection<String>> KEYS;
+    private final Supplier<?> DEPENDS_ON;
+    private final Map<String, IntSet> idsByKey = new HashMap<>();
+    private final Map<String, IdSnapshot> snapshots = new HashMap<>();
+    private final Map<String, Collection<String>> keysById = new HashMap<>();
+    private Object builtWith = UNKNOWN;
+
+    /**
+     * Makes a new empty index
+     *
+     * @param keys gets the keys of an item, an item can have any number of keys
+     */
+    DatabaseIndex(Function<Idable, ? extends Collection<String>> keys) {
+        this(keys, null);
+    }
+
+    /**
+     * Makes a new empty index whose keys also depend on something other than the items
+     *
+     * @param keys      gets the keys of an item, an item can have any number of keys
+     * @param dependsOn gets what the keys depend on, or null if they only depend on the items
+     */
+    DatabaseIndex(Function<Idable, ? extends Collection<String>> keys, Supplier<?> dependsOn) {
+        this.KEYS = keys;
+        this.DEPENDS_ON = dependsOn;
+    }
+
+    /**
+     * Checks if what the keys depend on changed since the index was built
+     *
+     * @return whether the index has to be built again
+     */
+    boolean isOutdated() {
+        return DEPENDS_ON != null && !Objects.equals(DEPENDS_ON.get(), builtWith);
+    }
+
+    /**
+     * Gets the ids of the items with the key
+     *
+     * @param key the key
+     * @return the ids of the items with the key when this was called, which can't be changed
+     */
+    Set<String> get(String key) {
+        IntSet ids = idsByKey.get(key);
+        if (ids == null) return IdSnapshot.EMPTY;
+        return snapshots.computeIfAbsent(key, k -> IdSnapshot.of(ids));
+    }
+
+    /**
+     * Indexes an item under its current keys, removing it from the keys it had before
+     *
+     * @param item the item
+     */
+    void add(Idable item) {
+        String id = IdTable.getShared(item.getId());
+        remove(id);
+        List<String> keys = new ArrayList<>();
+        for (String key : KEYS.apply(item))
+            if (key != null && !keys.contains(key)) keys.add(key);
+        if (keys.isEmpty()) return;
+        int number = IdTable.retain(id);
+        for (String key : keys) {
+            idsByKey.computeIfAbsent(key, k -> new IntSet()).add(number);
+            snapshots.remove(key);
+        }
+        keysById.put(id, keys);
+    }
+
+    /**
+     * Removes an item from the index
+     *
+     * @param id the id of the item
+     */
+    void remove(String id) {
+        Collection<String> keys = keysById.remove(id);
+        if (keys == null) return;
+        int number = IdTable.findNumber(id);
+        for (String key : keys) {
+            IntSet ids = idsByKey.get(key);
+            ids.remove(number);
+            if (ids.isEmpty()) idsByKey.remove(key);
+            snapshots.remove(key);
+        }
+        IdTable.release(id);
+    }
+
+    /**
+     * Empties the index and indexes every item again
+     *
+     * @param items all of the items
+     */
+    void rebuild(Collection<Idable> items) {
+        if (DEPENDS_ON != null) {
+            try {
+                builtWith = DEPENDS_ON.get();
+            } catch (RuntimeException e) {
+                builtWith = UNKNOWN;
+            }
+        }
+        for (String id : new ArrayList<>(keysById.keySet()))
+            remove(id);
+        for (Idable item : items)
+            add(item);
+    }
+}
@@ -0,0 +1,28 @@
+package backend;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Hands out the databases used by the program. There is only ever one database for each database file, so every
+ * manager shares the same items in memory and creating a manager doesn't read or create any files.
+ */
+public class DatabaseRegistry {
+    private static final Map<DatabaseFilePaths, Database> databases = new EnumMap<>(DatabaseFilePaths.class);
+
+    private DatabaseRegistry() {
+    }
+
+    /**
+     * Gets the database for the database file, making it the first time it is asked for
+     *
+     * @param path the database file
+     * @return the database shared by everything that uses that file
+     * @throws IllegalArgumentException if the path is a config file
+     */
+    public static synchronized Database getDatabase(DatabaseFilePaths path) {
+        if (path.isConfig())
+            throw new IllegalArgumentException(path + " is a config file, not a database file");
+        return databases.computeIfAbsent(path, p -> new Database(p.getFilePath()));
+    }
+}
@@ -0,0 +1,68 @@
+package backend;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The ids an index had for a key when it was asked, kept as the shared strings of the IdTable. An index keeps the
+ * snapshot of a key until the key changes, so asking for the same key again doesn't build it again, and the strings
+ * stay the same even once their numbers are handed out to other ids. The set can't be changed.
+ */
+class IdSnapshot extends AbstractSet<String> {
+    /**
+     * The snapshot of a key that has no ids
+     */
+    static final IdSnapshot EMPTY = new IdSnapshot(new String[0]);
+
+    // Sorted, so an id can be found with a binary search
+    private final String[] IDS;
+
+    private IdSnapshot(String[] ids) {
+        this.IDS = ids;
+    }
+
+    /**
+     * Takes a snapshot of the ids in a set of id numbers
+     *
+     * @param numbers the id numbers, or null for no ids
+     * @return the ids in the set at this time
+     */
+    static IdSnapshot of(IntSet numbers) {
+        if (numbers == null || numbers.isEmpty()) return EMPTY;
+        String[] ids = new String[numbers.size()];
+        int[] next = {0};
+        numbers.forEach(number -> ids[next[0]++] = IdTable.getId(number));
+        Arrays.sort(ids);
+        return new IdSnapshot(ids);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < IDS.length;
+            }
+
+            @Override
+            public String next() {
+                if (next >= IDS.length) throw new NoSuchElementException();
+                return IDS[next++];
+            }
+        };
+    }
+
+    @Override
+    public boolean contains(Object id) {
+        return id instanceof String && Arrays.binarySearch(IDS, id) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return IDS.length;
+    }
+}
@@ -0,0 +1,138 @@
+package backend;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives the ids in indexes a small number, so structures that hold a lot of ids can keep numbers instead of strings.
+ * It also hands out one shared string for each id, so the same id read from many places (a trader's items, the
+ * offers of trades, indexes) only takes up memory once.
+ * An id only gets a number when an index adds it, and keeps it while an index has it. Once the last index that has it
+ * removes it, the id is forgotten and its number is handed out to the next new id, so deleted items don't take up
+ * room forever. Shared strings are only held weakly, so an id that nothing uses anymore is forgotten as well.
+ * Ids are looked up by number without a lock. A number is only counted once its id is in the array, and the array
+ * is copied to a bigger one instead of being changed in place when it is full, so a reader always sees a whole array.
+ */
+public class IdTable {
+    private static final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // The shared strings of ids, kept until nothing else uses them. Only used while holding its own lock.
+    private static final WeakHashMap<String, WeakReference<String>> sharedIds = new WeakHashMap<>();
+    // Only written while holding the class lock, the id is set before size is raised
+    private static volatile String[] ids = new String[1024];
+    private static volatile int size;
+    // Numbers below size whose ids were forgotten, only used while holding the class lock
+    private static final ArrayDeque<Integer> freeNumbers = new ArrayDeque<>();
+
+    private IdTable() {
+    }
+
+    /**
+     * Gets the number of an id for an index that is adding it, giving it a number if it doesn't have one yet.
+     * The id keeps its number until every index that added it has released it.
+     *
+     * @param id the id
+     * @return the number of the id, numbers start at 0 and forgotten numbers are handed out again
+     */
+    static synchronized int retain(String id) {
+        Entry entry = entries.get(id);
+        if (entry == null) entry = add(id);
+        entry.memberships++;
+        return entry.NUMBER;
+    }
+
+    /**
+     * Lets go of an id for an index that removed it, forgetting the id if no other index has it
+     *
+     * @param id the id, which the index retained
+     */
+    static synchronized void release(String id) {
+        Entry entry = entries.get(id);
+        if (entry == null || --entry.memberships > 0) return;
+        entries.remove(id);
+        ids[entry.NUMBER] = null;
+        freeNumbers.push(entry.NUMBER);
+    }
+
+    /**
+     * Gets the id that has a number
+     *
+     * @param number the number of the id
+     * @return the id
+     * @throws IndexOutOfBoundsException if no id has the number
+     */
+    public static String getId(int number) {
+        // Size is read first, so the array read after it already has every id below it
+        int count = size;
+        String id = number < 0 || number >= count ? null : ids[number];
+        if (id == null) throw new IndexOutOfBoundsException("No id numbered " + number);
+        return id;
+    }
+
+    /**
+     * Gets the number of an id without giving it one
+     *
+     * @param id the id
+     * @return the number of the id, or -1 if it doesn't have one
+     */
+    public static int findNumber(String id) {
+        Entry entry = id == null ? null : entries.get(id);
+        return entry == null ? -1 : entry.NUMBER;
+    }
+
+    /**
+     * Gets the shared string for an id, without giving the id a number
+     *
+     * @param id the id, can be null
+     * @return the string equal to the id that everything shares, null if the id is null
+     */
+    public static String getShared(String id) {
+        if (id == null) return null;
+        // Ids in an index are shared the most, and can be found without a lock
+        Entry entry = entries.get(id);
+        if (entry != null) return entry.ID;
+        synchronized (sharedIds) {
+            WeakReference<String> reference = sharedIds.get(id);
+            String shared = reference == null ? null : reference.get();
+            if (shared != null) return shared;
+            sharedIds.put(id, new WeakReference<>(id));
+            return id;
+        }
+    }
+
+    // Gives an id a number, only called while holding the class lock
+    private static Entry add(String id) {
+        id = getShared(id);
+        Entry entry;
+        if (!freeNumbers.isEmpty()) {
+            entry = new Entry(id, freeNumbers.pop());
+            ids[entry.NUMBER] = id;
+            entries.put(id, entry);
+            return entry;
+        }
+        String[] table = ids;
+        if (size == table.length) {
+            table = Arrays.copyOf(table, size * 2);
+            ids = table;
+        }
+        entry = new Entry(id, size);
+        table[size] = id;
+        size = size + 1;
+        entries.put(id, entry);
+        return entry;
+    }
+
+    private static class Entry {
+        private final String ID;
+        private final int NUMBER;
+        // How many indexes have the id, only used while holding the class lock
+        private int memberships;
+
+        private Entry(String id, int number) {
+            this.ID = id;
+            this.NUMBER = number;
+        }
+    }
+}
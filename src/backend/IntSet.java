@@ -0,0 +1,139 @@
+package backend;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of ints that keeps them in one array instead of boxing each one, for sets of id numbers that can get large.
+ * Ints are placed by their hash and collisions go to the next free slot, so the set is at most half full.
+ */
+class IntSet {
+    private static final int FREE = -1;
+
+    // Every value is at least 0, free slots are FREE
+    private int[] slots = newSlots(4);
+    private int size;
+
+    /**
+     * Adds a value
+     *
+     * @param value the value, has to be at least 0
+     * @return whether the value wasn't in the set already
+     */
+    boolean add(int value) {
+        if (value < 0) throw new IllegalArgumentException("Values can't be negative: " + value);
+        int slot = find(value);
+        if (slots[slot] == value) return false;
+        slots[slot] = value;
+        if (++size * 2 > slots.length) grow();
+        return true;
+    }
+
+    /**
+     * Removes a value
+     *
+     * @param value the value
+     * @return whether the value was in the set
+     */
+    boolean remove(int value) {
+        if (value < 0) return false;
+        int slot = find(value);
+        if (slots[slot] != value) return false;
+        slots[slot] = FREE;
+        size--;
+        // Move back the values after it that were only placed further along because this slot was taken
+        int mask = slots.length - 1;
+        int free = slot;
+        for (int i = (slot + 1) & mask; slots[i] != FREE; i = (i + 1) & mask) {
+            int home = hash(slots[i]) & mask;
+            // The value can move to the free slot if its home isn't between the free slot and where it is now
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                slots[free] = slots[i];
+                slots[i] = FREE;
+                free = i;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a value is in the set
+     *
+     * @param value the value
+     * @return whether the value is in the set
+     */
+    boolean contains(int value) {
+        return value >= 0 && slots[find(value)] == value;
+    }
+
+    /**
+     * Gets how many values there are
+     *
+     * @return the number of values
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Whether there are no values
+     *
+     * @return whether the set is empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Runs an action for every value, in no particular order
+     *
+     * @param action the action
+     */
+    void forEach(IntConsumer action) {
+        for (int value : slots)
+            if (value != FREE) action.accept(value);
+    }
+
+    /**
+     * Copies the values into an array, smallest first
+     *
+     * @return the values
+     */
+    int[] toSortedArray() {
+        int[] values = new int[size];
+        int i = 0;
+        for (int value : slots)
+            if (value != FREE) values[i++] = value;
+        Arrays.sort(values);
+        return values;
+    }
+
+    // The slot the value is in, or the free slot it would go in
+    private int find(int value) {
+        int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (slots[slot] != FREE && slots[slot] != value)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void grow() {
+        int[] old = slots;
+        slots = newSlots(old.length * 2);
+        size = 0;
+        for (int value : old)
+            if (value != FREE) add(value);
+    }
+
+    private static int[] newSlots(int length) {
+        int[] slots = new int[length];
+        Arrays.fill(slots, FREE);
+        return slots;
+    }
+
+    private static int hash(int value) {
+        // Id numbers are handed out in order, so they are spread out before being placed
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
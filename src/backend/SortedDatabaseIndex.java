@@ -0,0 +1,84 @@
+package backend;
+
+import backend.models.Idable;
+
+import java.util.*;
+
+/**
+ * Keeps the items of a database in an order, so that a page of them can be read without reading and sorting every
+ * item. The items are kept as they are in memory, so the order can't depend on anything that changes while an item
+ * is in the database.
+ */
+class SortedDatabaseIndex {
+    private final TreeSet<Idable> sorted;
+    private final Map<String, Idable> itemsById = new HashMap<>();
+
+    /**
+     * Makes a new empty index
+     *
+     * @param order the order of the items, only items with the same id can be equal
+     */
+    SortedDatabaseIndex(Comparator<? super Idable> order) {
+        this.sorted = new TreeSet<>(order);
+    }
+
+    /**
+     * Gets the ids of a range of items, in order
+     *
+     * @param start the position of the first item
+     * @param limit the most ids to get
+     * @return the ids of the items in the range
+     */
+    List<String> get(int start, int limit) {
+        List<String> ids = new ArrayList<>(Math.max(0, Math.min(limit, sorted.size() - start)));
+        Iterator<Idable> items = sorted.iterator();
+        for (int i = 0; i < start && items.hasNext(); i++)
+            items.next();
+        while (items.hasNext() && ids.size() < limit)
+            ids.add(items.next().getId());
+        return ids;
+    }
+
+    /**
+     * Gets how many items are in the index
+     *
+     * @return the amount of items
+     */
+    int size() {
+        return sorted.size();
+    }
+
+    /**
+     * Puts an item in its place, removing the item it replaces
+     *
+     * @param item the item as it is kept in memory
+     */
+    void add(Idable item) {
+        remove(item.getId());
+        sorted.add(item);
+        itemsById.put(item.getId(), item);
+    }
+
+    /**
+     * Removes an item from the index
+     *
+     * @param id the id of the item
+     */
+    void remove(String id) {
+        Idable item = itemsById.remove(id);
+        if (item != null)
+            sorted.remove(item);
+    }
+
+    /**
+     * Empties the index and puts every item in it again
+     *
+     * @param items all of the items, as they are kept in memory
+     */
+    void rebuild(Collection<Idable> items) {
+        sorted.clear();
+        itemsById.clear();
+        for (Idable item : items)
+            add(item);
+    }
+}
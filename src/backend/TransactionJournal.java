@@ -0,0 +1,304 @@
+package backend;
+
+import backend.models.ModelCodec;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The journal of a directory of database files, for commits that change several of the databases at once.
+ * Such a commit is written to the journal as one record holding the log record of every database it changes, before
+ * any of the logs is written to. Once every log has its record the journal is emptied, so the journal only has
+ * something in it if the program stopped in between. In that case its records are appended to the logs again the
+ * first time a database in the directory is read.
+ * <p>
+ * If a log couldn't be written to, the records that are missing from the logs are moved to a kept file of their own,
+ * and later commits go to an empty journal again. A kept record is forgotten once its database saves its .ser file,
+ * since that file then has the change, and the rest are appended to the logs the next time the program starts.
+ * <p>
+ * Like the logs, the records in the journal have their length and checksum before them, and a record that was
+ * only partially written is ignored, since its commit never happened.
+ */
+class TransactionJournal {
+    /**
+     * The name of the journal file in the directory of the database files
+     */
+    static final String FILE_NAME = "transactions.journal";
+    /**
+     * The start of the names of the kept files, which are numbered in the order they were made
+     */
+    static final String KEPT_FILE_NAME = FILE_NAME + ".kept";
+
+    private static final byte VERSION = 1;
+    private static final Map<String, TransactionJournal> journals = new ConcurrentHashMap<>();
+    private static final Logger logger = Logger.getLogger(Database.class.getName());
+
+    private final File DIRECTORY;
+    private final File FILE;
+    // The records in each kept file made by this program, by the name of their .ser file. Also used as the lock of
+    // the kept files, since databases forget their kept records while holding only their own lock.
+    private final Map<File, Map<String, byte[]>> keptRecords = new LinkedHashMap<>();
+
+    private TransactionJournal(File directory) {
+        this.DIRECTORY = directory;
+        this.FILE = new File(directory, FILE_NAME);
+        recover();
+    }
+
+    /**
+     * Gets the journal of a directory. The first time it is asked for, the commits left in it are appended to the
+     * logs of the databases.
+     *
+     * @param directory the directory of the database files
+     * @return the journal of the directory
+     */
+    static TransactionJournal get(File directory) {
+        return journals.computeIfAbsent(directory.getAbsolutePath(), path -> new TransactionJournal(directory));
+    }
+
+    /**
+     * Forgets the kept records of a database after it saved its .ser file, which has every change in them
+     *
+     * @param directory the directory of the database files
+     * @param fileName  the name of the .ser file
+     */
+    static void saved(File directory, String fileName) {
+        TransactionJournal journal = journals.get(directory.getAbsolutePath());
+        if (journal != null)
+            journal.forget(fileName);
+    }
+
+    /**
+     * Gets the directory of the database files
+     *
+     * @return the directory
+     */
+    File getDirectory() {
+        return DIRECTORY;
+    }
+
+    /**
+     * Writes a commit to the journal. Once this returns the commit is kept, even if the program stops before the
+     * logs are written to.
+     *
+     * @param records the log record of each database the commit changes, by the name of its .ser file
+     * @throws IOException if the journal couldn't be written to, in which case the commit isn't kept
+     */
+    synchronized void write(Map<String, byte[]> records) throws IOException {
+        Database.appendFramed(FILE.getPath(), encode(records));
+    }
+
+    /**
+     * Empties the journal after a commit was appended to the logs. Records that couldn't be appended to their log
+     * are moved to a kept file first, so they are appended the next time the program starts.
+     *
+     * @param unlogged the log records that aren't in their log, by the name of their .ser file
+     */
+    synchronized void finish(Map<String, byte[]> unlogged) {
+        if (!unlogged.isEmpty() && !keep(unlogged))
+            return;
+        try {
+            Files.deleteIfExists(FILE.toPath());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not empty " + FILE, e);
+        }
+    }
+
+    /**
+     * Writes log records that couldn't be appended to their logs to a new kept file. If there isn't room for one, the
+     * journal is made into the kept file instead. The records in it that are already in a log are skipped when the
+     * log is read, since the log has them already.
+     *
+     * @param records the log records, by the name of their .ser file
+     * @return whether the records were kept outside of the journal
+     */
+    private boolean keep(Map<String, byte[]> records) {
+        synchronized (keptRecords) {
+            File keptFile = getNextKeptFile();
+            logger.log(Level.SEVERE, "Keeping the changes to " + records.keySet() + " in " + keptFile);
+            try {
+                Database.appendFramed(keptFile.getPath(), encode(records));
+            } catch (IOException e) {
+                keptFile.delete();
+                keptFile = moveToKept(FILE);
+                if (keptFile == null) return false;
+            }
+            keptRecords.put(keptFile, new LinkedHashMap<>(records));
+            return true;
+        }
+    }
+
+    /**
+     * Renames a journal file to a new kept file, so that later commits aren't written to it
+     *
+     * @param file the journal file
+     * @return the kept file, or null if the file couldn't be renamed and was left as it is
+     */
+    private File moveToKept(File file) {
+        File keptFile = getNextKeptFile();
+        try {
+            Files.move(file.toPath(), keptFile.toPath());
+            return keptFile;
+        } catch (IOException e) {
+            // Later commits will be written after the ones in the file, which are then appended to the logs again
+            logger.log(Level.SEVERE, "Could not keep " + file + " as " + keptFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Drops the records of a database from the kept files
+     *
+     * @param fileName the name of the .ser file of the database
+     */
+    private void forget(String fileName) {
+        synchronized (keptRecords) {
+            Iterator<Map.Entry<File, Map<String, byte[]>>> kept = keptRecords.entrySet().iterator();
+            while (kept.hasNext()) {
+                Map.Entry<File, Map<String, byte[]>> entry = kept.next();
+                if (entry.getValue().remove(fileName) == null) continue;
+                File keptFile = entry.getKey();
+                try {
+                    if (entry.getValue().isEmpty()) {
+                        Files.deleteIfExists(keptFile.toPath());
+                        kept.remove();
+                    } else {
+                        File tmpFile = new File(keptFile.getPath() + ".tmp");
+                        Files.deleteIfExists(tmpFile.toPath());
+                        Database.appendFramed(tmpFile.getPath(), encode(entry.getValue()));
+                        Files.move(tmpFile.toPath(), keptFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } catch (IOException e) {
+                    // The record is appended again at the next start, where items that are newer in the file skip it
+                    logger.log(Level.WARNING, "Could not drop the changes to " + fileName + " from " + keptFile, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends every commit in the kept files and the journal to the logs of the databases and empties them
+     */
+    private void recover() {
+        for (File keptFile : getKeptFiles())
+            recover(keptFile);
+        // Later commits are written to the journal, so what couldn't be appended is kept out of their way
+        if (!recover(FILE))
+            moveToKept(FILE);
+    }
+
+    /**
+     * Appends every commit in a journal file to the logs of the databases and deletes the file
+     *
+     * @param file the journal or a kept file
+     * @return whether the commits were appended, if they weren't the file is left as it is
+     */
+    private boolean recover(File file) {
+        if (!file.exists()) return true;
+        logger.log(Level.WARNING, "Appending the unfinished commits in " + file + " to the logs.");
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] commit;
+            while ((commit = Database.readFramed(input, file.length())) != null)
+                recover(commit);
+        } catch (StreamCorruptedException e) {
+            // The last commit was only partially written to the journal, so it never happened
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not append the commits in " + file + " to the logs.", e);
+            return false;
+        }
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not empty " + file, e);
+        }
+        return true;
+    }
+
+    /**
+     * Appends one commit of the journal to the logs of the databases
+     *
+     * @param commit the commit without its length and checksum
+     * @throws IOException if the commit can't be read or a log can't be written to
+     */
+    private void recover(byte[] commit) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(commit));
+        byte version = input.readByte();
+        if (version != VERSION)
+            throw new IOException("Unknown journal version " + version);
+        int size = input.readInt();
+        for (int i = 0; i < size; i++) {
+            String fileName = ModelCodec.readString(input);
+            byte[] record = new byte[input.readInt()];
+            input.readFully(record);
+            Database.appendFramed(new File(DIRECTORY, fileName).getPath() + Database.LOG_FILE_EXTENSION, record);
+        }
+    }
+
+    /**
+     * Gets the kept files in the directory, oldest first
+     *
+     * @return the kept files
+     */
+    private List<File> getKeptFiles() {
+        List<File> keptFiles = new ArrayList<>();
+        File[] files = DIRECTORY.listFiles((directory, name) -> name.startsWith(KEPT_FILE_NAME) &&
+                name.substring(KEPT_FILE_NAME.length()).matches("\\d+"));
+        if (files != null)
+            for (File file : files)
+                keptFiles.add(file);
+        keptFiles.sort(Comparator.comparingLong(TransactionJournal::getKeptNumber));
+        return keptFiles;
+    }
+
+    /**
+     * Gets the file to make when more records have to be kept
+     *
+     * @return a kept file that doesn't exist yet, numbered after every other kept file
+     */
+    private File getNextKeptFile() {
+        List<File> keptFiles = getKeptFiles();
+        long number = keptFiles.isEmpty() ? 0 : getKeptNumber(keptFiles.get(keptFiles.size() - 1)) + 1;
+        return new File(DIRECTORY, KEPT_FILE_NAME + number);
+    }
+
+    /**
+     * Gets the number at the end of the name of a kept file
+     *
+     * @param keptFile the kept file
+     * @return the number
+     */
+    private static long getKeptNumber(File keptFile) {
+        return Long.parseLong(keptFile.getName().substring(KEPT_FILE_NAME.length()));
+    }
+
+    /**
+     * Writes the log records of a commit as one journal record
+     *
+     * @param records the log record of each database, by the name of its .ser file
+     * @return the journal record without its length and checksum
+     * @throws IOException if the records can't be written
+     */
+    private static byte[] encode(Map<String, byte[]> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(VERSION);
+        output.writeInt(records.size());
+        for (Map.Entry<String, byte[]> record : records.entrySet()) {
+            ModelCodec.writeString(output, record.getKey());
+            output.writeInt(record.getValue().length);
+            output.write(record.getValue());
+        }
+        output.close();
+        return bytes.toByteArray();
+    }
+}
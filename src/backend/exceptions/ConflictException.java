@@ -0,0 +1,24 @@
+package backend.exceptions;
+
+/**
+ * Another operation was changing the same entries at the same time, so this operation was stopped before it changed
+ * anything. Trying the operation again usually works.
+ * This is unchecked since any operation that changes the databases can run into it.
+ */
+public class ConflictException extends RuntimeException {
+    /**
+     * New exception without err message
+     */
+    public ConflictException() {
+        super();
+    }
+
+    /**
+     * New exception with err message
+     *
+     * @param msg the err message
+     */
+    public ConflictException(String msg) {
+        super(msg);
+    }
+}
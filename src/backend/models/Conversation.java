@@ -0,0 +1,187 @@
+package backend.models;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Keeps track of the messages one user got from another user.
+ * The messages themselves are saved separately, this only remembers which sequence numbers are in use,
+ * which have been cleared and which the recipient has read.
+ */
+public class Conversation implements Serializable, Idable {
+    private static final long serialVersionUID = 2750219964327381094L;
+    private final String RECIPIENT_ID;
+    private final String SENDER_ID;
+    private long lastSequence;
+    private long firstSequence = 1;
+    private long lastReadSequence;
+    private long version;
+
+    /**
+     * Makes a new conversation without any messages
+     *
+     * @param recipientId the user getting the messages
+     * @param senderId    the user sending the messages
+     */
+    public Conversation(String recipientId, String senderId) {
+        this.RECIPIENT_ID = recipientId;
+        this.SENDER_ID = senderId;
+    }
+
+    /**
+     * Reads a conversation that was written by write
+     *
+     * @param input where the conversation is read from
+     * @throws IOException if the conversation can't be read
+     */
+    public Conversation(DataInput input) throws IOException {
+        this.RECIPIENT_ID = ModelCodec.readId(input);
+        this.SENDER_ID = ModelCodec.readId(input);
+        this.lastSequence = input.readLong();
+        this.firstSequence = input.readLong();
+        this.lastReadSequence = input.readLong();
+    }
+
+    /**
+     * Writes the conversation in the format used by ModelCodec
+     *
+     * @param output where the conversation is written to
+     * @throws IOException if the conversation can't be written
+     */
+    public void write(DataOutput output) throws IOException {
+        ModelCodec.writeId(output, RECIPIENT_ID);
+        ModelCodec.writeId(output, SENDER_ID);
+        output.writeLong(lastSequence);
+        output.writeLong(firstSequence);
+        output.writeLong(lastReadSequence);
+    }
+
+    /**
+     * The user getting the messages
+     *
+     * @return the user id of the recipient
+     */
+    public String getRecipientId() {
+        return RECIPIENT_ID;
+    }
+
+    /**
+     * The user sending the messages
+     *
+     * @return the user id of the sender
+     */
+    public String getSenderId() {
+        return SENDER_ID;
+    }
+
+    /**
+     * Takes the next sequence number for a new message
+     *
+     * @return the sequence number of the new message
+     */
+    public long nextSequence() {
+        return ++lastSequence;
+    }
+
+    /**
+     * The sequence number of the newest message, or 0 if there has never been a message
+     *
+     * @return the sequence number of the newest message
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * The sequence number of the oldest message that hasn't been cleared
+     *
+     * @return the sequence number of the oldest message
+     */
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+
+    /**
+     * Forgets every message sent so far. Sequence numbers keep going up, so they are never used twice.
+     */
+    public void clear() {
+        firstSequence = lastSequence + 1;
+        lastReadSequence = lastSequence;
+    }
+
+    /**
+     * The sequence number of the newest message the recipient has read
+     *
+     * @return the sequence number
+     */
+    public long getLastReadSequence() {
+        return lastReadSequence;
+    }
+
+    /**
+     * Marks the messages up to a sequence number as read. Messages can't be marked as unread again.
+     *
+     * @param sequence the sequence number of the newest message that was read
+     */
+    public void markAsRead(long sequence) {
+        lastReadSequence = Math.max(lastReadSequence, Math.min(sequence, lastSequence));
+    }
+
+    /**
+     * How many messages the recipient hasn't read
+     *
+     * @return the amount of unread messages
+     */
+    public int getUnreadCount() {
+        return (int) (lastSequence - Math.max(lastReadSequence, firstSequence - 1));
+    }
+
+    /**
+     * Whether there are any messages that haven't been cleared
+     *
+     * @return true if there are no messages
+     */
+    public boolean isEmpty() {
+        return firstSequence > lastSequence;
+    }
+
+    /**
+     * Gets the id, which is made from the two users
+     * @return the id
+     */
+    @Override
+    public String getId() {
+        return getId(RECIPIENT_ID, SENDER_ID);
+    }
+
+    /**
+     * Gets the id of a conversation without having the conversation
+     *
+     * @param recipientId the user getting the messages
+     * @param senderId    the user sending the messages
+     * @return the id
+     */
+    public static String getId(String recipientId, String senderId) {
+        return recipientId + ":" + senderId;
+    }
+
+    /**
+     * Gets the version, which goes up every time this is saved to the database
+     * @return the version
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version, only the database should do this
+     * @param version the version
+     */
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -9,4 +9,17 @@ public interface Idable {
      * @return the id
      */
     String getId();
+
+    /**
+     * Gets the version, which goes up every time the instance is saved to a database.
+     * Comparing versions shows whether someone else saved the instance since it was read.
+     * @return the version
+     */
+    long getVersion();
+
+    /**
+     * Sets the version, this should only be done by the database
+     * @param version the version
+     */
+    void setVersion(long version);
 }
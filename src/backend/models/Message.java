@@ -0,0 +1,135 @@
+package backend.models;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Represents a single message sent from one user to another.
+ * Messages are numbered within their conversation, and are never changed once they are sent.
+ */
+public class Message implements Serializable, Idable {
+    private static final long serialVersionUID = 4620577911873145021L;
+    private final String RECIPIENT_ID;
+    private final String SENDER_ID;
+    private final long SEQUENCE;
+    private final String MESSAGE;
+    private long version;
+
+    /**
+     * Makes a new message
+     *
+     * @param recipientId the user getting the message
+     * @param senderId    the user sending the message
+     * @param sequence    the number of the message in the conversation
+     * @param message     what the message says
+     */
+    public Message(String recipientId, String senderId, long sequence, String message) {
+        this.RECIPIENT_ID = recipientId;
+        this.SENDER_ID = senderId;
+        this.SEQUENCE = sequence;
+        this.MESSAGE = message;
+    }
+
+    /**
+     * Reads a message that was written by write
+     *
+     * @param input where the message is read from
+     * @throws IOException if the message can't be read
+     */
+    public Message(DataInput input) throws IOException {
+        this.RECIPIENT_ID = ModelCodec.readId(input);
+        this.SENDER_ID = ModelCodec.readId(input);
+        this.SEQUENCE = input.readLong();
+        this.MESSAGE = ModelCodec.readString(input);
+    }
+
+    /**
+     * Writes the message in the format used by ModelCodec
+     *
+     * @param output where the message is written to
+     * @throws IOException if the message can't be written
+     */
+    public void write(DataOutput output) throws IOException {
+        ModelCodec.writeId(output, RECIPIENT_ID);
+        ModelCodec.writeId(output, SENDER_ID);
+        output.writeLong(SEQUENCE);
+        ModelCodec.writeString(output, MESSAGE);
+    }
+
+    /**
+     * The user getting the message
+     *
+     * @return the user id of the recipient
+     */
+    public String getRecipientId() {
+        return RECIPIENT_ID;
+    }
+
+    /**
+     * The user that sent the message
+     *
+     * @return the user id of the sender
+     */
+    public String getSenderId() {
+        return SENDER_ID;
+    }
+
+    /**
+     * The number of the message in the conversation, each message has a higher number than the one before it
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return SEQUENCE;
+    }
+
+    /**
+     * What the message says
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return MESSAGE;
+    }
+
+    /**
+     * Gets the id, which is made from the conversation and the sequence number
+     * @return the id
+     */
+    @Override
+    public String getId() {
+        return getId(RECIPIENT_ID, SENDER_ID, SEQUENCE);
+    }
+
+    /**
+     * Gets the id of a message without having the message
+     *
+     * @param recipientId the user getting the message
+     * @param senderId    the user sending the message
+     * @param sequence    the number of the message in the conversation
+     * @return the id
+     */
+    public static String getId(String recipientId, String senderId, long sequence) {
+        return Conversation.getId(recipientId, senderId) + "#" + sequence;
+    }
+
+    /**
+     * Gets the version, which goes up every time this is saved to the database
+     * @return the version
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version, only the database should do this
+     * @param version the version
+     */
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,364 @@
+package backend.models;
+
+import backend.IdTable;
+import backend.models.users.Admin;
+import backend.models.users.Trader;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads and writes the models in a compact binary format that is used instead of Java serialization.
+ * Every item starts with a byte saying what kind of model it is, followed by the fields the model writes itself.
+ * Ids are written as the two longs of their UUID, and strings and lists are written with their length first.
+ */
+public class ModelCodec {
+    /**
+     * The version of the format written by this class. Version 2 files have the version of each item before it.
+     */
+    public static final byte VERSION = 2;
+
+    /**
+     * The oldest version of the format that can still be read
+     */
+    public static final byte OLDEST_VERSION = 1;
+
+    // What kind of item follows
+    private static final byte SERIALIZED = 0;
+    private static final byte TRADER = 1;
+    private static final byte ADMIN = 2;
+    private static final byte TRADE = 3;
+    private static final byte TRADABLE_ITEM = 4;
+    private static final byte REPORT = 5;
+    private static final byte REVIEW = 6;
+    private static final byte MESSAGE = 7;
+    private static final byte CONVERSATION = 8;
+    // Reports used to be written without their id
+    private static final byte REPORT_WITH_ID = 9;
+    // Traders used to be written without the week of their trade count
+    private static final byte TRADER_WITH_WEEK = 10;
+    // Traders used to be written with a copy of the default limits, since their limits were overwritten with the
+    // defaults whenever those changed
+    private static final byte TRADER_WITH_DEFAULT_LIMITS = 11;
+
+    // How an id is written
+    private static final byte NULL_ID = 0;
+    private static final byte UUID_ID = 1;
+    private static final byte STRING_ID = 2;
+
+    private ModelCodec() {
+    }
+
+    /**
+     * Writes an item along with what kind of item it is.
+     * Items that aren't one of the models are written with Java serialization.
+     *
+     * @param output where the item is written to
+     * @param item   the item being written
+     * @throws IOException if the item can't be written
+     */
+    public static void writeItem(DataOutput output, Idable item) throws IOException {
+        // Subclasses have to be checked before their parents
+        if (item instanceof Trader) {
+            output.writeByte(TRADER_WITH_DEFAULT_LIMITS);
+            ((Trader) item).write(output);
+        } else if (item instanceof Admin) {
+            output.writeByte(ADMIN);
+            ((Admin) item).write(output);
+        } else if (item instanceof Trade) {
+            output.writeByte(TRADE);
+            ((Trade) item).write(output);
+        } else if (item instanceof TradableItem) {
+            output.writeByte(TRADABLE_ITEM);
+            ((TradableItem) item).write(output);
+        } else if (item instanceof Review) {
+            output.writeByte(REVIEW);
+            ((Review) item).write(output);
+        } else if (item instanceof Report) {
+            output.writeByte(REPORT_WITH_ID);
+            ((Report) item).writeWithId(output);
+        } else if (item instanceof Message) {
+            output.writeByte(MESSAGE);
+            ((Message) item).write(output);
+        } else if (item instanceof Conversation) {
+            output.writeByte(CONVERSATION);
+            ((Conversation) item).write(output);
+        } else {
+            output.writeByte(SERIALIZED);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream objectOutput = new ObjectOutputStream(bytes);
+            objectOutput.writeObject(item);
+            objectOutput.close();
+            output.writeInt(bytes.size());
+            output.write(bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Reads an item that was written by writeItem
+     *
+     * @param input where the item is read from
+     * @return the item
+     * @throws IOException if the item can't be read
+     */
+    public static Idable readItem(DataInput input) throws IOException {
+        byte type = input.readByte();
+        switch (type) {
+            case TRADER:
+            case TRADER_WITH_WEEK:
+                Trader trader = new Trader(input, type == TRADER_WITH_WEEK);
+                trader.useDefaultLimits();
+                return trader;
+            case TRADER_WITH_DEFAULT_LIMITS:
+                return new Trader(input);
+            case ADMIN:
+                return new Admin(input);
+            case TRADE:
+                return new Trade(input);
+            case TRADABLE_ITEM:
+                return new TradableItem(input);
+            case REVIEW:
+                return new Review(input);
+            case REPORT:
+                return new Report(input);
+            case REPORT_WITH_ID:
+                return new Report(input, true);
+            case MESSAGE:
+                return new Message(input);
+            case CONVERSATION:
+                return new Conversation(input);
+            case SERIALIZED:
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (Idable) objectInput.readObject();
+                } catch (ClassNotFoundException | ClassCastException e) {
+                    throw new InvalidObjectException("Unknown item: " + e.getMessage());
+                }
+            default:
+                throw new StreamCorruptedException("Unknown item type " + type);
+        }
+    }
+
+    /**
+     * Writes an item along with its version and what kind of item it is
+     *
+     * @param output where the item is written to
+     * @param item   the item being written
+     * @throws IOException if the item can't be written
+     */
+    public static void writeVersionedItem(DataOutput output, Idable item) throws IOException {
+        output.writeLong(item.getVersion());
+        writeItem(output, item);
+    }
+
+    /**
+     * Reads an item that was written by writeVersionedItem, or by writeItem in a version 1 file.
+     * Items from version 1 files are given version 1, since they were saved at least once.
+     *
+     * @param input         where the item is read from
+     * @param formatVersion the version of the format the item was written in
+     * @return the item
+     * @throws IOException if the item can't be read
+     */
+    public static Idable readVersionedItem(DataInput input, byte formatVersion) throws IOException {
+        long version = formatVersion >= 2 ? input.readLong() : 1;
+        Idable item = readItem(input);
+        item.setVersion(version);
+        return item;
+    }
+
+    /**
+     * Checks that the format version is one that can be read
+     *
+     * @param formatVersion the version of the format
+     * @throws StreamCorruptedException if the version is unknown
+     */
+    public static void checkVersion(byte formatVersion) throws StreamCorruptedException {
+        if (formatVersion < OLDEST_VERSION || formatVersion > VERSION)
+            throw new StreamCorruptedException("Unknown version " + formatVersion);
+    }
+
+    /**
+     * Makes a deep copy of an item, including its version, by writing it and reading it back
+     *
+     * @param item the item being copied
+     * @return a copy of the item
+     * @throws IOException if the item can't be copied
+     */
+    public static Idable copy(Idable item) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeVersionedItem(new DataOutputStream(bytes), item);
+        return readVersionedItem(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), VERSION);
+    }
+
+    /**
+     * Writes an id, which takes 17 bytes if it is a UUID
+     *
+     * @param output where the id is written to
+     * @param id     the id, can be null
+     * @throws IOException if the id can't be written
+     */
+    public static void writeId(DataOutput output, String id) throws IOException {
+        UUID uuid = toUUID(id);
+        if (uuid != null) {
+            output.writeByte(UUID_ID);
+            output.writeLong(uuid.getMostSignificantBits());
+            output.writeLong(uuid.getLeastSignificantBits());
+        } else if (id == null) {
+            output.writeByte(NULL_ID);
+        } else {
+            output.writeByte(STRING_ID);
+            writeString(output, id);
+        }
+    }
+
+    /**
+     * Reads an id that was written by writeId
+     *
+     * @param input where the id is read from
+     * @return the id, can be null
+     * @throws IOException if the id can't be read
+     */
+    public static String readId(DataInput input) throws IOException {
+        byte type = input.readByte();
+        switch (type) {
+            case UUID_ID:
+                // The same id is read into many items, so they all share one string
+                return IdTable.getShared(new UUID(input.readLong(), input.readLong()).toString());
+            case NULL_ID:
+                return null;
+            case STRING_ID:
+                return readString(input);
+            default:
+                throw new StreamCorruptedException("Unknown id type " + type);
+        }
+    }
+
+    /**
+     * Writes a list of ids, with the size of the list first
+     *
+     * @param output where the ids are written to
+     * @param ids    the ids
+     * @throws IOException if the ids can't be written
+     */
+    public static void writeIds(DataOutput output, Collection<String> ids) throws IOException {
+        output.writeInt(ids.size());
+        for (String id : ids)
+            writeId(output, id);
+    }
+
+    /**
+     * Reads a list of ids that was written by writeIds
+     *
+     * @param input where the ids are read from
+     * @param ids   the list the ids are added to
+     * @throws IOException if the ids can't be read
+     */
+    public static void readIds(DataInput input, Collection<String> ids) throws IOException {
+        int size = input.readInt();
+        for (int i = 0; i < size; i++)
+            ids.add(readId(input));
+    }
+
+    /**
+     * Writes a string as UTF-8 with its length first. Unlike writeUTF this has no limit on the length.
+     *
+     * @param output where the string is written to
+     * @param string the string, can be null
+     * @throws IOException if the string can't be written
+     */
+    public static void writeString(DataOutput output, String string) throws IOException {
+        if (string == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads a string that was written by writeString
+     *
+     * @param input where the string is read from
+     * @return the string, can be null
+     * @throws IOException if the string can't be read
+     */
+    public static String readString(DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a list of strings, with the size of the list first
+     *
+     * @param output  where the strings are written to
+     * @param strings the strings
+     * @throws IOException if the strings can't be written
+     */
+    public static void writeStrings(DataOutput output, List<String> strings) throws IOException {
+        output.writeInt(strings.size());
+        for (String string : strings)
+            writeString(output, string);
+    }
+
+    /**
+     * Reads a list of strings that was written by writeStrings
+     *
+     * @param input   where the strings are read from
+     * @param strings the list the strings are added to
+     * @throws IOException if the strings can't be read
+     */
+    public static void readStrings(DataInput input, List<String> strings) throws IOException {
+        int size = input.readInt();
+        for (int i = 0; i < size; i++)
+            strings.add(readString(input));
+    }
+
+    /**
+     * Writes a date as milliseconds
+     *
+     * @param output where the date is written to
+     * @param date   the date, can be null
+     * @throws IOException if the date can't be written
+     */
+    public static void writeDate(DataOutput output, Date date) throws IOException {
+        output.writeBoolean(date != null);
+        if (date != null) output.writeLong(date.getTime());
+    }
+
+    /**
+     * Reads a date that was written by writeDate
+     *
+     * @param input where the date is read from
+     * @return the date, can be null
+     * @throws IOException if the date can't be read
+     */
+    public static Date readDate(DataInput input) throws IOException {
+        return input.readBoolean() ? new Date(input.readLong()) : null;
+    }
+
+    /**
+     * Gets the UUID an id was made from
+     *
+     * @param id the id
+     * @return the UUID, or null if the id isn't exactly how a UUID is written
+     */
+    private static UUID toUUID(String id) {
+        if (id == null || id.length() != 36) return null;
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
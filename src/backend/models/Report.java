@@ -1,14 +1,25 @@
 package backend.models;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.Date;
+import java.util.UUID;
 
 /**
- * Represents what goes into reporting someone
+ * Represents what goes into reporting someone.
+ * Reports made before reports had their own database don't have an id or a date, so their id is made from
+ * what they say.
  */
 public class Report implements Serializable, Idable {
+    private static final long serialVersionUID = 1191186175426879555L;
     private final String FROM_USER_ID;
     private final String REPORT_ON_USER_ID;
     private final String MESSAGE;
+    private final String ID;
+    private final Date DATE;
+    private long version;
     /**
      * Makes a new report
      *
@@ -20,6 +31,57 @@ public class Report implements Serializable, Idable {
         this.FROM_USER_ID = fromUserId;
         this.REPORT_ON_USER_ID = reportOnUserId;
         this.MESSAGE = message;
+        this.ID = UUID.randomUUID().toString();
+        this.DATE = new Date();
+    }
+
+    /**
+     * Reads a report that was written by write
+     *
+     * @param input where the report is read from
+     * @throws IOException if the report can't be read
+     */
+    public Report(DataInput input) throws IOException {
+        this(input, false);
+    }
+
+    /**
+     * Reads a report that was written by write, or by writeWithId if it has an id
+     *
+     * @param input where the report is read from
+     * @param hasId whether the report was written with its id and date
+     * @throws IOException if the report can't be read
+     */
+    Report(DataInput input, boolean hasId) throws IOException {
+        this.ID = hasId ? ModelCodec.readId(input) : null;
+        this.DATE = hasId ? ModelCodec.readDate(input) : null;
+        this.FROM_USER_ID = ModelCodec.readId(input);
+        this.REPORT_ON_USER_ID = ModelCodec.readId(input);
+        this.MESSAGE = ModelCodec.readString(input);
+    }
+
+    /**
+     * Writes the report in the format used by ModelCodec
+     *
+     * @param output where the report is written to
+     * @throws IOException if the report can't be written
+     */
+    public void write(DataOutput output) throws IOException {
+        ModelCodec.writeId(output, FROM_USER_ID);
+        ModelCodec.writeId(output, REPORT_ON_USER_ID);
+        ModelCodec.writeString(output, MESSAGE);
+    }
+
+    /**
+     * Writes the report along with its id and date, in the format used by ModelCodec
+     *
+     * @param output where the report is written to
+     * @throws IOException if the report can't be written
+     */
+    void writeWithId(DataOutput output) throws IOException {
+        ModelCodec.writeId(output, getId());
+        ModelCodec.writeDate(output, DATE);
+        write(output);
     }
 
     /**
@@ -49,12 +111,39 @@ public class Report implements Serializable, Idable {
         return MESSAGE;
     }
 
+    /**
+     * When the report was made
+     *
+     * @return when the report was made, or null if the report is from before reports had dates
+     */
+    public Date getDate() {
+        return DATE;
+    }
+
     /**
      * Gets the id
      * @return the id
      */
     @Override
     public String getId() {
-        return FROM_USER_ID + REPORT_ON_USER_ID + MESSAGE;
+        return ID != null ? ID : FROM_USER_ID + REPORT_ON_USER_ID + MESSAGE;
+    }
+
+    /**
+     * Gets the version, which goes up every time this is saved to the database
+     * @return the version
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version, only the database should do this
+     * @param version the version
+     */
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
     }
 }
@@ -1,11 +1,15 @@
 package backend.models;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
  * Represents giving something a review
  */
 public class Review extends Report implements Serializable {
+    private static final long serialVersionUID = 2033906092581746019L;
 
     private final double RATING;
 
@@ -21,6 +25,29 @@ public class Review extends Report implements Serializable {
         this.RATING = rating;
     }
 
+    /**
+     * Reads a review that was written by write
+     *
+     * @param input where the review is read from
+     * @throws IOException if the review can't be read
+     */
+    public Review(DataInput input) throws IOException {
+        super(input);
+        this.RATING = input.readDouble();
+    }
+
+    /**
+     * Writes the review in the format used by ModelCodec
+     *
+     * @param output where the review is written to
+     * @throws IOException if the review can't be written
+     */
+    @Override
+    public void write(DataOutput output) throws IOException {
+        super.write(output);
+        output.writeDouble(RATING);
+    }
+
     /**
      * The rating of the review
      * @return The rating of the review
@@ -34,6 +61,6 @@ public class Review extends Report implements Serializable {
      */
     @Override
     public String getId() {
-        return super.getId() + RATING;
+        return getFromUserId() + getReportOnUserId() + getMessage() + RATING;
     }
 }
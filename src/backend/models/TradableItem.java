@@ -1,6 +1,9 @@
 package backend.models;
 
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.UUID;
 
@@ -8,10 +11,12 @@ import java.util.UUID;
  * Represents an item that is supposed to be traded
  */
 public class TradableItem  implements Serializable, Idable{
+    private static final long serialVersionUID = 4246368931273220148L;
 
     private final String NAME;
     private final String DESCRIPTION;
-    private final String id = UUID.randomUUID().toString();
+    private final String id;
+    private long version;
     /**
      * Constructs a tradable item.
      *
@@ -21,6 +26,31 @@ public class TradableItem  implements Serializable, Idable{
     public TradableItem(String name, String description) {
         this.NAME = name;
         this.DESCRIPTION = description;
+        this.id = UUID.randomUUID().toString();
+    }
+
+    /**
+     * Reads a tradable item that was written by write
+     *
+     * @param input where the item is read from
+     * @throws IOException if the item can't be read
+     */
+    public TradableItem(DataInput input) throws IOException {
+        this.id = ModelCodec.readId(input);
+        this.NAME = ModelCodec.readString(input);
+        this.DESCRIPTION = ModelCodec.readString(input);
+    }
+
+    /**
+     * Writes the item in the format used by ModelCodec
+     *
+     * @param output where the item is written to
+     * @throws IOException if the item can't be written
+     */
+    public void write(DataOutput output) throws IOException {
+        ModelCodec.writeId(output, id);
+        ModelCodec.writeString(output, NAME);
+        ModelCodec.writeString(output, DESCRIPTION);
     }
 
     /**
@@ -58,4 +88,22 @@ public class TradableItem  implements Serializable, Idable{
     public String getId() {
         return id;
     }
+
+    /**
+     * Gets the version, which goes up every time this is saved to the database
+     * @return the version
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version, only the database should do this
+     * @param version the version
+     */
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -1,6 +1,9 @@
 package backend.models;
 
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.UUID;
@@ -9,6 +12,7 @@ import java.util.UUID;
  * Represents a trade between two users
  */
 public class Trade implements Serializable, Idable {
+    private static final long serialVersionUID = -3080189120127724584L;
     private Date meetingTime;
     private Date secondMeetingTime;
     private String meetingLocation;
@@ -24,7 +28,8 @@ public class Trade implements Serializable, Idable {
     private final String FIRST_USER_ID, SECOND_USER_ID;
     private final int MAX_ALLOWED_NUM_EDITS;
     private String message;
-    private final String id = UUID.randomUUID().toString();
+    private final String id;
+    private long version;
     private String userTurnToEdit;
 
     /**
@@ -54,6 +59,60 @@ public class Trade implements Serializable, Idable {
         this.firstUserOffer = firstUserOffer;
         this.secondUserOffer = secondUserOffer;
         this.message = message;
+        this.id = UUID.randomUUID().toString();
+    }
+
+    /**
+     * Reads a trade that was written by write
+     *
+     * @param input where the trade is read from
+     * @throws IOException if the trade can't be read
+     */
+    public Trade(DataInput input) throws IOException {
+        this.id = ModelCodec.readId(input);
+        this.FIRST_USER_ID = ModelCodec.readId(input);
+        this.SECOND_USER_ID = ModelCodec.readId(input);
+        this.MAX_ALLOWED_NUM_EDITS = input.readInt();
+        this.numEdits = input.readInt();
+        this.userTurnToEdit = ModelCodec.readId(input);
+        this.meetingTime = ModelCodec.readDate(input);
+        this.secondMeetingTime = ModelCodec.readDate(input);
+        this.meetingLocation = ModelCodec.readString(input);
+        this.firstUserOffer = ModelCodec.readId(input);
+        this.secondUserOffer = ModelCodec.readId(input);
+        this.message = ModelCodec.readString(input);
+        byte flags = input.readByte();
+        this.hasFirstUserConfirmedRequest = (flags & 1) != 0;
+        this.hasSecondUserConfirmedRequest = (flags & 2) != 0;
+        this.isFirstUserConfirmed1 = (flags & 4) != 0;
+        this.isSecondUserConfirmed1 = (flags & 8) != 0;
+        this.isFirstUserConfirmed2 = (flags & 16) != 0;
+        this.isSecondUserConfirmed2 = (flags & 32) != 0;
+    }
+
+    /**
+     * Writes the trade in the format used by ModelCodec
+     *
+     * @param output where the trade is written to
+     * @throws IOException if the trade can't be written
+     */
+    public void write(DataOutput output) throws IOException {
+        ModelCodec.writeId(output, id);
+        ModelCodec.writeId(output, FIRST_USER_ID);
+        ModelCodec.writeId(output, SECOND_USER_ID);
+        output.writeInt(MAX_ALLOWED_NUM_EDITS);
+        output.writeInt(numEdits);
+        ModelCodec.writeId(output, userTurnToEdit);
+        ModelCodec.writeDate(output, meetingTime);
+        ModelCodec.writeDate(output, secondMeetingTime);
+        ModelCodec.writeString(output, meetingLocation);
+        ModelCodec.writeId(output, firstUserOffer);
+        ModelCodec.writeId(output, secondUserOffer);
+        ModelCodec.writeString(output, message);
+        // All the confirmations fit in one byte
+        output.writeByte((hasFirstUserConfirmedRequest ? 1 : 0) | (hasSecondUserConfirmedRequest ? 2 : 0) |
+                (isFirstUserConfirmed1 ? 4 : 0) | (isSecondUserConfirmed1 ? 8 : 0) |
+                (isFirstUserConfirmed2 ? 16 : 0) | (isSecondUserConfirmed2 ? 32 : 0));
     }
 
     /**
@@ -339,4 +398,22 @@ public class Trade implements Serializable, Idable {
     public String getId() {
         return id;
     }
+
+    /**
+     * Gets the version, which goes up every time this is saved to the database
+     * @return the version
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version, only the database should do this
+     * @param version the version
+     */
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
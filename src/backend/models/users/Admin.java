@@ -1,7 +1,13 @@
 package backend.models.users;
 
+import backend.models.Idable;
+import backend.models.ModelCodec;
 import backend.models.Report;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -10,8 +16,10 @@ import java.util.List;
  * Represents an admin
  */
 public class Admin extends User implements Serializable{
+    private static final long serialVersionUID = -7296464244009351238L;
 
 
+    // Only for reports saved before reports got their own database
     private List<Report> reports;
 
     /**
@@ -26,7 +34,39 @@ public class Admin extends User implements Serializable{
     }
 
     /**
-     * Getting reports
+     * Reads an admin that was written by write
+     *
+     * @param input where the admin is read from
+     * @throws IOException if the admin can't be read
+     */
+    public Admin(DataInput input) throws IOException {
+        super(input);
+        int size = input.readInt();
+        this.reports = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Idable report = ModelCodec.readItem(input);
+            if (!(report instanceof Report)) throw new InvalidObjectException("Expected a report");
+            reports.add((Report) report);
+        }
+    }
+
+    /**
+     * Writes the admin in the format used by ModelCodec
+     *
+     * @param output where the admin is written to
+     * @throws IOException if the admin can't be written
+     */
+    @Override
+    public void write(DataOutput output) throws IOException {
+        super.write(output);
+        output.writeInt(reports.size());
+        for (Report report : reports)
+            ModelCodec.writeItem(output, report);
+    }
+
+    /**
+     * Getting reports that were saved in this admin before reports got their own database.
+     * ReportManager moves these out the first time it sees them.
      * @return the reports
      */
     public List<Report> getReports() {
@@ -1,32 +1,49 @@
 package backend.models.users;
 
 
+import backend.models.ModelCodec;
 import backend.models.Review;
 import backend.tradesystem.TraderProperties;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * represents a trader (user who can trade)
  */
 
 public class Trader extends User implements Serializable {
-    private final List<String> wishList = new ArrayList<>();  // Items that this trader wants.
-    private final List<String> availableItems = new ArrayList<>(); // Items that the trader is willing to trade,lend etc
-    private final List<String> requestedItems = new ArrayList<>(); // Items that this trader wishes to be added to availableItems list
-    private final List<String> ongoingItems = new ArrayList<>(); // Items that this trader is currently using for trades
-
-    private final List<String> acceptedTrades = new ArrayList<>(); // Trades that are ongoing
-    private final List<String> requestedTrades = new ArrayList<>(); // Trades yet to be accepted or denied
-    private final List<String> completedTrades = new ArrayList<>(); // Trades where meetings are finished and confirmed by both sides and transaction has concluded
-    private final List<Review> reviews = new ArrayList<>(); // List of reviews
-    private int tradeLimit; // This trader's trade limit (total amount of trades that can be conducted per week)
-    private int incompleteTradeLim; // This trader's incomplete trade limit
+    private static final long serialVersionUID = -4850998117602473870L;
+    private static final int DEFAULT_LIMIT = Integer.MIN_VALUE;
+    // The default limits, given by the trader config every time it is read, so getting a limit never reads a file
+    private static volatile Map<TraderProperties, Integer> defaultLimits = Collections.emptyMap();
+    private Set<String> wishList = new LinkedHashSet<>();  // Items that this trader wants.
+    private Set<String> availableItems = new LinkedHashSet<>(); // Items that the trader is willing to trade,lend etc
+    private Set<String> requestedItems = new LinkedHashSet<>(); // Items that this trader wishes to be added to availableItems list
+    private Set<String> ongoingItems = new LinkedHashSet<>(); // Items that this trader is currently using for trades
+
+    private Set<String> acceptedTrades = new LinkedHashSet<>(); // Trades that are ongoing
+    private Set<String> requestedTrades = new LinkedHashSet<>(); // Trades yet to be accepted or denied
+    private Set<String> completedTrades = new LinkedHashSet<>(); // Trades where meetings are finished and confirmed by both sides and transaction has concluded
+    private List<Review> reviews = new ArrayList<>(); // List of reviews
+    // The limits are DEFAULT_LIMIT when this trader uses the default limit in the trader config
+    private int tradeLimit = DEFAULT_LIMIT; // This trader's trade limit (total amount of trades that can be conducted per week)
+    private int incompleteTradeLim = DEFAULT_LIMIT; // This trader's incomplete trade limit
     private int totalItemsLent;
-    private int minimumAmountNeededToBorrow; // The minimum value totalItemsLent - totalItemsBorrowed needs to be to borrow
-    private int tradeCount;
+    private int minimumAmountNeededToBorrow = DEFAULT_LIMIT; // The minimum value totalItemsLent - totalItemsBorrowed needs to be to borrow
+    private int tradeCount; // The number of trades done in the week tradeCountWeek
+    private long tradeCountWeek = getCurrentWeek();
     private boolean isIdle = false;
     private String city;
     private int totalItemsBorrowed;
@@ -35,7 +52,19 @@ public class Trader extends User implements Serializable {
 
 
     /**
-     * Constructs a trader with its own username and password.
+     * Constructs a trader with its own username and password that uses the default limits
+     *
+     * @param name     the trader's username
+     * @param password the trader's password
+     * @param city     the city of the trader
+     */
+    public Trader(String name, String password, String city) {
+        super(name, password);
+        this.city = city;
+    }
+
+    /**
+     * Constructs a trader with its own username and password that has its own limits.
      *
      * @param name                        the trader's username
      * @param password                    the trader's password
@@ -53,6 +82,117 @@ public class Trader extends User implements Serializable {
 
     }
 
+    /**
+     * Reads a trader that was written by write
+     *
+     * @param input where the trader is read from
+     * @throws IOException if the trader can't be read
+     */
+    public Trader(DataInput input) throws IOException {
+        this(input, true);
+    }
+
+    /**
+     * Reads a trader that was written by write, or by an older version that didn't write the week of the trade count.
+     * The trade counts of older traders belong to the week older versions last reset them in, see
+     * getLegacyTradeCountWeek.
+     *
+     * @param input             where the trader is read from
+     * @param hasTradeCountWeek whether the week of the trade count was written
+     * @throws IOException if the trader can't be read
+     */
+    public Trader(DataInput input, boolean hasTradeCountWeek) throws IOException {
+        super(input);
+        ModelCodec.readIds(input, wishList);
+        ModelCodec.readIds(input, availableItems);
+        ModelCodec.readIds(input, requestedItems);
+        ModelCodec.readIds(input, ongoingItems);
+        ModelCodec.readIds(input, acceptedTrades);
+        ModelCodec.readIds(input, requestedTrades);
+        ModelCodec.readIds(input, completedTrades);
+        int numReviews = input.readInt();
+        for (int i = 0; i < numReviews; i++)
+            reviews.add(new Review(input));
+        this.tradeLimit = input.readInt();
+        this.incompleteTradeLim = input.readInt();
+        this.minimumAmountNeededToBorrow = input.readInt();
+        this.totalItemsLent = input.readInt();
+        this.totalItemsBorrowed = input.readInt();
+        this.totalAcceptedBorrows = input.readInt();
+        this.tradeCount = input.readInt();
+        this.tradeCountWeek = hasTradeCountWeek ? input.readLong() : getLegacyTradeCountWeek();
+        this.isIdle = input.readBoolean();
+        this.city = ModelCodec.readString(input);
+    }
+
+    /**
+     * Reads a trader that was saved with Java serialization, which is only done by files from before ModelCodec.
+     * Those traders kept their items and trades in lists, and their limits were copies of the default limits.
+     *
+     * @param input where the trader is read from
+     * @throws IOException            if the trader can't be read
+     * @throws ClassNotFoundException if a class in the trader is unknown
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = input.readFields();
+        wishList = readIdSet(fields, "wishList");
+        availableItems = readIdSet(fields, "availableItems");
+        requestedItems = readIdSet(fields, "requestedItems");
+        ongoingItems = readIdSet(fields, "ongoingItems");
+        acceptedTrades = readIdSet(fields, "acceptedTrades");
+        requestedTrades = readIdSet(fields, "requestedTrades");
+        completedTrades = readIdSet(fields, "completedTrades");
+        Collection<Review> oldReviews = (Collection<Review>) fields.get("reviews", null);
+        reviews = oldReviews == null ? new ArrayList<>() : new ArrayList<>(oldReviews);
+        totalItemsLent = fields.get("totalItemsLent", 0);
+        totalItemsBorrowed = fields.get("totalItemsBorrowed", 0);
+        totalAcceptedBorrows = fields.get("totalAcceptedBorrows", 0);
+        tradeCount = fields.get("tradeCount", 0);
+        // Traders from before the week was saved have the count of the week the counts were last reset in
+        tradeCountWeek = fields.get("tradeCountWeek", getLegacyTradeCountWeek());
+        isIdle = fields.get("isIdle", false);
+        city = (String) fields.get("city", null);
+        useDefaultLimits();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> readIdSet(ObjectInputStream.GetField fields, String name) throws IOException {
+        Collection<String> ids = (Collection<String>) fields.get(name, null);
+        return ids == null ? new LinkedHashSet<>() : new LinkedHashSet<>(ids);
+    }
+
+    /**
+     * Writes the trader in the format used by ModelCodec
+     *
+     * @param output where the trader is written to
+     * @throws IOException if the trader can't be written
+     */
+    @Override
+    public void write(DataOutput output) throws IOException {
+        super.write(output);
+        ModelCodec.writeIds(output, wishList);
+        ModelCodec.writeIds(output, availableItems);
+        ModelCodec.writeIds(output, requestedItems);
+        ModelCodec.writeIds(output, ongoingItems);
+        ModelCodec.writeIds(output, acceptedTrades);
+        ModelCodec.writeIds(output, requestedTrades);
+        ModelCodec.writeIds(output, completedTrades);
+        output.writeInt(reviews.size());
+        for (Review review : reviews)
+            review.write(output);
+        output.writeInt(tradeLimit);
+        output.writeInt(incompleteTradeLim);
+        output.writeInt(minimumAmountNeededToBorrow);
+        output.writeInt(totalItemsLent);
+        output.writeInt(totalItemsBorrowed);
+        output.writeInt(totalAcceptedBorrows);
+        output.writeInt(tradeCount);
+        output.writeLong(tradeCountWeek);
+        output.writeBoolean(isIdle);
+        ModelCodec.writeString(output, city);
+    }
+
     /**
      * Return this trader's totalAcceptedBorrows
      * @return this trader's totalAcceptedBorrows
@@ -74,14 +214,14 @@ public class Trader extends User implements Serializable {
      * @return whether this trader can accept a borrow request
      */
     public boolean canAcceptBorrow(){
-        return canTrade() && totalItemsLent - totalAcceptedBorrows - totalItemsBorrowed >= minimumAmountNeededToBorrow;
+        return canTrade() && totalItemsLent - totalAcceptedBorrows - totalItemsBorrowed >= getLimit(TraderProperties.MINIMUM_AMOUNT_NEEDED_TO_BORROW);
     }
 
     /**
      * Gets all ongoing items
      * @return all ongoing items
      */
-    public List<String> getOngoingItems(){
+    public Set<String> getOngoingItems(){
         return ongoingItems;
     }
 
@@ -145,7 +285,7 @@ public class Trader extends User implements Serializable {
      * @return if the trader can borrow
      */
     public boolean canBorrow() {
-        return canTrade() && totalItemsLent - totalItemsBorrowed >= minimumAmountNeededToBorrow;
+        return canTrade() && totalItemsLent - totalItemsBorrowed >= getLimit(TraderProperties.MINIMUM_AMOUNT_NEEDED_TO_BORROW);
     }
 
     /**
@@ -154,26 +294,49 @@ public class Trader extends User implements Serializable {
      * @return if the trader can trade
      */
     public boolean canTrade() {
-        return !isFrozen() && tradeCount < tradeLimit && !isIdle();
+        return !isFrozen() && getTradeCount() < getLimit(TraderProperties.TRADE_LIMIT) && !isIdle();
     }
 
 
     /**
-     * total completed trade count
+     * total trade count of this week.
+     * The count starts over every week without having to be reset, since a count from a past week is just ignored.
      *
-     * @return total completed trade count
+     * @return total trade count of this week
      */
     public int getTradeCount() {
-        return tradeCount;
+        return tradeCountWeek == getCurrentWeek() ? tradeCount : 0;
     }
 
     /**
-     * Sets the value of this user's tradeCount
+     * Sets the value of this user's tradeCount for this week
      *
      * @param tradeCount the new value of this user's tradeCount
      */
     public void setTradeCount(int tradeCount) {
         this.tradeCount = tradeCount;
+        this.tradeCountWeek = getCurrentWeek();
+    }
+
+    /**
+     * Gets the current time in weeks since 1970, which is what trade counts are kept per
+     *
+     * @return the current week
+     */
+    public static long getCurrentWeek() {
+        return System.currentTimeMillis() / (1000L * 60 * 60 * 24 * 7);
+    }
+
+    /**
+     * Gets the week that the trade counts of traders from older versions belong to. Older versions reset every trade
+     * count once a week and saved that week as lastTradeCountUpdate in the trader config. If it wasn't read the counts
+     * are treated as being from last week, so they are never counted twice.
+     *
+     * @return the week the counts were last reset in
+     */
+    private static long getLegacyTradeCountWeek() {
+        Integer lastUpdate = defaultLimits.get(TraderProperties.LAST_TRADE_COUNT_UPDATE);
+        return lastUpdate == null ? getCurrentWeek() - 1 : lastUpdate;
     }
 
 
@@ -183,7 +346,7 @@ public class Trader extends User implements Serializable {
      * @return the trader's wishlist
      */
 
-    public List<String> getWishlist() {
+    public Set<String> getWishlist() {
         return wishList;
     }
 
@@ -193,7 +356,7 @@ public class Trader extends User implements Serializable {
      * @return list of available items this trader has
      */
 
-    public List<String> getAvailableItems() {
+    public Set<String> getAvailableItems() {
         return availableItems;
     }
 
@@ -205,7 +368,7 @@ public class Trader extends User implements Serializable {
      */
 
 
-    public List<String> getRequestedItems() {
+    public Set<String> getRequestedItems() {
         return requestedItems;
     }
 
@@ -217,7 +380,7 @@ public class Trader extends User implements Serializable {
      */
 
 
-    public List<String> getAcceptedTrades() {
+    public Set<String> getAcceptedTrades() {
         return acceptedTrades;
     }
 
@@ -228,7 +391,7 @@ public class Trader extends User implements Serializable {
      */
 
 
-    public List<String> getCompletedTrades() {
+    public Set<String> getCompletedTrades() {
         return completedTrades;
     }
 
@@ -240,7 +403,7 @@ public class Trader extends User implements Serializable {
      */
 
 
-    public List<String> getRequestedTrades() {
+    public Set<String> getRequestedTrades() {
         return requestedTrades;
     }
 
@@ -285,7 +448,60 @@ public class Trader extends User implements Serializable {
     }
 
     /**
-     * Sets the value of a specific limit
+     * Gets the value of a specific limit, which is the default limit if this trader doesn't have its own
+     * @param limit the limit
+     * @return the value of the limit
+     * @throws IllegalStateException if this trader uses the default limit and it hasn't been read
+     */
+    public int getLimit(TraderProperties limit) {
+        int value;
+        switch (limit) {
+            case INCOMPLETE_TRADE_LIM:
+                value = incompleteTradeLim;
+                break;
+            case MINIMUM_AMOUNT_NEEDED_TO_BORROW:
+                value = minimumAmountNeededToBorrow;
+                break;
+            default:
+                value = tradeLimit;
+        }
+        if (value != DEFAULT_LIMIT) return value;
+        Integer defaultValue = defaultLimits.get(limit);
+        if (defaultValue == null)
+            throw new IllegalStateException("The default " + limit.getProperty() + " hasn't been read");
+        return defaultValue;
+    }
+
+    /**
+     * Sets the limits used by traders that don't have their own, this is done by the trader config when it is read.
+     * The week the trade counts were last reset in is given along with them.
+     * @param limits the default value of each limit
+     */
+    public static void setDefaultLimits(Map<TraderProperties, Integer> limits) {
+        Map<TraderProperties, Integer> copy = new EnumMap<>(TraderProperties.class);
+        copy.putAll(limits);
+        defaultLimits = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Gets the limits used by traders that don't have their own
+     * @return the default value of each limit that was read
+     */
+    public static Map<TraderProperties, Integer> getDefaultLimits() {
+        return defaultLimits;
+    }
+
+    /**
+     * Makes this trader use the default limits instead of its own
+     */
+    public void useDefaultLimits() {
+        tradeLimit = DEFAULT_LIMIT;
+        incompleteTradeLim = DEFAULT_LIMIT;
+        minimumAmountNeededToBorrow = DEFAULT_LIMIT;
+    }
+
+    /**
+     * Sets the value of a specific limit, so this trader no longer uses the default for it
      * @param limit the limit to change
      * @param newValue the new value of the limit
      */
@@ -307,7 +523,7 @@ public class Trader extends User implements Serializable {
      * @return whether this trader has surpassed the incomplete trade limit
      */
     public boolean hasSurpassedIncompleteTradeLimit(){
-        return acceptedTrades.size() > incompleteTradeLim;
+        return acceptedTrades.size() > getLimit(TraderProperties.INCOMPLETE_TRADE_LIM);
     }
 
 }
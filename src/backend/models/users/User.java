@@ -3,7 +3,11 @@ package backend.models.users;
 
 
 import backend.models.Idable;
+import backend.models.ModelCodec;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -14,12 +18,15 @@ import java.util.UUID;
  * Represents a typical account
  */
 public abstract class User implements Serializable, Idable {
+    private static final long serialVersionUID = 635911049348654281L;
     private String username;
     private String password;
     private boolean isFrozen;
     private boolean isUnfrozenRequested;
-    private HashMap<String, List<String>> messages; // User id to list of messages
-    private final String id = UUID.randomUUID().toString();
+    // User id to list of messages, only for messages saved before they got their own database
+    private HashMap<String, List<String>> messages;
+    private final String id;
+    private long version;
 
     /**
      * Constructs a user with a given username and password.
@@ -32,6 +39,48 @@ public abstract class User implements Serializable, Idable {
         this.username = username;
         this.password = password;
         this.messages = new HashMap<>();
+        this.id = UUID.randomUUID().toString();
+    }
+
+    /**
+     * Reads the user that was written by write
+     *
+     * @param input where the user is read from
+     * @throws IOException if the user can't be read
+     */
+    protected User(DataInput input) throws IOException {
+        this.id = ModelCodec.readId(input);
+        this.username = ModelCodec.readString(input);
+        this.password = ModelCodec.readString(input);
+        this.isFrozen = input.readBoolean();
+        this.isUnfrozenRequested = input.readBoolean();
+        int senders = input.readInt();
+        this.messages = new HashMap<>();
+        for (int i = 0; i < senders; i++) {
+            String userId = ModelCodec.readId(input);
+            List<String> userMessages = new ArrayList<>();
+            ModelCodec.readStrings(input, userMessages);
+            messages.put(userId, userMessages);
+        }
+    }
+
+    /**
+     * Writes the user in the format used by ModelCodec
+     *
+     * @param output where the user is written to
+     * @throws IOException if the user can't be written
+     */
+    public void write(DataOutput output) throws IOException {
+        ModelCodec.writeId(output, id);
+        ModelCodec.writeString(output, username);
+        ModelCodec.writeString(output, password);
+        output.writeBoolean(isFrozen);
+        output.writeBoolean(isUnfrozenRequested);
+        output.writeInt(messages.size());
+        for (String userId : messages.keySet()) {
+            ModelCodec.writeId(output, userId);
+            ModelCodec.writeStrings(output, messages.get(userId));
+        }
     }
 
     /**
@@ -115,18 +164,9 @@ public abstract class User implements Serializable, Idable {
     }
 
     /**
-     * Adds a new message sent to this user by another user
-     * @param userId the user that sent the message
-     * @param message the message
-     */
-    public void addMessage(String userId, String message) {
-        if (!this.messages.containsKey(userId)) this.messages.put(userId, new ArrayList<>());
-        this.messages.get(userId).add(message);
-    }
-
-    /**
-     * All messages that got sent to this user
-     * @return all messages that got sent to this user
+     * Messages that got sent to this user before messages got their own database.
+     * New messages are kept by MessageManager, which moves these out the first time it sees them.
+     * @return old messages that got sent to this user
      */
     public HashMap<String, List<String>> getMessages(){
         return this.messages;
@@ -149,4 +189,22 @@ public abstract class User implements Serializable, Idable {
     public String getId(){
         return id;
     }
+
+    /**
+     * Gets the version, which goes up every time this is saved to the database
+     * @return the version
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version, only the database should do this
+     * @param version the version
+     */
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
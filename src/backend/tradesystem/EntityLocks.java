@@ -0,0 +1,79 @@
+package backend.tradesystem;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks for the entries in the databases, shared by every manager. Ids are spread over a fixed number of locks, so
+ * operations on different entries almost always run at the same time, while operations on the same entry run one
+ * after another. Locks are numbered, and waiting is only allowed for a lock with a higher number than every lock
+ * already held, so two operations can never end up waiting on each other.
+ */
+class EntityLocks {
+    // Has to be a power of two
+    private static final int STRIPES = 1024;
+    private static final long TIMEOUT_MILLIS = 1000;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    /**
+     * Makes the locks
+     */
+    EntityLocks() {
+        for (int i = 0; i < STRIPES; i++)
+            locks[i] = new ReentrantLock();
+    }
+
+    /**
+     * Gets the number of the lock that an id uses
+     *
+     * @param id the id
+     * @return the lock number
+     */
+    int getStripe(String id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * Gets how many locks there are, numbered from 0
+     *
+     * @return the amount of locks
+     */
+    int getStripeCount() {
+        return STRIPES;
+    }
+
+    /**
+     * Waits for a lock. Only do this if every lock already held has a lower number.
+     *
+     * @param stripe the lock number
+     */
+    void lock(int stripe) {
+        locks[stripe].lock();
+    }
+
+    /**
+     * Tries to get a lock without waiting for long, used for locks that are taken out of order
+     *
+     * @param stripe the lock number
+     * @return whether the lock was gotten
+     */
+    boolean tryLock(int stripe) {
+        try {
+            return locks[stripe].tryLock(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Releases a lock
+     *
+     * @param stripe the lock number
+     */
+    void unlock(int stripe) {
+        locks[stripe].unlock();
+    }
+}
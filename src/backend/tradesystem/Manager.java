@@ -2,14 +2,36 @@ package backend.tradesystem;
 
 import backend.Database;
 import backend.DatabaseFilePaths;
+import backend.DatabaseRegistry;
 import backend.exceptions.*;
+import backend.models.Conversation;
+import backend.models.Idable;
+import backend.models.Message;
+import backend.models.Report;
 import backend.models.TradableItem;
 import backend.models.Trade;
+import backend.models.users.Admin;
 import backend.models.users.Trader;
 import backend.models.users.User;
+import backend.tradesystem.events.ChangeEvent;
+import backend.tradesystem.events.ChangeEventBus;
+import backend.tradesystem.events.ChangeType;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * This is used to help make accessing and modifying the database files to be easier,
@@ -17,12 +39,59 @@ import java.util.Set;
  * By extending this class, the database files are gained access to without directly accessing the Database class.
  * <p>
  * This contains general methods that is useful in all applications.
+ * <p>
+ * Operations that change several items can be run inside a transaction. While a transaction is open, every item
+ * that is gotten is a copy that only this manager sees, and updates and deletes are kept back until the transaction
+ * is committed. Each thread has its own transaction, so a manager can be used by the Swing thread and by the
+ * threads that make changes for it at the same time. Items gotten outside of a transaction are the ones the
+ * databases keep in memory, so they are only for reading and must never be changed. Committing writes all the
+ * changes to each database at once, and ending a transaction without committing it throws away every change made
+ * during it.
+ * <p>
+ * Every change to the databases happens in a transaction, and a transaction locks every item it gets until it is
+ * committed or ended, so two managers can't change the same item at the same time and lose one of the changes.
+ * Operations that change several items should lock all of them at the start with lockEntities or lockTrades, which
+ * takes the locks in the same order every time. Locks that are taken later, out of that order, are only waited on
+ * for a short while before a ConflictException is thrown.
+ * <p>
+ * The version of every item gotten during a transaction is remembered, and committing fails with a
+ * ConflictException if any changed item was saved by someone else in the meantime, for example by a database object
+ * that doesn't go through these locks. Operations that a user prepares over a longer time, like a counter offer,
+ * can compare the version the user saw against the current one instead of holding locks while the user thinks.
+ * <p>
+ * Every saved change to a user or a trade is published to the ChangeEventBus once it is committed, along with any
+ * events the operation published itself, so windows can refresh only what changed.
  */
 public class Manager {
+    private static final String USERNAME_INDEX = "username";
+    private static final String PENDING_TRADE_INDEX = "pendingTrade";
+    private static final String WISHLIST_INDEX = "wishlist";
+    private static final String INVENTORY_INDEX = "inventory";
+    private static final String ITEM_NAME_INDEX = "itemName";
+    private static final String RECIPIENT_INDEX = "recipient";
+    private static final String ADMIN_INDEX = "admin";
+    private static final String UNFREEZE_REQUEST_INDEX = "unfreezeRequest";
+    private static final String SHOULD_BE_FROZEN_INDEX = "shouldBeFrozen";
+    private static final String OLD_MESSAGE_INDEX = "oldMessage";
+    private static final String REPORT_ORDER_INDEX = "reportOrder";
+
+    // Oldest reports first, reports from before they had dates come before the rest
+    private static final Comparator<Idable> REPORT_ORDER = Comparator.comparing(
+            (Idable report) -> ((Report) report).getDate(), Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Idable::getId);
+
+    // Shared by every manager since they all share the same databases
+    private static final EntityLocks LOCKS = new EntityLocks();
 
     private final Database userDatabase;
     private final Database tradableItemDatabase;
     private final Database tradeDatabase;
+    private final Database messageDatabase;
+    private final Database conversationDatabase;
+    private final Database reportDatabase;
+
+    // The open transaction of each thread using this manager, none if the thread doesn't have one
+    private final ThreadLocal<Transaction> transactions = new ThreadLocal<>();
 
 
     /**
@@ -31,9 +100,40 @@ public class Manager {
      * @throws IOException if something goes wrong with getting database
      */
     public Manager() throws IOException {
-        userDatabase = new Database(DatabaseFilePaths.USER.getFilePath());
-        tradableItemDatabase = new Database( DatabaseFilePaths.TRADABLE_ITEM.getFilePath());
-        tradeDatabase = new Database(DatabaseFilePaths.TRADE.getFilePath());
+        userDatabase = DatabaseRegistry.getDatabase(DatabaseFilePaths.USER);
+        tradableItemDatabase = DatabaseRegistry.getDatabase(DatabaseFilePaths.TRADABLE_ITEM);
+        tradeDatabase = DatabaseRegistry.getDatabase(DatabaseFilePaths.TRADE);
+        messageDatabase = DatabaseRegistry.getDatabase(DatabaseFilePaths.MESSAGE);
+        conversationDatabase = DatabaseRegistry.getDatabase(DatabaseFilePaths.CONVERSATION);
+        reportDatabase = DatabaseRegistry.getDatabase(DatabaseFilePaths.REPORT);
+        try {
+            // Traders get their default limits from the config, which only reads the file if it changed
+            TraderConfig.refresh();
+        } catch (IOException ignored) {
+            // Traders that use a default limit can't be checked until the config file can be read
+        }
+        userDatabase.addIndex(USERNAME_INDEX, user -> Collections.singletonList(((User) user).getUsername()));
+        tradeDatabase.addIndex(PENDING_TRADE_INDEX, trade -> getPendingTradeKeys((Trade) trade));
+        userDatabase.addIndex(WISHLIST_INDEX, user -> user instanceof Trader ?
+                getItemKeys(((Trader) user).getWishlist(), ((Trader) user).getCity()) : Collections.emptyList());
+        userDatabase.addIndex(INVENTORY_INDEX, user -> user instanceof Trader ?
+                getItemKeys(((Trader) user).getAvailableItems(), ((Trader) user).getCity()) : Collections.emptyList());
+        tradableItemDatabase.addIndex(ITEM_NAME_INDEX, item -> getTrigrams(((TradableItem) item).getName()));
+        userDatabase.addIndex(ADMIN_INDEX,
+                user -> user instanceof Admin ? Collections.singletonList(ADMIN_INDEX) : Collections.emptyList());
+        userDatabase.addIndex(UNFREEZE_REQUEST_INDEX, user -> user instanceof Trader &&
+                ((Trader) user).isUnfrozenRequested() ? Collections.singletonList(UNFREEZE_REQUEST_INDEX) :
+                Collections.emptyList());
+        // Traders that use the default limit are filed by the default at the time, so this is built again when the
+        // default changes
+        userDatabase.addIndex(SHOULD_BE_FROZEN_INDEX, user -> shouldBeFrozen(user) ?
+                        Collections.singletonList(SHOULD_BE_FROZEN_INDEX) : Collections.emptyList(),
+                () -> Trader.getDefaultLimits().get(TraderProperties.INCOMPLETE_TRADE_LIM));
+        userDatabase.addIndex(OLD_MESSAGE_INDEX, user -> ((User) user).getMessages().isEmpty() ?
+                Collections.emptyList() : Collections.singletonList(OLD_MESSAGE_INDEX));
+        reportDatabase.addSortedIndex(REPORT_ORDER_INDEX, REPORT_ORDER);
+        conversationDatabase.addIndex(RECIPIENT_INDEX,
+                conversation -> Collections.singletonList(((Conversation) conversation).getRecipientId()));
     }
 
 
@@ -60,7 +160,7 @@ public class Manager {
      */
     protected User getUser(String id) throws UserNotFoundException {
         try {
-            return (User) userDatabase.populate(id);
+            return (User) populate(userDatabase, id);
         } catch (EntryNotFoundException e) {
             throw new UserNotFoundException(id);
         }
@@ -75,7 +175,7 @@ public class Manager {
      */
     protected TradableItem getTradableItem(String id) throws TradableItemNotFoundException {
         try {
-            return (TradableItem) tradableItemDatabase.populate(id);
+            return (TradableItem) populate(tradableItemDatabase, id);
         } catch (EntryNotFoundException e) {
             throw new TradableItemNotFoundException(id);
         }
@@ -91,7 +191,7 @@ public class Manager {
     protected Trade getTrade(String id) throws TradeNotFoundException {
         Trade trade;
         try {
-            trade = (Trade) tradeDatabase.populate(id);
+            trade = (Trade) populate(tradeDatabase, id);
         } catch (EntryNotFoundException e) {
             throw new TradeNotFoundException(id);
         }
@@ -99,6 +199,36 @@ public class Manager {
     }
 
 
+    /**
+     * Gets many users at once
+     *
+     * @param ids the user ids
+     * @return the users by their id, in the order of the ids. Ids that aren't users are left out.
+     */
+    protected Map<String, User> getUsers(Collection<String> ids) {
+        return populateAll(userDatabase, ids, User.class);
+    }
+
+    /**
+     * Gets many tradable items at once
+     *
+     * @param ids the item ids
+     * @return the items by their id, in the order of the ids. Ids that aren't items are left out.
+     */
+    protected Map<String, TradableItem> getTradableItems(Collection<String> ids) {
+        return populateAll(tradableItemDatabase, ids, TradableItem.class);
+    }
+
+    /**
+     * Gets many trades at once
+     *
+     * @param ids the trade ids
+     * @return the trades by their id, in the order of the ids. Ids that aren't trades are left out.
+     */
+    protected Map<String, Trade> getTrades(Collection<String> ids) {
+        return populateAll(tradeDatabase, ids, Trade.class);
+    }
+
     /**
      * updates the user database
      *
@@ -106,7 +236,7 @@ public class Manager {
      * @return the old user object if it exists, otherwise the new user object
      */
     protected User updateUserDatabase(User user) {
-        return (User) userDatabase.update(user);
+        return (User) update(userDatabase, user);
     }
 
     /**
@@ -116,7 +246,7 @@ public class Manager {
      * @return the old trade object if it exists, otherwise the new trade object
      */
     protected Trade updateTradeDatabase(Trade trade) {
-        return (Trade) tradeDatabase.update(trade);
+        return (Trade) update(tradeDatabase, trade);
     }
 
     /**
@@ -126,7 +256,199 @@ public class Manager {
      * @return the old TradableItem object if it exists, otherwise the new TradableItem object
      */
     protected TradableItem updateTradableItemDatabase(TradableItem item) {
-        return (TradableItem) tradableItemDatabase.update(item);
+        return (TradableItem) update(tradableItemDatabase, item);
+    }
+
+    /**
+     * Gets the conversation holding the messages one user sent to another
+     *
+     * @param recipientId the user getting the messages
+     * @param senderId    the user sending the messages
+     * @return the conversation, or a new one that isn't saved yet if the sender never sent anything
+     */
+    protected Conversation getConversation(String recipientId, String senderId) {
+        try {
+            return (Conversation) populate(conversationDatabase, Conversation.getId(recipientId, senderId));
+        } catch (EntryNotFoundException e) {
+            return new Conversation(recipientId, senderId);
+        }
+    }
+
+    /**
+     * Gets every conversation with messages sent to a user
+     *
+     * @param recipientId the user getting the messages
+     * @return the conversations
+     */
+    protected List<Conversation> getConversationsOf(String recipientId) {
+        List<Conversation> conversations = new ArrayList<>();
+        for (String id : getIndexed(conversationDatabase, RECIPIENT_INDEX, recipientId)) {
+            try {
+                Conversation conversation = (Conversation) populate(conversationDatabase, id);
+                if (conversation.getRecipientId().equals(recipientId))
+                    conversations.add(conversation);
+            } catch (EntryNotFoundException ignored) {
+            }
+        }
+        return conversations;
+    }
+
+    /**
+     * Gets a message from its conversation and sequence number
+     *
+     * @param recipientId the user getting the message
+     * @param senderId    the user sending the message
+     * @param sequence    the number of the message in the conversation
+     * @return the message
+     * @throws EntryNotFoundException if the message doesn't exist or was cleared
+     */
+    protected Message getMessage(String recipientId, String senderId, long sequence) throws EntryNotFoundException {
+        return (Message) populate(messageDatabase, Message.getId(recipientId, senderId, sequence));
+    }
+
+    /**
+     * Updates the message database
+     *
+     * @param message the message to be saved
+     * @return the old message if it exists, otherwise the new message
+     */
+    protected Message updateMessageDatabase(Message message) {
+        return (Message) update(messageDatabase, message);
+    }
+
+    /**
+     * Updates the conversation database
+     *
+     * @param conversation the conversation to be saved
+     * @return the old conversation if it exists, otherwise the new conversation
+     */
+    protected Conversation updateConversationDatabase(Conversation conversation) {
+        return (Conversation) update(conversationDatabase, conversation);
+    }
+
+    /**
+     * Deletes a message
+     *
+     * @param messageId the id of the message
+     */
+    protected void deleteMessage(String messageId) {
+        delete(messageDatabase, messageId);
+    }
+
+    /**
+     * Gets a report
+     *
+     * @param id the report id
+     * @return the report
+     * @throws EntryNotFoundException if the report doesn't exist
+     */
+    protected Report getReport(String id) throws EntryNotFoundException {
+        return (Report) populate(reportDatabase, id);
+    }
+
+    /**
+     * Updates the report database
+     *
+     * @param report the report to be saved
+     * @return the old report if it exists, otherwise the new report
+     */
+    protected Report updateReportDatabase(Report report) {
+        return (Report) update(reportDatabase, report);
+    }
+
+    /**
+     * Deletes a report
+     *
+     * @param reportId the id of the report
+     */
+    protected void deleteReport(String reportId) {
+        delete(reportDatabase, reportId);
+    }
+
+    /**
+     * Returns all report ids
+     *
+     * @return all report ids
+     */
+    protected Set<String> getAllReports() {
+        Transaction transaction = transactions.get();
+        Set<String> reports = reportDatabase.getIds();
+        if (transaction != null) {
+            Changes changes = transaction.getChanges(reportDatabase);
+            reports.addAll(changes.updated);
+            reports.removeAll(changes.deleted);
+        }
+        return reports;
+    }
+
+    /**
+     * Returns the ids of a page of reports, oldest first, without reading every report.
+     * Changes made in an open transaction aren't included.
+     *
+     * @param start the position of the first report in the page
+     * @param limit the most reports in the page
+     * @return the ids of the reports in the page
+     */
+    protected List<String> getReportPage(int start, int limit) {
+        return reportDatabase.getSorted(REPORT_ORDER_INDEX, start, limit);
+    }
+
+    /**
+     * Returns how many reports there are. Changes made in an open transaction aren't included.
+     *
+     * @return the amount of reports
+     */
+    protected int countReports() {
+        return reportDatabase.size();
+    }
+
+    /**
+     * Returns the ids of all admins, without going through every user.
+     * During a transaction this locks every admin.
+     *
+     * @return all admin ids
+     */
+    protected Set<String> getAdmins() {
+        Set<String> admins = new HashSet<>();
+        for (String id : getIndexed(userDatabase, ADMIN_INDEX, ADMIN_INDEX)) {
+            try {
+                if (getUser(id) instanceof Admin)
+                    admins.add(id);
+            } catch (UserNotFoundException ignored) {
+            }
+        }
+        return admins;
+    }
+
+    /**
+     * Returns the ids of the traders that requested to be unfrozen, without going through every user.
+     * During a transaction this also returns the users changed in it, so each one still has to be checked.
+     *
+     * @return the ids of traders that may have requested to be unfrozen
+     */
+    protected Set<String> getUnfreezeRequestCandidates() {
+        return getIndexed(userDatabase, UNFREEZE_REQUEST_INDEX, UNFREEZE_REQUEST_INDEX);
+    }
+
+    /**
+     * Returns the ids of the traders that aren't frozen but have more incomplete trades than their limit, without
+     * going through every user. During a transaction this also returns the users changed in it, so each one still has
+     * to be checked.
+     *
+     * @return the ids of traders that may have to be frozen
+     */
+    protected Set<String> getShouldBeFrozenCandidates() {
+        return getIndexed(userDatabase, SHOULD_BE_FROZEN_INDEX, SHOULD_BE_FROZEN_INDEX);
+    }
+
+    /**
+     * Returns the ids of the users that still have messages saved inside them, without going through every user.
+     * During a transaction this also returns the users changed in it, so each one still has to be checked.
+     *
+     * @return the ids of users that may have old messages
+     */
+    protected Set<String> getOldMessageCandidates() {
+        return getIndexed(userDatabase, OLD_MESSAGE_INDEX, OLD_MESSAGE_INDEX);
     }
 
     /**
@@ -137,7 +459,9 @@ public class Manager {
      * @throws UserNotFoundException cant find username
      */
     public String getUserByUsername(String username) throws UserNotFoundException {
-        for (String userId : getAllUsers())
+        Set<String> userIds = getIndexed(userDatabase, USERNAME_INDEX, username);
+        // The index only knows about saved usernames, so the user is checked in case it was changed since then
+        for (String userId : userIds)
             if (getUser(userId).getUsername().equals(username))
                 return userId;
         throw new UserNotFoundException();
@@ -149,17 +473,623 @@ public class Manager {
      * @return all user ids
      */
     public Set<String> getAllUsers() {
-        return userDatabase.getItems().keySet();
+        Transaction transaction = transactions.get();
+        Set<String> users = userDatabase.getIds();
+        if (transaction != null) {
+            Changes changes = transaction.getChanges(userDatabase);
+            users.addAll(changes.updated);
+            users.removeAll(changes.deleted);
+        }
+        return users;
+    }
+
+
+    /**
+     * Gets the trades that might still be waiting to be accepted and that offer the item.
+     * The trades have to be checked against the requested trades of the traders, since a trade that was
+     * accepted outside of a transaction can still be in here.
+     *
+     * @param itemId the item id
+     * @return ids of the trades that might be trade requests offering the item
+     */
+    protected Set<String> getPendingTradesWithItem(String itemId) {
+        return getPendingTrades("item:" + itemId);
+    }
+
+    /**
+     * Gets the trades that might still be waiting to be accepted and that the trader is in.
+     * The trades have to be checked against the requested trades of the traders, since a trade that was
+     * accepted outside of a transaction can still be in here.
+     *
+     * @param traderId the trader id
+     * @return ids of the trades that might be trade requests the trader is in
+     */
+    protected Set<String> getPendingTradesOfTrader(String traderId) {
+        return getPendingTrades("trader:" + traderId);
+    }
+
+    /**
+     * Removes the trade requests that can't happen anymore, because one of the traders no longer has the item they
+     * offered or can't trade right now. Only the trades given are checked.
+     *
+     * @param tradeIds the trades that might have become invalid
+     */
+    protected void removeInvalidRequests(Set<String> tradeIds) {
+        for (String tradeID : tradeIds) {
+            try {
+                // Populate required variables.
+                Trade t = getTrade(tradeID);
+                Trader firstTrader = getTrader(t.getFirstUserId());
+                Trader secondTrader = getTrader(t.getSecondUserId());
+                if (!firstTrader.getRequestedTrades().contains(tradeID)) continue;
+
+                // Figure out whether the trade is still valid.
+                boolean isValid = (t.getFirstUserOffer().equals("") || firstTrader.getAvailableItems().contains(t.getFirstUserOffer())) &&
+                        (t.getSecondUserOffer().equals("") || secondTrader.getAvailableItems().contains(t.getSecondUserOffer()));
+
+                isValid = isValid && firstTrader.canTrade() && secondTrader.canTrade();
+
+                if (t.getFirstUserOffer().equals(""))
+                    isValid = isValid && firstTrader.canBorrow();
+
+                if (!isValid) {
+                    firstTrader.getRequestedTrades().remove(tradeID);
+                    secondTrader.getRequestedTrades().remove(tradeID);
+                    deleteTrade(tradeID);
+                    updateUserDatabase(firstTrader);
+                    updateUserDatabase(secondTrader);
+                }
+            } catch (EntryNotFoundException | AuthorizationException e) {
+                e.printStackTrace();
+            } catch (ConflictException ignored) {
+                // Someone else is using the trade, and it still gets checked when it is accepted
+            }
+        }
+    }
+
+    /**
+     * Gets the trades in the pending trade index with the key, along with every trade changed in the transaction
+     *
+     * @param key the key in the index
+     * @return ids of the trades
+     */
+    private Set<String> getPendingTrades(String key) {
+        return getIndexed(tradeDatabase, PENDING_TRADE_INDEX, key);
     }
 
+    /**
+     * Gets the traders that might have the item in their wishlist.
+     * The traders have to be checked since their wishlist could have changed after it was last saved.
+     *
+     * @param itemId the item id
+     * @param city   only get traders in this city (ignoring case), or null for traders in any city
+     * @return ids of the traders that might want the item
+     */
+    protected Set<String> getTradersWishingFor(String itemId, String city) {
+        return getIndexed(userDatabase, WISHLIST_INDEX, city == null ? itemId : getCityKey(itemId, city));
+    }
+
+    /**
+     * Gets the traders that might have the item in their inventory.
+     * The traders have to be checked since their inventory could have changed after it was last saved.
+     *
+     * @param itemId the item id
+     * @param city   only get traders in this city (ignoring case), or null for traders in any city
+     * @return ids of the traders that might have the item
+     */
+    protected Set<String> getTradersWithItem(String itemId, String city) {
+        return getIndexed(userDatabase, INVENTORY_INDEX, city == null ? itemId : getCityKey(itemId, city));
+    }
+
+    /**
+     * Gets the items with names that share the most three letter sequences with the name, ignoring case.
+     * This is meant for narrowing down which items to compare a name with, not for deciding how similar they are.
+     *
+     * @param name  the name
+     * @param limit the most items to get
+     * @return ids of the items, the ones sharing the most sequences with the name first
+     */
+    protected List<String> getItemsWithSimilarNames(String name, int limit) {
+        Map<String, Integer> sharedTrigrams = new HashMap<>();
+        for (String trigram : getTrigrams(name))
+            for (String itemId : getIndexed(tradableItemDatabase, ITEM_NAME_INDEX, trigram))
+                sharedTrigrams.merge(itemId, 1, Integer::sum);
+        List<String> itemIds = new ArrayList<>(sharedTrigrams.keySet());
+        itemIds.sort((id1, id2) -> sharedTrigrams.get(id2) - sharedTrigrams.get(id1));
+        return itemIds.size() > limit ? itemIds.subList(0, limit) : itemIds;
+    }
+
+    /**
+     * Gets every three letter sequence in the words of a name, in lower case. Words are padded with spaces so that
+     * short words and the ends of words have sequences too.
+     *
+     * @param name the name
+     * @return the sequences, without duplicates
+     */
+    private static Set<String> getTrigrams(String name) {
+        Set<String> trigrams = new HashSet<>();
+        if (name == null) return trigrams;
+        for (String word : name.toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (word.isEmpty()) continue;
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++)
+                trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Gets the ids in an index of a database with the key, along with every item changed in the transaction
+     *
+     * @param database the database with the index
+     * @param index    the name of the index
+     * @param key      the key in the index
+     * @return ids of the items, which can't be changed
+     */
+    private Set<String> getIndexed(Database database, String index, String key) {
+        Transaction transaction = transactions.get();
+        Set<String> indexed = database.getIndexed(index, key);
+        if (transaction == null) return indexed;
+        Changes changes = transaction.getChanges(database);
+        Set<String> ids = new HashSet<>(indexed);
+        ids.addAll(changes.updated);
+        ids.removeAll(changes.deleted);
+        return Collections.unmodifiableSet(ids);
+    }
+
+    // Whether a trader isn't frozen but has too many incomplete trades. A trader is filed if the default limit hasn't
+    // been read, since every trader found through the index is checked again.
+    private static boolean shouldBeFrozen(Idable user) {
+        if (!(user instanceof Trader) || ((Trader) user).isFrozen()) return false;
+        try {
+            return ((Trader) user).hasSurpassedIncompleteTradeLimit();
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Gets what a trader is filed under in the wishlist or inventory index
+     *
+     * @param itemIds the items in the trader's wishlist or inventory
+     * @param city    the trader's city
+     * @return every item id, and every item id along with the city
+     */
+    private static List<String> getItemKeys(Collection<String> itemIds, String city) {
+        List<String> keys = new ArrayList<>(itemIds);
+        if (city != null)
+            for (String itemId : itemIds)
+                keys.add(getCityKey(itemId, city));
+        return keys;
+    }
+
+    /**
+     * Gets the key of an item in a city for the wishlist and inventory indexes
+     *
+     * @param itemId the item id
+     * @param city   the city
+     * @return the key
+     */
+    private static String getCityKey(String itemId, String city) {
+        return itemId + "@" + city.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Gets what a trade is filed under in the pending trade index
+     *
+     * @param trade the trade
+     * @return the traders and items of the trade if it hasn't been accepted by both traders, otherwise nothing
+     */
+    private static List<String> getPendingTradeKeys(Trade trade) {
+        List<String> keys = new ArrayList<>();
+        if (trade.isHasFirstUserConfirmedRequest() && trade.isHasSecondUserConfirmedRequest()) return keys;
+        keys.add("trader:" + trade.getFirstUserId());
+        keys.add("trader:" + trade.getSecondUserId());
+        if (trade.getFirstUserOffer() != null && !trade.getFirstUserOffer().equals(""))
+            keys.add("item:" + trade.getFirstUserOffer());
+        if (trade.getSecondUserOffer() != null && !trade.getSecondUserOffer().equals(""))
+            keys.add("item:" + trade.getSecondUserOffer());
+        return keys;
+    }
 
     /**
      * Deletes trade from the database
      * @param tradeId the trade id
      */
     protected void deleteTrade(String tradeId){
-        tradeDatabase.delete(tradeId);
+        delete(tradeDatabase, tradeId);
+    }
+
+    /**
+     * Starts a transaction. If a transaction is already open, the new one becomes part of it, and the changes only
+     * get written when the outermost transaction is committed.
+     * Every call to this method must be followed by a call to endTransaction, usually in a finally block.
+     */
+    protected void beginTransaction() {
+        Transaction transaction = transactions.get();
+        if (transaction == null)
+            transactions.set(new Transaction());
+        else
+            transaction.depth++;
+    }
+
+    /**
+     * Writes every change made during the transaction as one commit of all the databases that were changed, so
+     * either all of the changes are kept or none of them are.
+     * This does nothing if the transaction is part of an outer transaction.
+     */
+    protected void commitTransaction() {
+        Transaction transaction = transactions.get();
+        if (transaction == null || transaction.depth > 1) return;
+        Set<ChangeEvent> events = new LinkedHashSet<>();
+        try {
+            // Messages are written before their conversation, so a conversation never counts a message that isn't there
+            Database[] databases = {tradableItemDatabase, tradeDatabase, messageDatabase, conversationDatabase,
+                    reportDatabase, userDatabase};
+            // Deleted trades are still in the database until the changes are written, so the events are made first
+            for (Database database : databases) {
+                Changes changes = transaction.getChanges(database);
+                for (String id : changes.updated)
+                    addChangeEvent(events, getChangeEvent(database, id, changes.items.get(id)));
+                for (String id : changes.deleted)
+                    addChangeEvent(events, getChangeEvent(database, id, null));
+            }
+            events.addAll(transaction.events);
+            // Every database is checked before anything is written, so a conflict doesn't leave half the changes
+            List<Database.Batch> batches = new ArrayList<>();
+            for (Database database : databases) {
+                Changes changes = transaction.getChanges(database);
+                List<Idable> updatedItems = new ArrayList<>();
+                for (String id : changes.updated)
+                    updatedItems.add(changes.items.get(id));
+                batches.add(new Database.Batch(database, updatedItems, changes.deleted, changes.getExpectedVersions()));
+            }
+            Database.commitAll(batches);
+        } finally {
+            closeTransaction();
+        }
+        // Listeners are told after the locks are released, so they can read what changed without waiting
+        ChangeEventBus.publish(events);
+    }
+
+    /**
+     * Publishes a change to the ChangeEventBus. During a transaction the change is only published once the
+     * transaction is committed, and never if it isn't.
+     * Changes to users and trades are published automatically, this is for changes that say more than that.
+     *
+     * @param event the change
+     */
+    protected void publish(ChangeEvent event) {
+        Transaction transaction = transactions.get();
+        if (transaction == null)
+            ChangeEventBus.publish(event);
+        else
+            transaction.events.add(event);
+    }
+
+    /**
+     * Closes the transaction. If the transaction wasn't committed, all changes made during it are thrown away.
+     */
+    protected void endTransaction() {
+        Transaction transaction = transactions.get();
+        if (transaction == null) return;
+        transaction.depth--;
+        if (transaction.depth == 0)
+            closeTransaction();
+    }
+
+    /**
+     * Locks the entries with the ids until the transaction is committed or ended. The locks are taken in the same
+     * order no matter what order the ids are in, so an operation should lock everything it changes in one call
+     * before getting any of it.
+     * Ids don't have to be ids of items, anything that operations need to agree on can be locked.
+     *
+     * @param ids the ids
+     * @throws IllegalStateException if there isn't an open transaction
+     * @throws ConflictException     if a lock that had to be taken out of order is being held by someone else
+     */
+    protected void lockEntities(Collection<String> ids) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (String id : ids)
+            if (id != null)
+                stripes.add(LOCKS.getStripe(id));
+        lockStripes(stripes);
+    }
+
+    /**
+     * Locks the entries with the ids until the transaction is committed or ended, see lockEntities(Collection)
+     *
+     * @param ids the ids
+     * @throws IllegalStateException if there isn't an open transaction
+     * @throws ConflictException     if a lock that had to be taken out of order is being held by someone else
+     */
+    protected void lockEntities(String... ids) {
+        lockEntities(Arrays.asList(ids));
+    }
+
+    /**
+     * Locks trades along with both traders of each trade until the transaction is committed or ended
+     *
+     * @param tradeIds the trades
+     * @param otherIds anything else that gets changed along with the trades
+     * @throws IllegalStateException if there isn't an open transaction
+     * @throws ConflictException     if a lock that had to be taken out of order is being held by someone else
+     */
+    protected void lockTrades(Collection<String> tradeIds, String... otherIds) {
+        List<String> ids = new ArrayList<>(Arrays.asList(otherIds));
+        for (String tradeId : tradeIds) {
+            ids.add(tradeId);
+            try {
+                // The traders of a trade never change, so they can be found without locking the trade first
+                Trade trade = (Trade) tradeDatabase.read(tradeId);
+                ids.add(trade.getFirstUserId());
+                ids.add(trade.getSecondUserId());
+            } catch (EntryNotFoundException ignored) {
+                // The operation finds out the trade doesn't exist once it gets it
+            }
+        }
+        lockEntities(ids);
+    }
+
+    /**
+     * Locks traders along with every trade request they are in and both traders of those requests, until the
+     * transaction is committed or ended. This has to be done before anything else is read or locked in the
+     * transaction.
+     * <p>
+     * Which requests a trader is in can only change while the trader isn't locked, so the requests are looked up again
+     * once the traders are locked. If one was sent in the meantime, every lock is let go and they are all taken again
+     * in order, instead of waiting for the new ones out of order.
+     *
+     * @param traderIds the traders
+     * @param tradeIds  other trades that get changed along with the traders
+     * @throws IllegalStateException if there isn't an open transaction
+     * @throws ConflictException     if a lock had to be taken out of order, which only happens if the transaction
+     *                               already held locks, and is being held by someone else
+     */
+    protected void lockPendingTrades(Collection<String> traderIds, Collection<String> tradeIds) {
+        Transaction transaction = transactions.get();
+        if (transaction == null)
+            throw new IllegalStateException("Entries can only be locked during a transaction");
+        // Every entry read in a transaction is locked, so without locks nothing was read that letting go could change
+        boolean canRelock = transaction.lockedStripes.isEmpty();
+        while (true) {
+            Set<String> trades = new LinkedHashSet<>(tradeIds);
+            for (String traderId : traderIds)
+                trades.addAll(getPendingTradesOfTrader(traderId));
+            lockTrades(trades, traderIds.toArray(new String[0]));
+            Set<String> newTrades = new LinkedHashSet<>();
+            for (String traderId : traderIds)
+                newTrades.addAll(getPendingTradesOfTrader(traderId));
+            newTrades.removeAll(trades);
+            if (newTrades.isEmpty())
+                return;
+            if (!canRelock) {
+                lockTrades(newTrades);
+                return;
+            }
+            unlockAll();
+        }
+    }
+
+    /**
+     * Gets the id to lock so that nobody else can take a username at the same time
+     *
+     * @param username the username
+     * @return the id to lock
+     */
+    protected static String getUsernameLockId(String username) {
+        return "username:" + username;
+    }
+
+    /**
+     * Takes the locks that the transaction doesn't already hold, from the lowest number to the highest
+     *
+     * @param stripes the lock numbers
+     */
+    private void lockStripes(TreeSet<Integer> stripes) {
+        Transaction transaction = transactions.get();
+        if (transaction == null)
+            throw new IllegalStateException("Entries can only be locked during a transaction");
+        stripes.removeAll(transaction.lockedStripes);
+        for (int stripe : stripes) {
+            // Waiting for a lower lock than one already held could wait forever on someone waiting for ours
+            if (transaction.lockedStripes.isEmpty() || stripe > transaction.lockedStripes.last())
+                LOCKS.lock(stripe);
+            else if (!LOCKS.tryLock(stripe))
+                throw new ConflictException("Someone else is changing the same entries");
+            transaction.lockedStripes.add(stripe);
+        }
+    }
+
+    /**
+     * Releases every lock of the transaction and forgets about it
+     */
+    private void closeTransaction() {
+        unlockAll();
+        transactions.remove();
+    }
+
+    /**
+     * Releases every lock of the transaction
+     */
+    private void unlockAll() {
+        Transaction transaction = transactions.get();
+        for (int stripe : transaction.lockedStripes)
+            LOCKS.unlock(stripe);
+        transaction.lockedStripes.clear();
+    }
+
+    /**
+     * Gets an item from a database, or the transaction's copy of it if there is an open transaction.
+     * Without a transaction the item is the one the database keeps in memory, so it must not be changed.
+     *
+     * @param database the database the item is in
+     * @param id       the id of the item
+     * @return the item
+     * @throws EntryNotFoundException if the item doesn't exist
+     */
+    private Idable populate(Database database, String id) throws EntryNotFoundException {
+        Transaction transaction = transactions.get();
+        if (transaction == null)
+            return database.read(id);
+        lockEntities(id);
+        Changes changes = transaction.getChanges(database);
+        if (changes.deleted.contains(id))
+            throw new EntryNotFoundException(id);
+        Idable item = changes.items.get(id);
+        if (item == null) {
+            item = database.populate(id);
+            changes.items.put(id, item);
+            changes.readVersions.put(id, item.getVersion());
+        }
+        return item;
+    }
+
+    /**
+     * Gets many items from a database. Without a transaction the database is only asked once.
+     *
+     * @param database the database the items are in
+     * @param ids      the ids of the items
+     * @param type     the class of the items
+     * @param <T>      the type of the items
+     * @return the items by their id, in the order of the ids. Ids that don't exist are left out.
+     */
+    private <T extends Idable> Map<String, T> populateAll(Database database, Collection<String> ids, Class<T> type) {
+        Transaction transaction = transactions.get();
+        Map<String, T> items = new LinkedHashMap<>();
+        if (transaction == null) {
+            for (Map.Entry<String, Idable> entry : database.readAll(ids).entrySet())
+                items.put(entry.getKey(), type.cast(entry.getValue()));
+            return items;
+        }
+        for (String id : ids) {
+            try {
+                items.put(id, type.cast(populate(database, id)));
+            } catch (EntryNotFoundException ignored) {
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Deletes an item from a database, or keeps the delete until the transaction is committed if there is one
+     *
+     * @param database the database the item is in
+     * @param id       the id of the item
+     */
+    private void delete(Database database, String id) {
+        Transaction transaction = transactions.get();
+        if (transaction == null) {
+            ChangeEvent event = getChangeEvent(database, id, null);
+            database.delete(id);
+            if (event != null)
+                ChangeEventBus.publish(event);
+            return;
+        }
+        lockEntities(id);
+        Changes changes = transaction.getChanges(database);
+        changes.items.remove(id);
+        changes.updated.remove(id);
+        changes.deleted.add(id);
+    }
+
+    /**
+     * Updates an item in a database, or keeps the update until the transaction is committed if there is one
+     *
+     * @param database the database the item is in
+     * @param item     the new item
+     * @return the old item if it exists, otherwise the new item
+     */
+    private Idable update(Database database, Idable item) {
+        Transaction transaction = transactions.get();
+        if (transaction == null) {
+            Idable oldItem = database.update(item);
+            ChangeEvent event = getChangeEvent(database, item.getId(), item);
+            if (event != null)
+                ChangeEventBus.publish(event);
+            return oldItem;
+        }
+        Changes changes = transaction.getChanges(database);
+        Idable oldItem = item;
+        try {
+            oldItem = database.read(item.getId());
+            lockEntities(item.getId());
+        } catch (EntryNotFoundException ignored) {
+            // Nobody else knows about a new item, so it doesn't need to be locked
+        }
+        changes.items.put(item.getId(), item);
+        changes.updated.add(item.getId());
+        changes.deleted.remove(item.getId());
+        return oldItem;
+    }
+
+    /**
+     * Gets the event for an item of a database being saved or deleted
+     *
+     * @param database the database the item is in
+     * @param id       the id of the item
+     * @param item     the saved item, or null if it is being deleted and is still in the database
+     * @return the event, or null if changes to the database aren't published or the item can't be found
+     */
+    private ChangeEvent getChangeEvent(Database database, String id, Idable item) {
+        if (database == userDatabase)
+            return new ChangeEvent(ChangeType.USER_UPDATED, id, id);
+        if (database != tradeDatabase)
+            return null;
+        try {
+            Trade trade = (Trade) (item == null ? database.read(id) : item);
+            return new ChangeEvent(ChangeType.TRADE_CHANGED, id, trade.getFirstUserId(), trade.getSecondUserId());
+        } catch (EntryNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static void addChangeEvent(Set<ChangeEvent> events, ChangeEvent event) {
+        if (event != null)
+            events.add(event);
+    }
+
+    /**
+     * The changes made to a single database during a transaction
+     */
+    private static class Changes {
+        // Every item gotten or updated during the transaction
+        private final Map<String, Idable> items = new HashMap<>();
+        private final Set<String> updated = new LinkedHashSet<>();
+        private final Set<String> deleted = new HashSet<>();
+        // The version of every item when it was first gotten
+        private final Map<String, Long> readVersions = new HashMap<>();
+
+        /**
+         * Gets the versions that the changed items have to still be at for the changes to be written
+         *
+         * @return item id to the version it was read at
+         */
+        private Map<String, Long> getExpectedVersions() {
+            Map<String, Long> expected = new HashMap<>();
+            for (String id : updated)
+                if (readVersions.containsKey(id))
+                    expected.put(id, readVersions.get(id));
+            for (String id : deleted)
+                if (readVersions.containsKey(id))
+                    expected.put(id, readVersions.get(id));
+            return expected;
+        }
     }
 
+    /**
+     * The changes made during a transaction
+     */
+    private static class Transaction {
+        private int depth = 1;
+        private final Map<Database, Changes> changes = new HashMap<>();
+        private final TreeSet<Integer> lockedStripes = new TreeSet<>();
+        // Events published during the transaction, in the order they were published
+        private final Set<ChangeEvent> events = new LinkedHashSet<>();
+
+        private Changes getChanges(Database database) {
+            return changes.computeIfAbsent(database, key -> new Changes());
+        }
+    }
 
 }
@@ -0,0 +1,97 @@
+package backend.tradesystem;
+
+import backend.DatabaseFilePaths;
+import backend.models.users.Trader;
+
+import java.io.*;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Keeps the values of the trader properties in memory so the config file is only read again when it changes.
+ * Changes made through setProperty are seen right away, and changes made to the file by anything else are seen the
+ * next time a property is asked for or a manager is made.
+ * Every time the file is read the default limits are given to Trader, so traders never read the file themselves.
+ */
+public class TraderConfig {
+    private static final Map<TraderProperties, Integer> values = new EnumMap<>(TraderProperties.class);
+    // The file the values were read from and when it was last changed, to know when they have to be read again
+    private static String loadedPath;
+    private static long loadedModified;
+    private static long loadedLength;
+
+    private TraderConfig() {
+    }
+
+    /**
+     * Gets the current value of the specified trader property
+     *
+     * @param propertyType the type of property
+     * @return the value of the specified trader property
+     * @throws IOException if the config file can't be read
+     */
+    public static synchronized int getProperty(TraderProperties propertyType) throws IOException {
+        refresh();
+        Integer value = values.get(propertyType);
+        if (value == null)
+            throw new IOException(propertyType.getProperty() + " is missing from " + loadedPath);
+        return value;
+    }
+
+    /**
+     * Reads the config file again if it changed since it was last read
+     *
+     * @throws IOException if the config file can't be read
+     */
+    public static synchronized void refresh() throws IOException {
+        File propertyFile = new File(DatabaseFilePaths.TRADER_CONFIG.getFilePath());
+        if (!propertyFile.getPath().equals(loadedPath) || propertyFile.lastModified() != loadedModified
+                || propertyFile.length() != loadedLength)
+            load(propertyFile);
+    }
+
+    /**
+     * Sets the value of a property and saves it to the config file
+     *
+     * @param propertyName  the property to change
+     * @param propertyValue the new value of that property
+     * @throws IOException if the config file can't be read or written
+     */
+    public static synchronized void setProperty(TraderProperties propertyName, int propertyValue) throws IOException {
+        File propertyFile = new File(DatabaseFilePaths.TRADER_CONFIG.getFilePath());
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(propertyFile)) {
+            properties.load(reader);
+        }
+        properties.setProperty(propertyName.getProperty(), "" + propertyValue);
+        try (Writer writer = new FileWriter(propertyFile)) {
+            properties.store(writer, "");
+        }
+        load(propertyFile);
+    }
+
+    private static void load(File propertyFile) throws IOException {
+        // Read before opening so a change made while reading is picked up next time
+        long modified = propertyFile.lastModified();
+        long length = propertyFile.length();
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(propertyFile)) {
+            properties.load(reader);
+        }
+        values.clear();
+        for (TraderProperties property : TraderProperties.values()) {
+            String value = properties.getProperty(property.getProperty());
+            if (value == null) continue;
+            try {
+                values.put(property, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                throw new IOException(property.getProperty() + " isn't a number: " + value);
+            }
+        }
+        loadedPath = propertyFile.getPath();
+        loadedModified = modified;
+        loadedLength = length;
+        Trader.setDefaultLimits(values);
+    }
+}
@@ -19,7 +19,8 @@ public enum TraderProperties {
      */
     MINIMUM_AMOUNT_NEEDED_TO_BORROW("defaultMinimumAmountNeededToBorrow"),
     /**
-     * lastTradeLimitUpdate property (stores the date the program last updated trade limits)
+     * lastTradeCountUpdate property (the week older versions last reset every trade count in, which is the week the
+     * trade counts of traders from those versions belong to)
      */
     LAST_TRADE_COUNT_UPDATE("lastTradeCountUpdate");
 
@@ -9,6 +9,7 @@ import backend.tradesystem.Manager;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -32,9 +33,15 @@ public class HandleFrozenManager extends Manager {
      * @throws UserNotFoundException if the user wasn't found
      */
     public void requestUnfreeze(String userId, boolean status) throws UserNotFoundException {
-        User user = getUser(userId);
-        user.setUnfrozenRequested(status);
-        updateUserDatabase(user);
+        beginTransaction();
+        try {
+            User user = getUser(userId);
+            user.setUnfrozenRequested(status);
+            updateUserDatabase(user);
+            commitTransaction();
+        } finally {
+            endTransaction();
+        }
     }
 
     /**
@@ -45,14 +52,22 @@ public class HandleFrozenManager extends Manager {
      * @throws UserNotFoundException can't find user id
      */
     public void setFrozen(String userID, boolean freezeStatus) throws UserNotFoundException {
+        beginTransaction();
         try {
+            lockPendingTrades(Collections.singleton(userID), Collections.emptyList());
             User user = getUser(userID);
             user.setFrozen(freezeStatus);
             if (!freezeStatus)
                 user.setUnfrozenRequested(false);
             updateUserDatabase(user);
+            // A frozen trader can't trade, so their trade requests can't be accepted anymore
+            if (freezeStatus)
+                removeInvalidRequests(getPendingTradesOfTrader(userID));
+            commitTransaction();
         } catch (EntryNotFoundException e) {
             throw new UserNotFoundException(userID);
+        } finally {
+            endTransaction();
         }
     }
 
@@ -63,17 +78,9 @@ public class HandleFrozenManager extends Manager {
      */
     public List<String> getAllUnfreezeRequests() {
         List<String> result = new ArrayList<>();
-        Set<String> items = getAllUsers();
-        for (String userId : items) {
-            try {
-                if (getTrader(userId).isUnfrozenRequested())
-                    result.add(userId);
-            } catch (UserNotFoundException e) {
-                e.printStackTrace();
-            } catch (AuthorizationException ignored){
-
-            }
-        }
+        for (User user : getUsers(getUnfreezeRequestCandidates()).values())
+            if (user instanceof Trader && user.isUnfrozenRequested())
+                result.add(user.getId());
         return result;
     }
 
@@ -81,15 +88,24 @@ public class HandleFrozenManager extends Manager {
      * Unfreezes all from requests
      */
     public void unfreezeAllFromRequests(){
-        List<String> requests = getAllUnfreezeRequests();
-        for (String userId: requests){
-            try {
-                Trader trader = getTrader(userId);
-                trader.setFrozen(false);
-                updateUserDatabase(trader);
-            } catch (UserNotFoundException | AuthorizationException e) {
-                e.printStackTrace();
+        beginTransaction();
+        try {
+            // Only the traders that requested it are locked
+            Set<String> requests = getUnfreezeRequestCandidates();
+            lockEntities(requests);
+            for (String userId: requests){
+                try {
+                    Trader trader = getTrader(userId);
+                    if (!trader.isUnfrozenRequested()) continue;
+                    trader.setFrozen(false);
+                    updateUserDatabase(trader);
+                } catch (UserNotFoundException | AuthorizationException e) {
+                    e.printStackTrace();
+                }
             }
+            commitTransaction();
+        } finally {
+            endTransaction();
         }
     }
 
@@ -97,14 +113,25 @@ public class HandleFrozenManager extends Manager {
      * Freezes all users who should be frozen
      */
     public void freezeAllShouldBeFrozen(){
-        for (String userId: getShouldBeFrozen()){
-            try {
-                Trader trader = getTrader(userId);
-                trader.setFrozen(true);
-                updateUserDatabase(trader);
-            } catch (UserNotFoundException | AuthorizationException e) {
-                e.printStackTrace();
+        beginTransaction();
+        try {
+            // Only the traders being frozen and the trades they are in are locked
+            Set<String> freezable = getShouldBeFrozenCandidates();
+            lockPendingTrades(freezable, Collections.emptyList());
+            for (String userId: freezable){
+                try {
+                    Trader trader = getTrader(userId);
+                    if (trader.isFrozen() || !trader.hasSurpassedIncompleteTradeLimit()) continue;
+                    trader.setFrozen(true);
+                    updateUserDatabase(trader);
+                    removeInvalidRequests(getPendingTradesOfTrader(userId));
+                } catch (UserNotFoundException | AuthorizationException e) {
+                    e.printStackTrace();
+                }
             }
+            commitTransaction();
+        } finally {
+            endTransaction();
         }
     }
 
@@ -115,16 +142,9 @@ public class HandleFrozenManager extends Manager {
      */
     public List<String> getShouldBeFrozen() {
         List<String> freezable = new ArrayList<>();
-        Set<String> items = getAllUsers();
-        for (String userId : items) {
-            User user = null;
-            try {
-                user = getUser(userId);
-            } catch (UserNotFoundException e) {
-                e.printStackTrace();
-            }
+        for (User user : getUsers(getShouldBeFrozenCandidates()).values()) {
             if (user instanceof Trader && !user.isFrozen() && ((Trader) user).hasSurpassedIncompleteTradeLimit()) {
-                freezable.add(userId);
+                freezable.add(user.getId());
             }
         }
         return freezable;
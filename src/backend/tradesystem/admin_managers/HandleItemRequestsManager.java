@@ -5,8 +5,11 @@ import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.UserNotFoundException;
 import backend.models.users.Trader;
 import backend.tradesystem.Manager;
+import backend.tradesystem.events.ChangeEvent;
+import backend.tradesystem.events.ChangeType;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
@@ -36,7 +39,7 @@ public class HandleItemRequestsManager extends Manager {
         for (String userId : getAllUsers()) {
             try {
                 // Get requested item IDs
-                List<String> requestedItems = getTrader(userId).getRequestedItems();
+                List<String> requestedItems = new ArrayList<>(getTrader(userId).getRequestedItems());
 
                 // Add the populated list to the result
                 allItems.put(userId, requestedItems);
@@ -52,15 +55,24 @@ public class HandleItemRequestsManager extends Manager {
      * Accepts all item requests
      */
     public void acceptAllItemRequests() {
+        // Only the traders with requests are locked, requests they make after this are left for later
         HashMap<String, List<String>> allRequests = getAllItemRequests();
-        for (String traderId : allRequests.keySet()) {
-            for (String reqId : allRequests.get(traderId)) {
-                try {
-                    processItemRequest(traderId, reqId, true);
-                } catch (TradableItemNotFoundException | AuthorizationException | UserNotFoundException e) {
-                    e.printStackTrace();
+        allRequests.values().removeIf(List::isEmpty);
+        beginTransaction();
+        try {
+            lockEntities(allRequests.keySet());
+            for (String traderId : allRequests.keySet()) {
+                for (String reqId : allRequests.get(traderId)) {
+                    try {
+                        processItemRequest(traderId, reqId, true);
+                    } catch (TradableItemNotFoundException | AuthorizationException | UserNotFoundException e) {
+                        e.printStackTrace();
+                    }
                 }
             }
+            commitTransaction();
+        } finally {
+            endTransaction();
         }
     }
 
@@ -76,14 +88,21 @@ public class HandleItemRequestsManager extends Manager {
      * @throws UserNotFoundException         trader isn't found
      */
     public void processItemRequest(String traderID, String reqItemID, boolean isAccepted) throws TradableItemNotFoundException, AuthorizationException, UserNotFoundException {
-        Trader trader = getTrader(traderID);
-        List<String> itemIDs = trader.getRequestedItems();
-        if (!itemIDs.contains(reqItemID)) throw new TradableItemNotFoundException(reqItemID);
-        if (isAccepted) {
-            trader.getAvailableItems().add(reqItemID);
+        beginTransaction();
+        try {
+            lockEntities(traderID);
+            Trader trader = getTrader(traderID);
+            if (!trader.getRequestedItems().contains(reqItemID)) throw new TradableItemNotFoundException(reqItemID);
+            if (isAccepted) {
+                trader.getAvailableItems().add(reqItemID);
+            }
+            trader.getRequestedItems().remove(reqItemID);
+            updateUserDatabase(trader);
+            publish(new ChangeEvent(ChangeType.ITEM_REQUEST_PROCESSED, reqItemID, traderID));
+            commitTransaction();
+        } finally {
+            endTransaction();
         }
-        trader.getRequestedItems().remove(reqItemID);
-        updateUserDatabase(trader);
     }
 
 
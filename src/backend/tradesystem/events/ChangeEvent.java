@@ -0,0 +1,78 @@
+package backend.tradesystem.events;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A change that was saved to the databases, along with the users it concerns
+ */
+public class ChangeEvent {
+    private final ChangeType type;
+    private final String id;
+    private final Set<String> userIds;
+
+    /**
+     * Makes a new event
+     *
+     * @param type    the kind of change
+     * @param id      the id of what was changed
+     * @param userIds the users that the change concerns
+     */
+    public ChangeEvent(ChangeType type, String id, String... userIds) {
+        this.type = type;
+        this.id = id;
+        this.userIds = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(userIds)));
+    }
+
+    /**
+     * @return the kind of change
+     */
+    public ChangeType getType() {
+        return type;
+    }
+
+    /**
+     * @return the id of what was changed
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the users that the change concerns
+     */
+    public Set<String> getUserIds() {
+        return userIds;
+    }
+
+    /**
+     * Checks if this event is about an id, either as what was changed or as one of the users it concerns
+     *
+     * @param id the id
+     * @return true if the event is about the id
+     */
+    public boolean isAbout(String id) {
+        return this.id.equals(id) || userIds.contains(id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ChangeEvent)) return false;
+        ChangeEvent other = (ChangeEvent) o;
+        return type == other.type && id.equals(other.id) && userIds.equals(other.userIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, id, userIds);
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + id + " " + userIds;
+    }
+}
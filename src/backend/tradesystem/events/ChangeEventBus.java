@@ -0,0 +1,97 @@
+package backend.tradesystem.events;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Passes the changes saved by the managers on to whoever wants to know about them, so that windows only refresh
+ * what was changed instead of watching the database files.
+ * Managers publish their changes once they are committed, and listeners subscribe to the ids they show.
+ */
+public class ChangeEventBus {
+    // There are only as many subscriptions as there are open windows, so going through all of them is fine
+    private static final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private ChangeEventBus() {
+    }
+
+    /**
+     * Tells the listener about every change that is about any of the ids
+     *
+     * @param listener the listener
+     * @param ids      the ids of the users, trades or items the listener shows
+     */
+    public static void subscribe(ChangeListener listener, String... ids) {
+        subscriptions.add(new Subscription(listener, new HashSet<>(Arrays.asList(ids))));
+    }
+
+    /**
+     * Tells the listener about every change, for listeners that show everything like the admin panels
+     *
+     * @param listener the listener
+     */
+    public static void subscribeToAll(ChangeListener listener) {
+        subscriptions.add(new Subscription(listener, null));
+    }
+
+    /**
+     * Stops telling the listener about changes
+     *
+     * @param listener the listener
+     */
+    public static void unsubscribe(ChangeListener listener) {
+        subscriptions.removeIf(subscription -> subscription.listener == listener);
+    }
+
+    /**
+     * Tells the listeners about a change
+     *
+     * @param event the change
+     */
+    public static void publish(ChangeEvent event) {
+        publish(Collections.singletonList(event));
+    }
+
+    /**
+     * Tells the listeners about changes, in order
+     *
+     * @param events the changes
+     */
+    public static void publish(Collection<ChangeEvent> events) {
+        if (events.isEmpty()) return;
+        for (Subscription subscription : subscriptions) {
+            for (ChangeEvent event : events) {
+                if (!subscription.isInterestedIn(event)) continue;
+                try {
+                    subscription.listener.changed(event);
+                } catch (RuntimeException e) {
+                    // A broken listener shouldn't stop the change or the other listeners
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static class Subscription {
+        private final ChangeListener listener;
+        // Null if the listener wants every change
+        private final Set<String> ids;
+
+        private Subscription(ChangeListener listener, Set<String> ids) {
+            this.listener = listener;
+            this.ids = ids;
+        }
+
+        private boolean isInterestedIn(ChangeEvent event) {
+            if (ids == null) return true;
+            for (String id : ids)
+                if (event.isAbout(id))
+                    return true;
+            return false;
+        }
+    }
+}
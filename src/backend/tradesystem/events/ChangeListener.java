@@ -0,0 +1,14 @@
+package backend.tradesystem.events;
+
+/**
+ * Gets told about changes that were published to the ChangeEventBus
+ */
+public interface ChangeListener {
+    /**
+     * Runs after a change was saved. This runs on the thread that made the change, so anything slow or anything
+     * touching Swing should be handed off to another thread.
+     *
+     * @param event the change
+     */
+    void changed(ChangeEvent event);
+}
@@ -0,0 +1,32 @@
+package backend.tradesystem.events;
+
+
+/**
+ * The kinds of changes that are published to the ChangeEventBus
+ */
+public enum ChangeType {
+    /**
+     * A user was saved or deleted. The event is about the user id.
+     */
+    USER_UPDATED,
+    /**
+     * A user changed their username, which is published along with USER_UPDATED. The event is about the user id.
+     */
+    USERNAME_CHANGED,
+    /**
+     * A trade was made, changed or removed. The event is about the trade id and both traders.
+     */
+    TRADE_CHANGED,
+    /**
+     * A user got a new message. The event is about the user getting the message.
+     */
+    MESSAGE_RECEIVED,
+    /**
+     * An admin accepted or rejected an item request. The event is about the item id and the trader who requested it.
+     */
+    ITEM_REQUEST_PROCESSED,
+    /**
+     * A report was made or cleared. The event is about the report id, or "reports" if every report was cleared.
+     */
+    REPORTS_CHANGED,
+}
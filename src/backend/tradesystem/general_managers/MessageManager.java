@@ -1,19 +1,35 @@
 package backend.tradesystem.general_managers;
 
 import backend.exceptions.AuthorizationException;
+import backend.exceptions.EntryNotFoundException;
 import backend.exceptions.UserNotFoundException;
+import backend.models.Conversation;
+import backend.models.Message;
 import backend.models.users.User;
 import backend.tradesystem.Manager;
+import backend.tradesystem.events.ChangeEvent;
+import backend.tradesystem.events.ChangeType;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Used for managing notifications and messages
+ * Used for managing notifications and messages.
+ * <p>
+ * Messages are kept in their own database, grouped into a conversation for every recipient and sender. Each message
+ * in a conversation gets the next sequence number, so sending a message only adds the message and bumps its
+ * conversation, and messages can be read a page at a time by passing the last sequence number seen.
+ * Messages that were saved inside users before this are moved out once, when the first message manager is made.
  */
 public class MessageManager extends Manager {
-
+    // Whether the messages saved inside users were moved out yet
+    private static boolean isOldMessagesMoved;
 
     /**
      * Initialize the objects to get items from databases
@@ -22,6 +38,7 @@ public class MessageManager extends Manager {
      */
     public MessageManager() throws IOException {
         super();
+        moveOldMessages();
     }
 
 
@@ -37,10 +54,18 @@ public class MessageManager extends Manager {
     public void sendMessage(String userId, String toUserId, String message) throws UserNotFoundException, AuthorizationException {
         if (userId.equals(toUserId)) throw new AuthorizationException("Cannot send a message to self");
         if (getUser(userId).isFrozen()) throw new AuthorizationException("You are frozen and cant send a message.");
-        getUser(userId); // Ensures the user exists
-        User toUser = getUser(toUserId);
-        toUser.addMessage(userId, message);
-        updateUserDatabase(toUser);
+        checkUser(toUserId);
+        beginTransaction();
+        try {
+            // Only the conversation is changed, so the users aren't locked
+            Conversation conversation = getConversation(toUserId, userId);
+            updateMessageDatabase(new Message(toUserId, userId, conversation.nextSequence(), message));
+            updateConversationDatabase(conversation);
+            publish(new ChangeEvent(ChangeType.MESSAGE_RECEIVED, toUserId, toUserId));
+            commitTransaction();
+        } finally {
+            endTransaction();
+        }
     }
 
     /**
@@ -50,9 +75,19 @@ public class MessageManager extends Manager {
      * @throws UserNotFoundException if the user isn't found
      */
     public void clearMessages(String userId) throws UserNotFoundException {
-        User user = getUser(userId);
-        user.clearMessages();
-        updateUserDatabase(user);
+        checkUser(userId);
+        List<String> conversationIds = new ArrayList<>();
+        for (Conversation conversation : getConversationsOf(userId))
+            conversationIds.add(conversation.getId());
+        beginTransaction();
+        try {
+            lockEntities(conversationIds);
+            for (Conversation conversation : getConversationsOf(userId))
+                clearConversation(conversation);
+            commitTransaction();
+        } finally {
+            endTransaction();
+        }
     }
 
     /**
@@ -63,9 +98,16 @@ public class MessageManager extends Manager {
      * @throws UserNotFoundException if the user isn't found
      */
     public void clearMessagesFromUser(String userId, String clearUserId) throws UserNotFoundException {
-        User user = getUser(userId);
-        user.getMessages().remove(clearUserId);
-        updateUserDatabase(user);
+        checkUser(userId);
+        beginTransaction();
+        try {
+            Conversation conversation = getConversation(userId, clearUserId);
+            if (!conversation.isEmpty())
+                clearConversation(conversation);
+            commitTransaction();
+        } finally {
+            endTransaction();
+        }
     }
 
     /**
@@ -76,7 +118,217 @@ public class MessageManager extends Manager {
      * @throws UserNotFoundException if the user isn't found
      */
     public HashMap<String, List<String>> getMessages(String userId) throws UserNotFoundException {
-        User user = getUser(userId);
-        return user.getMessages();
+        checkUser(userId);
+        HashMap<String, List<String>> messages = new HashMap<>();
+        for (Conversation conversation : getConversationsOf(userId)) {
+            if (conversation.isEmpty())
+                continue;
+            messages.put(conversation.getSenderId(), new ArrayList<>(getMessages(conversation,
+                    conversation.getFirstSequence(), conversation.getLastSequence()).values()));
+        }
+        return messages;
+    }
+
+    /**
+     * Gets the users that sent messages to a user which haven't been cleared
+     *
+     * @param userId the user being checked for
+     * @return the user ids of the senders
+     * @throws UserNotFoundException if the user isn't found
+     */
+    public Set<String> getSenders(String userId) throws UserNotFoundException {
+        checkUser(userId);
+        Set<String> senders = new HashSet<>();
+        for (Conversation conversation : getConversationsOf(userId))
+            if (!conversation.isEmpty())
+                senders.add(conversation.getSenderId());
+        return senders;
+    }
+
+    /**
+     * Gets the messages a user got from another user that come after a sequence number, oldest first
+     *
+     * @param userId        the user that got the messages
+     * @param fromUserId    the user that sent the messages
+     * @param afterSequence the sequence number of the last message already seen, or 0 to start from the oldest
+     * @param limit         the most messages to get
+     * @return sequence number to message, in order
+     * @throws UserNotFoundException if the user isn't found
+     */
+    public LinkedHashMap<Long, String> getMessagesAfter(String userId, String fromUserId, long afterSequence, int limit)
+            throws UserNotFoundException {
+        checkUser(userId);
+        Conversation conversation = getConversation(userId, fromUserId);
+        long first = Math.max(afterSequence + 1, conversation.getFirstSequence());
+        long last = Math.min(conversation.getLastSequence(), first + limit - 1);
+        return getMessages(conversation, first, last);
+    }
+
+    /**
+     * Gets the messages a user got from another user that come before a sequence number, oldest first
+     *
+     * @param userId         the user that got the messages
+     * @param fromUserId     the user that sent the messages
+     * @param beforeSequence the sequence number of the oldest message already seen, or Long.MAX_VALUE to get the
+     *                       newest messages
+     * @param limit          the most messages to get
+     * @return sequence number to message, in order
+     * @throws UserNotFoundException if the user isn't found
+     */
+    public LinkedHashMap<Long, String> getMessagesBefore(String userId, String fromUserId, long beforeSequence,
+                                                         int limit) throws UserNotFoundException {
+        checkUser(userId);
+        Conversation conversation = getConversation(userId, fromUserId);
+        long last = Math.min(beforeSequence - 1, conversation.getLastSequence());
+        long first = Math.max(conversation.getFirstSequence(), last - limit + 1);
+        return getMessages(conversation, first, last);
+    }
+
+    /**
+     * Gets how many messages a user hasn't read from another user
+     *
+     * @param userId     the user that got the messages
+     * @param fromUserId the user that sent the messages
+     * @return the amount of unread messages
+     * @throws UserNotFoundException if the user isn't found
+     */
+    public int getUnreadCount(String userId, String fromUserId) throws UserNotFoundException {
+        checkUser(userId);
+        return getConversation(userId, fromUserId).getUnreadCount();
+    }
+
+    /**
+     * Gets how many messages a user hasn't read from anyone
+     *
+     * @param userId the user that got the messages
+     * @return the amount of unread messages
+     * @throws UserNotFoundException if the user isn't found
+     */
+    public int getUnreadCount(String userId) throws UserNotFoundException {
+        checkUser(userId);
+        int unread = 0;
+        for (Conversation conversation : getConversationsOf(userId))
+            unread += conversation.getUnreadCount();
+        return unread;
+    }
+
+    /**
+     * Marks the messages a user got from another user as read, up to a sequence number
+     *
+     * @param userId     the user that got the messages
+     * @param fromUserId the user that sent the messages
+     * @param sequence   the sequence number of the newest message that was read, or Long.MAX_VALUE for every message
+     * @throws UserNotFoundException if the user isn't found
+     */
+    public void markAsRead(String userId, String fromUserId, long sequence) throws UserNotFoundException {
+        checkUser(userId);
+        beginTransaction();
+        try {
+            Conversation conversation = getConversation(userId, fromUserId);
+            if (conversation.getLastReadSequence() < Math.min(sequence, conversation.getLastSequence())) {
+                conversation.markAsRead(sequence);
+                updateConversationDatabase(conversation);
+            }
+            commitTransaction();
+        } finally {
+            endTransaction();
+        }
+    }
+
+    /**
+     * Gets the messages of a conversation between two sequence numbers. Messages that were cleared in the meantime
+     * are left out.
+     *
+     * @param conversation the conversation
+     * @param first        the sequence number of the first message
+     * @param last         the sequence number of the last message
+     * @return sequence number to message, in order
+     */
+    private LinkedHashMap<Long, String> getMessages(Conversation conversation, long first, long last) {
+        LinkedHashMap<Long, String> messages = new LinkedHashMap<>();
+        for (long sequence = first; sequence <= last; sequence++) {
+            try {
+                messages.put(sequence, getMessage(conversation.getRecipientId(), conversation.getSenderId(),
+                        sequence).getMessage());
+            } catch (EntryNotFoundException ignored) {
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Deletes every message of a conversation
+     *
+     * @param conversation the conversation
+     */
+    private void clearConversation(Conversation conversation) {
+        for (long sequence = conversation.getFirstSequence(); sequence <= conversation.getLastSequence(); sequence++)
+            deleteMessage(Message.getId(conversation.getRecipientId(), conversation.getSenderId(), sequence));
+        conversation.clear();
+        updateConversationDatabase(conversation);
+    }
+
+    /**
+     * Checks that a user exists
+     *
+     * @param userId the user
+     * @throws UserNotFoundException if the user isn't found
+     */
+    private void checkUser(String userId) throws UserNotFoundException {
+        getUser(userId);
+    }
+
+    /**
+     * Moves the messages that were saved inside users into the message database, if that wasn't done yet. Every other
+     * message manager waits for this, so no message is sent or read until the old messages have their sequence
+     * numbers.
+     */
+    private void moveOldMessages() {
+        synchronized (MessageManager.class) {
+            if (isOldMessagesMoved)
+                return;
+            for (String userId : getOldMessageCandidates()) {
+                try {
+                    moveOldMessages(userId);
+                } catch (UserNotFoundException ignored) {
+                    // The user was deleted in the meantime
+                }
+            }
+            isOldMessagesMoved = true;
+        }
+    }
+
+    /**
+     * Moves messages that were saved inside a user into the message database
+     *
+     * @param userId the user that got the messages
+     * @throws UserNotFoundException if the user isn't found
+     */
+    private void moveOldMessages(String userId) throws UserNotFoundException {
+        User oldUser = getUser(userId);
+        if (oldUser.getMessages().isEmpty())
+            return;
+        List<String> ids = new ArrayList<>();
+        ids.add(userId);
+        for (String senderId : oldUser.getMessages().keySet())
+            ids.add(Conversation.getId(userId, senderId));
+        beginTransaction();
+        try {
+            lockEntities(ids);
+            User user = getUser(userId);
+            for (Map.Entry<String, List<String>> entry : user.getMessages().entrySet()) {
+                Conversation conversation = getConversation(userId, entry.getKey());
+                for (String message : entry.getValue())
+                    updateMessageDatabase(new Message(userId, entry.getKey(), conversation.nextSequence(), message));
+                // These could already be seen before, so they don't count as unread
+                conversation.markAsRead(conversation.getLastSequence());
+                updateConversationDatabase(conversation);
+            }
+            user.clearMessages();
+            updateUserDatabase(user);
+            commitTransaction();
+        } finally {
+            endTransaction();
+        }
     }
 }
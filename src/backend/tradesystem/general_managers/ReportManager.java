@@ -1,19 +1,24 @@
 package backend.tradesystem.general_managers;
 
+import backend.exceptions.EntryNotFoundException;
 import backend.exceptions.UserNotFoundException;
 import backend.models.Report;
 import backend.models.users.Admin;
 import backend.tradesystem.Manager;
+import backend.tradesystem.events.ChangeEvent;
+import backend.tradesystem.events.ChangeType;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
- * Used for managing reports
+ * Used for managing reports.
+ * Reports are kept once in their own database that every admin shares, instead of being copied into every admin.
+ * Reports that were copied into admins before this are moved out once, when the first report manager is made.
  */
 public class ReportManager extends Manager {
-
+    // Whether the reports copied into admins were moved out yet
+    private static boolean isOldReportsMoved;
 
     /**
      * Initialize the objects to get items from databases
@@ -22,6 +27,7 @@ public class ReportManager extends Manager {
      */
     public ReportManager() throws IOException {
         super();
+        moveOldReports();
     }
 
 
@@ -30,25 +36,41 @@ public class ReportManager extends Manager {
      * Gets all reports
      * Each element in the list is structured like such: [fromUserId, reportedUserId, message, reportId]
      *
-     * @return all reports
+     * @return all reports, oldest first
      */
     public List<String[]> getReports() {
-        for (String userId : getAllUsers()) {
+        return getReports(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets a page of reports, oldest first
+     * Each element in the list is structured like such: [fromUserId, reportedUserId, message, reportId]
+     *
+     * @param start the index of the first report in the page
+     * @param limit the most reports in the page
+     * @return the reports in the page
+     */
+    public List<String[]> getReports(int start, int limit) {
+        List<String[]> reports = new ArrayList<>();
+        for (String reportId : getReportPage(start, limit)) {
             try {
-                if (getUser(userId) instanceof Admin) {
-                    Admin admin = ((Admin) getUser(userId));
-                    List<String[]> reports = new ArrayList<>();
-                    for (Report report : admin.getReports()) {
-                        String[] item = {report.getFromUserId(), report.getReportOnUserId(), report.getMessage(), report.getId()};
-                        reports.add(item);
-                    }
-                    return reports;
-                }
-            } catch (UserNotFoundException e) {
-                e.printStackTrace();
+                Report report = getReport(reportId);
+                reports.add(new String[]{report.getFromUserId(), report.getReportOnUserId(), report.getMessage(),
+                        report.getId()});
+            } catch (EntryNotFoundException ignored) {
+                // Cleared while the reports were being read
             }
         }
-        return new ArrayList<>();
+        return reports;
+    }
+
+    /**
+     * Gets how many reports there are
+     *
+     * @return the number of reports
+     */
+    public int getReportCount() {
+        return countReports();
     }
 
     /**
@@ -57,17 +79,13 @@ public class ReportManager extends Manager {
      * @param reportId the report being removed
      */
     public void clearReport(String reportId) {
-        for (String userId : getAllUsers()) {
-            try {
-                if (getUser(userId) instanceof Admin) {
-                    Admin admin = ((Admin) getUser(userId));
-                    List<Report> reports = admin.getReports();
-                    reports.removeIf(report -> report.getId().equals(reportId));
-                    updateUserDatabase(admin);
-                }
-            } catch (UserNotFoundException e) {
-                e.printStackTrace();
-            }
+        beginTransaction();
+        try {
+            deleteReport(reportId);
+            publish(new ChangeEvent(ChangeType.REPORTS_CHANGED, reportId));
+            commitTransaction();
+        } finally {
+            endTransaction();
         }
     }
 
@@ -75,16 +93,62 @@ public class ReportManager extends Manager {
      * Clears all reports
      */
     public void clearReports() {
-        for (String userId : getAllUsers()) {
+        beginTransaction();
+        try {
+            Set<String> reports = getAllReports();
+            lockEntities(reports);
+            for (String reportId : reports)
+                deleteReport(reportId);
+            publish(new ChangeEvent(ChangeType.REPORTS_CHANGED, "reports"));
+            commitTransaction();
+        } finally {
+            endTransaction();
+        }
+    }
+
+    /**
+     * Moves the reports that used to be copied into every admin into the report database, if that wasn't done yet.
+     * The copies in different admins have the same id, so each report is only moved once.
+     */
+    private void moveOldReports() {
+        synchronized (ReportManager.class) {
+            if (!isOldReportsMoved) {
+                moveOldReportsOfAdmins();
+                isOldReportsMoved = true;
+            }
+        }
+    }
+
+    /**
+     * Moves the reports that are still copied into admins into the report database
+     */
+    private void moveOldReportsOfAdmins() {
+        Set<String> admins = new HashSet<>();
+        for (String adminId : getAdmins()) {
             try {
-                if (getUser(userId) instanceof Admin) {
-                    Admin admin = ((Admin) getUser(userId));
+                if (!((Admin) getUser(adminId)).getReports().isEmpty())
+                    admins.add(adminId);
+            } catch (UserNotFoundException ignored) {
+            }
+        }
+        if (admins.isEmpty()) return;
+
+        beginTransaction();
+        try {
+            lockEntities(admins);
+            for (String adminId : admins) {
+                try {
+                    Admin admin = (Admin) getUser(adminId);
+                    for (Report report : admin.getReports())
+                        updateReportDatabase(report);
                     admin.setReports(new ArrayList<>());
                     updateUserDatabase(admin);
+                } catch (UserNotFoundException ignored) {
                 }
-            } catch (UserNotFoundException e) {
-                e.printStackTrace();
             }
+            commitTransaction();
+        } finally {
+            endTransaction();
         }
     }
 
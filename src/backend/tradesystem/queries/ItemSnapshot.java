@@ -0,0 +1,50 @@
+package backend.tradesystem.queries;
+
+import backend.models.TradableItem;
+
+/**
+ * Everything about a tradable item at the time it was read
+ */
+public class ItemSnapshot {
+    private final String ID;
+    private final String NAME;
+    private final String DESC;
+
+    /**
+     * Copies everything about an item
+     *
+     * @param item the item
+     */
+    ItemSnapshot(TradableItem item) {
+        ID = item.getId();
+        NAME = item.getName();
+        DESC = item.getDesc();
+    }
+
+    /**
+     * The id of the item
+     *
+     * @return the id of the item
+     */
+    public String getId() {
+        return ID;
+    }
+
+    /**
+     * The name of the item
+     *
+     * @return the name of the item
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * The description of the item
+     *
+     * @return the description of the item
+     */
+    public String getDesc() {
+        return DESC;
+    }
+}
@@ -0,0 +1,192 @@
+package backend.tradesystem.queries;
+
+import backend.exceptions.TradableItemNotFoundException;
+import backend.exceptions.UserNotFoundException;
+import backend.models.TradableItem;
+import backend.models.users.User;
+import backend.tradesystem.Manager;
+import backend.tradesystem.events.ChangeEventBus;
+import backend.tradesystem.events.ChangeType;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * For getting the names that are shown for user and item ids.
+ * Names are remembered by every NameQuery, so showing the same users and items again doesn't read them again, and a
+ * list of ids can be named all at once. A username is forgotten as soon as it is changed.
+ */
+public class NameQuery extends Manager {
+    // The most names of each kind that are remembered, the ones used least recently are forgotten first
+    private static final int CACHE_SIZE = 10000;
+
+    private static final NameCache usernames = new NameCache();
+    private static final NameCache itemNames = new NameCache();
+
+    static {
+        // Changing the username is the only way a name changes
+        ChangeEventBus.subscribeToAll(event -> {
+            if (event.getType() == ChangeType.USERNAME_CHANGED)
+                usernames.forget(event.getId());
+        });
+    }
+
+    /**
+     * For getting access to database files
+     *
+     * @throws IOException issues with getting the file path
+     */
+    public NameQuery() throws IOException {
+        super();
+    }
+
+    /**
+     * Gets the username of a user
+     *
+     * @param userId the id of the user
+     * @return the username of the user
+     * @throws UserNotFoundException if the user doesn't exist
+     */
+    public String getUsername(String userId) throws UserNotFoundException {
+        String username = getUsernames(Collections.singletonList(userId)).get(userId);
+        if (username == null) throw new UserNotFoundException(userId);
+        return username;
+    }
+
+    /**
+     * Gets the usernames of many users at once
+     *
+     * @param userIds the ids of the users
+     * @return the usernames by user id, in the order of the ids. Users that don't exist are left out.
+     */
+    public Map<String, String> getUsernames(Collection<String> userIds) {
+        Map<String, String> names = new LinkedHashMap<>();
+        List<String> missing = usernames.getAll(userIds, names);
+        if (missing.isEmpty()) return names;
+        long readAt = usernames.getForgetCount();
+        Map<String, String> found = new HashMap<>();
+        for (User user : getUsers(missing).values())
+            found.put(user.getId(), user.getUsername());
+        usernames.putAll(found, readAt);
+        return order(userIds, names, found);
+    }
+
+    /**
+     * Gets the name of an item
+     *
+     * @param itemId the id of the item
+     * @return the name of the item
+     * @throws TradableItemNotFoundException if the item doesn't exist
+     */
+    public String getItemName(String itemId) throws TradableItemNotFoundException {
+        String name = getItemNames(Collections.singletonList(itemId)).get(itemId);
+        if (name == null) throw new TradableItemNotFoundException(itemId);
+        return name;
+    }
+
+    /**
+     * Gets the names of many items at once
+     *
+     * @param itemIds the ids of the items
+     * @return the item names by item id, in the order of the ids. Items that don't exist are left out.
+     */
+    public Map<String, String> getItemNames(Collection<String> itemIds) {
+        Map<String, String> names = new LinkedHashMap<>();
+        List<String> missing = itemNames.getAll(itemIds, names);
+        if (missing.isEmpty()) return names;
+        long readAt = itemNames.getForgetCount();
+        Map<String, String> found = new HashMap<>();
+        for (TradableItem item : getTradableItems(missing).values())
+            found.put(item.getId(), item.getName());
+        itemNames.putAll(found, readAt);
+        return order(itemIds, names, found);
+    }
+
+    // Puts the remembered and newly found names together in the order of the ids
+    private static Map<String, String> order(Collection<String> ids, Map<String, String> remembered,
+                                             Map<String, String> found) {
+        Map<String, String> names = new LinkedHashMap<>();
+        for (String id : ids) {
+            String name = remembered.containsKey(id) ? remembered.get(id) : found.get(id);
+            if (name != null) names.put(id, name);
+        }
+        return names;
+    }
+
+    /**
+     * Remembers the names that were used most recently
+     */
+    private static class NameCache {
+        private final LinkedHashMap<String, String> names = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+        // When each id's name was last forgotten, counted in names forgotten, so a name that was read before it was
+        // forgotten isn't remembered after it. Only the most recent are kept, and older reads are thrown away.
+        private final LinkedHashMap<String, Long> forgottenAt = new LinkedHashMap<String, Long>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() <= CACHE_SIZE) return false;
+                lostUpTo = eldest.getValue();
+                return true;
+            }
+        };
+        private long forgetCount;
+        private long lostUpTo;
+
+        /**
+         * Gets the remembered names of the ids
+         *
+         * @param ids   the ids
+         * @param found where the remembered names are put
+         * @return the ids that don't have a remembered name
+         */
+        synchronized List<String> getAll(Collection<String> ids, Map<String, String> found) {
+            List<String> missing = new ArrayList<>();
+            for (String id : ids) {
+                String name = names.get(id);
+                if (name != null) found.put(id, name);
+                else missing.add(id);
+            }
+            return missing;
+        }
+
+        /**
+         * Gets how many names have been forgotten, to be given to putAll for names read after this
+         *
+         * @return the number of names forgotten so far
+         */
+        synchronized long getForgetCount() {
+            return forgetCount;
+        }
+
+        /**
+         * Remembers names, except the ones that were forgotten since they were read
+         *
+         * @param found  the names by id
+         * @param readAt the forget count from before the names were read
+         */
+        synchronized void putAll(Map<String, String> found, long readAt) {
+            if (readAt < lostUpTo) return;
+            for (Map.Entry<String, String> name : found.entrySet()) {
+                Long forgotten = forgottenAt.get(name.getKey());
+                if (forgotten == null || forgotten <= readAt)
+                    names.put(name.getKey(), name.getValue());
+            }
+        }
+
+        /**
+         * Forgets the name of an id, and makes sure a name read before this isn't remembered
+         *
+         * @param id the id
+         */
+        synchronized void forget(String id) {
+            names.remove(id);
+            // Removed first so the id moves to the end of the order
+            forgottenAt.remove(id);
+            forgottenAt.put(id, ++forgetCount);
+        }
+    }
+}
@@ -5,7 +5,10 @@ import backend.models.Trade;
 import backend.tradesystem.Manager;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * For getting info about a specific trade
@@ -144,6 +147,17 @@ public class TradeQuery extends Manager {
         return getTrade(tradeId).getUserTurnToEdit();
     }
 
+    /**
+     * the version of the trade, which goes up every time the trade is saved
+     *
+     * @param tradeId The id of the trade which is being checked
+     * @return the version of the trade
+     * @throws TradeNotFoundException if the trade could not be found in the system
+     */
+    public long getVersion(String tradeId) throws TradeNotFoundException {
+        return getTrade(tradeId).getVersion();
+    }
+
 
     /**
      * the user id of the person initializing the trade
@@ -195,4 +209,17 @@ public class TradeQuery extends Manager {
         return (t.getMaxAllowedEdits() - t.getNumEdits()+1)/2;
     }
 
+    /**
+     * Gets everything about many trades at once, which is much faster than asking for each field of each trade
+     *
+     * @param tradeIds the ids of the trades
+     * @return the trades by their id, in the order of the ids. Trades that couldn't be found are left out.
+     */
+    public Map<String, TradeSnapshot> getTradeSnapshots(Collection<String> tradeIds) {
+        Map<String, TradeSnapshot> snapshots = new LinkedHashMap<>();
+        for (Trade trade : getTrades(tradeIds).values())
+            snapshots.put(trade.getId(), new TradeSnapshot(trade));
+        return snapshots;
+    }
+
 }
@@ -0,0 +1,209 @@
+package backend.tradesystem.queries;
+
+import backend.models.Trade;
+
+import java.util.Date;
+
+/**
+ * Everything about a trade at the time it was read, so a trade can be shown without asking for each field
+ */
+public class TradeSnapshot {
+    private final String ID;
+    private final String FIRST_USER_ID;
+    private final String SECOND_USER_ID;
+    private final String FIRST_USER_OFFER;
+    private final String SECOND_USER_OFFER;
+    private final Date MEETING_TIME;
+    private final Date SECOND_MEETING_TIME;
+    private final String MEETING_LOCATION;
+    private final String MESSAGE;
+    private final String USER_TURN_TO_EDIT;
+    private final int EDIT_AMOUNT_LEFT;
+    private final boolean FIRST_USER_CONFIRMED_1;
+    private final boolean SECOND_USER_CONFIRMED_1;
+    private final boolean FIRST_USER_CONFIRMED_2;
+    private final boolean SECOND_USER_CONFIRMED_2;
+    private final long VERSION;
+
+    /**
+     * Copies everything about a trade
+     *
+     * @param trade the trade
+     */
+    TradeSnapshot(Trade trade) {
+        ID = trade.getId();
+        FIRST_USER_ID = trade.getFirstUserId();
+        SECOND_USER_ID = trade.getSecondUserId();
+        FIRST_USER_OFFER = trade.getFirstUserOffer();
+        SECOND_USER_OFFER = trade.getSecondUserOffer();
+        MEETING_TIME = copy(trade.getMeetingTime());
+        SECOND_MEETING_TIME = copy(trade.getSecondMeetingTime());
+        MEETING_LOCATION = trade.getMeetingLocation();
+        MESSAGE = trade.getMessage();
+        USER_TURN_TO_EDIT = trade.getUserTurnToEdit();
+        EDIT_AMOUNT_LEFT = (trade.getMaxAllowedEdits() - trade.getNumEdits() + 1) / 2;
+        FIRST_USER_CONFIRMED_1 = trade.isFirstUserConfirmed1();
+        SECOND_USER_CONFIRMED_1 = trade.isSecondUserConfirmed1();
+        FIRST_USER_CONFIRMED_2 = trade.isFirstUserConfirmed2();
+        SECOND_USER_CONFIRMED_2 = trade.isSecondUserConfirmed2();
+        VERSION = trade.getVersion();
+    }
+
+    /**
+     * The id of the trade
+     *
+     * @return the id of the trade
+     */
+    public String getId() {
+        return ID;
+    }
+
+    /**
+     * the user id of the person initializing the trade
+     *
+     * @return the user id of the person initializing the trade
+     */
+    public String getFirstUserId() {
+        return FIRST_USER_ID;
+    }
+
+    /**
+     * the user id of the person the trade is being sent to
+     *
+     * @return the user id of the person the trade is being sent to
+     */
+    public String getSecondUserId() {
+        return SECOND_USER_ID;
+    }
+
+    /**
+     * Gets the id of the other user participating in the trade
+     *
+     * @param traderId the id of one of the users participating in the trade
+     * @return the id of the other user participating in the trade
+     */
+    public String getOtherUserId(String traderId) {
+        return FIRST_USER_ID.equals(traderId) ? SECOND_USER_ID : FIRST_USER_ID;
+    }
+
+    /**
+     * the id of the item that the user that initialized the trade is willing to offer
+     *
+     * @return the item id, or an empty string if nothing is offered
+     */
+    public String getFirstUserOffer() {
+        return FIRST_USER_OFFER;
+    }
+
+    /**
+     * the id of the item that the user that got sent the trade is willing to offer
+     *
+     * @return the item id, or an empty string if nothing is offered
+     */
+    public String getSecondUserOffer() {
+        return SECOND_USER_OFFER;
+    }
+
+    /**
+     * when the first trade is taking place
+     *
+     * @return when the first trade is taking place
+     */
+    public Date getMeetingTime() {
+        return copy(MEETING_TIME);
+    }
+
+    /**
+     * when the second trade is taking place
+     *
+     * @return when the second trade is taking place, null if there is no second meeting
+     */
+    public Date getSecondMeetingTime() {
+        return copy(SECOND_MEETING_TIME);
+    }
+
+    /**
+     * where the trade is taking place
+     *
+     * @return where the trade is taking place
+     */
+    public String getMeetingLocation() {
+        return MEETING_LOCATION;
+    }
+
+    /**
+     * the message along with the trade offer
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return MESSAGE;
+    }
+
+    /**
+     * the user id of the person's turn to edit the trade
+     *
+     * @return the user id of the person's turn to edit the trade
+     */
+    public String getUserTurnToEdit() {
+        return USER_TURN_TO_EDIT;
+    }
+
+    /**
+     * the amount of edits left for this trade for the next user who can trade
+     *
+     * @return the amount of edits left
+     */
+    public int getEditAmountLeft() {
+        return EDIT_AMOUNT_LEFT;
+    }
+
+    /**
+     * if the user that initialized the trade confirmed the first meeting
+     *
+     * @return if the user that initialized the trade confirmed the first meeting
+     */
+    public boolean isFirstUserConfirmed1() {
+        return FIRST_USER_CONFIRMED_1;
+    }
+
+    /**
+     * if the user that got sent the trade confirmed the first meeting
+     *
+     * @return if the user that got sent the trade confirmed the first meeting
+     */
+    public boolean isSecondUserConfirmed1() {
+        return SECOND_USER_CONFIRMED_1;
+    }
+
+    /**
+     * if the user that initialized the trade confirmed the second meeting
+     *
+     * @return if the user that initialized the trade confirmed the second meeting
+     */
+    public boolean isFirstUserConfirmed2() {
+        return FIRST_USER_CONFIRMED_2;
+    }
+
+    /**
+     * if the user that got sent the trade confirmed the second meeting
+     *
+     * @return if the user that got sent the trade confirmed the second meeting
+     */
+    public boolean isSecondUserConfirmed2() {
+        return SECOND_USER_CONFIRMED_2;
+    }
+
+    /**
+     * the version of the trade when it was read
+     *
+     * @return the version of the trade
+     */
+    public long getVersion() {
+        return VERSION;
+    }
+
+    private static Date copy(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
+}
@@ -12,7 +12,10 @@ import backend.tradesystem.UserTypes;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * For getting info about a specific user or users in general
@@ -127,7 +130,7 @@ public class UserQuery extends Manager {
      */
 
     public List<String> getWishlist(String traderId) throws UserNotFoundException, AuthorizationException {
-        return getTrader(traderId).getWishlist();
+        return new ArrayList<>(getTrader(traderId).getWishlist());
     }
 
     /**
@@ -140,7 +143,7 @@ public class UserQuery extends Manager {
      */
 
     public List<String> getAvailableItems(String traderId) throws UserNotFoundException, AuthorizationException {
-        return getTrader(traderId).getAvailableItems();
+        return new ArrayList<>(getTrader(traderId).getAvailableItems());
     }
 
 
@@ -153,7 +156,7 @@ public class UserQuery extends Manager {
      * @throws AuthorizationException if the user isn't a trader
      */
     public List<String> getRequestedItems(String traderId) throws UserNotFoundException, AuthorizationException {
-        return getTrader(traderId).getRequestedItems();
+        return new ArrayList<>(getTrader(traderId).getRequestedItems());
     }
 
 
@@ -166,7 +169,7 @@ public class UserQuery extends Manager {
      * @throws AuthorizationException if the user isn't a trader
      */
     public List<String> getAcceptedTrades(String traderId) throws UserNotFoundException, AuthorizationException {
-        return getTrader(traderId).getAcceptedTrades();
+        return new ArrayList<>(getTrader(traderId).getAcceptedTrades());
     }
 
 
@@ -179,7 +182,7 @@ public class UserQuery extends Manager {
      * @throws AuthorizationException if the user isn't a trader
      */
     public List<String> getRequestedTrades(String traderId) throws UserNotFoundException, AuthorizationException {
-        return getTrader(traderId).getRequestedTrades();
+        return new ArrayList<>(getTrader(traderId).getRequestedTrades());
     }
 
 
@@ -279,5 +282,17 @@ public class UserQuery extends Manager {
 
     }
 
+    /**
+     * Gets what is shown about many users at once, which is much faster than asking for each field of each user
+     *
+     * @param userIds the ids of the users
+     * @return the users by their id, in the order of the ids. Users that couldn't be found are left out.
+     */
+    public Map<String, UserSnapshot> getUserSnapshots(Collection<String> userIds) {
+        Map<String, UserSnapshot> snapshots = new LinkedHashMap<>();
+        for (User user : getUsers(userIds).values())
+            snapshots.put(user.getId(), new UserSnapshot(user));
+        return snapshots;
+    }
 
 }
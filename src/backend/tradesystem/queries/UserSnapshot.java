@@ -0,0 +1,96 @@
+package backend.tradesystem.queries;
+
+import backend.models.users.Trader;
+import backend.models.users.User;
+import backend.tradesystem.UserTypes;
+
+/**
+ * What is shown about a user at the time it was read, so a user can be shown without asking for each field
+ */
+public class UserSnapshot {
+    private final String ID;
+    private final String USERNAME;
+    private final UserTypes TYPE;
+    private final boolean IS_FROZEN;
+    private final boolean IS_UNFROZEN_REQUESTED;
+    private final String CITY;
+    private final boolean IS_IDLE;
+
+    /**
+     * Copies what is shown about a user
+     *
+     * @param user the user
+     */
+    UserSnapshot(User user) {
+        ID = user.getId();
+        USERNAME = user.getUsername();
+        TYPE = user instanceof Trader ? UserTypes.TRADER : UserTypes.ADMIN;
+        IS_FROZEN = user.isFrozen();
+        IS_UNFROZEN_REQUESTED = user.isUnfrozenRequested();
+        CITY = user instanceof Trader ? ((Trader) user).getCity() : null;
+        IS_IDLE = user instanceof Trader && ((Trader) user).isIdle();
+    }
+
+    /**
+     * The id of the user
+     *
+     * @return the id of the user
+     */
+    public String getId() {
+        return ID;
+    }
+
+    /**
+     * The username of the user
+     *
+     * @return the username of the user
+     */
+    public String getUsername() {
+        return USERNAME;
+    }
+
+    /**
+     * The type of the user
+     *
+     * @return the type of the user
+     */
+    public UserTypes getType() {
+        return TYPE;
+    }
+
+    /**
+     * Whether the user is frozen
+     *
+     * @return whether the user is frozen
+     */
+    public boolean isFrozen() {
+        return IS_FROZEN;
+    }
+
+    /**
+     * Whether the user requested to be unfrozen
+     *
+     * @return whether the user requested to be unfrozen
+     */
+    public boolean isUnfrozenRequested() {
+        return IS_UNFROZEN_REQUESTED;
+    }
+
+    /**
+     * The city of the trader
+     *
+     * @return the city of the trader, null if the user isn't a trader
+     */
+    public String getCity() {
+        return CITY;
+    }
+
+    /**
+     * Whether the trader is idle
+     *
+     * @return whether the trader is idle, false if the user isn't a trader
+     */
+    public boolean isIdle() {
+        return IS_IDLE;
+    }
+}
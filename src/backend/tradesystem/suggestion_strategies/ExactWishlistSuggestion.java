@@ -7,7 +7,8 @@ import backend.tradesystem.Manager;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 /**
@@ -26,43 +27,6 @@ public class ExactWishlistSuggestion extends Manager implements SuggestionStrate
         super();
     }
 
-    /**
-     * Gets all the trader ids in the database
-     *
-     * @return all the traders in the database
-     */
-    private List<String> getAllTraders() {
-        List<String> allTraders = new ArrayList<>();
-        for (String userId : getAllUsers()) {
-            try {
-                if (getUser(userId) instanceof Trader)
-                    allTraders.add(userId);
-            } catch (UserNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
-        return allTraders;
-    }
-
-    /**
-     * Gets all the trader ids within the same city
-     *
-     * @param city the city name
-     * @return list of all traders within the same city
-     */
-    private List<String> getAllTradersInCity(String city) {
-        List<String> allTraders = new ArrayList<>();
-        for (String userId : getAllTraders()) {
-            try {
-                if (getTrader(userId).getCity().equalsIgnoreCase(city))
-                    allTraders.add(userId);
-            } catch (UserNotFoundException | AuthorizationException e) {
-                e.printStackTrace();
-            }
-        }
-        return allTraders;
-    }
-
     /**
      * Returns a list of the best lends that trader thisTraderId can preform
      * The elements in the list is in the format of [thisTraderId, toTraderId, itemId]
@@ -78,20 +42,18 @@ public class ExactWishlistSuggestion extends Manager implements SuggestionStrate
         Trader thisTrader = getTrader(thisTraderId);
         if (thisTrader.isFrozen()) throw new AuthorizationException("Frozen account");
         List<String[]> result = new ArrayList<>();
-        HashSet<String> thisTraderItems = new HashSet<>(thisTrader.getAvailableItems());
+        String city = inCity ? thisTrader.getCity() : null;
 
-        List<String> allTraders = inCity ? getAllTradersInCity(thisTrader.getCity()) : getAllTraders();
-
-        // Get suggested items for all traders
-        for (String traderId : allTraders) {
-            if (traderId.equals(thisTraderId)) {
-                continue;
-            }
-            Trader trader = getTrader(traderId);
-            if (!trader.canTrade())
-                continue;
-            for (String item : trader.getWishlist()) {
-                if (thisTraderItems.contains(item)) {
+        // Find the traders who want each of this trader's items
+        for (String item : new LinkedHashSet<>(thisTrader.getAvailableItems())) {
+            for (String traderId : getTradersWishingFor(item, city)) {
+                if (traderId.equals(thisTraderId)) {
+                    continue;
+                }
+                Trader trader = getTrader(traderId);
+                if (!trader.canTrade() || inCity && !trader.getCity().equalsIgnoreCase(city))
+                    continue;
+                if (trader.getWishlist().contains(item)) {
                     String[] items = {thisTraderId, traderId, item};
                     result.add(items);
                 }
@@ -139,15 +101,23 @@ public class ExactWishlistSuggestion extends Manager implements SuggestionStrate
         if (thisTrader.isFrozen()) throw new AuthorizationException("Frozen account");
 
         List<String[]> toLend = suggestLendList(thisTraderId, inCity);
-
-        HashSet<String> thisTraderWishlist = new HashSet<>(thisTrader.getWishlist());
+        if (toLend.isEmpty()) return null;
+
+        // Find an item from this trader's wishlist that each trader has
+        String city = inCity ? thisTrader.getCity() : null;
+        HashMap<String, String> receivableItems = new HashMap<>();
+        for (String wishlistItem : thisTrader.getWishlist()) {
+            for (String traderId : getTradersWithItem(wishlistItem, city)) {
+                if (!receivableItems.containsKey(traderId) && getTrader(traderId).getAvailableItems().contains(wishlistItem))
+                    receivableItems.put(traderId, wishlistItem);
+            }
+        }
 
         // Create trades where both traders give an item that is in each other's wish list
         for (String[] lendInfo : toLend) {
-            for (String candidateItem : getTrader(lendInfo[1]).getAvailableItems()) {
-                if (thisTraderWishlist.contains(candidateItem)) {
-                    return new String[]{lendInfo[0], lendInfo[1], lendInfo[2], candidateItem};
-                }
+            String candidateItem = receivableItems.get(lendInfo[1]);
+            if (candidateItem != null) {
+                return new String[]{lendInfo[0], lendInfo[1], lendInfo[2], candidateItem};
             }
         }
         return null;
@@ -7,8 +7,8 @@ import backend.models.users.Trader;
 import backend.tradesystem.Manager;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * A suggestion strategy which can be used to suggest trades where the items traded are similar (not the same) to items
@@ -16,7 +16,8 @@ import java.util.List;
  */
 public class SimilarWishlistSuggestion extends Manager implements SuggestionStrategy {
 
-
+    // How many items with similar names are compared with each item
+    private static final int MAX_CANDIDATES = 50;
 
     /**
      * Initialize the objects to get items from databases
@@ -28,161 +29,196 @@ public class SimilarWishlistSuggestion extends Manager implements SuggestionStra
 
 
     /**
-     * Gets all the trader ids in the database
-     *
-     * @return all the traders in the database
-     */
-    private List<String> getAllTraders() {
-        List<String> allTraders = new ArrayList<>();
-        for (String userId : getAllUsers()) {
-            try {
-                if (getUser(userId) instanceof Trader)
-                    allTraders.add(userId);
-            } catch (UserNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
-        return allTraders;
-    }
-
-
-    /**
-     * finds the most similar string in list to the string of the inputted name and returns it if it passes the threshold
+     * Finds how similar two names are, if they are similar enough
      *
-     * @param nameId is the id of the item we wish to find a similar name of
-     * @param list is the list of strings that we are traversing through
-     * @return an array with two cells containing the items name and the score of how similar it is (if the similarity score passes threshold)
+     * @param name      the name we wish to find similar names of
+     * @param otherName the name being compared with it
+     * @return the similarity score, or 0 if the names aren't similar enough
      */
-    private Object[] similarSearch(String nameId, List<String> list) throws TradableItemNotFoundException, UserNotFoundException, AuthorizationException {
-
-        if (list.size() == 0) {
-            return new Object[]{null, 0};
-        }
-        List<Object[]> similarNames = new ArrayList<>();
-
-        //This is to check what type of list the parameter list is so that this function can work with traders
-        // and tradable items
-        boolean isListOfTraders = false;
-        for (String traderIds : getAllTraders()) {
-            if (traderIds.equals(list.get(0))) {
-                isListOfTraders = true;
-                break;
-            }
-        }
+    private int getSimilarity(String name, String otherName) {
         /*
-        Goes through all items in list and finds similarity score
-        The score is calculated like this, for every char in otherNames, we traverse name.length() more chars
-        and find how many match, then store the max number of char matches so that we have the max matches for every otherName
-        in the list. We put that into an array and find the otherName with the highest number of matches which is the most similar string
+        The score is calculated like this, for every char in otherName, we traverse name.length() more chars
+        and find how many match, then store the max number of char matches
          */
-        String name;
-        if (isListOfTraders) { //this is here to allow similarSearch to work with traders and tradableItems
-            name = getTrader(nameId).getUsername();
-        } else {
-            name = getTradableItem(nameId).getName();
-        }
         String longestWord = "";
-        for (String otherNamesId : list) {
-            String otherNames;
-            if (isListOfTraders) {
-                otherNames = getTrader(otherNamesId).getUsername();
-            } else {
-                otherNames = getTradableItem(otherNamesId).getName();
-            }
-
-            //we don't want the exact item in the wishlist, b/c that would always be the most similar so if its the same item it skips over it
-            if (!otherNamesId.equals(nameId)) {
-                int maxSim = 0;
-                String[] otherNameWords = otherNames.split("\\s+");
-                String[] thisNameWords = name.split("\\s+");
-
-                for (String otherNameWord : otherNameWords) {//compares every single word in otherWord to every single word in the string we are searching for
-                    for (String thisNameWord : thisNameWords) {
+        int maxSim = 0;
+        String[] otherNameWords = otherName.split("\\s+");
+        String[] thisNameWords = name.split("\\s+");
 
-                        String longerName; //these are needed to fix bug when comparing strings with different sizes
-                        String shorterName;
+        for (String otherNameWord : otherNameWords) {//compares every single word in otherWord to every single word in the string we are searching for
+            for (String thisNameWord : thisNameWords) {
 
-                        if (otherNameWord.length() < thisNameWord.length()) {
-                            longerName = thisNameWord;
-                            shorterName = otherNameWord;
-                        } else {
-                            shorterName = thisNameWord;
-                            longerName = otherNameWord;
-                        }
+                String longerName; //these are needed to fix bug when comparing strings with different sizes
+                String shorterName;
 
-                        if (longerName.length() > longestWord.length()) { //needed for threshold
-                            longestWord = longerName;
-                        }
+                if (otherNameWord.length() < thisNameWord.length()) {
+                    longerName = thisNameWord;
+                    shorterName = otherNameWord;
+                } else {
+                    shorterName = thisNameWord;
+                    longerName = otherNameWord;
+                }
 
-                        for (int k = 0; k < longerName.length(); k++) {//Finds the maximum similarity score for each word in list
-                            int similarities = 0;
-                            int k2 = k;
-                            int l = 0;
-                            while (l < shorterName.length() && k2 < longerName.length()) {
-                                if (Character.toLowerCase(shorterName.charAt(l)) == Character.toLowerCase(longerName.charAt(k2))) {
-                                    similarities++;
-                                }
-                                l++;
-                                k2++;
-                            }
-                            if (similarities > maxSim) {
-                                maxSim = similarities;
-                            }
-                        }
-                        //when you add an extra char(name = apple, otherName = appxle) or subtract an extra char, the above algorithm
-                        // does not work properly so we need another algorithm below
-                        //ideally if name = apple and otherName = appxle then the similarity score should be 4
-                        //if name = apple and other otherName = appe then the similarity score should be 4
+                if (shorterName.isEmpty()) { //happens when a name starts with a space
+                    continue;
+                }
 
-                        //THE ENTIRE SECTION BELOW IS FOR THE ABOVE TWO TEST CASES...
-                        int similarities2 = 0;
-                        int endOfShortWord = shorterName.length() - 1;
-                        int endOfLongWord = longerName.length() - 1;
-                        int k = 0;
-                        while ((k < shorterName.length()) && Character.toLowerCase(shorterName.charAt(k)) == Character.toLowerCase((longerName.charAt(k)))) {
-                            similarities2++;
-                            k++;
-                        }
-                        while (Character.toLowerCase(shorterName.charAt(endOfShortWord)) == Character.toLowerCase((longerName.charAt(endOfLongWord)))) {
-                            similarities2++;
-                            endOfShortWord--;
-                            endOfLongWord--;
-                            if (endOfShortWord == 0) {
-                                break;
-                            }
-                        }
-                        similarities2 = Math.min(shorterName.length(), similarities2); //deals with when both words are the same
-                        similarities2 = similarities2 - (longerName.length() - shorterName.length());
+                if (longerName.length() > longestWord.length()) { //needed for threshold
+                    longestWord = longerName;
+                }
 
-                        if (similarities2 > maxSim) {
-                            maxSim = similarities2;
+                for (int k = 0; k < longerName.length(); k++) {//Finds the maximum similarity score for each word in list
+                    int similarities = 0;
+                    int k2 = k;
+                    int l = 0;
+                    while (l < shorterName.length() && k2 < longerName.length()) {
+                        if (Character.toLowerCase(shorterName.charAt(l)) == Character.toLowerCase(longerName.charAt(k2))) {
+                            similarities++;
                         }
+                        l++;
+                        k2++;
+                    }
+                    if (similarities > maxSim) {
+                        maxSim = similarities;
+                    }
+                }
+                //when you add an extra char(name = apple, otherName = appxle) or subtract an extra char, the above algorithm
+                // does not work properly so we need another algorithm below
+                //ideally if name = apple and otherName = appxle then the similarity score should be 4
+                //if name = apple and other otherName = appe then the similarity score should be 4
+
+                //THE ENTIRE SECTION BELOW IS FOR THE ABOVE TWO TEST CASES...
+                int similarities2 = 0;
+                int endOfShortWord = shorterName.length() - 1;
+                int endOfLongWord = longerName.length() - 1;
+                int k = 0;
+                while ((k < shorterName.length()) && Character.toLowerCase(shorterName.charAt(k)) == Character.toLowerCase((longerName.charAt(k)))) {
+                    similarities2++;
+                    k++;
+                }
+                while (Character.toLowerCase(shorterName.charAt(endOfShortWord)) == Character.toLowerCase((longerName.charAt(endOfLongWord)))) {
+                    similarities2++;
+                    endOfShortWord--;
+                    endOfLongWord--;
+                    if (endOfShortWord == 0) {
+                        break;
                     }
                 }
-                similarNames.add(new Object[]{otherNames, maxSim, otherNamesId});
+                similarities2 = Math.min(shorterName.length(), similarities2); //deals with when both words are the same
+                similarities2 = similarities2 - (longerName.length() - shorterName.length());
+
+                if (similarities2 > maxSim) {
+                    maxSim = similarities2;
+                }
             }
         }
 
-        //finds the max similarity score in similarNames
-        int max = 0;
-        String mostSimilarName = "";
-        String mostSimilarNameId = "";
-        for (Object[] simNameArr : similarNames) {
-            int x = (int) simNameArr[1];
-            String similarName = (String) simNameArr[0];
-            if (x > max || x == max && (Math.abs(similarName.length() - name.length()) < (Math.abs(mostSimilarName.length() - name.length())))) {
-                max = x;
-                mostSimilarName = similarName;
-                mostSimilarNameId = (String) simNameArr[2];
+        //adds a threshold, so that items we consider not similar aren't suggested, even if there is nothing else
+        if (maxSim >= ((int) (longestWord.length() * 0.8))) {
+            return maxSim;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the name of an item, remembering it for the rest of the suggestion
+     *
+     * @param itemId the item id
+     * @param names  the names that were already gotten
+     * @return the name of the item, or null if it doesn't exist
+     */
+    private String getName(String itemId, Map<String, String> names) {
+        if (!names.containsKey(itemId)) {
+            try {
+                names.put(itemId, getTradableItem(itemId).getName());
+            } catch (TradableItemNotFoundException e) {
+                names.put(itemId, null);
             }
         }
+        return names.get(itemId);
+    }
+
+    /**
+     * Checks if another trader can be suggested to a trader
+     *
+     * @param thisTraderId  the trader asking for the suggestion
+     * @param otherTrader   the other trader
+     * @param city          the city the other trader has to be in, or null for any city
+     * @return whether the other trader can be suggested
+     */
+    private boolean canSuggest(String thisTraderId, Trader otherTrader, String city) {
+        return !otherTrader.getId().equals(thisTraderId) && otherTrader.canTrade() &&
+                (city == null || otherTrader.getCity().equalsIgnoreCase(city));
+    }
 
-        //adds a threshold, so that items we consider not similar don't get added, even if there is nothing else
-        if (max >= ((int) (longestWord.length() * 0.8))) {
-            return new Object[]{mostSimilarNameId, max};
+    /**
+     * For every other trader, finds the item from this trader's inventory that is most similar to one in the other
+     * trader's wishlist
+     *
+     * @param thisTrader the trader giving the items
+     * @param city       the city the other traders have to be in, or null for any city
+     * @param names      the item names that were already gotten
+     * @return other trader id to [the item to give, the similarity score]
+     * @throws UserNotFoundException  if a user was not found
+     * @throws AuthorizationException if a wishlist belongs to a non-trader object
+     */
+    private Map<String, Object[]> getMostSimilarGives(Trader thisTrader, String city, Map<String, String> names)
+            throws UserNotFoundException, AuthorizationException {
+        Map<String, Object[]> gives = new HashMap<>();
+        for (String inventoryItemId : thisTrader.getAvailableItems()) {
+            String name = getName(inventoryItemId, names);
+            if (name == null) continue;
+            // Only items with similar names can be similar enough, so those are the only ones wishlists are searched for
+            for (String wishlistItemId : getItemsWithSimilarNames(name, MAX_CANDIDATES)) {
+                //we don't want the exact item in the wishlist, b/c that would always be the most similar
+                if (wishlistItemId.equals(inventoryItemId)) continue;
+                int sim = getSimilarity(getName(wishlistItemId, names), name);
+                if (sim == 0) continue;
+                for (String otherTraderId : getTradersWishingFor(wishlistItemId, city)) {
+                    Trader otherTrader = getTrader(otherTraderId);
+                    if (!canSuggest(thisTrader.getId(), otherTrader, city) || !otherTrader.getWishlist().contains(wishlistItemId))
+                        continue;
+                    Object[] give = gives.get(otherTraderId);
+                    if (give == null || sim > (int) give[1])
+                        gives.put(otherTraderId, new Object[]{inventoryItemId, sim});
+                }
+            }
         }
+        return gives;
+    }
 
-        return null;
+    /**
+     * For every other trader, finds the item from the other trader's inventory that is most similar to one in this
+     * trader's wishlist
+     *
+     * @param thisTrader the trader receiving the items
+     * @param city       the city the other traders have to be in, or null for any city
+     * @param names      the item names that were already gotten
+     * @return other trader id to [the item to get, the similarity score]
+     * @throws UserNotFoundException  if a user was not found
+     * @throws AuthorizationException if an inventory belongs to a non-trader object
+     */
+    private Map<String, Object[]> getMostSimilarGets(Trader thisTrader, String city, Map<String, String> names)
+            throws UserNotFoundException, AuthorizationException {
+        Map<String, Object[]> gets = new HashMap<>();
+        for (String wishlistItemId : thisTrader.getWishlist()) {
+            String name = getName(wishlistItemId, names);
+            if (name == null) continue;
+            for (String inventoryItemId : getItemsWithSimilarNames(name, MAX_CANDIDATES)) {
+                if (inventoryItemId.equals(wishlistItemId)) continue;
+                int sim = getSimilarity(name, getName(inventoryItemId, names));
+                if (sim == 0) continue;
+                for (String otherTraderId : getTradersWithItem(inventoryItemId, city)) {
+                    Trader otherTrader = getTrader(otherTraderId);
+                    if (!canSuggest(thisTrader.getId(), otherTrader, city) || !otherTrader.getAvailableItems().contains(inventoryItemId))
+                        continue;
+                    Object[] get = gets.get(otherTraderId);
+                    if (get == null || sim > (int) get[1])
+                        gets.put(otherTraderId, new Object[]{inventoryItemId, sim});
+                }
+            }
+        }
+        return gets;
     }
 
 
@@ -196,33 +232,19 @@ public class SimilarWishlistSuggestion extends Manager implements SuggestionStra
      */
     @Override
     public String[] suggestLend(String thisTraderId, boolean inCity) throws UserNotFoundException, AuthorizationException {
-        List<String> allTraders = getAllTraders();
         Trader thisTrader = getTrader(thisTraderId);
-        allTraders.remove(thisTraderId); //so it doesn't trade with itself
-        String city = thisTrader.getCity();
+        String city = inCity ? thisTrader.getCity() : null;
 
         String mostSimItemId = null;
         String mostSimTraderId = null;
         int maxSim = 0;
-        for (String otherTraderId : allTraders) {
-            Trader otherTrader = getTrader(otherTraderId);
-            if (!otherTrader.canTrade() || inCity && !(otherTrader.getCity().equalsIgnoreCase(city))) {
-                continue;
-            }
-            for(String inventoryItemId: thisTrader.getAvailableItems()){
-                Object[] giveItem = null;
-                try {
-                    giveItem = similarSearch(inventoryItemId, otherTrader.getWishlist());
-                } catch (TradableItemNotFoundException ignored) {
-                } finally {
-                    if (!(giveItem == null)) {
-                        if (((int) giveItem[1]) > maxSim) {
-                            mostSimItemId = inventoryItemId;
-                            mostSimTraderId = otherTraderId;
-                            maxSim = ((int) giveItem[1]);
-                        }
-                    }
-                }
+        Map<String, Object[]> gives = getMostSimilarGives(thisTrader, city, new HashMap<>());
+        for (String otherTraderId : gives.keySet()) {
+            Object[] giveItem = gives.get(otherTraderId);
+            if (((int) giveItem[1]) > maxSim) {
+                mostSimItemId = (String) giveItem[0];
+                mostSimTraderId = otherTraderId;
+                maxSim = ((int) giveItem[1]);
             }
         }
         if(mostSimItemId == null || mostSimTraderId == null){
@@ -243,66 +265,28 @@ public class SimilarWishlistSuggestion extends Manager implements SuggestionStra
      */
     @Override
     public String[] suggestTrade(String thisTraderId, boolean inCity) throws UserNotFoundException, AuthorizationException {
-        //Finds the most similar trade, most similar is calculated through similarSearch
-
-        List<String> allTraders = getAllTraders();
-        allTraders.remove(thisTraderId);
+        //Finds the most similar trade, most similar is calculated through getSimilarity
         Trader thisTrader = getTrader(thisTraderId);
-        String city = thisTrader.getCity();
+        String city = inCity ? thisTrader.getCity() : null;
+        Map<String, String> names = new HashMap<>();
         int maxTotalSim = 0;
         String mostSimGetItemId = null;
         String mostSimGiveItemId = null;
         String mostSimTraderId = null;
 
-        for (String otherTraderId : allTraders) {
-            Trader otherTrader = getTrader(otherTraderId);
-            if (!otherTrader.canTrade() || inCity && !(otherTrader.getCity().equalsIgnoreCase(city))) {
-                continue;
-            }
-            String simGetItemId = null;
-            int maxGetSim = 0;
-            String simGiveItemId = null;
-            int maxGiveSim = 0;
-
-            //finds the item that thisTrader wants the most from otherTrader
-            for (String wishlistItemId : thisTrader.getWishlist()) {
-                Object[] getItem = null;
-                try {
-                    getItem = similarSearch(wishlistItemId, otherTrader.getAvailableItems());
-                } catch (TradableItemNotFoundException ignored) {
-                } finally {
-                    if (!(getItem == null)) {
-                        if (((int) getItem[1]) > maxGetSim) {
-                            simGetItemId = (String) getItem[0];
-                            maxGetSim = ((int) getItem[1]);
-                        }
-                    }
-                }
-            }
-
-            //finds the item that otherTrader wants the most from thisTrader
-            for (String otherTraderWishlistItemId : otherTrader.getWishlist()) {
-
-                Object[] giveItem = null;
-                try {
-                    giveItem = similarSearch(otherTraderWishlistItemId, thisTrader.getAvailableItems());
-                } catch (TradableItemNotFoundException ignored) {
-                } finally {
-                    if (!(giveItem == null)) {
-                        if (((int) giveItem[1]) > maxGiveSim) {
-                            simGiveItemId = (String) giveItem[0];
-
-                            maxGiveSim = ((int) giveItem[1]);
-                        }
-                    }
-                }
-            }
-            if (maxGetSim + maxGiveSim > maxTotalSim && (maxGetSim != 0 && maxGiveSim != 0)) {
+        Map<String, Object[]> gets = getMostSimilarGets(thisTrader, city, names);
+        Map<String, Object[]> gives = getMostSimilarGives(thisTrader, city, names);
+        for (String otherTraderId : gets.keySet()) {
+            Object[] getItem = gets.get(otherTraderId);
+            Object[] giveItem = gives.get(otherTraderId);
+            if (giveItem == null) continue;
+            int maxGetSim = (int) getItem[1];
+            int maxGiveSim = (int) giveItem[1];
+            if (maxGetSim + maxGiveSim > maxTotalSim) {
                 maxTotalSim = maxGetSim + maxGiveSim;
-                mostSimGetItemId = simGetItemId;
-                mostSimGiveItemId = simGiveItemId;
+                mostSimGetItemId = (String) getItem[0];
+                mostSimGiveItemId = (String) giveItem[0];
                 mostSimTraderId = otherTraderId;
-
             }
         }
 
@@ -5,12 +5,14 @@ import backend.exceptions.BadPasswordException;
 import backend.exceptions.UserAlreadyExistsException;
 import backend.exceptions.UserNotFoundException;
 import backend.models.Report;
-import backend.models.users.Admin;
 import backend.models.users.Trader;
 import backend.models.users.User;
 import backend.tradesystem.Manager;
+import backend.tradesystem.events.ChangeEvent;
+import backend.tradesystem.events.ChangeType;
 
 import java.io.IOException;
+import java.util.Collections;
 
 /**
  * For changing existing settings for a trader
@@ -36,10 +38,16 @@ public class SettingsManager extends Manager {
      * @throws AuthorizationException if the user isn't a trader
      */
     public String setCity(String traderId, String city) throws UserNotFoundException, AuthorizationException {
-        Trader trader = getTrader(traderId);
-        trader.setCity(city);
-        updateUserDatabase(trader);
-        return traderId;
+        beginTransaction();
+        try {
+            Trader trader = getTrader(traderId);
+            trader.setCity(city);
+            updateUserDatabase(trader);
+            commitTransaction();
+            return traderId;
+        } finally {
+            endTransaction();
+        }
     }
 
     /**
@@ -52,12 +60,22 @@ public class SettingsManager extends Manager {
      * @throws AuthorizationException if unable to go idle
      */
     public String setIdle(String traderId, boolean status) throws UserNotFoundException, AuthorizationException {
-        Trader trader = getTrader(traderId);
-        if (status && trader.getAcceptedTrades().size() > 0)
-            throw new AuthorizationException("Cannot go idle until ongoing trades have been resolved");
-        trader.setIdle(status);
-        updateUserDatabase(trader);
-        return traderId;
+        beginTransaction();
+        try {
+            lockPendingTrades(Collections.singleton(traderId), Collections.emptyList());
+            Trader trader = getTrader(traderId);
+            if (status && trader.getAcceptedTrades().size() > 0)
+                throw new AuthorizationException("Cannot go idle until ongoing trades have been resolved");
+            trader.setIdle(status);
+            updateUserDatabase(trader);
+            // An idle trader can't trade, so their trade requests can't be accepted anymore
+            if (status)
+                removeInvalidRequests(getPendingTradesOfTrader(traderId));
+            commitTransaction();
+            return traderId;
+        } finally {
+            endTransaction();
+        }
     }
 
     /**
@@ -70,13 +88,22 @@ public class SettingsManager extends Manager {
      * @throws UserNotFoundException      the userId wasn't found
      */
     public String changeUsername(String userId, String username) throws UserAlreadyExistsException, UserNotFoundException {
-        if (!isUsernameUnique(username)) {
-            throw new UserAlreadyExistsException();
+        beginTransaction();
+        try {
+            // Stops someone else from taking the same username at the same time
+            lockEntities(userId, getUsernameLockId(username));
+            if (!isUsernameUnique(username)) {
+                throw new UserAlreadyExistsException();
+            }
+            User user = getUser(userId);
+            user.setUsername(username);
+            updateUserDatabase(user);
+            publish(new ChangeEvent(ChangeType.USERNAME_CHANGED, userId, userId));
+            commitTransaction();
+            return user.getId();
+        } finally {
+            endTransaction();
         }
-        User user = getUser(userId);
-        user.setUsername(username);
-        updateUserDatabase(user);
-        return user.getId();
     }
 
     /**
@@ -90,10 +117,16 @@ public class SettingsManager extends Manager {
      */
     public String changePassword(String userId, String password) throws BadPasswordException, UserNotFoundException {
         validatePassword(password);
-        User user = getUser(userId);
-        user.setPassword(password);
-        updateUserDatabase(user);
-        return user.getId();
+        beginTransaction();
+        try {
+            User user = getUser(userId);
+            user.setPassword(password);
+            updateUserDatabase(user);
+            commitTransaction();
+            return user.getId();
+        } finally {
+            endTransaction();
+        }
     }
 
     /**
@@ -121,22 +154,21 @@ public class SettingsManager extends Manager {
      * @throws AuthorizationException report is invalid
      */
     public boolean reportUser(String fromUserId, String toUserId, String message) throws UserNotFoundException, AuthorizationException {
-        boolean successful = false;
         if (fromUserId.equals(toUserId)) throw new AuthorizationException("You cannot report yourself.");
         if (getUser(fromUserId).isFrozen())
             throw new AuthorizationException("This user is frozen and can't report others.");
-        Report report = new Report(fromUserId, toUserId, message);
-
-        // Add the report to all admins so that they can see the report.
-        for (String userId : getAllUsers()) {
-            if (getUser(userId) instanceof Admin) {
-                Admin admin = ((Admin) getUser(userId));
-                admin.getReports().add(report);
-                updateUserDatabase(admin);
-                successful = true;
-            }
+        // Every admin sees the same reports, but there has to be an admin to see it
+        if (getAdmins().isEmpty()) return false;
+        beginTransaction();
+        try {
+            Report report = new Report(fromUserId, toUserId, message);
+            updateReportDatabase(report);
+            publish(new ChangeEvent(ChangeType.REPORTS_CHANGED, report.getId()));
+            commitTransaction();
+            return true;
+        } finally {
+            endTransaction();
         }
-        return successful;
     }
 
     /**
@@ -2,18 +2,18 @@ package backend.tradesystem.trader_managers;
 
 
 import backend.exceptions.AuthorizationException;
-import backend.exceptions.EntryNotFoundException;
 import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.UserNotFoundException;
 import backend.models.Review;
 import backend.models.TradableItem;
-import backend.models.Trade;
 import backend.models.users.Trader;
 import backend.models.users.User;
 import backend.tradesystem.Manager;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Used for the actions of a Trader
@@ -41,13 +41,19 @@ public class TraderManager extends Manager {
      * @throws AuthorizationException not allowed to request an item
      */
     public String addRequestItem(String id, String name, String desc) throws UserNotFoundException, AuthorizationException {
-        Trader trader = getTrader(id);
-        if (trader.isFrozen()) throw new AuthorizationException("Frozen account");
-        TradableItem item = new TradableItem(name, desc);
-        trader.getRequestedItems().add(item.getId());
-        updateTradableItemDatabase(item);
-        updateUserDatabase(trader);
-        return id;
+        beginTransaction();
+        try {
+            Trader trader = getTrader(id);
+            if (trader.isFrozen()) throw new AuthorizationException("Frozen account");
+            TradableItem item = new TradableItem(name, desc);
+            trader.getRequestedItems().add(item.getId());
+            updateTradableItemDatabase(item);
+            updateUserDatabase(trader);
+            commitTransaction();
+            return id;
+        } finally {
+            endTransaction();
+        }
     }
 
 
@@ -65,14 +71,21 @@ public class TraderManager extends Manager {
      */
     public String addToWishList(String traderId, String itemId) throws UserNotFoundException, AuthorizationException,
             TradableItemNotFoundException {
-        Trader trader = getTrader(traderId);
-        if (trader.isFrozen()) throw new AuthorizationException("Frozen account");
-        getTradableItem(itemId);
-        if (!trader.getWishlist().contains(itemId)) {
-            trader.getWishlist().add(itemId);
-            updateUserDatabase(trader);
+        beginTransaction();
+        try {
+            lockEntities(traderId, itemId);
+            Trader trader = getTrader(traderId);
+            if (trader.isFrozen()) throw new AuthorizationException("Frozen account");
+            getTradableItem(itemId);
+            if (!trader.getWishlist().contains(itemId)) {
+                trader.getWishlist().add(itemId);
+                updateUserDatabase(trader);
+            }
+            commitTransaction();
+            return traderId;
+        } finally {
+            endTransaction();
         }
-        return traderId;
     }
 
     /**
@@ -85,11 +98,17 @@ public class TraderManager extends Manager {
      * @throws AuthorizationException frozen account or if the user can't do this action
      */
     public String removeFromWishList(String traderId, String itemId) throws UserNotFoundException, AuthorizationException {
-        Trader trader = getTrader(traderId);
-        if (trader.isFrozen()) throw new AuthorizationException("Frozen account");
-        trader.getWishlist().remove(itemId);
-        updateUserDatabase(trader);
-        return traderId;
+        beginTransaction();
+        try {
+            Trader trader = getTrader(traderId);
+            if (trader.isFrozen()) throw new AuthorizationException("Frozen account");
+            trader.getWishlist().remove(itemId);
+            updateUserDatabase(trader);
+            commitTransaction();
+            return traderId;
+        } finally {
+            endTransaction();
+        }
     }
 
     /**
@@ -102,13 +121,25 @@ public class TraderManager extends Manager {
      * @throws AuthorizationException frozen account or if the user can't do this action
      */
     public String removeFromInventory(String traderId, String itemId) throws UserNotFoundException, AuthorizationException {
-        Trader trader = getTrader(traderId);
-        if (trader.isFrozen()) throw new AuthorizationException("Frozen account");
-        trader.getAvailableItems().remove(itemId);
-        updateUserDatabase(trader);
-        removeInvalidWishlistItems();
-        removeInvalidRequests();
-        return traderId;
+        beginTransaction();
+        try {
+            // Only the traders that have the item and the requests offering it can be changed
+            Set<String> traderIds = new HashSet<>(getTradersWishingFor(itemId, null));
+            traderIds.addAll(getTradersWithItem(itemId, null));
+            traderIds.add(traderId);
+            Set<String> tradeIds = getPendingTradesWithItem(itemId);
+            lockTrades(tradeIds, traderIds.toArray(new String[0]));
+            Trader trader = getTrader(traderId);
+            if (trader.isFrozen()) throw new AuthorizationException("Frozen account");
+            trader.getAvailableItems().remove(itemId);
+            updateUserDatabase(trader);
+            removeInvalidWishlistItems(itemId, traderIds);
+            removeInvalidRequests(tradeIds);
+            commitTransaction();
+            return traderId;
+        } finally {
+            endTransaction();
+        }
     }
 
 
@@ -127,79 +158,50 @@ public class TraderManager extends Manager {
      * @throws AuthorizationException if the users aren't traders
      */
     public String addReview(String fromUser, String toUser, double rating, String message) throws UserNotFoundException, AuthorizationException {
-        Trader trader = getTrader(toUser);
-        getTrader(fromUser); // Makes sure this trader exists
-        if (rating < 0) rating = 0;
-        else if (rating > 10) rating = 10;
-        Review review = new Review(fromUser, toUser, rating, message);
-        trader.addReview(review);
-        updateUserDatabase(trader);
-        return review.getId();
+        beginTransaction();
+        try {
+            lockEntities(fromUser, toUser);
+            Trader trader = getTrader(toUser);
+            getTrader(fromUser); // Makes sure this trader exists
+            if (rating < 0) rating = 0;
+            else if (rating > 10) rating = 10;
+            Review review = new Review(fromUser, toUser, rating, message);
+            trader.addReview(review);
+            updateUserDatabase(trader);
+            commitTransaction();
+            return review.getId();
+        } finally {
+            endTransaction();
+        }
     }
 
 
-    private void removeInvalidRequests() throws UserNotFoundException {
-        // Removes invalid trades
 
-        for (String id : getAllUsers()) {
-            if (!(getUser(id) instanceof Trader)) {
-                continue;
-            }
-            Trader trader = (Trader) getUser(id);
-            try {
-                for (int i = trader.getRequestedTrades().size() - 1; i >= 0; i--) {
-                    String tradeID = trader.getRequestedTrades().get(i);
-                    // Populate required variables.
-                    Trade t = getTrade(tradeID);
-                    Trader firstTrader = getTrader(t.getFirstUserId());
-                    Trader secondTrader = getTrader(t.getSecondUserId());
-
-                    // Figure out whether the trade is still valid.
-                    boolean isValid = (t.getFirstUserOffer().equals("") || firstTrader.getAvailableItems().contains(t.getFirstUserOffer())) &&
-                            (t.getSecondUserOffer().equals("") || secondTrader.getAvailableItems().contains(t.getSecondUserOffer()));
-
-                    if (!isValid) {
-                        firstTrader.getRequestedTrades().remove(i);
-                        secondTrader.getRequestedTrades().remove(i);
-                        deleteTrade(tradeID);
-                        updateUserDatabase(firstTrader);
-                        updateUserDatabase(secondTrader);
-                    }
-                }
-            } catch (EntryNotFoundException | AuthorizationException e) {
-                e.printStackTrace();
-            }
-        }
-
-    }
-
-    private void removeInvalidWishlistItems(){
-        // Removes invalid items
+    /**
+     * Removes an item from the wishlists and inventories of the traders if the item doesn't exist anymore
+     *
+     * @param itemId    the item
+     * @param traderIds the traders that have the item in their wishlist or inventory
+     */
+    private void removeInvalidWishlistItems(String itemId, Set<String> traderIds) {
         try {
-            for (String userId : getAllUsers()) {
+            getTradableItem(itemId);
+            return;
+        } catch (TradableItemNotFoundException ignored) {
+            // Removed below
+        }
+        for (String userId : traderIds) {
+            try {
                 User user = getUser(userId);
-                if (!(user instanceof Trader)){
-                    continue;
-                }
+                if (!(user instanceof Trader)) continue;
                 Trader someTrader = (Trader) user;
-                for (int i = someTrader.getAvailableItems().size() - 1; i >= 0; i--) {
-                    try {
-                        getTradableItem(someTrader.getAvailableItems().get(i));
-                    } catch (TradableItemNotFoundException ignored) {
-                        someTrader.getAvailableItems().remove(i);
-                    }
-                }
-                for (int i = someTrader.getWishlist().size() - 1; i >= 0; i--) {
-                    try {
-                        getTradableItem(someTrader.getWishlist().get(i));
-                    } catch (TradableItemNotFoundException ignored) {
-                        someTrader.getWishlist().remove(i);
-                    }
-                }
-                updateUserDatabase(someTrader);
+                boolean isChanged = someTrader.getAvailableItems().remove(itemId);
+                isChanged = someTrader.getWishlist().remove(itemId) || isChanged;
+                if (isChanged)
+                    updateUserDatabase(someTrader);
+            } catch (UserNotFoundException e) {
+                e.printStackTrace();
             }
-        } catch (UserNotFoundException e) {
-            e.printStackTrace();
         }
     }
 }
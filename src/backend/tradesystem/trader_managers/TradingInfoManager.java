@@ -134,7 +134,7 @@ public class TradingInfoManager extends Manager {
     public List<String> getRecentTradeItems(String traderId) throws AuthorizationException, TradeNotFoundException,
             UserNotFoundException {
         Trader trader = getTrader(traderId);
-        List<String> completedTrades = trader.getCompletedTrades();
+        List<String> completedTrades = new ArrayList<>(trader.getCompletedTrades());
         Map<String, Boolean> used = new HashMap<>();
         List<String> recentTradeItems = new ArrayList<>();
         for (int i = completedTrades.size() - 1; i >= 0; i--) {
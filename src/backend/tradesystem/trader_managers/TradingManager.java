@@ -14,6 +14,9 @@ import java.util.*;
  */
 public class TradingManager extends Manager {
 
+    // Used when the caller doesn't care which version of the trade is changed
+    private static final long ANY_VERSION = -1;
+
     /**
      * Initialize the objects to get items from databases
      *
@@ -45,44 +48,51 @@ public class TradingManager extends Manager {
     public String requestTrade(String traderId1, String traderId2, Date meetingTime, Date secondMeetingTime, String location,
                                String firstUserOfferId, String secondUserOfferId, int allowedEdits, String message)
             throws UserNotFoundException, AuthorizationException, CannotTradeException {
-        Trader trader = getTrader(traderId1);
-        Trader secondTrader = getTrader(traderId2);
-        if (traderId2.equals(traderId1)) throw new CannotTradeException("Cannot trade with yourself");
-        if (firstUserOfferId.equals("") && secondUserOfferId.equals("")) {
-            throw new CannotTradeException("You must add items to the trade");
-        }
-        // If neither trader can trade, throw an exception
-        if (!trader.canTrade())
-            throw new CannotTradeException("You cannot trade due to trading restrictions");
-        if (!secondTrader.canTrade())
-            throw new CannotTradeException("The user requested cannot trade due to trading restrictions");
-        if (firstUserOfferId.equals("") && !trader.canBorrow())
-            throw new CannotTradeException("You have not lent enough to borrow");
-
-        // This is used to check if the items are in each user's inventory
-        if (!hasItem(trader, firstUserOfferId) || !hasItem(secondTrader, secondUserOfferId))
-            throw new AuthorizationException("The trade offer contains an item that the user does not have");
-
-        // Check whether the two dates are valid.
-        if (!datesAreValid(meetingTime, secondMeetingTime)) {
-            throw new CannotTradeException("The suggested date(s) are not possible");
-        }
+        beginTransaction();
+        try {
+            lockEntities(traderId1, traderId2);
+            Trader trader = getTrader(traderId1);
+            Trader secondTrader = getTrader(traderId2);
+            if (traderId2.equals(traderId1)) throw new CannotTradeException("Cannot trade with yourself");
+            if (firstUserOfferId.equals("") && secondUserOfferId.equals("")) {
+                throw new CannotTradeException("You must add items to the trade");
+            }
+            // If neither trader can trade, throw an exception
+            if (!trader.canTrade())
+                throw new CannotTradeException("You cannot trade due to trading restrictions");
+            if (!secondTrader.canTrade())
+                throw new CannotTradeException("The user requested cannot trade due to trading restrictions");
+            if (firstUserOfferId.equals("") && !trader.canBorrow())
+                throw new CannotTradeException("You have not lent enough to borrow");
+
+            // This is used to check if the items are in each user's inventory
+            if (!hasItem(trader, firstUserOfferId) || !hasItem(secondTrader, secondUserOfferId))
+                throw new AuthorizationException("The trade offer contains an item that the user does not have");
+
+            // Check whether the two dates are valid.
+            if (!datesAreValid(meetingTime, secondMeetingTime)) {
+                throw new CannotTradeException("The suggested date(s) are not possible");
+            }
 
-        // Check whether the trader has too many incomplete trades pending
-        if (trader.hasSurpassedIncompleteTradeLimit() || secondTrader.hasSurpassedIncompleteTradeLimit()) {
-            throw new CannotTradeException("One of the two users has too many active trades.");
-        }
-        Trade trade = new Trade(traderId1, traderId2, meetingTime, secondMeetingTime,
-                location, firstUserOfferId, secondUserOfferId, allowedEdits, message);
+            // Check whether the trader has too many incomplete trades pending
+            if (trader.hasSurpassedIncompleteTradeLimit() || secondTrader.hasSurpassedIncompleteTradeLimit()) {
+                throw new CannotTradeException("One of the two users has too many active trades.");
+            }
+            Trade trade = new Trade(traderId1, traderId2, meetingTime, secondMeetingTime,
+                    location, firstUserOfferId, secondUserOfferId, allowedEdits, message);
 
-        // This trade has now been requested, so add it to the requested trades of each trader
-        trader.getRequestedTrades().add(trade.getId());
-        secondTrader.getRequestedTrades().add(trade.getId());
+            // This trade has now been requested, so add it to the requested trades of each trader
+            trader.getRequestedTrades().add(trade.getId());
+            secondTrader.getRequestedTrades().add(trade.getId());
 
-        updateUserDatabase(trader);
-        updateTradeDatabase(trade);
-        updateUserDatabase(secondTrader);
-        return trade.getId();
+            updateUserDatabase(trader);
+            updateTradeDatabase(trade);
+            updateUserDatabase(secondTrader);
+            commitTransaction();
+            return trade.getId();
+        } finally {
+            endTransaction();
+        }
     }
 
     /**
@@ -97,55 +107,86 @@ public class TradingManager extends Manager {
      * @throws CannotTradeException   if trading limitations prevent the trade from happening
      */
     public boolean acceptRequest(String traderId, String tradeId) throws TradeNotFoundException, AuthorizationException, UserNotFoundException, CannotTradeException {
-        Trade trade = getTrade(tradeId);
-        if (!trade.isTraderInTrade(traderId))
-            throw new AuthorizationException("This trader doesn't belong to this trade");
-        Trader trader = getTrader(trade.getFirstUserId());
-        Trader trader2 = getTrader(trade.getSecondUserId());
-
-        // Check that this trader has the ability to accept this trade
-        if (!trader.canTrade() || !trader2.canTrade())
-            throw new CannotTradeException("Trade limitations prevent this trade from being accepted");
-        if (trade.getFirstUserOffer().equals("") && !trader.canAcceptBorrow()) {
-            throw new CannotTradeException("The trader who originally sent the trade can't borrow");
-        }
-        // Check to see that the items are available to trade
-        if (!hasItem(trader, trade.getFirstUserOffer()) || !hasItem(trader2, trade.getSecondUserOffer())) {
-            throw new CannotTradeException("One of the traders no longer has the required item for the trade");
-        }
+        return acceptRequest(traderId, tradeId, ANY_VERSION);
+    }
 
-        if (trade.getFirstUserId().equals(traderId))
-            trade.setHasFirstUserConfirmedRequest(true);
-        else
-            trade.setHasSecondUserConfirmedRequest(true);
+    /**
+     * For accepting a trade request, only if the trade hasn't changed since the trader saw it
+     *
+     * @param traderId        the trader accepting the request
+     * @param tradeId         the trade id
+     * @param expectedVersion the version of the trade that the trader saw
+     * @return true if the request was accepted
+     * @throws TradeNotFoundException if the trade wasn't found
+     * @throws AuthorizationException if the user is not a trader
+     * @throws UserNotFoundException  if the user doesn't exist
+     * @throws CannotTradeException   if trading limitations prevent the trade from happening
+     * @throws ConflictException      if the trade was changed since the trader saw it
+     */
+    public boolean acceptRequest(String traderId, String tradeId, long expectedVersion) throws TradeNotFoundException, AuthorizationException, UserNotFoundException, CannotTradeException {
+        // Accepting can make the other requests of both traders invalid, so those are locked along with the trade.
+        // The traders of a trade never change, so they can be found without locking the trade first.
+        Trade unlockedTrade = getTrade(tradeId);
+        beginTransaction();
+        try {
+            lockPendingTrades(Arrays.asList(unlockedTrade.getFirstUserId(), unlockedTrade.getSecondUserId()),
+                    Collections.singleton(tradeId));
+            Trade trade = getTrade(tradeId);
+            checkVersion(trade, expectedVersion);
+            if (!trade.isTraderInTrade(traderId))
+                throw new AuthorizationException("This trader doesn't belong to this trade");
+            Trader trader = getTrader(trade.getFirstUserId());
+            Trader trader2 = getTrader(trade.getSecondUserId());
 
-        updateUserDatabase(trader);
-        updateUserDatabase(trader2);
+            // Check that this trader has the ability to accept this trade
+            if (!trader.canTrade() || !trader2.canTrade())
+                throw new CannotTradeException("Trade limitations prevent this trade from being accepted");
+            if (trade.getFirstUserOffer().equals("") && !trader.canAcceptBorrow()) {
+                throw new CannotTradeException("The trader who originally sent the trade can't borrow");
+            }
+            // Check to see that the items are available to trade
+            if (!hasItem(trader, trade.getFirstUserOffer()) || !hasItem(trader2, trade.getSecondUserOffer())) {
+                throw new CannotTradeException("One of the traders no longer has the required item for the trade");
+            }
 
-        // If both users accepted then move items out of the inventory
-        if (trade.isHasFirstUserConfirmedRequest() && trade.isHasSecondUserConfirmedRequest()) {
-            trader.getAvailableItems().remove(trade.getFirstUserOffer());
-            trader2.getAvailableItems().remove(trade.getSecondUserOffer());
-            if (!trade.getFirstUserOffer().equals(""))
-                trader.getOngoingItems().add(trade.getFirstUserOffer());
+            if (trade.getFirstUserId().equals(traderId))
+                trade.setHasFirstUserConfirmedRequest(true);
             else
-                trader.setTotalAcceptedBorrows(trader.getTotalAcceptedBorrows() + 1);
+                trade.setHasSecondUserConfirmedRequest(true);
 
-            if (!trade.getSecondUserOffer().equals(""))
-                trader2.getOngoingItems().add(trade.getSecondUserOffer());
-
-            trader.getAcceptedTrades().add(tradeId);
-            trader2.getAcceptedTrades().add(tradeId);
-            trader.getRequestedTrades().remove(tradeId);
-            trader2.getRequestedTrades().remove(tradeId);
-            trader.setTradeCount(trader.getTradeCount() + 1);
-            trader2.setTradeCount(trader2.getTradeCount() + 1);
-            updateUserDatabase(trader);
-            updateUserDatabase(trader2);
-            removeInvalidRequests();
-            return true;
+            updateTradeDatabase(trade);
+
+            // If both users accepted then move items out of the inventory
+            if (trade.isHasFirstUserConfirmedRequest() && trade.isHasSecondUserConfirmedRequest()) {
+                trader.getAvailableItems().remove(trade.getFirstUserOffer());
+                trader2.getAvailableItems().remove(trade.getSecondUserOffer());
+                if (!trade.getFirstUserOffer().equals(""))
+                    trader.getOngoingItems().add(trade.getFirstUserOffer());
+                else
+                    trader.setTotalAcceptedBorrows(trader.getTotalAcceptedBorrows() + 1);
+
+                if (!trade.getSecondUserOffer().equals(""))
+                    trader2.getOngoingItems().add(trade.getSecondUserOffer());
+
+                trader.getAcceptedTrades().add(tradeId);
+                trader2.getAcceptedTrades().add(tradeId);
+                trader.getRequestedTrades().remove(tradeId);
+                trader2.getRequestedTrades().remove(tradeId);
+                trader.setTradeCount(trader.getTradeCount() + 1);
+                trader2.setTradeCount(trader2.getTradeCount() + 1);
+                updateUserDatabase(trader);
+                updateUserDatabase(trader2);
+                Set<String> affectedTrades = new HashSet<>(getPendingTradesOfTrader(trader.getId()));
+                affectedTrades.addAll(getPendingTradesOfTrader(trader2.getId()));
+                removeInvalidRequests(affectedTrades);
+                commitTransaction();
+                return true;
+            }
+            commitTransaction();
+            return false;
+        } finally {
+            endTransaction();
         }
-        return false;
     }
 
     /**
@@ -277,11 +318,18 @@ public class TradingManager extends Manager {
      */
     public void confirmMeetingGeneral(String traderId, String tradeId) throws TradeNotFoundException,
             AuthorizationException, UserNotFoundException {
-        Trade t = getTrade(tradeId);
-        if (t.isFirstUserConfirmed1() && t.isSecondUserConfirmed1()) {
-            confirmSecondMeeting(traderId, tradeId);
-        } else {
-            confirmFirstMeeting(traderId, tradeId);
+        beginTransaction();
+        try {
+            lockTrades(Collections.singleton(tradeId));
+            Trade t = getTrade(tradeId);
+            if (t.isFirstUserConfirmed1() && t.isSecondUserConfirmed1()) {
+                confirmSecondMeeting(traderId, tradeId);
+            } else {
+                confirmFirstMeeting(traderId, tradeId);
+            }
+            commitTransaction();
+        } finally {
+            endTransaction();
         }
     }
 
@@ -305,56 +353,90 @@ public class TradingManager extends Manager {
     public String counterTradeOffer(String traderId, String tradeId, Date meetingTime, Date secondMeetingTime, String
             meetingLocation, String thisTraderOffer, String thatTraderOffer, String message) throws
             CannotTradeException, TradeNotFoundException, AuthorizationException, UserNotFoundException {
-        Trade trade = getTrade(tradeId);
-        Trader trader1 = getTrader(trade.getFirstUserId());
-        Trader trader2 = getTrader(trade.getSecondUserId());
+        return counterTradeOffer(traderId, tradeId, meetingTime, secondMeetingTime, meetingLocation, thisTraderOffer,
+                thatTraderOffer, message, ANY_VERSION);
+    }
 
-        if (!trade.isTraderInTrade(traderId))
-            throw new AuthorizationException("This trader doesn't belong to this trade");
-        if (!getTrader(trade.getFirstUserId()).canTrade() || !getTrader(trade.getSecondUserId()).canTrade())
-            throw new CannotTradeException("Could not send a counter trade offer, one of the two traders cannot trade");
-        if (thisTraderOffer.equals("") && thatTraderOffer.equals("")) {
-            throw new CannotTradeException("You must add items to the trade");
-        }
-        if (trade.getNumEdits() >= trade.getMaxAllowedEdits()) {
-            throw new CannotTradeException("Too many edits. Trade is cancelled.");
-        }
-        if (!datesAreValid(meetingTime, secondMeetingTime)) {
-            throw new CannotTradeException("The suggested date(s) are not possible");
-        }
+    /**
+     * Sending a counter offer, only if the trade hasn't changed since the trader started editing it
+     *
+     * @param traderId          the trader id sending the counter offer
+     * @param tradeId           the trade id
+     * @param meetingTime       the new time of the trade
+     * @param secondMeetingTime the second meeting time of the trade
+     * @param meetingLocation   the meeting location of the trade
+     * @param thisTraderOffer   the tradable item id that the current trader is offering
+     * @param thatTraderOffer   the tradable item id that the current trader wants from the other trader
+     * @param message           message of the offer
+     * @param expectedVersion   the version of the trade that the trader started editing
+     * @return the id of the trade
+     * @throws CannotTradeException   too many edits
+     * @throws TradeNotFoundException this trade doesn't exist
+     * @throws AuthorizationException this trade doesn't belong to this user
+     * @throws UserNotFoundException  user wasn't found
+     * @throws ConflictException      if the trade was changed since the trader started editing it
+     */
+    public String counterTradeOffer(String traderId, String tradeId, Date meetingTime, Date secondMeetingTime, String
+            meetingLocation, String thisTraderOffer, String thatTraderOffer, String message, long expectedVersion) throws
+            CannotTradeException, TradeNotFoundException, AuthorizationException, UserNotFoundException {
+        beginTransaction();
+        try {
+            lockTrades(Collections.singleton(tradeId));
+            Trade trade = getTrade(tradeId);
+            checkVersion(trade, expectedVersion);
+            Trader trader1 = getTrader(trade.getFirstUserId());
+            Trader trader2 = getTrader(trade.getSecondUserId());
 
-        // if the trader sending the request is the first user...
-        if (trader1.getId().equals(traderId)) {
-            if (!hasItem(trader1, thisTraderOffer) || !hasItem(trader2, thatTraderOffer)) {
-                throw new CannotTradeException("One of the traders does not have the required item!");
+            if (!trade.isTraderInTrade(traderId))
+                throw new AuthorizationException("This trader doesn't belong to this trade");
+            if (!getTrader(trade.getFirstUserId()).canTrade() || !getTrader(trade.getSecondUserId()).canTrade())
+                throw new CannotTradeException("Could not send a counter trade offer, one of the two traders cannot trade");
+            if (thisTraderOffer.equals("") && thatTraderOffer.equals("")) {
+                throw new CannotTradeException("You must add items to the trade");
             }
-        } else {
-            if (!hasItem(trader2, thisTraderOffer) || !hasItem(trader1, thatTraderOffer)) {
-                throw new CannotTradeException("One of the traders does not have the required item!");
+            if (trade.getNumEdits() >= trade.getMaxAllowedEdits()) {
+                throw new CannotTradeException("Too many edits. Trade is cancelled.");
+            }
+            if (!datesAreValid(meetingTime, secondMeetingTime)) {
+                throw new CannotTradeException("The suggested date(s) are not possible");
             }
-        }
 
-        if (trade.getUserTurnToEdit().equals(traderId)) trade.changeUserTurn();
-        else throw new CannotTradeException("A previous trade offer has already been sent");
-        trade.setMeetingTime(meetingTime);
-        trade.setSecondMeetingTime(secondMeetingTime);
-        trade.setMeetingLocation(meetingLocation);
-        trade.setMessage(message);
-        if (trade.getFirstUserId().equals(traderId)) {
-            trade.setFirstUserOffer(thisTraderOffer);
-            trade.setSecondUserOffer(thatTraderOffer);
-            trade.setHasFirstUserConfirmedRequest(true);
-            trade.setHasSecondUserConfirmedRequest(false);
-        } else {
-            trade.setSecondUserOffer(thisTraderOffer);
-            trade.setFirstUserOffer(thatTraderOffer);
-            trade.setHasFirstUserConfirmedRequest(false);
-            trade.setHasSecondUserConfirmedRequest(true);
-        }
+            // if the trader sending the request is the first user...
+            if (trader1.getId().equals(traderId)) {
+                if (!hasItem(trader1, thisTraderOffer) || !hasItem(trader2, thatTraderOffer)) {
+                    throw new CannotTradeException("One of the traders does not have the required item!");
+                }
+            } else {
+                if (!hasItem(trader2, thisTraderOffer) || !hasItem(trader1, thatTraderOffer)) {
+                    throw new CannotTradeException("One of the traders does not have the required item!");
+                }
+            }
 
-        trade.setNumEdits(trade.getNumEdits() + 1);
-        updateTradeDatabase(trade);
-        return trade.getId();
+            if (trade.getUserTurnToEdit().equals(traderId)) trade.changeUserTurn();
+            else throw new CannotTradeException("A previous trade offer has already been sent");
+            trade.setMeetingTime(meetingTime);
+            trade.setSecondMeetingTime(secondMeetingTime);
+            trade.setMeetingLocation(meetingLocation);
+            trade.setMessage(message);
+            if (trade.getFirstUserId().equals(traderId)) {
+                trade.setFirstUserOffer(thisTraderOffer);
+                trade.setSecondUserOffer(thatTraderOffer);
+                trade.setHasFirstUserConfirmedRequest(true);
+                trade.setHasSecondUserConfirmedRequest(false);
+            } else {
+                trade.setSecondUserOffer(thisTraderOffer);
+                trade.setFirstUserOffer(thatTraderOffer);
+                trade.setHasFirstUserConfirmedRequest(false);
+                trade.setHasSecondUserConfirmedRequest(true);
+            }
+
+            trade.setNumEdits(trade.getNumEdits() + 1);
+            updateTradeDatabase(trade);
+            commitTransaction();
+            return trade.getId();
+        } finally {
+            endTransaction();
+        }
     }
 
 
@@ -367,16 +449,23 @@ public class TradingManager extends Manager {
      * @throws AuthorizationException couldn't find a trader type associated with the trade
      */
     public void rescindTradeRequest(String tradeID) throws TradeNotFoundException, UserNotFoundException, AuthorizationException {
-        Trade trade = getTrade(tradeID);
-        Trader firstTrader = getTrader(trade.getFirstUserId());
-        Trader secondTrader = getTrader(trade.getSecondUserId());
-        if (!firstTrader.getRequestedTrades().remove(tradeID)) {
-            throw new TradeNotFoundException("Trade request wasn't found");
+        beginTransaction();
+        try {
+            lockTrades(Collections.singleton(tradeID));
+            Trade trade = getTrade(tradeID);
+            Trader firstTrader = getTrader(trade.getFirstUserId());
+            Trader secondTrader = getTrader(trade.getSecondUserId());
+            if (!firstTrader.getRequestedTrades().remove(tradeID)) {
+                throw new TradeNotFoundException("Trade request wasn't found");
+            }
+            secondTrader.getRequestedTrades().remove(tradeID);
+            deleteTrade(tradeID);
+            updateUserDatabase(firstTrader);
+            updateUserDatabase(secondTrader);
+            commitTransaction();
+        } finally {
+            endTransaction();
         }
-        secondTrader.getRequestedTrades().remove(tradeID);
-        deleteTrade(tradeID);
-        updateUserDatabase(firstTrader);
-        updateUserDatabase(secondTrader);
     }
 
     /**
@@ -393,39 +482,45 @@ public class TradingManager extends Manager {
      */
     public void rescindOngoingTrade(String tradeID) throws
             TradeNotFoundException, UserNotFoundException, AuthorizationException, CannotTradeException {
+        beginTransaction();
+        try {
+            lockTrades(Collections.singleton(tradeID));
+            Trade trade = getTrade(tradeID);
+            Trader firstTrader = getTrader(trade.getFirstUserId());
+            Trader secondTrader = getTrader(trade.getSecondUserId());
+            if (!firstTrader.getAcceptedTrades().contains(trade.getId()))
+                throw new CannotTradeException("The trade is not accepted");
 
-        Trade trade = getTrade(tradeID);
-        Trader firstTrader = getTrader(trade.getFirstUserId());
-        Trader secondTrader = getTrader(trade.getSecondUserId());
-        if (!firstTrader.getAcceptedTrades().contains(trade.getId()))
-            throw new CannotTradeException("The trade is not accepted");
 
+            // Remove trades
+            firstTrader.getAcceptedTrades().remove(tradeID);
+            secondTrader.getAcceptedTrades().remove(tradeID);
 
-        // Remove trades
-        firstTrader.getAcceptedTrades().remove(tradeID);
-        secondTrader.getAcceptedTrades().remove(tradeID);
-
-        // Add items
-        if (!trade.getFirstUserOffer().equals(""))
-            firstTrader.getAvailableItems().add(trade.getFirstUserOffer());
-        else {
-            firstTrader.setTotalAcceptedBorrows(firstTrader.getTotalAcceptedBorrows() - 1);
+            // Add items
+            if (!trade.getFirstUserOffer().equals(""))
+                firstTrader.getAvailableItems().add(trade.getFirstUserOffer());
+            else {
+                firstTrader.setTotalAcceptedBorrows(firstTrader.getTotalAcceptedBorrows() - 1);
+            }
+            if (!trade.getSecondUserOffer().equals(""))
+                secondTrader.getAvailableItems().add(trade.getSecondUserOffer());
+
+            firstTrader.getOngoingItems().remove(trade.getFirstUserOffer());
+            firstTrader.getOngoingItems().remove(trade.getSecondUserOffer());
+            secondTrader.getOngoingItems().remove(trade.getFirstUserOffer());
+            secondTrader.getOngoingItems().remove(trade.getSecondUserOffer());
+            firstTrader.setTradeCount(firstTrader.getTradeCount() - 1);
+            secondTrader.setTradeCount(secondTrader.getTradeCount() - 1);
+
+            // Update database
+            deleteTrade(trade.getId());
+            updateUserDatabase(firstTrader);
+            updateUserDatabase(secondTrader);
+
+            commitTransaction();
+        } finally {
+            endTransaction();
         }
-        if (!trade.getSecondUserOffer().equals(""))
-            secondTrader.getAvailableItems().add(trade.getSecondUserOffer());
-
-        firstTrader.getOngoingItems().remove(trade.getFirstUserOffer());
-        firstTrader.getOngoingItems().remove(trade.getSecondUserOffer());
-        secondTrader.getOngoingItems().remove(trade.getFirstUserOffer());
-        secondTrader.getOngoingItems().remove(trade.getSecondUserOffer());
-        firstTrader.setTradeCount(firstTrader.getTradeCount() - 1);
-        secondTrader.setTradeCount(secondTrader.getTradeCount() - 1);
-
-        // Update database
-        deleteTrade(trade.getId());
-        updateUserDatabase(firstTrader);
-        updateUserDatabase(secondTrader);
-
     }
 
     /**
@@ -451,44 +546,15 @@ public class TradingManager extends Manager {
         return (item.equals("") || trader.getAvailableItems().contains(item));
     }
 
-
-    private void removeInvalidRequests() throws UserNotFoundException {
-        // Removes invalid trades
-
-        for (String id : getAllUsers()) {
-            if (!(getUser(id) instanceof Trader)) {
-                continue;
-            }
-            Trader trader = (Trader) getUser(id);
-            try {
-                for (int i = trader.getRequestedTrades().size() - 1; i >= 0; i--) {
-                    String tradeID = trader.getRequestedTrades().get(i);
-                    // Populate required variables.
-                    Trade t = getTrade(tradeID);
-                    Trader firstTrader = getTrader(t.getFirstUserId());
-                    Trader secondTrader = getTrader(t.getSecondUserId());
-
-                    // Figure out whether the trade is still valid.
-                    boolean isValid = hasItem(firstTrader, t.getFirstUserOffer()) && hasItem(secondTrader, t.getSecondUserOffer());
-
-                    isValid = isValid && firstTrader.canTrade() && secondTrader.canTrade();
-
-                    if (t.getFirstUserOffer().equals(""))
-                        isValid = isValid && firstTrader.canBorrow();
-
-                    if (!isValid) {
-                        firstTrader.getRequestedTrades().remove(i);
-                        secondTrader.getRequestedTrades().remove(i);
-                        deleteTrade(tradeID);
-                        updateUserDatabase(firstTrader);
-                        updateUserDatabase(secondTrader);
-                    }
-                }
-            } catch (EntryNotFoundException | AuthorizationException e) {
-                e.printStackTrace();
-            }
-        }
-
+    /**
+     * Checks that a trade is still at the version the trader saw
+     *
+     * @param trade           the trade
+     * @param expectedVersion the version the trader saw, or ANY_VERSION to skip the check
+     * @throws ConflictException if the trade is at a different version
+     */
+    private void checkVersion(Trade trade, long expectedVersion) {
+        if (expectedVersion != ANY_VERSION && trade.getVersion() != expectedVersion)
+            throw new ConflictException("The trade was changed since it was shown");
     }
-
 }
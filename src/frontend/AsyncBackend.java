@@ -0,0 +1,218 @@
+package frontend;
+
+import backend.exceptions.ConflictException;
+import frontend.components.TryAgainMessage;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs calls to the backend away from the Swing thread, so the window keeps responding however long the database
+ * takes. Calls run on a small pool of worker threads and what they return is handed back on the Swing thread.
+ * <p>
+ * Every call belongs to a component. Cancelling a component drops the calls of that component and everything inside
+ * it, so a panel that was closed or replaced is never updated by a call that finishes late. A call that already
+ * started is left to finish, since stopping it halfway through reading a file would close the file, but what it
+ * returns is thrown away.
+ * <p>
+ * Changes the user makes run on the same workers. The control that made a change is disabled until the change is
+ * done, and a change is never cancelled, since the user already asked for it. Managers keep a transaction for each
+ * thread, so a panel's managers can be used by its loads and changes at the same time.
+ */
+public class AsyncBackend {
+    private static final int WORKERS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final ThreadPoolExecutor executor = createExecutor();
+    // Calls that haven't been handed back or cancelled yet
+    private static final List<Task> pending = new ArrayList<>();
+
+    private AsyncBackend() {
+    }
+
+    /**
+     * Runs a call on a worker thread, then hands what it returns to the Swing thread. If the call fails, the error is
+     * printed.
+     *
+     * @param owner    the component the call is for
+     * @param call     the call to the backend
+     * @param onLoaded what to do with what the call returned, runs on the Swing thread
+     * @param <T>      what the call returns
+     * @return the task running the call
+     */
+    public static <T> Task load(Component owner, BackendCall<T> call, Consumer<T> onLoaded) {
+        return load(owner, call, onLoaded, Throwable::printStackTrace);
+    }
+
+    /**
+     * Runs a call on a worker thread, then hands what it returns, or what went wrong, to the Swing thread
+     *
+     * @param owner    the component the call is for
+     * @param call     the call to the backend
+     * @param onLoaded what to do with what the call returned, runs on the Swing thread
+     * @param onFailed what to do if the call threw an exception, runs on the Swing thread
+     * @param <T>      what the call returns
+     * @return the task running the call
+     */
+    public static <T> Task load(Component owner, BackendCall<T> call, Consumer<T> onLoaded,
+                                Consumer<Exception> onFailed) {
+        Task task = new Task(owner);
+        FutureTask<Void> future = new FutureTask<>(() -> {
+            if (task.cancelled) return;
+            try {
+                T result = call.call();
+                task.deliver(() -> onLoaded.accept(result));
+            } catch (Exception e) {
+                task.deliver(() -> onFailed.accept(e));
+            }
+        }, null);
+        // The future is set before the task can be found and cancelled, so cancelling always takes it off the queue
+        task.future = future;
+        synchronized (pending) {
+            pending.add(task);
+        }
+        executor.execute(future);
+        return task;
+    }
+
+    /**
+     * Makes a change on a worker thread, then hands what it returns to the Swing thread. If someone else was changing
+     * the same thing the user is told to try again, other errors are printed.
+     *
+     * @param control  the button or other component that made the change, disabled until the change is done
+     * @param call     the change to make through the backend
+     * @param onDone   what to do with what the change returned, runs on the Swing thread
+     * @param <T>      what the change returns
+     */
+    public static <T> void change(Component control, BackendCall<T> call, Consumer<T> onDone) {
+        change(control, call, onDone, e -> {
+            if (e instanceof ConflictException)
+                TryAgainMessage.show(control);
+            else
+                e.printStackTrace();
+        });
+    }
+
+    /**
+     * Makes a change on a worker thread, then hands what it returns, or what went wrong, to the Swing thread.
+     * The control is disabled until then, so the same change can't be started again while it is being made.
+     *
+     * @param control  the button or other component that made the change, disabled until the change is done
+     * @param call     the change to make through the backend
+     * @param onDone   what to do with what the change returned, runs on the Swing thread
+     * @param onFailed what to do if the change threw an exception, runs on the Swing thread
+     * @param <T>      what the change returns
+     */
+    public static <T> void change(Component control, BackendCall<T> call, Consumer<T> onDone,
+                                  Consumer<Exception> onFailed) {
+        boolean wasEnabled = control.isEnabled();
+        control.setEnabled(false);
+        executor.execute(() -> {
+            Runnable result;
+            try {
+                T value = call.call();
+                result = () -> onDone.accept(value);
+            } catch (Exception e) {
+                result = () -> onFailed.accept(e);
+            }
+            Runnable handBack = result;
+            SwingUtilities.invokeLater(() -> {
+                // Enabled first, so what is done with the result can disable the control again
+                control.setEnabled(wasEnabled);
+                handBack.run();
+            });
+        });
+    }
+
+    /**
+     * Cancels every call of a component and of the components inside it
+     *
+     * @param component the component
+     */
+    public static void cancel(Component component) {
+        List<Task> tasks = new ArrayList<>();
+        synchronized (pending) {
+            for (Task task : pending)
+                if (task.owner == component || SwingUtilities.isDescendingFrom(task.owner, component))
+                    tasks.add(task);
+        }
+        tasks.forEach(Task::cancel);
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKERS, WORKERS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "backend-worker-" + count.incrementAndGet());
+            // The window closing shouldn't wait for calls nobody will see. A change cut off this way is left out
+            // whole, since the database drops a log record that was only partly written
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * A call to the backend
+     *
+     * @param <T> what the call returns
+     */
+    public interface BackendCall<T> {
+        /**
+         * Makes the call, on a worker thread
+         *
+         * @return what the call got from the backend
+         * @throws Exception if the call failed
+         */
+        T call() throws Exception;
+    }
+
+    /**
+     * A call that was started, which can be cancelled until it is handed back
+     */
+    public static class Task {
+        private final Component owner;
+        private volatile FutureTask<?> future;
+        private volatile boolean cancelled;
+
+        private Task(Component owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Cancels the call. A call that hasn't started won't run, and nothing is handed back to the Swing thread.
+         */
+        public void cancel() {
+            cancelled = true;
+            synchronized (pending) {
+                pending.remove(this);
+            }
+            if (future.cancel(false))
+                executor.remove(future);
+        }
+
+        /**
+         * Whether the call was cancelled
+         *
+         * @return true if the call was cancelled
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        // Cancelling happens on the Swing thread too, so checking there means a cancelled call is never handed back
+        private void deliver(Runnable action) {
+            SwingUtilities.invokeLater(() -> {
+                if (cancelled) return;
+                synchronized (pending) {
+                    pending.remove(this);
+                }
+                action.run();
+            });
+        }
+    }
+}
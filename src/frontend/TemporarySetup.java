@@ -1,8 +1,10 @@
 package frontend;
 
+import backend.Database;
 import backend.DatabaseFilePaths;
 import backend.exceptions.*;
 import backend.tradesystem.trader_managers.SettingsManager;
+import backend.tradesystem.TraderConfig;
 import backend.tradesystem.TraderProperties;
 import backend.tradesystem.UserTypes;
 import backend.tradesystem.admin_managers.HandleFrozenManager;
@@ -16,9 +18,8 @@ import backend.tradesystem.trader_managers.TradingManager;
 
 
 import java.io.*;
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.Properties;
+import java.util.HashMap;
 
 /**
  * This class is not used in production and is only used to have an example interface full of users
@@ -241,13 +242,11 @@ public class TemporarySetup {
     // Deletes info in the ser files to reset it
     private void refreshFiles() {
         String[] paths = {DatabaseFilePaths.TRADE.getFilePath(), DatabaseFilePaths.TRADABLE_ITEM.getFilePath(),
-                DatabaseFilePaths.USER.getFilePath()};
+                DatabaseFilePaths.USER.getFilePath(), DatabaseFilePaths.MESSAGE.getFilePath(),
+                DatabaseFilePaths.CONVERSATION.getFilePath(), DatabaseFilePaths.REPORT.getFilePath()};
         for (String path : paths) {
             try {
-                OutputStream buffer = new BufferedOutputStream(new FileOutputStream(path));
-                ObjectOutput output = new ObjectOutputStream(buffer);
-                output.writeObject(new ArrayList<>());
-                output.close();
+                new Database(path).save(new HashMap<>());
             } catch (IOException ignored) {
             }
         }
@@ -265,22 +264,7 @@ public class TemporarySetup {
      */
     private void setProperty(TraderProperties propertyName, int propertyValue) {
         try {
-            // get the file
-            File propertyFile = new File(DatabaseFilePaths.TRADER_CONFIG.getFilePath());
-            // initialize reader
-            FileReader reader = new FileReader(propertyFile);
-            // initialize properties object (to set data)
-            Properties properties = new Properties();
-            // associate this properties object with the file
-            properties.load(reader);
-            // set the property
-            properties.setProperty(propertyName.getProperty(), "" + propertyValue);
-
-            //update the file
-            FileWriter writer = new FileWriter(propertyFile);
-            properties.store(writer, "");
-            reader.close();
-            writer.close();
+            TraderConfig.setProperty(propertyName, propertyValue);
         } catch (IOException ex) {
             ex.printStackTrace();
         }
@@ -1,11 +1,13 @@
 package frontend;
 
-import backend.DatabaseFilePaths;
 import backend.exceptions.AuthorizationException;
 import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.TradeNotFoundException;
 import backend.exceptions.UserNotFoundException;
 import backend.tradesystem.UserTypes;
+import backend.tradesystem.events.ChangeEvent;
+import backend.tradesystem.events.ChangeEventBus;
+import backend.tradesystem.events.ChangeListener;
 import backend.tradesystem.general_managers.LoginManager;
 import frontend.panels.admin_panel.AdminPanel;
 import frontend.panels.trader_panel.TraderPanel;
@@ -21,14 +23,14 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
- * This is used to manage settings in the overall window itself Code inspired
- * from
- * https://stackoverflow.com/questions/54815226/how-can-i-detect-if-a-file-has-been-modified-using-lastmodified
+ * This is used to manage settings in the overall window itself.
+ * While someone is logged in, the window listens for changes to what they can see and only refreshes the panels
+ * showing those changes.
  */
 public class WindowManager extends JFrame {
     protected Font regular, bold, italic, boldItalic;
@@ -44,6 +46,10 @@ public class WindowManager extends JFrame {
 
     private String currentPanel = "";
 
+    private final ChangeListener changeListener = this::changed;
+    // Changes that happened since the panels were last refreshed
+    private final List<ChangeEvent> pendingChanges = new ArrayList<>();
+
     /**
      * This is where initial settings that affects the entire window is at
      *
@@ -100,6 +106,10 @@ public class WindowManager extends JFrame {
             }
             this.add(userPanel, BorderLayout.CENTER);
             this.setSize(userPanel.getSize());
+            if (userPanel instanceof AdminPanel)
+                ChangeEventBus.subscribeToAll(changeListener);
+            else if (!loggedInUserId.equals(""))
+                ChangeEventBus.subscribe(changeListener, loggedInUserId);
         } catch (UserNotFoundException | AuthorizationException | TradableItemNotFoundException e) {
             e.printStackTrace();
         }
@@ -114,10 +124,13 @@ public class WindowManager extends JFrame {
     }
 
     private void privateLogout() {
+        ChangeEventBus.unsubscribe(changeListener);
         this.currentPanel = userPanel instanceof TraderPanel ? ((TraderPanel) userPanel).getCurrentPanel()
                 : ((AdminPanel) userPanel).getCurrentPanel();
-        if (userPanel != null)
+        if (userPanel != null) {
+            AsyncBackend.cancel(userPanel);
             this.remove(userPanel);
+        }
         this.setContentPane(new ImagePanel(loginBg));
         this.add(loginPanel, BorderLayout.CENTER);
         this.setSize(loginPanel.getSize());
@@ -127,47 +140,62 @@ public class WindowManager extends JFrame {
      * Sets the window to visible and refreshes the JFrame if needed
      */
     public void run() {
-        ArrayList<Long> times = new ArrayList<>();
-        ArrayList<File> file = new ArrayList<>();
-        int i = 0;
-        for (DatabaseFilePaths path : DatabaseFilePaths.values()) {
-            if (path.isConfig())
-                continue;
-            file.add(new File(path.getFilePath()));
-            times.add(file.get(i).lastModified());
-            i++;
-        }
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                if (userId.equals("bad"))
-                    return;
-                for (int i = 0; i < times.size(); i++) {
-                    if (times.get(i) != file.get(i).lastModified()) {
-                        times.set(i, file.get(i).lastModified());
-                        try {
-                            if (!userId.equals("")) {
-                                privateLogout();
-                                login(userId);
-                                break;
-                            }
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-                    }
-                }
-            }
-        }, new Date(), 500);
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent ignored) {
-                timer.cancel();
+                ChangeEventBus.unsubscribe(changeListener);
             }
         });
         this.setVisible(true);
     }
 
+    /**
+     * Runs on whatever thread saved the change, so the refresh is left for the Swing thread. Changes that come in
+     * before the refresh runs are all handled by the same refresh.
+     *
+     * @param event the change
+     */
+    private void changed(ChangeEvent event) {
+        synchronized (pendingChanges) {
+            pendingChanges.add(event);
+            if (pendingChanges.size() > 1)
+                return;
+        }
+        SwingUtilities.invokeLater(this::refreshChangedPanels);
+    }
+
+    /**
+     * Refreshes the panels that show the pending changes, or the whole dashboard if the menu has to change
+     */
+    private void refreshChangedPanels() {
+        List<ChangeEvent> changes;
+        synchronized (pendingChanges) {
+            changes = new ArrayList<>(pendingChanges);
+            pendingChanges.clear();
+        }
+        if (userId.equals("bad") || userPanel == null)
+            return;
+        Set<String> panelNames = new LinkedHashSet<>();
+        if (userPanel instanceof TraderPanel) {
+            TraderPanel traderPanel = (TraderPanel) userPanel;
+            if (traderPanel.isOutdated()) {
+                try {
+                    privateLogout();
+                    login(userId);
+                } catch (IOException | TradeNotFoundException e) {
+                    e.printStackTrace();
+                }
+                return;
+            }
+            changes.forEach(event -> panelNames.addAll(traderPanel.getPanelsShowing(event)));
+            traderPanel.refreshPanels(panelNames);
+        } else {
+            AdminPanel adminPanel = (AdminPanel) userPanel;
+            changes.forEach(event -> panelNames.addAll(adminPanel.getPanelsShowing(event)));
+            adminPanel.refreshPanels(panelNames);
+        }
+    }
+
     private static class ImagePanel extends JComponent {
         private final Image image;
 
@@ -3,14 +3,14 @@ package frontend.components;
 import java.io.IOException;
 
 import backend.exceptions.TradableItemNotFoundException;
-import backend.tradesystem.queries.ItemQuery;
+import backend.tradesystem.queries.NameQuery;
 
 /**
  * Used for displaying an item in a JComboBox
  */
 public class InventoryComboBoxItem {
     final String id;
-    private final ItemQuery itemQuery = new ItemQuery();
+    private final NameQuery nameQuery = new NameQuery();
 
     /**
      * Making a new item
@@ -28,7 +28,7 @@ public class InventoryComboBoxItem {
     @Override
     public String toString() {
         try {
-            return itemQuery.getName(id);
+            return nameQuery.getItemName(id);
         } catch (TradableItemNotFoundException e) {
             e.printStackTrace();
         }
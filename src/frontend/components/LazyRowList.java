@@ -0,0 +1,196 @@
+package frontend.components;
+
+import javax.swing.*;
+import javax.swing.event.ChangeListener;
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * A list of rows that only makes the rows that can be seen. Rows are made as they are scrolled into view and thrown
+ * away once they are scrolled far enough out of it, so a list of thousands of rows only ever has a screenful of them.
+ * Every row is the same height, so where a row goes is known without making the rows before it.
+ * <p>
+ * Like a GridLayout, the rows are stretched to fill the scroll pane when there aren't enough of them to fill it.
+ *
+ * @param <K> what each row is made from, no two rows can have the same one
+ */
+public class LazyRowList<K> extends JPanel implements Scrollable {
+    // Rows made past each edge of what can be seen, so scrolling a little doesn't show an empty space
+    private static final int EXTRA_ROWS = 4;
+
+    private final List<K> keys;
+    private final int rowHeight;
+    private final int minRows;
+    private final RowFactory<K> rowFactory;
+    // The rows that are made right now
+    private final Map<K, JComponent> rows = new HashMap<>();
+    private final ChangeListener scrollListener = e -> {
+        if (showVisibleRows()) {
+            validate();
+            repaint();
+        }
+    };
+    private JViewport viewport;
+
+    /**
+     * Makes a list of rows
+     *
+     * @param keys       what the rows are made from, in order
+     * @param rowHeight  the height of a row
+     * @param minRows    the least number of rows the list is as tall as
+     * @param rowFactory makes the row for a key when it is scrolled into view
+     */
+    public LazyRowList(List<K> keys, int rowHeight, int minRows, RowFactory<K> rowFactory) {
+        super(null);
+        this.keys = new ArrayList<>(keys);
+        this.rowHeight = rowHeight;
+        this.minRows = minRows;
+        this.rowFactory = rowFactory;
+    }
+
+    /**
+     * Gets how many rows there are
+     *
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return keys.size();
+    }
+
+    /**
+     * Removes a row, the rows after it move up
+     *
+     * @param key what the row was made from
+     */
+    public void removeRow(K key) {
+        if (!keys.remove(key)) return;
+        JComponent row = rows.remove(key);
+        if (row != null) remove(row);
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Makes rows again, for when what they show has changed. Rows that aren't made right now are left alone.
+     *
+     * @param changed what the rows were made from
+     */
+    public void refreshRows(Collection<K> changed) {
+        boolean removed = false;
+        for (K key : changed) {
+            JComponent row = rows.remove(key);
+            if (row != null) {
+                remove(row);
+                removed = true;
+            }
+        }
+        if (removed) {
+            revalidate();
+            repaint();
+        }
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (getParent() instanceof JViewport) {
+            viewport = (JViewport) getParent();
+            viewport.addChangeListener(scrollListener);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (viewport != null) {
+            viewport.removeChangeListener(scrollListener);
+            viewport = null;
+        }
+        super.removeNotify();
+    }
+
+    @Override
+    public void doLayout() {
+        showVisibleRows();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet())
+            return super.getPreferredSize();
+        return new Dimension(0, Math.max(keys.size(), minRows) * rowHeight);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? rowHeight / 3 : 1;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+    }
+
+    /**
+     * Makes the rows near what can be seen and throws away the rest
+     *
+     * @return whether any row was made or thrown away
+     */
+    private boolean showVisibleRows() {
+        int height = Math.max(rowHeight, getHeight() / Math.max(keys.size(), minRows));
+        Rectangle visible = getVisibleRect();
+        int first = Math.max(0, visible.y / height - EXTRA_ROWS);
+        int last = Math.min(keys.size(), (visible.y + visible.height) / height + 1 + EXTRA_ROWS);
+
+        boolean changed = false;
+        Map<K, JComponent> shown = new HashMap<>();
+        for (int i = first; i < last; i++) {
+            K key = keys.get(i);
+            JComponent row = rows.remove(key);
+            if (row == null) {
+                row = rowFactory.createRow(key);
+                add(row);
+                changed = true;
+            }
+            row.setBounds(0, i * height, getWidth(), height);
+            shown.put(key, row);
+        }
+        for (JComponent row : rows.values()) {
+            remove(row);
+            changed = true;
+        }
+        rows.clear();
+        rows.putAll(shown);
+        return changed;
+    }
+
+    /**
+     * Makes the row for a key
+     *
+     * @param <K> what rows are made from
+     */
+    public interface RowFactory<K> {
+        /**
+         * Makes a row, on the Swing thread
+         *
+         * @param key what the row is made from
+         * @return the row
+         */
+        JComponent createRow(K key);
+    }
+}
@@ -0,0 +1,24 @@
+package frontend.components;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Shown in place of something that is still being loaded
+ */
+public class LoadingLabel extends JLabel {
+
+    /**
+     * Makes a label saying that something is loading
+     *
+     * @param font  the font of the label
+     * @param color the colour of the text
+     */
+    public LoadingLabel(Font font, Color color) {
+        super("Loading...");
+        this.setFont(font);
+        this.setForeground(color);
+        this.setHorizontalAlignment(JLabel.CENTER);
+        this.setVerticalAlignment(JLabel.CENTER);
+    }
+}
@@ -0,0 +1,104 @@
+package frontend.components;
+
+import frontend.AsyncBackend;
+
+import java.util.*;
+
+/**
+ * Loads what the rows of a {@link LazyRowList} show a page at a time, when a row of the page is first made. The page
+ * is read on a worker thread and its rows are made again once it is loaded, so a list of thousands of rows only reads
+ * the pages that are scrolled to.
+ *
+ * @param <K> what the rows are made from
+ * @param <V> what is loaded for a row
+ */
+public class RowPages<K, V> {
+    private static final int PAGE_SIZE = 50;
+
+    private final List<K> keys;
+    private final Map<K, Integer> pageOf = new HashMap<>();
+    private final PageLoader<K, V> loader;
+    private final Map<K, V> loaded = new HashMap<>();
+    // Pages that were loaded or are being loaded, and the pages that finished
+    private final Set<Integer> requested = new HashSet<>();
+    private final Set<Integer> done = new HashSet<>();
+    private LazyRowList<K> list;
+
+    /**
+     * Makes pages for the rows of a list
+     *
+     * @param keys   what the rows are made from, in order
+     * @param loader loads a page, on a worker thread
+     */
+    public RowPages(List<K> keys, PageLoader<K, V> loader) {
+        this.keys = new ArrayList<>(keys);
+        for (int i = 0; i < this.keys.size(); i++)
+            pageOf.put(this.keys.get(i), i / PAGE_SIZE);
+        this.loader = loader;
+    }
+
+    /**
+     * Sets the list whose rows are made again as pages are loaded. Pages are loaded for this list, so cancelling the
+     * list cancels loading them.
+     *
+     * @param list the list
+     */
+    public void showIn(LazyRowList<K> list) {
+        this.list = list;
+    }
+
+    /**
+     * Checks if what a row shows was loaded, and starts loading its page if it wasn't
+     *
+     * @param key what the row is made from
+     * @return whether the page of the row was loaded
+     */
+    public boolean isLoaded(K key) {
+        Integer page = pageOf.get(key);
+        if (page == null || done.contains(page)) return true;
+        if (requested.add(page)) load(page);
+        return false;
+    }
+
+    /**
+     * Gets what was loaded for a row
+     *
+     * @param key what the row is made from
+     * @return what was loaded for the row, or null if the page wasn't loaded or had nothing for the row
+     */
+    public V get(K key) {
+        return loaded.get(key);
+    }
+
+    private void load(int page) {
+        List<K> pageKeys = new ArrayList<>(keys.subList(page * PAGE_SIZE,
+                Math.min(keys.size(), (page + 1) * PAGE_SIZE)));
+        AsyncBackend.load(list, () -> loader.load(pageKeys), values -> {
+            loaded.putAll(values);
+            done.add(page);
+            list.refreshRows(pageKeys);
+        }, e -> {
+            // The rows of the page are left empty rather than loading the page again on every scroll
+            e.printStackTrace();
+            done.add(page);
+            list.refreshRows(pageKeys);
+        });
+    }
+
+    /**
+     * Loads what a page of rows shows
+     *
+     * @param <K> what the rows are made from
+     * @param <V> what is loaded for a row
+     */
+    public interface PageLoader<K, V> {
+        /**
+         * Loads a page, on a worker thread
+         *
+         * @param keys what the rows of the page are made from
+         * @return what was loaded for each row, rows that have nothing are left out
+         * @throws Exception if the page couldn't be loaded
+         */
+        Map<K, V> load(List<K> keys) throws Exception;
+    }
+}
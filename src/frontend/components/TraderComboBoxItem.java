@@ -3,13 +3,13 @@ package frontend.components;
 import java.io.IOException;
 
 import backend.exceptions.UserNotFoundException;
-import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.NameQuery;
 
 /**
  * Used for displaying a trader in a JComboBox
  */
 public class TraderComboBoxItem {
-    private final UserQuery userQuery = new UserQuery();
+    private final NameQuery nameQuery;
     
         final String id;
 
@@ -19,7 +19,17 @@ public class TraderComboBoxItem {
      * @throws IOException if issues with getting the database file
      */
     public TraderComboBoxItem(String id) throws IOException {
+            this(id, new NameQuery());
+        }
+
+    /**
+     * Trader id, named by a query that is shared with other items
+     * @param id id of the trader
+     * @param nameQuery the query used to get the username
+     */
+    public TraderComboBoxItem(String id, NameQuery nameQuery) {
             this.id = id;
+            this.nameQuery = nameQuery;
         }
 
     /**
@@ -29,7 +39,7 @@ public class TraderComboBoxItem {
     @Override
         public String toString() {
             try {
-                return userQuery.getUsername(id);
+                return nameQuery.getUsername(id);
             } catch (UserNotFoundException e) {
                 e.printStackTrace();
             }
@@ -0,0 +1,75 @@
+package frontend.components;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+
+import backend.tradesystem.queries.NameQuery;
+
+/**
+ * Used for choosing from many traders in a JComboBox. An item is only made for a trader once the JComboBox asks for
+ * it, and its username is only read once it is shown, so only the traders that are scrolled to are named.
+ */
+public class TraderComboBoxModel extends AbstractListModel<TraderComboBoxItem>
+        implements ComboBoxModel<TraderComboBoxItem> {
+    private final List<String> traderIds;
+    private final TraderComboBoxItem[] items;
+    private final NameQuery nameQuery = new NameQuery();
+    private Object selected;
+
+    /**
+     * Making a model of traders, the first trader is selected
+     * @param traderIds the ids of the traders, in the order they are shown
+     * @throws IOException if issues with getting the database file
+     */
+    public TraderComboBoxModel(List<String> traderIds) throws IOException {
+        this.traderIds = new ArrayList<>(traderIds);
+        this.items = new TraderComboBoxItem[this.traderIds.size()];
+        if (!this.traderIds.isEmpty())
+            selected = getElementAt(0);
+    }
+
+    /**
+     * How many traders there are
+     * @return the number of traders
+     */
+    @Override
+    public int getSize() {
+        return traderIds.size();
+    }
+
+    /**
+     * The item of a trader, made the first time it is asked for
+     * @param index where the trader is
+     * @return the item of the trader
+     */
+    @Override
+    public TraderComboBoxItem getElementAt(int index) {
+        if (items[index] == null)
+            items[index] = new TraderComboBoxItem(traderIds.get(index), nameQuery);
+        return items[index];
+    }
+
+    /**
+     * Selects a trader
+     * @param item the item of the trader
+     */
+    @Override
+    public void setSelectedItem(Object item) {
+        if (selected == null ? item == null : selected.equals(item)) return;
+        selected = item;
+        fireContentsChanged(this, -1, -1);
+    }
+
+    /**
+     * The selected trader
+     * @return the item of the selected trader
+     */
+    @Override
+    public Object getSelectedItem() {
+        return selected;
+    }
+}
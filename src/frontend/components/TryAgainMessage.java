@@ -0,0 +1,24 @@
+package frontend.components;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Tells the user that a change wasn't made because someone else was changing the same thing at the same time, which
+ * is what a ConflictException means. Nothing was changed, so the user can just try again.
+ */
+public class TryAgainMessage {
+    private TryAgainMessage() {
+    }
+
+    /**
+     * Shows the message in front of the window of a component, on the Swing thread
+     *
+     * @param parent the component the change was made from
+     */
+    public static void show(Component parent) {
+        JOptionPane.showMessageDialog(parent,
+                "Someone else is changing this right now, so nothing was changed. Please try again.",
+                "Try Again", JOptionPane.WARNING_MESSAGE);
+    }
+}
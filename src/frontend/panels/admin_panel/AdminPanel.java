@@ -6,9 +6,16 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 import backend.exceptions.UserNotFoundException;
+import backend.tradesystem.events.ChangeEvent;
 import backend.tradesystem.queries.UserQuery;
+import frontend.AsyncBackend;
 import frontend.WindowManager;
 import frontend.panels.admin_panel.admin_subpanels.ControlPanel;
 import frontend.panels.admin_panel.admin_subpanels.OverviewPanel;
@@ -26,6 +33,10 @@ public class AdminPanel extends JPanel implements ActionListener {
 
     private String currentPanel = "";
 
+    private final String admin;
+    private final Font regular, bold, italic, boldItalic;
+    private final Map<String, JPanel> panels = new HashMap<>();
+
 
     /**
      * For making a new admin panel
@@ -42,19 +53,16 @@ public class AdminPanel extends JPanel implements ActionListener {
         this.setSize(1600, 900);
         this.setOpaque(false);
         this.setLayout(new BorderLayout());
+        this.admin = admin;
+        this.regular = regular;
+        this.bold = bold;
+        this.italic = italic;
+        this.boldItalic = boldItalic;
         Color bg = new Color(51, 51, 51);
         Color current = new Color(32, 32, 32);
         Color gray = new Color(184, 184, 184);
         Color red = new Color(219, 58, 52);
         UserQuery userQuery = new UserQuery();
-        JPanel overviewPanel = new OverviewPanel(admin, regular, bold, italic, boldItalic);
-        JPanel searchPanel = new SearchPanel(admin, regular, bold, italic, boldItalic);
-        JPanel controlPanel = new ControlPanel(admin, regular, bold, italic, boldItalic);
-        MessagePanel messagePanel = new MessagePanel(admin, regular, bold, italic, boldItalic);
-
-        messagePanel.changeToAdminColorScheme();
-
-        searchPanel.setBackground(Color.BLACK);
         menuContainer.setPreferredSize(new Dimension(250, this.getHeight()));
         menuContainer.setOpaque(false);
         GridBagConstraints gbc = setupGbc();
@@ -67,7 +75,7 @@ public class AdminPanel extends JPanel implements ActionListener {
         setupPanelButton(regular, current, gbc, "Search", 6);
 
         setupLogoutButton(boldItalic, red, gbc);
-        setupMenuPanelContainer(bg, overviewPanel, searchPanel, controlPanel, messagePanel);
+        setupMenuPanelContainer(bg);
         this.add(menuContainer, BorderLayout.WEST);
         this.add(menuPanelContainer, BorderLayout.CENTER);
 
@@ -109,14 +117,87 @@ public class AdminPanel extends JPanel implements ActionListener {
 
     }
 
-    private void setupMenuPanelContainer(Color bg, JPanel overviewPanel, JPanel searchPanel, JPanel controlPanel,
-            JPanel messagePanel) {
+    /**
+     * Gets the names of the panels that show what was changed
+     *
+     * @param event the change
+     * @return the names of the panels that should be refreshed
+     */
+    public Set<String> getPanelsShowing(ChangeEvent event) {
+        Set<String> names = new LinkedHashSet<>();
+        switch (event.getType()) {
+            case TRADE_CHANGED:
+                names.add("Control Panel");
+                break;
+            case MESSAGE_RECEIVED:
+                if (event.isAbout(admin))
+                    names.add("Messages");
+                break;
+            case ITEM_REQUEST_PROCESSED:
+                names.add("Overview");
+                break;
+            case USER_UPDATED:
+                // Messages and reports from before they had their own databases are kept on the admin
+                names.add(event.getId().equals(admin) ? "Messages" : "Overview");
+                break;
+            case REPORTS_CHANGED:
+                names.add("Messages");
+                break;
+        }
+        return names;
+    }
+
+    /**
+     * Makes the panels again so they show the latest changes, and keeps showing the current panel
+     *
+     * @param names the names of the panels
+     */
+    public void refreshPanels(Collection<String> names) {
+        for (String name : names) {
+            JPanel oldPanel = panels.get(name);
+            if (oldPanel == null)
+                continue;
+            try {
+                JPanel panel = createPanel(name);
+                AsyncBackend.cancel(oldPanel);
+                menuPanelContainer.remove(oldPanel);
+                menuPanelContainer.add(panel, name);
+                panels.put(name, panel);
+            } catch (IOException | UserNotFoundException e) {
+                e.printStackTrace();
+            }
+        }
+        if (!currentPanel.equals(""))
+            cardLayout.show(menuPanelContainer, currentPanel);
+        menuPanelContainer.revalidate();
+        menuPanelContainer.repaint();
+    }
+
+    private JPanel createPanel(String name) throws IOException, UserNotFoundException {
+        switch (name) {
+            case "Overview":
+                return new OverviewPanel(admin, regular, bold, italic, boldItalic);
+            case "Control Panel":
+                return new ControlPanel(admin, regular, bold, italic, boldItalic);
+            case "Messages":
+                MessagePanel messagePanel = new MessagePanel(admin, regular, bold, italic, boldItalic);
+                messagePanel.changeToAdminColorScheme();
+                return messagePanel;
+            default:
+                JPanel searchPanel = new SearchPanel(admin, regular, bold, italic, boldItalic);
+                searchPanel.setBackground(Color.BLACK);
+                return searchPanel;
+        }
+    }
+
+    private void setupMenuPanelContainer(Color bg) throws IOException, UserNotFoundException {
         menuPanelContainer.setLayout(cardLayout);
         menuPanelContainer.setBackground(bg);
-        menuPanelContainer.add(overviewPanel, "Overview");
-        menuPanelContainer.add(controlPanel, "Control Panel");
-        menuPanelContainer.add(messagePanel, "Messages");
-        menuPanelContainer.add(searchPanel, "Search");
+        for (String name : new String[]{"Overview", "Control Panel", "Messages", "Search"}) {
+            JPanel panel = createPanel(name);
+            panels.put(name, panel);
+            menuPanelContainer.add(panel, name);
+        }
     }
 
     private void setupLogoutButton(Font boldItalic, Color red, GridBagConstraints gbc) {
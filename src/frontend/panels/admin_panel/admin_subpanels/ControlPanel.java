@@ -6,7 +6,9 @@ import backend.tradesystem.UserTypes;
 import backend.tradesystem.general_managers.LoginManager;
 import backend.tradesystem.queries.TradeQuery;
 import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.NameQuery;
 import backend.tradesystem.trader_managers.TradingManager;
+import frontend.AsyncBackend;
 import frontend.components.TraderComboBoxItem;
 import frontend.panels.trader_panel.trader_subpanels.trade_panels.trade_modals.TradeDetailsModal;
 
@@ -40,6 +42,7 @@ public class ControlPanel extends JPanel implements ActionListener {
 
     private final TradeQuery tradeQuery = new TradeQuery();
     private final UserQuery userQuery = new UserQuery();
+    private final NameQuery nameQuery = new NameQuery();
     private String trader = "";
     private JComboBox<TraderComboBoxItem> traders;
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd yyyy HH:mm", new Locale("en", "US"));
@@ -230,9 +233,9 @@ public class ControlPanel extends JPanel implements ActionListener {
         JLabel otherTraderName = new JLabel();
 
         if(isTraderFirstUser)
-            otherTraderName.setText(userQuery.getUsername(tradeQuery.getSecondUserId(tradeID)));
+            otherTraderName.setText(nameQuery.getUsername(tradeQuery.getSecondUserId(tradeID)));
         else
-            otherTraderName.setText(userQuery.getUsername(tradeQuery.getFirstUserId(tradeID)));
+            otherTraderName.setText(nameQuery.getUsername(tradeQuery.getFirstUserId(tradeID)));
 
         otherTraderName.setFont(regular.deriveFont(20f));
         otherTraderName.setForeground(Color.BLACK);
@@ -293,13 +296,17 @@ public class ControlPanel extends JPanel implements ActionListener {
         tradeUndoButton.setBorder(BorderFactory.createLineBorder(gray, 15));
 
         tradeUndoButton.addActionListener(e -> {
-            try {
+            AsyncBackend.change(tradeUndoButton, () -> {
                 tradingManager.rescindOngoingTrade(tradeID);
-                JPanel ongoingTradesContainer = setOngoingTradesContainer(regular, bold, italic, boldItalic);
-                ongoingTradesScrollPane.setViewportView(ongoingTradesContainer);
-            } catch (TradeNotFoundException | UserNotFoundException | AuthorizationException | CannotTradeException exception) {
-                exception.printStackTrace();
-            }
+                return null;
+            }, done -> {
+                try {
+                    JPanel ongoingTradesContainer = setOngoingTradesContainer(regular, bold, italic, boldItalic);
+                    ongoingTradesScrollPane.setViewportView(ongoingTradesContainer);
+                } catch (TradeNotFoundException | UserNotFoundException | AuthorizationException exception) {
+                    exception.printStackTrace();
+                }
+            });
         });
 
         return tradeUndoButton;
@@ -490,24 +497,31 @@ public class ControlPanel extends JPanel implements ActionListener {
     @Override
     public void actionPerformed(ActionEvent e) {
         if (e.getSource() == submitAdmin) {
-            try {
-                loginManager.registerUser(usernameInput.getText(),
-                        String.valueOf(passwordInput.getPassword()), UserTypes.ADMIN);
-            } catch (BadPasswordException ex) {
-                notifyLogin("<html><b><i>Invalid Password: " + ex.getMessage() + "</i></b></html>");
-            } catch (UserAlreadyExistsException ignored) {
-                notifyLogin("<html><b><i>The username '" + usernameInput.getText() + "' is taken.</i></b></html>");
-            } catch (IOException ignored) {
-                notifyLogin("<html><b><i>Could not create the account at this time.</i></b></html>");
-            }
+            String username = usernameInput.getText();
+            String password = String.valueOf(passwordInput.getPassword());
+            AsyncBackend.change(submitAdmin, () -> loginManager.registerUser(username, password, UserTypes.ADMIN),
+                    adminId -> {}, failure -> {
+                if (failure instanceof BadPasswordException)
+                    notifyLogin("<html><b><i>Invalid Password: " + failure.getMessage() + "</i></b></html>");
+                else if (failure instanceof UserAlreadyExistsException)
+                    notifyLogin("<html><b><i>The username '" + username + "' is taken.</i></b></html>");
+                else if (failure instanceof ConflictException)
+                    notifyLogin("<html><b><i>Someone else is using that username right now, please try again.</i></b></html>");
+                else if (failure instanceof IOException)
+                    notifyLogin("<html><b><i>Could not create the account at this time.</i></b></html>");
+                else
+                    failure.printStackTrace();
+            });
         } else if (e.getSource() == submitSettings) {
-            try {
-                loginManager.setProperty(TraderProperties.INCOMPLETE_TRADE_LIM, incompleteLimitChoice.getItemAt(incompleteLimitChoice.getSelectedIndex()));
-                loginManager.setProperty(TraderProperties.TRADE_LIMIT, tradeLimitChoice.getItemAt(tradeLimitChoice.getSelectedIndex()));
-                loginManager.setProperty(TraderProperties.MINIMUM_AMOUNT_NEEDED_TO_BORROW, minLendChoice.getItemAt(minLendChoice.getSelectedIndex()));
-            } catch (IOException ioException) {
-                ioException.printStackTrace();
-            }
+            int incompleteLimit = incompleteLimitChoice.getItemAt(incompleteLimitChoice.getSelectedIndex());
+            int tradeLimit = tradeLimitChoice.getItemAt(tradeLimitChoice.getSelectedIndex());
+            int minLend = minLendChoice.getItemAt(minLendChoice.getSelectedIndex());
+            AsyncBackend.change(submitSettings, () -> {
+                loginManager.setProperty(TraderProperties.INCOMPLETE_TRADE_LIM, incompleteLimit);
+                loginManager.setProperty(TraderProperties.TRADE_LIMIT, tradeLimit);
+                loginManager.setProperty(TraderProperties.MINIMUM_AMOUNT_NEEDED_TO_BORROW, minLend);
+                return null;
+            }, done -> {});
         }
     }
 }
@@ -1,18 +1,23 @@
 package frontend.panels.admin_panel.admin_subpanels;
 
-import backend.exceptions.AuthorizationException;
 import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.UserNotFoundException;
 import backend.tradesystem.admin_managers.HandleFrozenManager;
 import backend.tradesystem.admin_managers.HandleItemRequestsManager;
-import backend.tradesystem.queries.ItemQuery;
-import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.NameQuery;
+import frontend.AsyncBackend;
+import frontend.components.LazyRowList;
+import frontend.components.LoadingLabel;
+import frontend.components.RowPages;
 
 import javax.swing.*;
 import java.awt.*;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 
 /**
@@ -22,12 +27,12 @@ public class OverviewPanel extends JPanel {
 
     private JPanel itemRequestsContainer,
             unFreezeRequestsContainer, freezeTradersContainer;
+    private LazyRowList<ItemRequest> itemRequestList;
+    private LazyRowList<String> unFreezeRequestList, freezeTraderList;
     private final JPanel itemRequestsHeader, unFreezeRequestsHeader, freezeTradersHeader;
     private final Font regular;
     private final Font bold;
     private final Font boldItalic;
-    private final UserQuery userQuery = new UserQuery();
-    private final ItemQuery itemQuery = new ItemQuery();
     private final HandleItemRequestsManager itemRequestManager = new HandleItemRequestsManager();
     private final HandleFrozenManager frozenManager = new HandleFrozenManager();
 
@@ -72,8 +77,12 @@ public class OverviewPanel extends JPanel {
         itemRequestsHeader = new JPanel(new GridLayout(1, 5, 25, 0));
         setupItemRequestsHeader(gbc, itemRequests);
 
-        getAllItemRequests();
+        itemRequestsContainer = createLoadingPanel();
         JScrollPane itemRequestsScrollPane = new JScrollPane(itemRequestsContainer);
+        AsyncBackend.load(this, this::loadItemRequests, loadedItemRequests -> {
+            getAllItemRequests(loadedItemRequests);
+            itemRequestsScrollPane.setViewportView(itemRequestsContainer);
+        });
         itemRequestsScrollPane.setPreferredSize(new Dimension(1200, 325));
         itemRequestsScrollPane.setBorder(null);
         gbc.insets = new Insets(0, 0, 0, 0);
@@ -108,16 +117,26 @@ public class OverviewPanel extends JPanel {
         gbc.weighty = 0.1;
         unFreezeRequests.add(unFreezeRequestsHeader, gbc);
 
-        getAllUnFreezeRequests();
-        handleFreezeTradersScrollPane(gbc, unFreezeRequests, unFreezeRequestsContainer);
+        unFreezeRequestsContainer = createLoadingPanel();
+        JScrollPane unFreezeRequestsScrollPane = handleFreezeTradersScrollPane(gbc, unFreezeRequests,
+                unFreezeRequestsContainer);
+        AsyncBackend.load(this, () -> new HandleFrozenManager().getAllUnfreezeRequests(), requests -> {
+            getAllUnFreezeRequests(requests);
+            unFreezeRequestsScrollPane.setViewportView(unFreezeRequestsContainer);
+        });
 
         JPanel freezeTraders = new JPanel(new GridBagLayout());
 
         freezeTradersHeader = new JPanel(new GridLayout(1, 5, 25, 0));
         handleFreezeTradersHeader(gbc, freezeTraders);
 
-        getAllToBeFrozenUsers();
-        handleFreezeTradersScrollPane(gbc, freezeTraders, freezeTradersContainer);
+        freezeTradersContainer = createLoadingPanel();
+        JScrollPane freezeTradersScrollPane = handleFreezeTradersScrollPane(gbc, freezeTraders,
+                freezeTradersContainer);
+        AsyncBackend.load(this, () -> new HandleFrozenManager().getShouldBeFrozen(), tobeFrozen -> {
+            getAllToBeFrozenUsers(tobeFrozen);
+            freezeTradersScrollPane.setViewportView(freezeTradersContainer);
+        });
 
         JPanel bottomSplitContainer = handleBottomSplitPanel(unFreezeRequests, freezeTraders);
 
@@ -138,7 +157,7 @@ public class OverviewPanel extends JPanel {
         return bottomSplitContainer;
     }
 
-    private void handleFreezeTradersScrollPane(GridBagConstraints gbc, JPanel freezeTraders, JPanel freezeTradersContainer) {
+    private JScrollPane handleFreezeTradersScrollPane(GridBagConstraints gbc, JPanel freezeTraders, JPanel freezeTradersContainer) {
         JScrollPane freezeTradersScrollPane = new JScrollPane(freezeTradersContainer);
         freezeTradersScrollPane.setBorder(null);
         freezeTradersScrollPane.setPreferredSize(new Dimension(575, 274));
@@ -146,6 +165,7 @@ public class OverviewPanel extends JPanel {
         gbc.gridy = 1;
         gbc.weighty = 0.9;
         freezeTraders.add(freezeTradersScrollPane, gbc);
+        return freezeTradersScrollPane;
     }
 
     private void handleFreezeTradersHeader(GridBagConstraints gbc, JPanel freezeTraders) {
@@ -168,7 +188,10 @@ public class OverviewPanel extends JPanel {
             //         }
             //     }
             // }
-            itemRequestManager.acceptAllItemRequests();
+            AsyncBackend.change(acceptAllItemRequestsButton, () -> {
+                itemRequestManager.acceptAllItemRequests();
+                return null;
+            }, done -> {});
         });
 
         unFreezeAllTradersButton.addActionListener(e -> {
@@ -179,7 +202,10 @@ public class OverviewPanel extends JPanel {
             //         }
             //     }
             // }
-            frozenManager.unfreezeAllFromRequests();
+            AsyncBackend.change(unFreezeAllTradersButton, () -> {
+                frozenManager.unfreezeAllFromRequests();
+                return null;
+            }, done -> {});
         });
 
         freezeAllTradersButton.addActionListener(e -> {
@@ -190,7 +216,10 @@ public class OverviewPanel extends JPanel {
             //         }
             //     }
             // }
-            frozenManager.freezeAllShouldBeFrozen();
+            AsyncBackend.change(freezeAllTradersButton, () -> {
+                frozenManager.freezeAllShouldBeFrozen();
+                return null;
+            }, done -> {});
         });
     }
 
@@ -274,8 +303,72 @@ public class OverviewPanel extends JPanel {
         itemRequestsHeader.add(empty3);
     }
 
-    private void getAllItemRequests() {
-        HashMap<String, List<String>> itemRequests = itemRequestManager.getAllItemRequests();
+    // Runs on a worker thread, so it has its own managers
+    private List<ItemRequest> loadItemRequests() throws IOException {
+        List<ItemRequest> itemRequests = new ArrayList<>();
+        new HandleItemRequestsManager().getAllItemRequests().forEach((t, items) ->
+                items.forEach(item -> itemRequests.add(new ItemRequest(t, item))));
+        return itemRequests;
+    }
+
+    // Runs on a worker thread, so it has its own query
+    private Map<ItemRequest, ItemRequestNames> loadItemRequestNames(List<ItemRequest> itemRequests)
+            throws IOException {
+        List<String> traders = new ArrayList<>();
+        List<String> items = new ArrayList<>();
+        for (ItemRequest itemRequest : itemRequests) {
+            traders.add(itemRequest.traderId);
+            items.add(itemRequest.itemId);
+        }
+        NameQuery nameQuery = new NameQuery();
+        Map<String, String> usernames = nameQuery.getUsernames(traders);
+        Map<String, String> itemNames = nameQuery.getItemNames(items);
+        Map<ItemRequest, ItemRequestNames> names = new HashMap<>();
+        for (ItemRequest itemRequest : itemRequests) {
+            String username = usernames.get(itemRequest.traderId);
+            String itemName = itemNames.get(itemRequest.itemId);
+            if (username == null)
+                new UserNotFoundException(itemRequest.traderId).printStackTrace();
+            else if (itemName == null)
+                new TradableItemNotFoundException(itemRequest.itemId).printStackTrace();
+            else
+                names.put(itemRequest, new ItemRequestNames(username, itemName));
+        }
+        return names;
+    }
+
+    // Runs on a worker thread, so it has its own query
+    private Map<String, String> loadUsernames(List<String> userIds) throws IOException {
+        Map<String, String> usernames = new NameQuery().getUsernames(userIds);
+        for (String userId : userIds)
+            if (!usernames.containsKey(userId))
+                new UserNotFoundException(userId).printStackTrace();
+        return usernames;
+    }
+
+    private JPanel createLoadingPanel() {
+        JPanel loadingPanel = new JPanel(new BorderLayout());
+        loadingPanel.setBackground(bg);
+        loadingPanel.add(new LoadingLabel(regular.deriveFont(30f), gray), BorderLayout.CENTER);
+        return loadingPanel;
+    }
+
+    private JPanel createLoadingRow() {
+        JPanel loadingRow = new JPanel(new BorderLayout());
+        loadingRow.setBackground(bg);
+        loadingRow.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, gray));
+        loadingRow.add(new LoadingLabel(regular.deriveFont(20f), gray), BorderLayout.CENTER);
+        return loadingRow;
+    }
+
+    private JPanel createEmptyRow() {
+        JPanel emptyRow = new JPanel();
+        emptyRow.setBackground(bg);
+        emptyRow.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, gray));
+        return emptyRow;
+    }
+
+    private void getAllItemRequests(List<ItemRequest> itemRequests) {
         if (itemRequests.size() == 0) {
             itemRequestsContainer = new JPanel();
             itemRequestsContainer.setBackground(bg);
@@ -288,88 +381,86 @@ public class OverviewPanel extends JPanel {
             itemRequestsContainer.add(noItemsFound);
             return;
         }
-        int numRows = 0;
-        for (String t : itemRequests.keySet())
-            numRows += itemRequests.get(t).size();
-        if (numRows < 4)
-            numRows = 4;
-        itemRequestsContainer = new JPanel(new GridLayout(numRows, 1));
-        itemRequestsContainer.setBackground(bg);
-        itemRequests.forEach((t, items) ->
-                items.forEach(item -> {
-                    try {
-                        JPanel itemRequestPanel = new JPanel(new GridLayout(1, 6, 10, 0));
-                        itemRequestPanel.setPreferredSize(new Dimension(1000, 75));
-                        itemRequestPanel.setBackground(bg);
-                        itemRequestPanel.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, gray));
-
-                        JLabel traderName = new JLabel(userQuery.getUsername(t));
-                        traderName.setFont(regular.deriveFont(20f));
-                        traderName.setForeground(Color.WHITE);
-                        traderName.setHorizontalAlignment(JLabel.LEFT);
-                        traderName.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
-
-                        JLabel traderItemName = new JLabel(itemQuery.getName(item));
-                        traderItemName.setFont(regular.deriveFont(20f));
-                        traderItemName.setForeground(Color.WHITE);
-                        traderItemName.setHorizontalAlignment(JLabel.LEFT);
-
-                        JLabel traderItemDesc = new JLabel(itemQuery.getName(item));
-                        traderItemDesc.setFont(regular.deriveFont(15f));
-                        traderItemDesc.setForeground(Color.WHITE);
-                        traderItemDesc.setHorizontalAlignment(JLabel.CENTER);
-
-                        JButton acceptItemRequestButton = new JButton("Accept");
-                        acceptItemRequestButton.setFont(bold.deriveFont(20f));
-                        acceptItemRequestButton.setForeground(Color.WHITE);
-                        acceptItemRequestButton.setBackground(confirmButton);
-                        acceptItemRequestButton.setOpaque(true);
-                        acceptItemRequestButton.setBorder(BorderFactory.createMatteBorder(15, 50, 15, 50, bg));
-
-                        JButton rejectItemRequestButton = new JButton("Reject");
-                        rejectItemRequestButton.setFont(bold.deriveFont(20f));
-                        rejectItemRequestButton.setForeground(Color.WHITE);
-                        rejectItemRequestButton.setBackground(red);
-                        rejectItemRequestButton.setOpaque(true);
-                        rejectItemRequestButton.setBorder(BorderFactory.createMatteBorder(15, 50, 15, 50, bg));
-
-                        itemRequestPanel.add(traderName);
-                        itemRequestPanel.add(traderItemName);
-                        itemRequestPanel.add(traderItemDesc);
-                        itemRequestPanel.add(acceptItemRequestButton);
-                        itemRequestPanel.add(rejectItemRequestButton);
-                        itemRequestsContainer.add(itemRequestPanel);
-
-                        acceptItemRequestButton.addActionListener(e -> {
-                            try {
-                                itemRequestManager.processItemRequest(t, item, true);
-                                itemRequestsContainer.remove(itemRequestPanel);
-                                itemRequestsContainer.revalidate();
-                                itemRequestsContainer.repaint();
-                            } catch (TradableItemNotFoundException | UserNotFoundException | AuthorizationException e1) {
-                                e1.printStackTrace();
-                            }
-                        });
-
-                        rejectItemRequestButton.addActionListener(e -> {
-                            try {
-                                itemRequestManager.processItemRequest(t, item, false);
-                                itemRequestsContainer.remove(itemRequestPanel);
-                                itemRequestsContainer.revalidate();
-                                itemRequestsContainer.repaint();
-                            } catch (TradableItemNotFoundException | UserNotFoundException | AuthorizationException e1) {
-                                e1.printStackTrace();
-                            }
-                        });
-                    } catch (TradableItemNotFoundException | UserNotFoundException e) {
-                        e.printStackTrace();
-                    }
-                })
-        );
+        // Only the rows that are scrolled to are made, and their names are read a page at a time
+        RowPages<ItemRequest, ItemRequestNames> names = new RowPages<>(itemRequests, this::loadItemRequestNames);
+        itemRequestList = new LazyRowList<>(itemRequests, 75, 4, itemRequest -> {
+            if (!names.isLoaded(itemRequest))
+                return createLoadingRow();
+            ItemRequestNames itemRequestNames = names.get(itemRequest);
+            if (itemRequestNames == null)
+                return createEmptyRow();
+            return createItemRequestRow(itemRequest, itemRequestNames);
+        });
+        names.showIn(itemRequestList);
+        itemRequestList.setBackground(bg);
+        itemRequestsContainer = itemRequestList;
+    }
+
+    private JPanel createItemRequestRow(ItemRequest itemRequest, ItemRequestNames names) {
+        String t = itemRequest.traderId;
+        String item = itemRequest.itemId;
+        JPanel itemRequestPanel = new JPanel(new GridLayout(1, 6, 10, 0));
+        itemRequestPanel.setPreferredSize(new Dimension(1000, 75));
+        itemRequestPanel.setBackground(bg);
+        itemRequestPanel.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, gray));
+
+        JLabel traderName = new JLabel(names.username);
+        traderName.setFont(regular.deriveFont(20f));
+        traderName.setForeground(Color.WHITE);
+        traderName.setHorizontalAlignment(JLabel.LEFT);
+        traderName.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
+
+        JLabel traderItemName = new JLabel(names.itemName);
+        traderItemName.setFont(regular.deriveFont(20f));
+        traderItemName.setForeground(Color.WHITE);
+        traderItemName.setHorizontalAlignment(JLabel.LEFT);
+
+        JLabel traderItemDesc = new JLabel(names.itemName);
+        traderItemDesc.setFont(regular.deriveFont(15f));
+        traderItemDesc.setForeground(Color.WHITE);
+        traderItemDesc.setHorizontalAlignment(JLabel.CENTER);
+
+        JButton acceptItemRequestButton = new JButton("Accept");
+        acceptItemRequestButton.setFont(bold.deriveFont(20f));
+        acceptItemRequestButton.setForeground(Color.WHITE);
+        acceptItemRequestButton.setBackground(confirmButton);
+        acceptItemRequestButton.setOpaque(true);
+        acceptItemRequestButton.setBorder(BorderFactory.createMatteBorder(15, 50, 15, 50, bg));
+
+        JButton rejectItemRequestButton = new JButton("Reject");
+        rejectItemRequestButton.setFont(bold.deriveFont(20f));
+        rejectItemRequestButton.setForeground(Color.WHITE);
+        rejectItemRequestButton.setBackground(red);
+        rejectItemRequestButton.setOpaque(true);
+        rejectItemRequestButton.setBorder(BorderFactory.createMatteBorder(15, 50, 15, 50, bg));
+
+        itemRequestPanel.add(traderName);
+        itemRequestPanel.add(traderItemName);
+        itemRequestPanel.add(traderItemDesc);
+        itemRequestPanel.add(acceptItemRequestButton);
+        itemRequestPanel.add(rejectItemRequestButton);
+
+        acceptItemRequestButton.addActionListener(e -> {
+            AsyncBackend.change(acceptItemRequestButton, () -> {
+                itemRequestManager.processItemRequest(t, item, true);
+                return null;
+            }, done -> {
+                itemRequestList.removeRow(itemRequest);
+            });
+        });
+
+        rejectItemRequestButton.addActionListener(e -> {
+            AsyncBackend.change(rejectItemRequestButton, () -> {
+                itemRequestManager.processItemRequest(t, item, false);
+                return null;
+            }, done -> {
+                itemRequestList.removeRow(itemRequest);
+            });
+        });
+        return itemRequestPanel;
     }
 
-    private void getAllUnFreezeRequests() {
-        List<String> unFreezeRequests = frozenManager.getAllUnfreezeRequests();
+    private void getAllUnFreezeRequests(List<String> unFreezeRequests) {
         if (unFreezeRequests.size() == 0) {
             unFreezeRequestsContainer = new JPanel();
             unFreezeRequestsContainer.setBackground(bg);
@@ -383,73 +474,72 @@ public class OverviewPanel extends JPanel {
             unFreezeRequestsHeader.setVisible(false);
             return;
         }
-        int numRows = unFreezeRequests.size();
-        if (numRows < 4)
-            numRows = 4;
-        unFreezeRequestsContainer = new JPanel(new GridLayout(numRows, 1));
-        unFreezeRequestsContainer.setBackground(bg);
-        unFreezeRequests.forEach(user -> {
-            JPanel unFreezeRequestsPanel = new JPanel(new GridLayout(1, 3, 10, 0));
-            unFreezeRequestsPanel.setPreferredSize(new Dimension(400, 75));
-            unFreezeRequestsPanel.setBackground(bg);
-            unFreezeRequestsPanel.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, gray));
-
-            JLabel traderName = null;
-            try {
-                traderName = new JLabel(userQuery.getUsername(user));
-                traderName.setFont(regular.deriveFont(20f));
-                traderName.setForeground(Color.WHITE);
-                traderName.setHorizontalAlignment(JLabel.LEFT);
-                traderName.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
-            } catch (UserNotFoundException e) {
-                e.printStackTrace();
-            }
-
-            JButton acceptUnFreezeRequestButton = new JButton("Un-Freeze");
-            acceptUnFreezeRequestButton.setFont(bold.deriveFont(20f));
-            acceptUnFreezeRequestButton.setForeground(Color.WHITE);
-            acceptUnFreezeRequestButton.setBackground(confirmButton);
-            acceptUnFreezeRequestButton.setOpaque(true);
-            acceptUnFreezeRequestButton.setBorder(BorderFactory.createMatteBorder(15, 30, 15, 30, bg));
-
-            JButton rejectUnFreezeRequestButton = new JButton("Reject");
-            rejectUnFreezeRequestButton.setFont(bold.deriveFont(20f));
-            rejectUnFreezeRequestButton.setForeground(Color.WHITE);
-            rejectUnFreezeRequestButton.setBackground(red);
-            rejectUnFreezeRequestButton.setOpaque(true);
-            rejectUnFreezeRequestButton.setBorder(BorderFactory.createMatteBorder(15, 30, 15, 30, bg));
-
-            unFreezeRequestsPanel.add(traderName);
-            unFreezeRequestsPanel.add(acceptUnFreezeRequestButton);
-            unFreezeRequestsPanel.add(rejectUnFreezeRequestButton);
-            unFreezeRequestsContainer.add(unFreezeRequestsPanel);
-
-            acceptUnFreezeRequestButton.addActionListener(e -> {
-                try {
-                    frozenManager.setFrozen(user, false);
-                    unFreezeRequestsContainer.remove(unFreezeRequestsPanel);
-                    unFreezeRequestsContainer.revalidate();
-                    unFreezeRequestsContainer.repaint();
-                } catch (UserNotFoundException e1) {
-                    e1.printStackTrace();
-                }
+        // Only the rows that are scrolled to are made, and their names are read a page at a time
+        RowPages<String, String> usernames = new RowPages<>(unFreezeRequests, this::loadUsernames);
+        unFreezeRequestList = new LazyRowList<>(unFreezeRequests, 75, 4, user -> {
+            if (!usernames.isLoaded(user))
+                return createLoadingRow();
+            String username = usernames.get(user);
+            if (username == null)
+                return createEmptyRow();
+            return createUnFreezeRequestRow(user, username);
+        });
+        usernames.showIn(unFreezeRequestList);
+        unFreezeRequestList.setBackground(bg);
+        unFreezeRequestsContainer = unFreezeRequestList;
+    }
+
+    private JPanel createUnFreezeRequestRow(String user, String username) {
+        JPanel unFreezeRequestsPanel = new JPanel(new GridLayout(1, 3, 10, 0));
+        unFreezeRequestsPanel.setPreferredSize(new Dimension(400, 75));
+        unFreezeRequestsPanel.setBackground(bg);
+        unFreezeRequestsPanel.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, gray));
+
+        JLabel traderName = new JLabel(username);
+        traderName.setFont(regular.deriveFont(20f));
+        traderName.setForeground(Color.WHITE);
+        traderName.setHorizontalAlignment(JLabel.LEFT);
+        traderName.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
+
+        JButton acceptUnFreezeRequestButton = new JButton("Un-Freeze");
+        acceptUnFreezeRequestButton.setFont(bold.deriveFont(20f));
+        acceptUnFreezeRequestButton.setForeground(Color.WHITE);
+        acceptUnFreezeRequestButton.setBackground(confirmButton);
+        acceptUnFreezeRequestButton.setOpaque(true);
+        acceptUnFreezeRequestButton.setBorder(BorderFactory.createMatteBorder(15, 30, 15, 30, bg));
+
+        JButton rejectUnFreezeRequestButton = new JButton("Reject");
+        rejectUnFreezeRequestButton.setFont(bold.deriveFont(20f));
+        rejectUnFreezeRequestButton.setForeground(Color.WHITE);
+        rejectUnFreezeRequestButton.setBackground(red);
+        rejectUnFreezeRequestButton.setOpaque(true);
+        rejectUnFreezeRequestButton.setBorder(BorderFactory.createMatteBorder(15, 30, 15, 30, bg));
+
+        unFreezeRequestsPanel.add(traderName);
+        unFreezeRequestsPanel.add(acceptUnFreezeRequestButton);
+        unFreezeRequestsPanel.add(rejectUnFreezeRequestButton);
+
+        acceptUnFreezeRequestButton.addActionListener(e -> {
+            AsyncBackend.change(acceptUnFreezeRequestButton, () -> {
+                frozenManager.setFrozen(user, false);
+                return null;
+            }, done -> {
+                unFreezeRequestList.removeRow(user);
             });
+        });
 
-            rejectUnFreezeRequestButton.addActionListener(e -> {
-                try {
-                    frozenManager.requestUnfreeze(user, false);
-                    unFreezeRequestsContainer.remove(unFreezeRequestsPanel);
-                    unFreezeRequestsContainer.revalidate();
-                    unFreezeRequestsContainer.repaint();
-                } catch (UserNotFoundException e1) {
-                    e1.printStackTrace();
-                }
+        rejectUnFreezeRequestButton.addActionListener(e -> {
+            AsyncBackend.change(rejectUnFreezeRequestButton, () -> {
+                frozenManager.requestUnfreeze(user, false);
+                return null;
+            }, done -> {
+                unFreezeRequestList.removeRow(user);
             });
         });
+        return unFreezeRequestsPanel;
     }
 
-    private void getAllToBeFrozenUsers() {
-        List<String> tobeFrozenList = frozenManager.getShouldBeFrozen();
+    private void getAllToBeFrozenUsers(List<String> tobeFrozenList) {
         if (tobeFrozenList.size() == 0) {
             freezeTradersContainer = new JPanel();
             freezeTradersContainer.setBackground(bg);
@@ -463,49 +553,90 @@ public class OverviewPanel extends JPanel {
             freezeTradersHeader.setVisible(false);
             return;
         }
-        int numRows = tobeFrozenList.size();
-        if (numRows < 4)
-            numRows = 4;
-        freezeTradersContainer = new JPanel(new GridLayout(numRows, 1));
-        freezeTradersContainer.setBackground(bg);
-        tobeFrozenList.forEach(trader -> {
-            JPanel freezeTraderPanel = new JPanel(new GridLayout(1, 2));
-            freezeTraderPanel.setPreferredSize(new Dimension(400, 75));
-            freezeTraderPanel.setBackground(bg);
-            freezeTraderPanel.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, gray));
-
-            JLabel traderName = null;
-            try {
-                traderName = new JLabel(userQuery.getUsername(trader));
-                traderName.setFont(regular.deriveFont(20f));
-                traderName.setForeground(Color.WHITE);
-                traderName.setHorizontalAlignment(JLabel.LEFT);
-                traderName.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
-            } catch (UserNotFoundException e) {
-                e.printStackTrace();
-            }
-
-            JButton freezeTraderButton = new JButton("FREEZE");
-            freezeTraderButton.setFont(boldItalic.deriveFont(20f));
-            freezeTraderButton.setForeground(Color.WHITE);
-            freezeTraderButton.setBackground(blue);
-            freezeTraderButton.setOpaque(true);
-            freezeTraderButton.setBorder(BorderFactory.createMatteBorder(15, 30, 15, 30, bg));
-
-            freezeTraderPanel.add(traderName);
-            freezeTraderPanel.add(freezeTraderButton);
-            freezeTradersContainer.add(freezeTraderPanel);
-
-            freezeTraderButton.addActionListener(e -> {
-                try {
-                    frozenManager.setFrozen(trader, true);
-                    freezeTradersContainer.remove(freezeTraderPanel);
-                    freezeTradersContainer.revalidate();
-                    freezeTradersContainer.repaint();
-                } catch (UserNotFoundException e1) {
-                    e1.printStackTrace();
-                }
+        // Only the rows that are scrolled to are made, and their names are read a page at a time
+        RowPages<String, String> usernames = new RowPages<>(tobeFrozenList, this::loadUsernames);
+        freezeTraderList = new LazyRowList<>(tobeFrozenList, 75, 4, trader -> {
+            if (!usernames.isLoaded(trader))
+                return createLoadingRow();
+            String username = usernames.get(trader);
+            if (username == null)
+                return createEmptyRow();
+            return createFreezeTraderRow(trader, username);
+        });
+        usernames.showIn(freezeTraderList);
+        freezeTraderList.setBackground(bg);
+        freezeTradersContainer = freezeTraderList;
+    }
+
+    private JPanel createFreezeTraderRow(String trader, String username) {
+        JPanel freezeTraderPanel = new JPanel(new GridLayout(1, 2));
+        freezeTraderPanel.setPreferredSize(new Dimension(400, 75));
+        freezeTraderPanel.setBackground(bg);
+        freezeTraderPanel.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, gray));
+
+        JLabel traderName = new JLabel(username);
+        traderName.setFont(regular.deriveFont(20f));
+        traderName.setForeground(Color.WHITE);
+        traderName.setHorizontalAlignment(JLabel.LEFT);
+        traderName.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
+
+        JButton freezeTraderButton = new JButton("FREEZE");
+        freezeTraderButton.setFont(boldItalic.deriveFont(20f));
+        freezeTraderButton.setForeground(Color.WHITE);
+        freezeTraderButton.setBackground(blue);
+        freezeTraderButton.setOpaque(true);
+        freezeTraderButton.setBorder(BorderFactory.createMatteBorder(15, 30, 15, 30, bg));
+
+        freezeTraderPanel.add(traderName);
+        freezeTraderPanel.add(freezeTraderButton);
+
+        freezeTraderButton.addActionListener(e -> {
+            AsyncBackend.change(freezeTraderButton, () -> {
+                frozenManager.setFrozen(trader, true);
+                return null;
+            }, done -> {
+                freezeTraderList.removeRow(trader);
             });
         });
+        return freezeTraderPanel;
+    }
+
+    /**
+     * An item a trader asked to add
+     */
+    private static class ItemRequest {
+        private final String traderId;
+        private final String itemId;
+
+        private ItemRequest(String traderId, String itemId) {
+            this.traderId = traderId;
+            this.itemId = itemId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ItemRequest)) return false;
+            ItemRequest other = (ItemRequest) o;
+            return traderId.equals(other.traderId) && itemId.equals(other.itemId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(traderId, itemId);
+        }
+    }
+
+    /**
+     * The names shown for an item request
+     */
+    private static class ItemRequestNames {
+        private final String username;
+        private final String itemName;
+
+        private ItemRequestNames(String username, String itemName) {
+            this.username = username;
+            this.itemName = itemName;
+        }
     }
 }
@@ -2,18 +2,26 @@ package frontend.panels.general_panels;
 
 import java.awt.*;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
 import javax.swing.*;
 
-import backend.exceptions.AuthorizationException;
 import backend.exceptions.UserNotFoundException;
+import backend.exceptions.ConflictException;
 import backend.tradesystem.UserTypes;
 import backend.tradesystem.general_managers.MessageManager;
 import backend.tradesystem.general_managers.ReportManager;
 import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.NameQuery;
+import frontend.AsyncBackend;
+import frontend.components.LoadingLabel;
 import frontend.components.TraderComboBoxItem;
+import frontend.components.TraderComboBoxModel;
+import frontend.components.TryAgainMessage;
 
 
 /**
@@ -23,7 +31,6 @@ public class MessagePanel extends JPanel {
 
     private final ReportManager reportManager = new ReportManager();
     private final MessageManager messageManager = new MessageManager();
-    private final UserQuery userQuery = new UserQuery();
 
     private final Color bg = new Color(51, 51, 51);
     private final Color gray = new Color(75, 75, 75);
@@ -35,8 +42,16 @@ public class MessagePanel extends JPanel {
     private final Dimension titleBarDimension = new Dimension(1200, 75);
     private final Dimension messagesDimension = new Dimension(1200, 400);
 
+    // How many of the newest messages are shown in a conversation
+    private static final int MESSAGES_SHOWN = 50;
+
     private JPanel messageTitleContainer, messagesListContainer;
     private JScrollPane messagesScrollPane;
+    private JLabel messagesTitle;
+
+    // Whether the user is an admin, which is known once the messages are loaded
+    private boolean isAdmin;
+    private boolean adminColorScheme;
 
     private final Font regular, bold, italic, boldItalic;
 
@@ -76,15 +91,21 @@ public class MessagePanel extends JPanel {
      * Changing colour scheme to black
      */
     public void changeToAdminColorScheme() {
+        adminColorScheme = true;
         this.setBackground(Color.BLACK);
         for (Component c : messageTitleContainer.getComponents()) {
             c.setBackground(Color.BLACK);
         }
-        messagesListContainer.setBackground(bg);
 
         this.setBorder(BorderFactory.createEmptyBorder(25, 0, 0, 0));
 
         messagesScrollPane.setPreferredSize(new Dimension(1200, 700));
+        setListAdminColorScheme();
+    }
+
+    // The list is made again once the messages are loaded, so this is done again then
+    private void setListAdminColorScheme() {
+        messagesListContainer.setBackground(bg);
         if(messagesListContainer.getLayout() instanceof GridLayout) {
             int numRows = ((GridLayout) messagesListContainer.getLayout()).getRows();
             if (numRows < 7)
@@ -96,25 +117,70 @@ public class MessagePanel extends JPanel {
         }
     }
 
-    private void setMessagesScrollPane() throws UserNotFoundException {
+    private void setMessagesScrollPane() {
         messagesScrollPane = new JScrollPane();
-        messagesListContainer = new JPanel();
+        // Stays a BorderLayout until the messages are loaded, so there is nothing to clear before that
+        messagesListContainer = new JPanel(new BorderLayout());
+        messagesListContainer.setBackground(gray3);
+        messagesListContainer.add(new LoadingLabel(regular.deriveFont(30f), Color.WHITE));
         messagesScrollPane.setPreferredSize(messagesDimension);
         messagesScrollPane.setBorder(null);
         messagesScrollPane.setBackground(gray3);
-        getMessages();
-        if (!userId.equals("") && userQuery.getType(userId).equals(UserTypes.ADMIN))
-            getReports();
         messagesScrollPane.setViewportView(messagesListContainer);
+        AsyncBackend.load(this, this::loadMessages, this::showMessages);
     }
 
-    private void setMessageTitleContainer() throws UserNotFoundException {
+    // Runs on a worker thread, so it has its own managers
+    private Messages loadMessages() throws IOException, UserNotFoundException {
+        MessageManager messageManager = new MessageManager();
+        UserQuery userQuery = new UserQuery();
+        NameQuery nameQuery = new NameQuery();
+
+        boolean isAdmin = !userId.equals("") && userQuery.getType(userId).equals(UserTypes.ADMIN);
+
+        List<Sender> senders = new ArrayList<>();
+        Set<String> senderIds = userId.equals("") ? new HashSet<>() : messageManager.getSenders(userId);
+        Map<String, String> senderNames = nameQuery.getUsernames(senderIds);
+        for (String fromUserId : senderIds) {
+            try {
+                if (!senderNames.containsKey(fromUserId))
+                    throw new UserNotFoundException(fromUserId);
+                senders.add(new Sender(fromUserId, senderNames.get(fromUserId),
+                        messageManager.getUnreadCount(userId, fromUserId),
+                        userQuery.getType(fromUserId).equals(UserTypes.TRADER)));
+            } catch (UserNotFoundException e) {
+                e.printStackTrace();
+            }
+        }
+
+        List<String[]> reports = isAdmin ? new ReportManager().getReports() : new ArrayList<>();
+        Set<String> reportUsers = new HashSet<>();
+        for (String[] report : reports) {
+            reportUsers.add(report[0]);
+            reportUsers.add(report[1]);
+        }
+        return new Messages(isAdmin, senders, reports, nameQuery.getUsernames(reportUsers));
+    }
+
+    private void showMessages(Messages messages) {
+        isAdmin = messages.isAdmin;
+        if (isAdmin)
+            messagesTitle.setText("Messages and Reports");
+        getMessages(messages.senders);
+        if (isAdmin)
+            getReports(messages.reports, messages.reportNames);
+        if (adminColorScheme)
+            setListAdminColorScheme();
+        messagesScrollPane.setViewportView(messagesListContainer);
+        messagesScrollPane.revalidate();
+        messagesScrollPane.repaint();
+    }
+
+    private void setMessageTitleContainer() {
         messageTitleContainer = new JPanel(new GridLayout(1, 3));
         messageTitleContainer.setPreferredSize(titleBarDimension);
 
-        JLabel messagesTitle = new JLabel("Messages");
-        if (!userId.equals("") && userQuery.getType(userId).equals(UserTypes.ADMIN))
-            messagesTitle.setText("Messages and Reports");
+        messagesTitle = new JLabel("Messages");
         messagesTitle.setBackground(bg);
         messagesTitle.setForeground(Color.WHITE);
         messagesTitle.setOpaque(true);
@@ -137,14 +203,19 @@ public class MessagePanel extends JPanel {
         clearAllMessagesButton.addActionListener(e -> {
             if (userId.equals("") || messagesListContainer.getLayout() instanceof BorderLayout)
                 return;
-            try {
+            AsyncBackend.change(clearAllMessagesButton, () -> {
                 messageManager.clearMessages(userId);
-                if (userQuery.getType(userId).equals(UserTypes.ADMIN))
+                if (isAdmin)
                     reportManager.clearReports();
-            } catch (UserNotFoundException e1) {
-                e1.printStackTrace();
-            }
-            setNoMessagesFound();
+                return null;
+            }, done -> setNoMessagesFound(), failure -> {
+                if (failure instanceof ConflictException) {
+                    TryAgainMessage.show(this);
+                    return;
+                }
+                failure.printStackTrace();
+                setNoMessagesFound();
+            });
         });
 
         return clearAllMessagesButton;
@@ -192,21 +263,23 @@ public class MessagePanel extends JPanel {
             userNameTitle.setOpaque(false);
             userNameTitle.setForeground(Color.WHITE);
 
-            JComboBox<TraderComboBoxItem> users = new JComboBox<>();
+            List<String> otherUsers = new ArrayList<>(messageManager.getAllUsers());
+            otherUsers.remove(userId);
+            JComboBox<TraderComboBoxItem> users;
+            try {
+                users = new JComboBox<>(new TraderComboBoxModel(otherUsers));
+            } catch (IOException e2) {
+                e2.printStackTrace();
+                return;
+            }
             users.setPreferredSize(new Dimension(500, 50));
             users.setFont(regular.deriveFont(20f));
             users.setBackground(gray2);
             users.setForeground(Color.BLACK);
             users.setOpaque(true);
-            messageManager.getAllUsers().forEach(id -> {
-                if (!id.equals(userId)) {
-                    try {
-                        users.addItem(new TraderComboBoxItem(id));
-                    } catch (IOException e2) {
-                        e2.printStackTrace();
-                    }
-                }  
-            });
+            // Sized by the first user, otherwise every username is read to find the widest one
+            if (users.getItemCount() > 0)
+                users.setPrototypeDisplayValue(users.getItemAt(0));
 
             JLabel messageBodyTitle = new JLabel("Full Message:");
             messageBodyTitle.setFont(italic.deriveFont(20f));
@@ -230,14 +303,13 @@ public class MessagePanel extends JPanel {
             sendMessageButton.setPreferredSize(new Dimension(225, 75));
             sendMessageButton.setBorder(BorderFactory.createMatteBorder(10, 50, 10, 50, bg));
             sendMessageButton.addActionListener(e1 -> {
-                try {
-                    if (fullMessageBody.getText().trim().length() != 0) {
-                        messageManager.sendMessage(userId, ((TraderComboBoxItem) users.getSelectedItem()).getId(),
-                                fullMessageBody.getText().trim());
-                        messageDetailsModal.dispose();
-                    }
-                } catch (UserNotFoundException | AuthorizationException e2) {
-                    e2.printStackTrace();
+                if (fullMessageBody.getText().trim().length() != 0) {
+                    String toUserId = ((TraderComboBoxItem) users.getSelectedItem()).getId();
+                    String message = fullMessageBody.getText().trim();
+                    AsyncBackend.change(sendMessageButton, () -> {
+                        messageManager.sendMessage(userId, toUserId, message);
+                        return null;
+                    }, done -> messageDetailsModal.dispose());
                 }
             });
 
@@ -253,229 +325,220 @@ public class MessagePanel extends JPanel {
         return addNewMessageButton;
     }
 
-    private void getMessages() {
-        try {
-            HashMap<String, List<String>> messages = userId.equals("") ? new HashMap<>()
-                    : messageManager.getMessages(userId);
-            if (messages.size() == 0) {
-                messagesListContainer = new JPanel();
-                setNoMessagesFound();
-                return;
-            }
-            int numRows = messages.keySet().size();
-            if (numRows < 4)
-                numRows = 4;
-            messagesListContainer = new JPanel(new GridLayout(numRows, 1));
-            messagesListContainer.setPreferredSize(messagesDimension); // fix
-            messagesListContainer.setBackground(gray3);
-            for (String fromUserId : messages.keySet()) {
-                JPanel messagePanel = new JPanel(new GridLayout(1, 5));
-                messagePanel.setPreferredSize(new Dimension(1000, 75));
-                messagePanel.setBackground(gray2);
-                messagePanel.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, bg));
+    private void getMessages(List<Sender> senders) {
+        if (senders.size() == 0) {
+            messagesListContainer = new JPanel();
+            setNoMessagesFound();
+            return;
+        }
+        int numRows = senders.size();
+        if (numRows < 4)
+            numRows = 4;
+        messagesListContainer = new JPanel(new GridLayout(numRows, 1));
+        messagesListContainer.setPreferredSize(messagesDimension); // fix
+        messagesListContainer.setBackground(gray3);
+        for (Sender sender : senders) {
+            String fromUserId = sender.id;
+            JPanel messagePanel = new JPanel(new GridLayout(1, 5));
+            messagePanel.setPreferredSize(new Dimension(1000, 75));
+            messagePanel.setBackground(gray2);
+            messagePanel.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, bg));
+
+            JLabel userName = new JLabel(sender.username
+                    + (sender.unread > 0 ? " (" + sender.unread + " new)" : ""));
+            if (sender.isTrader)
+                userName.setFont(regular.deriveFont(20f));
+            else
+                userName.setFont(bold.deriveFont(20f));
+            userName.setForeground(Color.BLACK);
+            userName.setHorizontalAlignment(JLabel.LEFT);
+            userName.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
+
+            JButton detailsButton = new JButton("View Conversation");
+            detailsButton.setFont(bold.deriveFont(20f));
+            detailsButton.setForeground(Color.WHITE);
+            detailsButton.setBackground(gray3);
+            detailsButton.setOpaque(true);
+            detailsButton.setBorder(BorderFactory.createMatteBorder(15, 20, 15, 20, gray2));
+            detailsButton.addActionListener(e -> {
+                JDialog messageDetailsModal = new JDialog();
+                messageDetailsModal.setTitle("Message Details");
+                messageDetailsModal.setSize(600, 400);
+                messageDetailsModal.setResizable(false);
+                messageDetailsModal.setLocationRelativeTo(null);
+
+                JPanel messageDetailsPanel = new JPanel();
+                messageDetailsPanel.setPreferredSize(new Dimension(600, 400));
+                messageDetailsPanel.setBackground(bg);
+
+                JLabel userNameTitle = new JLabel("Sender Username:");
+                userNameTitle.setFont(italic.deriveFont(20f));
+                userNameTitle.setPreferredSize(new Dimension(550, 50));
+                userNameTitle.setOpaque(false);
+                userNameTitle.setForeground(Color.WHITE);
+
+                JLabel userNameCopy = new JLabel(sender.username);
+                if (sender.isTrader)
+                    userNameCopy.setFont(regular.deriveFont(20f));
+                else
+                    userNameCopy.setFont(bold.deriveFont(20f));
+                userNameCopy.setForeground(Color.WHITE);
+                userNameCopy.setHorizontalAlignment(JLabel.LEFT);
+                userNameCopy.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
+
+                JLabel messageBodyTitle = new JLabel("Full Message:");
+                messageBodyTitle.setFont(italic.deriveFont(20f));
+                messageBodyTitle.setPreferredSize(new Dimension(550, 50));
+                messageBodyTitle.setOpaque(false);
+                messageBodyTitle.setForeground(Color.WHITE);
 
+                StringBuilder fullMessageString = new StringBuilder();
                 try {
-                    JLabel userName = new JLabel(userQuery.getUsername(fromUserId));
-                    if (userQuery.getType(fromUserId).equals(UserTypes.TRADER))
-                        userName.setFont(regular.deriveFont(20f));
-                    else
-                        userName.setFont(bold.deriveFont(20f));
-                    userName.setForeground(Color.BLACK);
-                    userName.setHorizontalAlignment(JLabel.LEFT);
-                    userName.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
-
-                    JButton detailsButton = new JButton("View Conversation");
-                    detailsButton.setFont(bold.deriveFont(20f));
-                    detailsButton.setForeground(Color.WHITE);
-                    detailsButton.setBackground(gray3);
-                    detailsButton.setOpaque(true);
-                    detailsButton.setBorder(BorderFactory.createMatteBorder(15, 20, 15, 20, gray2));
-                    detailsButton.addActionListener(e -> {
-                        JDialog messageDetailsModal = new JDialog();
-                        messageDetailsModal.setTitle("Message Details");
-                        messageDetailsModal.setSize(600, 400);
-                        messageDetailsModal.setResizable(false);
-                        messageDetailsModal.setLocationRelativeTo(null);
-
-                        JPanel messageDetailsPanel = new JPanel();
-                        messageDetailsPanel.setPreferredSize(new Dimension(600, 400));
-                        messageDetailsPanel.setBackground(bg);
-
-                        JLabel userNameTitle = new JLabel("Sender Username:");
-                        userNameTitle.setFont(italic.deriveFont(20f));
-                        userNameTitle.setPreferredSize(new Dimension(550, 50));
-                        userNameTitle.setOpaque(false);
-                        userNameTitle.setForeground(Color.WHITE);
-
-                        JLabel userNameCopy = new JLabel();
-                        try {
-                            userNameCopy = new JLabel(userQuery.getUsername(fromUserId));
-                        } catch (UserNotFoundException userNotFoundException) {
-                            userNotFoundException.printStackTrace();
-                        }
-                        try {
-                            if (userQuery.getType(fromUserId).equals(UserTypes.TRADER))
-                                userNameCopy.setFont(regular.deriveFont(20f));
-                            else
-                                userNameCopy.setFont(bold.deriveFont(20f));
-                        } catch (UserNotFoundException userNotFoundException) {
-                            userNotFoundException.printStackTrace();
-                        }
-                        userNameCopy.setForeground(Color.WHITE);
-                        userNameCopy.setHorizontalAlignment(JLabel.LEFT);
-                        userNameCopy.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
-
-                        JLabel messageBodyTitle = new JLabel("Full Message:");
-                        messageBodyTitle.setFont(italic.deriveFont(20f));
-                        messageBodyTitle.setPreferredSize(new Dimension(550, 50));
-                        messageBodyTitle.setOpaque(false);
-                        messageBodyTitle.setForeground(Color.WHITE);
-
-                        StringBuilder fullMessageString = new StringBuilder();
-                        messages.get(fromUserId).forEach(msg -> {
-                            fullMessageString.append("-> ").append(msg).append("\n");
-                        });
-                        JTextArea fullMessageBody = new JTextArea(fullMessageString.toString());
-                        fullMessageBody.setFont(regular.deriveFont(20f));
-                        fullMessageBody.setBackground(gray);
-                        fullMessageBody.setForeground(Color.WHITE);
-                        fullMessageBody.setPreferredSize(new Dimension(550, 200));
-                        fullMessageBody.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-                        fullMessageBody.setLineWrap(true);
-                        fullMessageBody.setWrapStyleWord(true);
-                        fullMessageBody.setEditable(false);
-
-                        messageDetailsPanel.add(userNameTitle);
-                        messageDetailsPanel.add(userNameCopy);
-                        messageDetailsPanel.add(messageBodyTitle);
-                        messageDetailsPanel.add(fullMessageBody);
-
-                        messageDetailsModal.add(messageDetailsPanel);
-                        messageDetailsModal.setModal(true);
-                        messageDetailsModal.setVisible(true);
-
+                    Map<Long, String> messages = messageManager.getMessagesBefore(userId, fromUserId,
+                            Long.MAX_VALUE, MESSAGES_SHOWN);
+                    long lastShown = 0;
+                    for (Map.Entry<Long, String> msg : messages.entrySet()) {
+                        fullMessageString.append("-> ").append(msg.getValue()).append("\n");
+                        lastShown = msg.getKey();
+                    }
+                    userName.setText(sender.username);
+                    long readUpTo = lastShown;
+                    AsyncBackend.change(detailsButton, () -> {
+                        messageManager.markAsRead(userId, fromUserId, readUpTo);
+                        return null;
+                    }, done -> {}, failure -> {
+                        // On a conflict the messages are marked as read the next time they are shown
+                        if (!(failure instanceof ConflictException))
+                            failure.printStackTrace();
                     });
+                } catch (UserNotFoundException userNotFoundException) {
+                    userNotFoundException.printStackTrace();
+                }
+                JTextArea fullMessageBody = new JTextArea(fullMessageString.toString());
+                fullMessageBody.setFont(regular.deriveFont(20f));
+                fullMessageBody.setBackground(gray);
+                fullMessageBody.setForeground(Color.WHITE);
+                fullMessageBody.setPreferredSize(new Dimension(550, 200));
+                fullMessageBody.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+                fullMessageBody.setLineWrap(true);
+                fullMessageBody.setWrapStyleWord(true);
+                fullMessageBody.setEditable(false);
+
+                messageDetailsPanel.add(userNameTitle);
+                messageDetailsPanel.add(userNameCopy);
+                messageDetailsPanel.add(messageBodyTitle);
+                messageDetailsPanel.add(fullMessageBody);
+
+                messageDetailsModal.add(messageDetailsPanel);
+                messageDetailsModal.setModal(true);
+                messageDetailsModal.setVisible(true);
 
-                    JButton clearButton = new JButton("Clear");
-                    clearButton.setFont(bold.deriveFont(20f));
-                    clearButton.setForeground(Color.WHITE);
-                    clearButton.setBackground(red);
-                    clearButton.setOpaque(true);
-                    clearButton.setBorder(BorderFactory.createMatteBorder(15, 20, 15, 20, gray2));
-                    clearButton.addActionListener(e -> {
-                        try {
+            });
+
+            JButton clearButton = new JButton("Clear");
+            clearButton.setFont(bold.deriveFont(20f));
+            clearButton.setForeground(Color.WHITE);
+            clearButton.setBackground(red);
+            clearButton.setOpaque(true);
+            clearButton.setBorder(BorderFactory.createMatteBorder(15, 20, 15, 20, gray2));
+            clearButton.addActionListener(e -> {
+                AsyncBackend.change(clearButton, () -> {
+                    messageManager.clearMessagesFromUser(userId, fromUserId);
+                    return null;
+                }, done -> {
+                    messagesListContainer.remove(messagePanel);
+                    messagesListContainer.revalidate();
+                    messagesListContainer.repaint();
+                });
+            });
+
+            JButton replyButton = new JButton("Reply");
+            replyButton.setFont(bold.deriveFont(20f));
+            replyButton.setForeground(Color.WHITE);
+            replyButton.setBackground(green);
+            replyButton.setOpaque(true);
+            replyButton.setBorder(BorderFactory.createMatteBorder(15, 20, 15, 20, gray2));
+            replyButton.addActionListener(e -> {
+                JDialog messageReplyModal = new JDialog();
+                messageReplyModal.setTitle("Message Details");
+                messageReplyModal.setSize(600, 400);
+                messageReplyModal.setResizable(false);
+                messageReplyModal.setLocationRelativeTo(null);
+
+                JPanel messageReplyPanel = new JPanel();
+                messageReplyPanel.setPreferredSize(new Dimension(600, 400));
+                messageReplyPanel.setBackground(bg);
+
+                JLabel userNameTitle = new JLabel("Sender Username:");
+                userNameTitle.setFont(italic.deriveFont(20f));
+                userNameTitle.setPreferredSize(new Dimension(550, 50));
+                userNameTitle.setOpaque(false);
+                userNameTitle.setForeground(Color.WHITE);
+
+                JLabel userNameCopy = new JLabel(sender.username);
+                if (sender.isTrader)
+                    userNameCopy.setFont(regular.deriveFont(20f));
+                else
+                    userNameCopy.setFont(bold.deriveFont(20f));
+                userNameCopy.setForeground(Color.WHITE);
+                userNameCopy.setHorizontalAlignment(JLabel.LEFT);
+                userNameCopy.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
+
+                JLabel messageBodyTitle = new JLabel("Enter Message:");
+                messageBodyTitle.setFont(italic.deriveFont(20f));
+                messageBodyTitle.setPreferredSize(new Dimension(550, 50));
+                messageBodyTitle.setOpaque(false);
+                messageBodyTitle.setForeground(Color.WHITE);
+
+                JTextArea fullMessageBody = new JTextArea();
+                fullMessageBody.setFont(regular.deriveFont(20f));
+                fullMessageBody.setPreferredSize(new Dimension(550, 150));
+                fullMessageBody.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+                fullMessageBody.setLineWrap(true);
+
+                JButton submitButton = new JButton("Submit");
+                submitButton.setFont(bold.deriveFont(20f));
+                submitButton.setBackground(green);
+                submitButton.setForeground(Color.WHITE);
+                submitButton.setPreferredSize(new Dimension(325, 50));
+                submitButton.addActionListener(e1 -> {
+                    if (fullMessageBody.getText().trim().length() > 0) {
+                        String message = fullMessageBody.getText();
+                        AsyncBackend.change(submitButton, () -> {
+                            messageManager.sendMessage(userId, fromUserId, message);
                             messageManager.clearMessagesFromUser(userId, fromUserId);
+                            return null;
+                        }, done -> {
+                            messageReplyModal.dispose();
                             messagesListContainer.remove(messagePanel);
                             messagesListContainer.revalidate();
                             messagesListContainer.repaint();
-                        } catch (UserNotFoundException e1) {
-                            e1.printStackTrace();
-                        }
-                    });
-
-                    JButton replyButton = new JButton("Reply");
-                    replyButton.setFont(bold.deriveFont(20f));
-                    replyButton.setForeground(Color.WHITE);
-                    replyButton.setBackground(green);
-                    replyButton.setOpaque(true);
-                    replyButton.setBorder(BorderFactory.createMatteBorder(15, 20, 15, 20, gray2));
-                    replyButton.addActionListener(e -> {
-                        JDialog messageReplyModal = new JDialog();
-                        messageReplyModal.setTitle("Message Details");
-                        messageReplyModal.setSize(600, 400);
-                        messageReplyModal.setResizable(false);
-                        messageReplyModal.setLocationRelativeTo(null);
-
-                        JPanel messageReplyPanel = new JPanel();
-                        messageReplyPanel.setPreferredSize(new Dimension(600, 400));
-                        messageReplyPanel.setBackground(bg);
-
-                        JLabel userNameTitle = new JLabel("Sender Username:");
-                        userNameTitle.setFont(italic.deriveFont(20f));
-                        userNameTitle.setPreferredSize(new Dimension(550, 50));
-                        userNameTitle.setOpaque(false);
-                        userNameTitle.setForeground(Color.WHITE);
-
-                        JLabel userNameCopy = new JLabel();
-                        try {
-                            userNameCopy = new JLabel(userQuery.getUsername(fromUserId));
-                        } catch (UserNotFoundException userNotFoundException) {
-                            userNotFoundException.printStackTrace();
-                        }
-                        try {
-                            if (userQuery.getType(fromUserId).equals(UserTypes.TRADER))
-                                userNameCopy.setFont(regular.deriveFont(20f));
-                            else
-                                userNameCopy.setFont(bold.deriveFont(20f));
-                        } catch (UserNotFoundException userNotFoundException) {
-                            userNotFoundException.printStackTrace();
-                        }
-                        userNameCopy.setForeground(Color.WHITE);
-                        userNameCopy.setHorizontalAlignment(JLabel.LEFT);
-                        userNameCopy.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
-
-                        JLabel messageBodyTitle = new JLabel("Enter Message:");
-                        messageBodyTitle.setFont(italic.deriveFont(20f));
-                        messageBodyTitle.setPreferredSize(new Dimension(550, 50));
-                        messageBodyTitle.setOpaque(false);
-                        messageBodyTitle.setForeground(Color.WHITE);
-
-                        JTextArea fullMessageBody = new JTextArea();
-                        fullMessageBody.setFont(regular.deriveFont(20f));
-                        fullMessageBody.setPreferredSize(new Dimension(550, 150));
-                        fullMessageBody.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-                        fullMessageBody.setLineWrap(true);
-
-                        JButton submitButton = new JButton("Submit");
-                        submitButton.setFont(bold.deriveFont(20f));
-                        submitButton.setBackground(green);
-                        submitButton.setForeground(Color.WHITE);
-                        submitButton.setPreferredSize(new Dimension(325, 50));
-                        submitButton.addActionListener(e1 -> {
-                            if (fullMessageBody.getText().trim().length() > 0) {
-                                try {
-                                    messageManager.sendMessage(userId, fromUserId, fullMessageBody.getText());
-                                    messageManager.clearMessagesFromUser(userId, fromUserId);
-                                    messageReplyModal.dispose();
-                                    messagesListContainer.remove(messagePanel);
-                                    messagesListContainer.revalidate();
-                                    messagesListContainer.repaint();
-                                } catch (UserNotFoundException | AuthorizationException e2) {
-                                    e2.printStackTrace();
-                                }
-                            }
                         });
+                    }
+                });
 
-                        messageReplyPanel.add(userNameTitle);
-                        messageReplyPanel.add(userNameCopy);
-                        messageReplyPanel.add(messageBodyTitle);
-                        messageReplyPanel.add(fullMessageBody);
-
-                        messageReplyModal.add(messageReplyPanel);
-                        messageReplyModal.add(submitButton, BorderLayout.SOUTH);
-                        messageReplyModal.setModal(true);
-                        messageReplyModal.setVisible(true);
+                messageReplyPanel.add(userNameTitle);
+                messageReplyPanel.add(userNameCopy);
+                messageReplyPanel.add(messageBodyTitle);
+                messageReplyPanel.add(fullMessageBody);
 
-                    });
+                messageReplyModal.add(messageReplyPanel);
+                messageReplyModal.add(submitButton, BorderLayout.SOUTH);
+                messageReplyModal.setModal(true);
+                messageReplyModal.setVisible(true);
 
-                    messagePanel.add(userName);
-                    messagePanel.add(detailsButton);
-                    messagePanel.add(clearButton);
-                    messagePanel.add(replyButton);
-                    messagesListContainer.add(messagePanel);
+            });
 
-                } catch (UserNotFoundException e) {
-                    e.printStackTrace();
-                }
-            }
-        } catch (UserNotFoundException e) {
-            e.printStackTrace();
+            messagePanel.add(userName);
+            messagePanel.add(detailsButton);
+            messagePanel.add(clearButton);
+            messagePanel.add(replyButton);
+            messagesListContainer.add(messagePanel);
         }
     }
 
-    private void getReports() throws UserNotFoundException {
+    private void getReports(List<String[]> reports, Map<String, String> reportNames) {
 
-        List<String[]> reports = reportManager.getReports();
         if (reports.size() == 0) {
             return;
         }
@@ -495,20 +558,20 @@ public class MessagePanel extends JPanel {
         } else {
             messagesListContainer.setLayout(new GridLayout(numRows, 1));
         }
-                
+
         for (String[] report : reports) {
             JPanel reportPanel = new JPanel(new GridLayout(1, 4));
             reportPanel.setPreferredSize(new Dimension(1000, 75));
             reportPanel.setBackground(gray3);
             reportPanel.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, bg));
 
-            JLabel fromUsername = new JLabel(userQuery.getUsername(report[0]));
+            JLabel fromUsername = new JLabel(reportNames.getOrDefault(report[0], ""));
             fromUsername.setForeground(Color.BLACK);
             fromUsername.setHorizontalAlignment(JLabel.LEFT);
             fromUsername.setFont(bold.deriveFont(20f));
             fromUsername.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
 
-            JLabel toUsername = new JLabel(userQuery.getUsername(report[1]));
+            JLabel toUsername = new JLabel(reportNames.getOrDefault(report[1], ""));
             toUsername.setForeground(Color.BLACK);
             toUsername.setHorizontalAlignment(JLabel.LEFT);
             toUsername.setFont(bold.deriveFont(20f));
@@ -594,10 +657,14 @@ public class MessagePanel extends JPanel {
             clearButton.setOpaque(true);
             clearButton.setBorder(BorderFactory.createMatteBorder(15, 20, 15, 20, gray3));
             clearButton.addActionListener(e -> {
-                reportManager.clearReport(report[3]);
-                messagesListContainer.remove(reportPanel);
-                messagesListContainer.revalidate();
-                messagesListContainer.repaint();
+                AsyncBackend.change(clearButton, () -> {
+                    reportManager.clearReport(report[3]);
+                    return null;
+                }, done -> {
+                    messagesListContainer.remove(reportPanel);
+                    messagesListContainer.revalidate();
+                    messagesListContainer.repaint();
+                });
             });
 
             reportPanel.add(fromUsername);
@@ -607,4 +674,39 @@ public class MessagePanel extends JPanel {
             messagesListContainer.add(reportPanel);
         }
     }
+
+    /**
+     * The messages and reports shown to the user
+     */
+    private static class Messages {
+        private final boolean isAdmin;
+        private final List<Sender> senders;
+        private final List<String[]> reports;
+        private final Map<String, String> reportNames;
+
+        private Messages(boolean isAdmin, List<Sender> senders, List<String[]> reports,
+                         Map<String, String> reportNames) {
+            this.isAdmin = isAdmin;
+            this.senders = senders;
+            this.reports = reports;
+            this.reportNames = reportNames;
+        }
+    }
+
+    /**
+     * A user that sent messages to the user
+     */
+    private static class Sender {
+        private final String id;
+        private final String username;
+        private final int unread;
+        private final boolean isTrader;
+
+        private Sender(String id, String username, int unread, boolean isTrader) {
+            this.id = id;
+            this.username = username;
+            this.unread = unread;
+            this.isTrader = isTrader;
+        }
+    }
 }
@@ -2,21 +2,29 @@ package frontend.panels.general_panels.search_panels;
 
 import java.awt.*;
 import java.awt.event.WindowAdapter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.io.IOException;
 
 import javax.swing.*;
 
-import backend.exceptions.AuthorizationException;
 import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.TradeNotFoundException;
 import backend.exceptions.UserNotFoundException;
 import backend.tradesystem.UserTypes;
 import backend.tradesystem.queries.ItemQuery;
+import backend.tradesystem.queries.ItemSnapshot;
 import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.NameQuery;
 import backend.tradesystem.trader_managers.TraderManager;
 import backend.tradesystem.trader_managers.TradingInfoManager;
+import frontend.AsyncBackend;
 import frontend.WindowManager;
+import frontend.components.LazyRowList;
+import frontend.components.LoadingLabel;
+import frontend.components.RowPages;
 
 /**
  * Represents the search panel
@@ -30,11 +38,10 @@ public class SearchPanel extends JPanel {
     private JScrollPane userListScrollPane, tradableItemListScrollPane;
 
     private final TraderManager traderManager;
-    private final TradingInfoManager infoManager;
     private final String user;
 
-    private final UserQuery userQuery;
-    private final ItemQuery itemQuery;
+    // The searches being loaded, if any
+    private AsyncBackend.Task userSearch, itemSearch;
 
     private final Font regular, bold, italic, boldItalic;
 
@@ -64,10 +71,6 @@ public class SearchPanel extends JPanel {
 
         this.user = user;
         traderManager = new TraderManager();
-        infoManager = new TradingInfoManager();
-
-        userQuery = new UserQuery();
-        itemQuery = new ItemQuery();
 
         this.setSize(1000, 900);
         this.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 0));
@@ -114,10 +117,16 @@ public class SearchPanel extends JPanel {
         this.add(tradableItemListScrollPane);
     }
 
-    private boolean checkFrozen() throws UserNotFoundException {
-        if (userQuery.getType(user).equals(UserTypes.ADMIN))
-            return false;
-        return userQuery.isFrozen(user);
+    // Runs on a worker thread. The demo has no type, so it is null then.
+    private UserTypes getUserType(UserQuery userQuery) throws UserNotFoundException {
+        return user.equals("") ? null : userQuery.getType(user);
+    }
+
+    private JPanel createLoadingPanel() {
+        JPanel loadingPanel = new JPanel(new BorderLayout());
+        loadingPanel.setBackground(gray2);
+        loadingPanel.add(new LoadingLabel(regular.deriveFont(20f), Color.BLACK), BorderLayout.CENTER);
+        return loadingPanel;
     }
 
     private void createTradableItemListScrollPane() {
@@ -223,32 +232,48 @@ public class SearchPanel extends JPanel {
     }
 
     private void findUsers(String username) {
-        List<String> matches = infoManager.searchTrader(username);
-        int numRows = matches.size();
-        if (numRows < 3)
-            numRows = 3;
-        userListContainer = new JPanel(new GridLayout(numRows, 1));
-        userListContainer.setBackground(gray2);
-        userListContainer.setBorder(null);
-        for (String t : matches) {
-            createTraderDetailRow(t);
-        }
-        userListScrollPane.setViewportView(userListContainer);
+        // Only the latest search is shown
+        if (userSearch != null)
+            userSearch.cancel();
+        AsyncBackend.cancel(userListScrollPane);
+        userListScrollPane.setViewportView(createLoadingPanel());
+        userSearch = AsyncBackend.load(this, () -> new UserResults(new TradingInfoManager().searchTrader(username),
+                getUserType(new UserQuery())), this::showUsers);
+    }
+
+    private void showUsers(UserResults results) {
+        // Only the rows that are scrolled to are made, and their names are read a page at a time
+        RowPages<String, String> usernames = new RowPages<>(results.userIds, ids -> new NameQuery().getUsernames(ids));
+        LazyRowList<String> users = new LazyRowList<>(results.userIds, 75, 3, t -> {
+            if (!usernames.isLoaded(t))
+                return createLoadingPanel();
+            String username = usernames.get(t);
+            if (username == null) {
+                new UserNotFoundException(t).printStackTrace();
+                return createEmptyRow();
+            }
+            return createTraderDetailRow(t, username, results.userType);
+        });
+        usernames.showIn(users);
+        users.setBackground(gray2);
+        userListScrollPane.setViewportView(users);
     }
 
-    private void createTraderDetailRow(String t) {
+    private JPanel createEmptyRow() {
+        JPanel emptyRow = new JPanel();
+        emptyRow.setBackground(gray2);
+        emptyRow.setBorder(BorderFactory.createLineBorder(bg));
+        return emptyRow;
+    }
+
+    private JPanel createTraderDetailRow(String t, String username, UserTypes userType) {
         // for(String userId : userQuery) {
         JPanel trader = new JPanel(new GridLayout(1, 3));
         trader.setPreferredSize(new Dimension(1000, 75));
         trader.setBackground(gray2);
         trader.setBorder(BorderFactory.createLineBorder(bg));
 
-        JLabel traderName = new JLabel();
-        try {
-            traderName = new JLabel(userQuery.getUsername(t));
-        } catch (UserNotFoundException e) {
-            e.printStackTrace();
-        }
+        JLabel traderName = new JLabel(username);
         traderName.setFont(regular.deriveFont(20f));
         traderName.setForeground(Color.BLACK);
         traderName.setHorizontalAlignment(JLabel.LEFT);
@@ -266,9 +291,9 @@ public class SearchPanel extends JPanel {
         traderDetailsButton.setOpaque(true);
         traderDetailsButton.setBorder(BorderFactory.createLineBorder(gray2, 15));
         try {
-            if (!user.equals("") && userQuery.getType(user).equals(UserTypes.TRADER)) {
+            if (userType == UserTypes.TRADER) {
                 traderDetailsButton.addActionListener(new SearchPanelTraderDetails(t, regular, italic));
-            } else if (!user.equals("")) {
+            } else if (userType != null) {
                 traderDetailsButton.setText("Infiltrade");
                 traderDetailsButton.setForeground(Color.WHITE);
                 traderDetailsButton.setBackground(red);
@@ -293,56 +318,96 @@ public class SearchPanel extends JPanel {
                     }
                 });
             }
-        } catch (IOException | UserNotFoundException e) {
+        } catch (IOException e) {
             e.printStackTrace();
         }
 
         trader.add(traderName);
         trader.add(traderId);
         trader.add(traderDetailsButton);
-        userListContainer.add(trader);
+        return trader;
     }
 
     private void findItems(String itemNameSearchString) {
-        List<String> matches = infoManager.getTradableItemsWithName(itemNameSearchString);
-        int numRows = matches.size();
-        // int numRows = itemNameSearchString.length();
-        if (numRows < 3)
-            numRows = 3;
-        tradableItemListContainer = new JPanel(new GridLayout(numRows, 1));
-        // tradableItemListContainer = new JPanel(new GridLayout(matches.size(), 1));
-        tradableItemListContainer.setBackground(gray2);
-        tradableItemListContainer.setBorder(null);
-        for (String t : matches) {
+        // Only the latest search is shown
+        if (itemSearch != null)
+            itemSearch.cancel();
+        AsyncBackend.cancel(tradableItemListScrollPane);
+        tradableItemListScrollPane.setViewportView(createLoadingPanel());
+        itemSearch = AsyncBackend.load(this, () -> loadItems(itemNameSearchString), this::showItems);
+    }
+
+    // Runs on a worker thread, so it has its own managers
+    private ItemResults loadItems(String itemNameSearchString) throws IOException, UserNotFoundException {
+        UserQuery userQuery = new UserQuery();
+        List<String> matches = new TradingInfoManager().getTradableItemsWithName(itemNameSearchString);
+        UserTypes userType = getUserType(userQuery);
+        boolean canAddToWishlist = userType == UserTypes.TRADER && !userQuery.isFrozen(user);
+        return new ItemResults(matches, canAddToWishlist);
+    }
+
+    // Runs on a worker thread, so it has its own managers
+    private Map<String, ItemRow> loadItemPage(List<String> itemIds) throws IOException {
+        UserQuery userQuery = new UserQuery();
+        Map<String, String> owners = new LinkedHashMap<>();
+        for (String t : itemIds) {
             try {
-                createTradableItemRow(t);
-            } catch (TradableItemNotFoundException | UserNotFoundException e1) {
+                owners.put(t, userQuery.getTraderThatHasTradableItemId(t));
+            } catch (TradableItemNotFoundException e1) {
                 e1.printStackTrace();
             }
         }
-        tradableItemListScrollPane.setViewportView(tradableItemListContainer);
+        Map<String, ItemSnapshot> items = new ItemQuery().getItemSnapshots(owners.keySet());
+        Map<String, String> ownerNames = new NameQuery().getUsernames(owners.values());
+        Map<String, ItemRow> rows = new HashMap<>();
+        owners.forEach((t, owner) -> {
+            ItemSnapshot item = items.get(t);
+            String ownerName = ownerNames.get(owner);
+            if (item == null)
+                new TradableItemNotFoundException(t).printStackTrace();
+            else if (ownerName == null)
+                new UserNotFoundException(owner).printStackTrace();
+            else
+                rows.put(t, new ItemRow(item, ownerName));
+        });
+        return rows;
     }
 
-    private void createTradableItemRow(String t) throws TradableItemNotFoundException, UserNotFoundException {
-        String owner = userQuery.getTraderThatHasTradableItemId(t);
+    private void showItems(ItemResults results) {
+        // Only the rows that are scrolled to are made, and their items are read a page at a time
+        RowPages<String, ItemRow> itemRows = new RowPages<>(results.itemIds, this::loadItemPage);
+        LazyRowList<String> items = new LazyRowList<>(results.itemIds, 75, 3, t -> {
+            if (!itemRows.isLoaded(t))
+                return createLoadingPanel();
+            ItemRow row = itemRows.get(t);
+            if (row == null)
+                return createEmptyRow();
+            return createTradableItemRow(row.item, row.ownerName, results.canAddToWishlist);
+        });
+        itemRows.showIn(items);
+        items.setBackground(gray2);
+        tradableItemListScrollPane.setViewportView(items);
+    }
 
+    private JPanel createTradableItemRow(ItemSnapshot tradableItem, String ownerName, boolean canAddToWishlist) {
+        String t = tradableItem.getId();
         JPanel item = new JPanel(new GridLayout(1, 4));
         item.setPreferredSize(new Dimension(1000, 75));
         item.setBackground(gray2);
         item.setBorder(BorderFactory.createLineBorder(bg));
 
-        JLabel itemName = new JLabel(itemQuery.getName(t));
+        JLabel itemName = new JLabel(tradableItem.getName());
         itemName.setFont(regular.deriveFont(20f));
         itemName.setForeground(Color.BLACK);
         itemName.setHorizontalAlignment(JLabel.LEFT);
         itemName.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
 
-        JLabel itemDesc = new JLabel(itemQuery.getDesc(t));
+        JLabel itemDesc = new JLabel(tradableItem.getDesc());
         itemDesc.setFont(regular.deriveFont(20f));
         itemDesc.setForeground(Color.BLACK);
         itemDesc.setHorizontalAlignment(JLabel.CENTER);
 
-        JLabel itemOwnerName = new JLabel(userQuery.getUsername(owner));
+        JLabel itemOwnerName = new JLabel(ownerName);
         itemOwnerName.setFont(regular.deriveFont(20f));
         itemOwnerName.setForeground(Color.BLACK);
         itemOwnerName.setHorizontalAlignment(JLabel.CENTER);
@@ -354,22 +419,57 @@ public class SearchPanel extends JPanel {
         addToWishlistButton.setOpaque(true);
         addToWishlistButton.setBorder(BorderFactory.createLineBorder(gray2, 15));
         addToWishlistButton.addActionListener(e -> {
-            try {
+            AsyncBackend.change(addToWishlistButton, () -> {
                 traderManager.addToWishList(user, t);
-            } catch (UserNotFoundException | TradableItemNotFoundException | AuthorizationException e1) {
-                e1.printStackTrace();
-            }
-
+                return null;
+            }, done -> {});
         });
 
 
         item.add(itemName);
         item.add(itemDesc);
         item.add(itemOwnerName);
-        if (!user.equals("") && userQuery.getType(user).equals(UserTypes.TRADER) && !checkFrozen())
+        if (canAddToWishlist)
             item.add(addToWishlistButton);
-        tradableItemListContainer.add(item);
+        return item;
+    }
+
+    /**
+     * The traders found by a search
+     */
+    private static class UserResults {
+        private final List<String> userIds;
+        private final UserTypes userType;
+
+        private UserResults(List<String> userIds, UserTypes userType) {
+            this.userIds = userIds;
+            this.userType = userType;
+        }
     }
 
+    /**
+     * The items found by a search
+     */
+    private static class ItemResults {
+        private final List<String> itemIds;
+        private final boolean canAddToWishlist;
+
+        private ItemResults(List<String> itemIds, boolean canAddToWishlist) {
+            this.itemIds = itemIds;
+            this.canAddToWishlist = canAddToWishlist;
+        }
+    }
 
-}
\ No newline at end of file
+    /**
+     * An item that was found and the name of who owns it
+     */
+    private static class ItemRow {
+        private final ItemSnapshot item;
+        private final String ownerName;
+
+        private ItemRow(ItemSnapshot item, String ownerName) {
+            this.item = item;
+            this.ownerName = ownerName;
+        }
+    }
+}
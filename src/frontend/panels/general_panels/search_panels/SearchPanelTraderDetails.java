@@ -5,6 +5,7 @@ import java.util.List;
 import backend.exceptions.AuthorizationException;
 import backend.exceptions.UserNotFoundException;
 import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.NameQuery;
 
 import javax.swing.*;
 import java.awt.*;
@@ -19,6 +20,7 @@ import java.util.ArrayList;
 public class SearchPanelTraderDetails implements ActionListener {
 
     private final UserQuery userQuery = new UserQuery();
+    private final NameQuery nameQuery = new NameQuery();
     private final String traderId;
     private final Font regular;
     private final Font italic;
@@ -57,7 +59,7 @@ public class SearchPanelTraderDetails implements ActionListener {
 
         JLabel traderNameLabel = createBasicLabel("", regular);
         try {
-            traderNameLabel.setText("<html><pre>" + userQuery.getUsername(traderId) + "</pre></html>");
+            traderNameLabel.setText("<html><pre>" + nameQuery.getUsername(traderId) + "</pre></html>");
         } catch (UserNotFoundException userNotFoundException) {
             userNotFoundException.printStackTrace();
         }
@@ -159,7 +161,7 @@ public class SearchPanelTraderDetails implements ActionListener {
 
         JLabel text = new JLabel("DUMMY TEXT");
         try {
-            text.setText(userQuery.getUsername(review[0]) + ": " + (review[3] + "   ->  ") + review[2]);
+            text.setText(nameQuery.getUsername(review[0]) + ": " + (review[3] + "   ->  ") + review[2]);
         } catch (UserNotFoundException ex) {
             ex.printStackTrace();
         }
@@ -1,6 +1,7 @@
 package frontend.panels.login_panel;
 
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
@@ -22,8 +23,10 @@ import backend.exceptions.BadPasswordException;
 import backend.exceptions.TradeNotFoundException;
 import backend.exceptions.UserAlreadyExistsException;
 import backend.exceptions.UserNotFoundException;
+import backend.exceptions.ConflictException;
 import backend.tradesystem.UserTypes;
 import backend.tradesystem.general_managers.LoginManager;
+import frontend.AsyncBackend;
 import frontend.WindowManager;
 
 /**
@@ -102,32 +105,38 @@ public class LoginPanel extends JPanel implements ActionListener {
     @Override
     public void actionPerformed(ActionEvent e) {
         switch (e.getActionCommand()) {
-            case "Login":
-                try {
-                    if (usernameInput.getText().trim().equals("") || String.valueOf(passwordInput.getPassword()).trim().equals("")) {
-                        notifyLogin("<html><b><i>Empty Username and/or Password.</i></b></html>");
-                        return;
-                    }
-                    String loggedInUser = loginManager.login(usernameInput.getText(), String.valueOf(passwordInput.getPassword()));
-                    ((WindowManager) SwingUtilities.getWindowAncestor(this)).login(loggedInUser);
-                } catch (UserNotFoundException ignored) {
-                    notifyLogin("<html><b><i>Username or Password is incorrect.</i></b></html>");
-                } catch (IOException | TradeNotFoundException ex) {
-                    ex.printStackTrace();
+            case "Login": {
+                if (usernameInput.getText().trim().equals("") || String.valueOf(passwordInput.getPassword()).trim().equals("")) {
+                    notifyLogin("<html><b><i>Empty Username and/or Password.</i></b></html>");
+                    return;
                 }
+                String username = usernameInput.getText();
+                String password = String.valueOf(passwordInput.getPassword());
+                AsyncBackend.change((Component) e.getSource(), () -> loginManager.login(username, password),
+                        this::openUser, failure -> {
+                    if (failure instanceof UserNotFoundException)
+                        notifyLogin("<html><b><i>Username or Password is incorrect.</i></b></html>");
+                    else
+                        failure.printStackTrace();
+                });
                 break;
-            case "Register":
-                try {
-                    String loggedInUser = loginManager.registerUser(usernameInput.getText(), String.valueOf(passwordInput.getPassword()), UserTypes.TRADER);
-                    ((WindowManager) SwingUtilities.getWindowAncestor(this)).login(loggedInUser);
-                } catch (BadPasswordException ex) {
-                    notifyLogin("<html><b><i>Invalid Password: " + ex.getMessage() + "</i></b></html>");
-                } catch (UserAlreadyExistsException ignored) {
-                    notifyLogin("<html><b><i>The username '" + usernameInput.getText() + "' is taken.</i></b></html>");
-                } catch (IOException | TradeNotFoundException ex) {
-                    ex.printStackTrace();
-                }
+            }
+            case "Register": {
+                String username = usernameInput.getText();
+                String password = String.valueOf(passwordInput.getPassword());
+                AsyncBackend.change((Component) e.getSource(),
+                        () -> loginManager.registerUser(username, password, UserTypes.TRADER), this::openUser, failure -> {
+                    if (failure instanceof BadPasswordException)
+                        notifyLogin("<html><b><i>Invalid Password: " + failure.getMessage() + "</i></b></html>");
+                    else if (failure instanceof UserAlreadyExistsException)
+                        notifyLogin("<html><b><i>The username '" + username + "' is taken.</i></b></html>");
+                    else if (failure instanceof ConflictException)
+                        notifyLogin("<html><b><i>Someone else is using that username right now, please try again.</i></b></html>");
+                    else
+                        failure.printStackTrace();
+                });
                 break;
+            }
             case "Demo":
                 try {
                     ((WindowManager) SwingUtilities.getWindowAncestor(this)).login("");
@@ -138,6 +147,14 @@ public class LoginPanel extends JPanel implements ActionListener {
         }
     }
 
+    private void openUser(String loggedInUser) {
+        try {
+            ((WindowManager) SwingUtilities.getWindowAncestor(this)).login(loggedInUser);
+        } catch (IOException | TradeNotFoundException ex) {
+            ex.printStackTrace();
+        }
+    }
+
     private void manageCopyrightLabel(Font regular, JPanel info) {
         JLabel copyright = new JLabel("Copyright © 2020 group_56. All rights reserved.");
         copyright.setFont(regular.deriveFont(10f));
@@ -12,6 +12,12 @@ import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -25,7 +31,9 @@ import backend.exceptions.AuthorizationException;
 import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.TradeNotFoundException;
 import backend.exceptions.UserNotFoundException;
+import backend.tradesystem.events.ChangeEvent;
 import backend.tradesystem.queries.UserQuery;
+import frontend.AsyncBackend;
 import frontend.WindowManager;
 import frontend.panels.general_panels.search_panels.SearchPanel;
 import frontend.panels.trader_panel.trader_subpanels.*;
@@ -52,6 +60,13 @@ public class TraderPanel extends JPanel implements ActionListener {
 
     private String currentPanel;
 
+    private final String traderId;
+    private final Font regular, bold, italic, boldItalic;
+    // What the menu was made for, if any of these change the whole panel has to be made again
+    private final boolean isFrozen, isIdle;
+    private final String username;
+    private final Map<String, JPanel> panels = new HashMap<>();
+
     /**
      * Making a new trader panel
      *
@@ -74,12 +89,11 @@ public class TraderPanel extends JPanel implements ActionListener {
         this.setSize(1600, 900);
         this.setOpaque(false);
         this.setLayout(new BorderLayout());
-
-        JPanel searchPanel = new SearchPanel(traderId, regular, bold, italic, boldItalic);
-        JPanel tradePanel = new TradePanel(traderId, regular, bold, italic, boldItalic);
-        JPanel itemsPanel = new ItemsPanel(traderId, regular, bold, italic, boldItalic);
-        JPanel notificationsPanel = new NotificationsPanel(traderId, regular, bold, italic, boldItalic);
-        JPanel settingsPanel = new SettingsPanel(traderId, regular, bold, italic, boldItalic);
+        this.traderId = traderId;
+        this.regular = regular;
+        this.bold = bold;
+        this.italic = italic;
+        this.boldItalic = boldItalic;
 
         menuPanelContainer = new JPanel();
         cardLayout = new CardLayout();
@@ -93,8 +107,9 @@ public class TraderPanel extends JPanel implements ActionListener {
         createUserIdTitle(traderId, regular);
 
         boolean isDemo = traderId.equals("");
-        boolean isFrozen = !isDemo && checkFrozenTrader(traderId);
-        boolean isIdle = !isDemo && checkIdleTrader(traderId);
+        isFrozen = !isDemo && checkFrozenTrader(traderId);
+        isIdle = !isDemo && checkIdleTrader(traderId);
+        username = isDemo ? "" : userQuery.getUsername(traderId);
         String[] menuTitles = getMenuTitles(isFrozen, isIdle);
 
         for (int i = 0; i < menuTitles.length; i++)
@@ -102,21 +117,12 @@ public class TraderPanel extends JPanel implements ActionListener {
 
         createLogoutButton(boldItalic, infiltraded);
 
-        if (isFrozen) {
-            menuPanelContainer.add(new FrozenSettingsPanel(traderId, regular, bold, italic, boldItalic),
-                    "Frozen Settings");
-            menuPanelContainer.add(searchPanel, "Search");
-        } else if (isIdle) {
-            menuPanelContainer.add(itemsPanel, "Items");
-            menuPanelContainer.add(notificationsPanel, "Notifications");
-            menuPanelContainer.add(searchPanel, "Search");
-            menuPanelContainer.add(settingsPanel, "Settings");
-        } else {
-            menuPanelContainer.add(tradePanel, "Trades");
-            menuPanelContainer.add(itemsPanel, "Items");
-            menuPanelContainer.add(notificationsPanel, "Notifications");
-            menuPanelContainer.add(searchPanel, "Search");
-            menuPanelContainer.add(settingsPanel, "Settings");
+        for (String title : menuTitles) {
+            if (title.equals(""))
+                continue;
+            JPanel panel = createPanel(title);
+            panels.put(title, panel);
+            menuPanelContainer.add(panel, title);
         }
 
         this.add(menuContainer, BorderLayout.WEST);
@@ -162,6 +168,95 @@ public class TraderPanel extends JPanel implements ActionListener {
         }
     }
 
+    /**
+     * Checks if the trader changed in a way that changes the menu, like being frozen, so that only making the whole
+     * panel again shows it properly
+     *
+     * @return true if the panel has to be made again
+     */
+    public boolean isOutdated() {
+        if (traderId.equals(""))
+            return false;
+        try {
+            return isFrozen != userQuery.isFrozen(traderId) || isIdle != userQuery.isIdle(traderId)
+                    || !username.equals(userQuery.getUsername(traderId));
+        } catch (UserNotFoundException | AuthorizationException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Gets the names of the panels that show what was changed
+     *
+     * @param event the change
+     * @return the names of the panels that should be refreshed
+     */
+    public Set<String> getPanelsShowing(ChangeEvent event) {
+        Set<String> names = new LinkedHashSet<>();
+        switch (event.getType()) {
+            case TRADE_CHANGED:
+                // The notifications show the frequent traders and the recently traded items
+                names.addAll(Arrays.asList("Trades", "Notifications"));
+                break;
+            case MESSAGE_RECEIVED:
+                names.add("Notifications");
+                break;
+            case ITEM_REQUEST_PROCESSED:
+                names.add("Items");
+                break;
+            case USER_UPDATED:
+                if (event.getId().equals(traderId))
+                    names.addAll(Arrays.asList("Items", "Settings", "Frozen Settings"));
+                break;
+        }
+        names.retainAll(panels.keySet());
+        return names;
+    }
+
+    /**
+     * Makes the panels again so they show the latest changes, and keeps showing the current panel
+     *
+     * @param names the names of the panels
+     */
+    public void refreshPanels(Collection<String> names) {
+        for (String name : names) {
+            JPanel oldPanel = panels.get(name);
+            if (oldPanel == null)
+                continue;
+            try {
+                JPanel panel = createPanel(name);
+                AsyncBackend.cancel(oldPanel);
+                menuPanelContainer.remove(oldPanel);
+                menuPanelContainer.add(panel, name);
+                panels.put(name, panel);
+            } catch (IOException | UserNotFoundException | AuthorizationException | TradeNotFoundException
+                    | TradableItemNotFoundException e) {
+                e.printStackTrace();
+            }
+        }
+        cardLayout.show(menuPanelContainer, currentPanel);
+        menuPanelContainer.revalidate();
+        menuPanelContainer.repaint();
+    }
+
+    private JPanel createPanel(String title) throws IOException, UserNotFoundException, AuthorizationException,
+            TradeNotFoundException, TradableItemNotFoundException {
+        switch (title) {
+            case "Frozen Settings":
+                return new FrozenSettingsPanel(traderId, regular, bold, italic, boldItalic);
+            case "Trades":
+                return new TradePanel(traderId, regular, bold, italic, boldItalic);
+            case "Items":
+                return new ItemsPanel(traderId, regular, bold, italic, boldItalic);
+            case "Notifications":
+                return new NotificationsPanel(traderId, regular, bold, italic, boldItalic);
+            case "Search":
+                return new SearchPanel(traderId, regular, bold, italic, boldItalic);
+            default:
+                return new SettingsPanel(traderId, regular, bold, italic, boldItalic);
+        }
+    }
+
     private String[] getMenuTitles(boolean isFrozen, boolean isIdle) {
         if (isFrozen)
             return new String[] { "Frozen Settings", "Search", "", "", "" };
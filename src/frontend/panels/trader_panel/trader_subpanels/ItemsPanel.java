@@ -8,7 +8,9 @@ import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.UserNotFoundException;
 import backend.tradesystem.queries.ItemQuery;
 import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.NameQuery;
 import backend.tradesystem.trader_managers.TraderManager;
+import frontend.AsyncBackend;
 import frontend.components.*;
 
 import java.awt.*;
@@ -38,6 +40,7 @@ public class ItemsPanel extends JPanel {
 
     private final ItemQuery itemQuery = new ItemQuery();
     private final UserQuery userQuery = new UserQuery();
+    private final NameQuery nameQuery = new NameQuery();
 
     /**
      * Makes a new panel that shows list of items and wishlist items
@@ -273,16 +276,21 @@ public class ItemsPanel extends JPanel {
             itemSubmitButton.setBorder(BorderFactory.createLineBorder(bg, 15));
             itemSubmitButton.addActionListener(e -> {
                 if (inventoryItems.getSelectedItem() != null) {
-                    try {
-                        traderManager.addToWishList(traderId, ((InventoryComboBoxItem) inventoryItems.getSelectedItem()).getId());
+                    String itemId = ((InventoryComboBoxItem) inventoryItems.getSelectedItem()).getId();
+                    AsyncBackend.change(itemSubmitButton, () -> {
+                        traderManager.addToWishList(traderId, itemId);
+                        return null;
+                    }, done -> {
                         addNewItemModal.dispose();
-                        getWishlist();
+                        try {
+                            getWishlist();
+                        } catch (UserNotFoundException | AuthorizationException e1) {
+                            e1.printStackTrace();
+                        }
                         wishlistItemsContainer.revalidate();
                         wishlistItemsContainer.repaint();
                         wishlistItemsScrollPane.setViewportView(wishlistItemsContainer);
-                    } catch (UserNotFoundException | TradableItemNotFoundException | AuthorizationException e1) {
-                        e1.printStackTrace();
-                    }
+                    });
                 }
             });
 
@@ -370,12 +378,12 @@ public class ItemsPanel extends JPanel {
             itemSubmitButton.setBorder(BorderFactory.createLineBorder(bg, 15));
             itemSubmitButton.addActionListener(event -> {
                 if (itemNameInput.getText().trim().length() > 0 && itemDescInput.getText().trim().length() > 0) {
-                    try {
-                        traderManager.addRequestItem(traderId, itemNameInput.getText().trim(), itemDescInput.getText().trim());
-                        addNewItemModal.dispose();
-                    } catch (UserNotFoundException | AuthorizationException e1) {
-                        e1.printStackTrace();
-                    }
+                    String itemName = itemNameInput.getText().trim();
+                    String itemDesc = itemDescInput.getText().trim();
+                    AsyncBackend.change(itemSubmitButton, () -> {
+                        traderManager.addRequestItem(traderId, itemName, itemDesc);
+                        return null;
+                    }, done -> addNewItemModal.dispose());
                 }
             });
 
@@ -400,6 +408,8 @@ public class ItemsPanel extends JPanel {
         inventoryItemsContainer.setBackground(gray2);
         inventoryItemsContainer.setBorder(null);
 
+        // Names every row at once, so each row finds its name already read
+        nameQuery.getItemNames(availableItems);
         for (String itemId : availableItems) {
             try {
                 JPanel itemPanel = new JPanel(new GridLayout(1, 4, 10, 0));
@@ -407,7 +417,7 @@ public class ItemsPanel extends JPanel {
                 itemPanel.setBackground(gray);
                 itemPanel.setBorder(BorderFactory.createLineBorder(bg));
 
-                JLabel itemName = new JLabel(itemQuery.getName(itemId));
+                JLabel itemName = new JLabel(nameQuery.getItemName(itemId));
                 itemName.setFont(regular.deriveFont(20f));
                 itemName.setForeground(Color.BLACK);
                 itemName.setHorizontalAlignment(JLabel.LEFT);
@@ -437,14 +447,14 @@ public class ItemsPanel extends JPanel {
                 inventoryItemsContainer.add(itemPanel);
 
                 removeItemButton.addActionListener(event -> {
-                    try {
+                    AsyncBackend.change(removeItemButton, () -> {
                         traderManager.removeFromInventory(traderId, itemId);
+                        return null;
+                    }, done -> {
                         inventoryItemsContainer.remove(itemPanel);
                         inventoryItemsContainer.revalidate();
                         inventoryItemsContainer.repaint();
-                    } catch (UserNotFoundException | AuthorizationException e) {
-                        e.printStackTrace();
-                    }
+                    });
                 });
 
             } catch (TradableItemNotFoundException exception) {
@@ -461,6 +471,8 @@ public class ItemsPanel extends JPanel {
         wishlistItemsContainer.setBackground(gray2);
         wishlistItemsContainer.setBorder(null);
 
+        // Names every row at once, so each row finds its name already read
+        nameQuery.getItemNames(wishlist);
         for (String itemId : wishlist) {
             try {
                 JPanel itemPanel = new JPanel(new GridLayout(1, 5, 10, 0));
@@ -468,7 +480,7 @@ public class ItemsPanel extends JPanel {
                 itemPanel.setBackground(gray);
                 itemPanel.setBorder(BorderFactory.createLineBorder(bg));
 
-                JLabel itemName = new JLabel(itemQuery.getName(itemId));
+                JLabel itemName = new JLabel(nameQuery.getItemName(itemId));
                 itemName.setFont(regular.deriveFont(20f));
                 itemName.setForeground(Color.BLACK);
                 itemName.setHorizontalAlignment(JLabel.LEFT);
@@ -484,7 +496,7 @@ public class ItemsPanel extends JPanel {
                 itemIdTitle.setForeground(Color.BLACK);
                 itemIdTitle.setHorizontalAlignment(JLabel.LEFT);
 
-                JLabel itemOwnerName = new JLabel(userQuery.getUsername(userQuery.getTraderThatHasTradableItemId(itemId)));
+                JLabel itemOwnerName = new JLabel(nameQuery.getUsername(userQuery.getTraderThatHasTradableItemId(itemId)));
                 itemOwnerName.setFont(regular.deriveFont(20f));
                 itemOwnerName.setForeground(Color.BLACK);
                 itemOwnerName.setHorizontalAlignment(JLabel.CENTER);
@@ -504,14 +516,14 @@ public class ItemsPanel extends JPanel {
                 wishlistItemsContainer.add(itemPanel);
 
                 removeItemButton.addActionListener(event -> {
-                    try {
+                    AsyncBackend.change(removeItemButton, () -> {
                         traderManager.removeFromWishList(traderId, itemId);
+                        return null;
+                    }, done -> {
                         wishlistItemsContainer.remove(itemPanel);
                         wishlistItemsContainer.revalidate();
                         wishlistItemsContainer.repaint();
-                    } catch (UserNotFoundException | AuthorizationException e) {
-                        e.printStackTrace();
-                    }
+                    });
                 });
 
             } catch (TradableItemNotFoundException exception) {
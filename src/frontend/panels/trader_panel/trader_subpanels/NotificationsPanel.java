@@ -1,11 +1,13 @@
 package frontend.panels.trader_panel.trader_subpanels;
 
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.GridLayout;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.swing.BorderFactory;
@@ -13,12 +15,11 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 
 import backend.exceptions.AuthorizationException;
-import backend.exceptions.TradableItemNotFoundException;
-import backend.exceptions.TradeNotFoundException;
 import backend.exceptions.UserNotFoundException;
-import backend.tradesystem.queries.ItemQuery;
-import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.NameQuery;
 import backend.tradesystem.trader_managers.TradingInfoManager;
+import frontend.AsyncBackend;
+import frontend.components.LoadingLabel;
 import frontend.panels.general_panels.MessagePanel;
 
 /**
@@ -28,9 +29,6 @@ public class NotificationsPanel extends JPanel {
 
     private JPanel freqTradersPanel, freqTradableItemsPanel;
 
-    private final ItemQuery itemQuery = new ItemQuery();
-    private final UserQuery userQuery = new UserQuery();
-
     private final Color bg = new Color(51, 51, 51);
     private final Color gray2 = new Color(196, 196, 196);
 
@@ -38,8 +36,6 @@ public class NotificationsPanel extends JPanel {
 
     private final String traderId;
 
-    private final TradingInfoManager infoManager = new TradingInfoManager();
-
     /**
      * Used to create a new panel for messaging and notifications
      * 
@@ -94,58 +90,55 @@ public class NotificationsPanel extends JPanel {
         this.add(bottomSplitContainer);
     }
 
-    private void getFreqTraders() throws AuthorizationException, UserNotFoundException {
-        List<String> freqTraders = new ArrayList<>();
-        if (!traderId.equals("")) {
-            try {
-                freqTraders = infoManager.getFrequentTraders(traderId);
-            } catch (TradeNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
-        int numRows = freqTraders.size();
-        if (numRows < 3)
-            numRows = 3;
-        freqTradersPanel = new JPanel(new GridLayout(numRows, 1));
-        freqTradersPanel.setBackground(gray2);
-        for (String freqTraderId : freqTraders) {
-            JLabel traderName = new JLabel(userQuery.getUsername(freqTraderId));
-            traderName.setFont(regular.deriveFont(20f));
-            traderName.setForeground(Color.BLACK);
-            traderName.setBackground(gray2);
-            traderName.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, bg),
-                    BorderFactory.createEmptyBorder(0, 25, 0, 0)));
-            freqTradersPanel.add(traderName);
-        }
+    private void getFreqTraders() {
+        freqTradersPanel = createLoadingPanel();
+        AsyncBackend.load(this, () -> {
+            List<String> freqTraders = new ArrayList<>();
+            if (!traderId.equals(""))
+                freqTraders = new TradingInfoManager().getFrequentTraders(traderId);
+            return new NameQuery().getUsernames(freqTraders).values();
+        }, usernames -> showNames(freqTradersPanel, usernames), e -> {
+            e.printStackTrace();
+            showNames(freqTradersPanel, new ArrayList<>());
+        });
     }
 
     private void getFreqTradableItems() {
-        try {
-            freqTradableItemsPanel = new JPanel(new GridLayout(0, 1));
-            freqTradableItemsPanel.setBackground(gray2);
+        freqTradableItemsPanel = createLoadingPanel();
+        AsyncBackend.load(this, () -> {
             List<String> items = new ArrayList<>();
             if (!traderId.equals(""))
-                items = infoManager.getRecentTradeItems(traderId);
-            int numRows = items.size();
-            if (numRows < 3)
-                numRows = 3;
-            freqTradableItemsPanel = new JPanel(new GridLayout(numRows, 1));
-            freqTradableItemsPanel.setBackground(gray2);
-
-            for (String itemId : items) {
-                JLabel itemName = new JLabel(itemQuery.getName(itemId));
-                itemName.setFont(regular.deriveFont(20f));
-                itemName.setForeground(Color.BLACK);
-                itemName.setBackground(gray2);
-                itemName.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, bg),
-                        BorderFactory.createEmptyBorder(0, 25, 0, 0)));
-                freqTradableItemsPanel.add(itemName);
-            }
-
-        } catch (UserNotFoundException | TradeNotFoundException | AuthorizationException
-                | TradableItemNotFoundException e) {
+                items = new TradingInfoManager().getRecentTradeItems(traderId);
+            return new NameQuery().getItemNames(items).values();
+        }, names -> showNames(freqTradableItemsPanel, names), e -> {
             e.printStackTrace();
-        }
+            showNames(freqTradableItemsPanel, new ArrayList<>());
+        });
+    }
+
+    private JPanel createLoadingPanel() {
+        JPanel loadingPanel = new JPanel(new BorderLayout());
+        loadingPanel.setBackground(gray2);
+        loadingPanel.add(new LoadingLabel(regular.deriveFont(20f), Color.BLACK), BorderLayout.CENTER);
+        return loadingPanel;
+    }
 
+    private void showNames(JPanel list, Collection<String> names) {
+        int numRows = names.size();
+        if (numRows < 3)
+            numRows = 3;
+        list.removeAll();
+        list.setLayout(new GridLayout(numRows, 1));
+        for (String name : names) {
+            JLabel nameLabel = new JLabel(name);
+            nameLabel.setFont(regular.deriveFont(20f));
+            nameLabel.setForeground(Color.BLACK);
+            nameLabel.setBackground(gray2);
+            nameLabel.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, bg),
+                    BorderFactory.createEmptyBorder(0, 25, 0, 0)));
+            list.add(nameLabel);
+        }
+        list.revalidate();
+        list.repaint();
     }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import javax.swing.*;
 import backend.exceptions.AuthorizationException;
 import backend.exceptions.UserNotFoundException;
 import backend.tradesystem.admin_managers.HandleFrozenManager;
+import frontend.AsyncBackend;
 
 /**
  * This panel represents the settings a frozen trader can interact with
@@ -86,17 +87,16 @@ public class FrozenSettingsPanel extends SettingsPanel {
         unFreezeButton.setBorder(BorderFactory.createMatteBorder(15, 50, 15, 25, gray2));
         unFreezeButton.setEnabled(!isUnfreezeRequested);
         unFreezeButton.addActionListener(e -> {
-            try {
+            AsyncBackend.change(unFreezeButton, () -> {
                 frozenManager.requestUnfreeze(traderId, true);
+                return null;
+            }, done -> {
                 unFreezeButton.setText("Requested");
                 unFreezeButton.setFont(boldItalic.deriveFont(20f));
                 unFreezeButton.setBackground(bg);
                 unFreezeButton.setForeground(gray);
                 unFreezeButton.setEnabled(false);
-
-            } catch (UserNotFoundException e1) {
-                e1.printStackTrace();
-            }
+            });
         });
 
         unFreezePanel.add(unFreezeLabel);
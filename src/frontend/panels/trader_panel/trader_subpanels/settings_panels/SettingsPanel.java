@@ -2,6 +2,7 @@ package frontend.panels.trader_panel.trader_subpanels.settings_panels;
 
 import java.awt.*;
 import java.io.IOException;
+import java.util.List;
 
 import javax.swing.*;
 
@@ -9,8 +10,12 @@ import backend.exceptions.AuthorizationException;
 import backend.exceptions.BadPasswordException;
 import backend.exceptions.UserAlreadyExistsException;
 import backend.exceptions.UserNotFoundException;
+import backend.exceptions.ConflictException;
 import backend.tradesystem.trader_managers.SettingsManager;
 import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.NameQuery;
+import frontend.AsyncBackend;
+import frontend.components.TryAgainMessage;
 
 /**
  * Represents the panel where the user can adjust the settings
@@ -20,6 +25,7 @@ public class SettingsPanel extends JPanel {
     private final String userId;
     private final SettingsManager settingsManager = new SettingsManager();
     protected UserQuery userQuery = new UserQuery();
+    private final NameQuery nameQuery = new NameQuery();
 
     protected final Color bg = new Color(51, 51, 51);
     protected final Color gray = new Color(196, 196, 196);
@@ -97,8 +103,11 @@ public class SettingsPanel extends JPanel {
         changeUsernameButton.addActionListener(e -> {
             if (userId.equals("")) return;
             if (changeUsername.getText().trim().length() != 0) {
-                try {
-                    settingsManager.changeUsername(userId, changeUsername.getText());
+                String username = changeUsername.getText();
+                AsyncBackend.change(changeUsernameButton, () -> {
+                    settingsManager.changeUsername(userId, username);
+                    return null;
+                }, done -> {
                     changeUsernameLabel.setFont(regular.deriveFont(25f));
                     changeUsernameLabel.setText("Reload Required");
                     changeUsername.setText("");
@@ -106,10 +115,16 @@ public class SettingsPanel extends JPanel {
                     changeUsernameButton.setFont(boldItalic.deriveFont(20f));
                     changeUsernameButton.setBackground(bg);
                     changeUsernameButton.setEnabled(false);
-                } catch (UserNotFoundException | UserAlreadyExistsException e1) {
-                    changeUsernameLabel.setFont(boldItalic.deriveFont(22.5f));
-                    changeUsernameLabel.setText("'" + changeUsername.getText().trim() + "' is taken");
-                }
+                }, failure -> {
+                    if (failure instanceof ConflictException) {
+                        TryAgainMessage.show(this);
+                    } else if (failure instanceof UserNotFoundException || failure instanceof UserAlreadyExistsException) {
+                        changeUsernameLabel.setFont(boldItalic.deriveFont(22.5f));
+                        changeUsernameLabel.setText("'" + username.trim() + "' is taken");
+                    } else {
+                        failure.printStackTrace();
+                    }
+                });
             }
         });
 
@@ -146,8 +161,11 @@ public class SettingsPanel extends JPanel {
         changePasswordButton.setBorder(BorderFactory.createMatteBorder(15, 50, 15, 25, gray2));
         changePasswordButton.addActionListener(e -> {
             if (userId.equals("")) return;
-            try {
-                settingsManager.changePassword(userId, String.valueOf(changePassword.getPassword()));
+            String password = String.valueOf(changePassword.getPassword());
+            AsyncBackend.change(changePasswordButton, () -> {
+                settingsManager.changePassword(userId, password);
+                return null;
+            }, done -> {
                 changePasswordLabel.setFont(regular.deriveFont(25f));
                 changePasswordLabel.setText("Reload Required");
                 changePasswordButton.setText("Changed");
@@ -155,10 +173,16 @@ public class SettingsPanel extends JPanel {
                 changePasswordButton.setBackground(bg);
                 changePasswordButton.setEnabled(false);
                 changePassword.setText("");
-            } catch (UserNotFoundException | BadPasswordException e1) {
-                changePasswordLabel.setFont(boldItalic.deriveFont(20f));
-                changePasswordLabel.setText(e1.getMessage());
-            }
+            }, failure -> {
+                if (failure instanceof ConflictException) {
+                    TryAgainMessage.show(this);
+                } else if (failure instanceof UserNotFoundException || failure instanceof BadPasswordException) {
+                    changePasswordLabel.setFont(boldItalic.deriveFont(20f));
+                    changePasswordLabel.setText(failure.getMessage());
+                } else {
+                    failure.printStackTrace();
+                }
+            });
         });
 
         changePassPanel.add(changePasswordLabel);
@@ -195,17 +219,18 @@ public class SettingsPanel extends JPanel {
         changeCityButton.addActionListener(e -> {
             if (userId.equals("")) return;
             if (changeCity.getText().trim().length() != 0) {
-                try {
-                    settingsManager.setCity(userId, changeCity.getText());
+                String city = changeCity.getText();
+                AsyncBackend.change(changeCityButton, () -> {
+                    settingsManager.setCity(userId, city);
+                    return null;
+                }, done -> {
                     changeCityLabel.setText("Reload Required");
                     changeCityButton.setText("Changed");
                     changeCityButton.setFont(boldItalic.deriveFont(20f));
                     changeCityButton.setBackground(bg);
                     changeCityButton.setEnabled(false);
                     changeCity.setText("");
-                } catch (UserNotFoundException | AuthorizationException e1) {
-                    e1.printStackTrace();
-                }
+                });
             }
         });
 
@@ -240,17 +265,25 @@ public class SettingsPanel extends JPanel {
         goIdleButton.setBorder(BorderFactory.createMatteBorder(15, 50, 15, 25, gray2));
         goIdleButton.addActionListener(e -> {
             if (userId.equals("")) return;
-            try {
+            AsyncBackend.change(goIdleButton, () -> {
                 settingsManager.setIdle(userId, !userQuery.isIdle(userId));
+                return null;
+            }, done -> {
                 goIdleButton.setBackground(bg);
                 goIdleButton.setFont(boldItalic.deriveFont(20f));
                 goIdleButton.setText("Activated");
                 goIdleButton.setEnabled(false);
                 errMsg.setText("Reload Required");
-            } catch (UserNotFoundException | AuthorizationException e1) {
-                errMsg.setFont(boldItalic.deriveFont(20f));
-                errMsg.setText(e1.getMessage());
-            }
+            }, failure -> {
+                if (failure instanceof ConflictException) {
+                    TryAgainMessage.show(this);
+                } else if (failure instanceof UserNotFoundException || failure instanceof AuthorizationException) {
+                    errMsg.setFont(boldItalic.deriveFont(20f));
+                    errMsg.setText(failure.getMessage());
+                } else {
+                    failure.printStackTrace();
+                }
+            });
         });
 
         idlePanel.add(idleLabel);
@@ -307,10 +340,13 @@ public class SettingsPanel extends JPanel {
             traders.setBackground(gray2);
             traders.setForeground(Color.BLACK);
             traders.setOpaque(true);
-            userQuery.getAllTraders().forEach(traderId -> {
+            List<String> allTraders = userQuery.getAllTraders();
+            // Names every trader at once, so each one finds its name already read
+            nameQuery.getUsernames(allTraders);
+            allTraders.forEach(traderId -> {
                 if (!traderId.equals(userId)) {
                     try {
-                        traders.addItem(userQuery.getUsername(traderId));
+                        traders.addItem(nameQuery.getUsername(traderId));
                     } catch (UserNotFoundException e2) {
                         e2.printStackTrace();
                     }
@@ -340,12 +376,12 @@ public class SettingsPanel extends JPanel {
             submitReportButton.setBorder(BorderFactory.createLineBorder(bg, 15));
             submitReportButton.addActionListener(e1 -> {
                 if (traderReportMessage.getText().trim().length() != 0 && traders.getSelectedItem() != null) {
-                    try {
-                        settingsManager.reportUser(userId, userQuery.getUserByUsername((String) traders.getSelectedItem()), traderReportMessage.getText());
-                        reportTraderModal.dispose();
-                    } catch (UserNotFoundException | AuthorizationException e2) {
-                        e2.printStackTrace();
-                    }
+                    String username = (String) traders.getSelectedItem();
+                    String message = traderReportMessage.getText();
+                    AsyncBackend.change(submitReportButton, () -> {
+                        settingsManager.reportUser(userId, userQuery.getUserByUsername(username), message);
+                        return null;
+                    }, done -> reportTraderModal.dispose());
                 }
             });
 
@@ -12,8 +12,11 @@ import java.awt.event.ActionListener;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -28,10 +31,14 @@ import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.TradeNotFoundException;
 import backend.exceptions.UserNotFoundException;
 import backend.tradesystem.queries.TradeQuery;
+import backend.tradesystem.queries.TradeSnapshot;
 import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.UserSnapshot;
 import backend.tradesystem.suggestion_strategies.*;
 import backend.tradesystem.trader_managers.TradingInfoManager;
 import backend.tradesystem.trader_managers.TradingManager;
+import frontend.AsyncBackend;
+import frontend.components.LoadingLabel;
 import frontend.panels.trader_panel.trader_subpanels.trade_panels.trade_modals.AddNewTradeModal;
 import frontend.panels.trader_panel.trader_subpanels.trade_panels.trade_modals.TradeDetailsModal;
 
@@ -49,11 +56,7 @@ public class OngoingTradesPanel extends JPanel implements ActionListener {
     private final Color gray2 = new Color(142, 142, 142);
     private final Color green = new Color(27, 158, 36);
 
-    private final TradeQuery tradeQuery = new TradeQuery();
-    private final UserQuery userQuery = new UserQuery();
-
     private final TradingManager tradeManager = new TradingManager();
-    private final TradingInfoManager infoManager = new TradingInfoManager();
 
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd yyyy HH:mm", new Locale("en", "US"));
 
@@ -100,75 +103,92 @@ public class OngoingTradesPanel extends JPanel implements ActionListener {
         this.add(ongoingTradesScrollPane, gbc);
     }
 
-    private JScrollPane setOngoingTradesScrollPane()
-            throws UserNotFoundException, AuthorizationException, TradeNotFoundException {
+    private JScrollPane setOngoingTradesScrollPane() {
         JScrollPane ongoingTradesScrollPane = new JScrollPane();
 
-        JPanel ongoingTradesContainer = setOngoingTradesContainer();
-
         ongoingTradesScrollPane.setPreferredSize(new Dimension(1200, 325));
-        ongoingTradesScrollPane.setViewportView(ongoingTradesContainer);
+        ongoingTradesScrollPane.setViewportView(createLoadingPanel());
         ongoingTradesScrollPane.setBackground(gray);
         ongoingTradesScrollPane.setBorder(null);
 
+        AsyncBackend.load(this, this::loadOngoingTrades, trades -> {
+            try {
+                ongoingTradesScrollPane.setViewportView(setOngoingTradesContainer(trades));
+            } catch (UserNotFoundException e) {
+                e.printStackTrace();
+            }
+        });
+
         return ongoingTradesScrollPane;
     }
 
-    private JPanel setOngoingTradesContainer()
-            throws UserNotFoundException, AuthorizationException, TradeNotFoundException {
-        JPanel ongoingTradesContainer = new JPanel();
+    // Runs on a worker thread, so it has its own queries
+    private OngoingTrades loadOngoingTrades() throws IOException, UserNotFoundException, AuthorizationException {
+        TradeQuery tradeQuery = new TradeQuery();
+        UserQuery userQuery = new UserQuery();
 
         List<String> acceptedTrades = trader.equals("") ? new ArrayList<>() : userQuery.getAcceptedTrades(trader);
 
-        if (acceptedTrades.isEmpty())
+        // Everything shown is read at once instead of asking for each field of each trade
+        Map<String, TradeSnapshot> trades = tradeQuery.getTradeSnapshots(acceptedTrades);
+        Set<String> userIds = new HashSet<>();
+        for (TradeSnapshot trade : trades.values())
+            userIds.add(trade.getOtherUserId(trader));
+        return new OngoingTrades(trades, userQuery.getUserSnapshots(userIds));
+    }
+
+    private JPanel setOngoingTradesContainer(OngoingTrades ongoingTrades) throws UserNotFoundException {
+        JPanel ongoingTradesContainer = new JPanel();
+
+        if (ongoingTrades.trades.isEmpty())
             return createNoTradesFoundPanel();
 
-        int numRows = acceptedTrades.size();
+        int numRows = ongoingTrades.trades.size();
         numRows = Math.max(numRows, 4);
 
         ongoingTradesContainer.setLayout(new GridLayout(numRows, 1));
         ongoingTradesContainer.setBackground(gray2);
         ongoingTradesContainer.setBorder(null);
 
-        for (String tradeID : acceptedTrades) {
-            JPanel ongoingTradePanel = createOngoingTradePanel(tradeID);
+        for (TradeSnapshot trade : ongoingTrades.trades.values()) {
+            JPanel ongoingTradePanel = createOngoingTradePanel(trade, ongoingTrades.users);
             ongoingTradesContainer.add(ongoingTradePanel);
         }
 
         return ongoingTradesContainer;
     }
 
-    private JPanel createOngoingTradePanel(String tradeID) throws TradeNotFoundException, UserNotFoundException {
+    private JPanel createOngoingTradePanel(TradeSnapshot trade, Map<String, UserSnapshot> users)
+            throws UserNotFoundException {
         JPanel ongoingTradePanel = new JPanel(new GridLayout(1, 5, 10, 0));
+        String tradeID = trade.getId();
         ongoingTradePanel.setPreferredSize(new Dimension(1000, 75));
         ongoingTradePanel.setBorder(BorderFactory.createLineBorder(bg));
         ongoingTradePanel.setBackground(gray);
 
-        boolean isTraderFirstUser = tradeQuery.getFirstUserId(tradeID).equals(trader);
-
-        JLabel otherTraderName = new JLabel();
+        boolean isTraderFirstUser = trade.getFirstUserId().equals(trader);
 
-        if (isTraderFirstUser)
-            otherTraderName.setText(userQuery.getUsername(tradeQuery.getSecondUserId(tradeID)));
-        else
-            otherTraderName.setText(userQuery.getUsername(tradeQuery.getFirstUserId(tradeID)));
+        UserSnapshot otherTrader = users.get(trade.getOtherUserId(trader));
+        if (otherTrader == null)
+            throw new UserNotFoundException(trade.getOtherUserId(trader));
+        JLabel otherTraderName = new JLabel(otherTrader.getUsername());
 
         otherTraderName.setFont(regular.deriveFont(20f));
         otherTraderName.setForeground(Color.BLACK);
         otherTraderName.setHorizontalAlignment(JLabel.LEFT);
         otherTraderName.setBorder(BorderFactory.createEmptyBorder(0, 25, 0, 0));
 
-        JLabel tradeLocation = new JLabel(tradeQuery.getMeetingLocation(tradeID));
+        JLabel tradeLocation = new JLabel(trade.getMeetingLocation());
         tradeLocation.setFont(regular.deriveFont(20f));
         tradeLocation.setForeground(Color.BLACK);
         tradeLocation.setHorizontalAlignment(JLabel.CENTER);
 
         JLabel tradeMeetingTime = new JLabel();
 
-        if (tradeQuery.isFirstUserConfirmed1(tradeID) && tradeQuery.isSecondUserConfirmed1(tradeID)) {
-            tradeMeetingTime.setText(dateFormat.format(tradeQuery.getSecondMeetingTime(tradeID)));
+        if (trade.isFirstUserConfirmed1() && trade.isSecondUserConfirmed1()) {
+            tradeMeetingTime.setText(dateFormat.format(trade.getSecondMeetingTime()));
         } else {
-            tradeMeetingTime.setText(dateFormat.format(tradeQuery.getMeetingTime(tradeID)));
+            tradeMeetingTime.setText(dateFormat.format(trade.getMeetingTime()));
         }
 
         tradeMeetingTime.setFont(regular.deriveFont(20f));
@@ -191,7 +211,7 @@ public class OngoingTradesPanel extends JPanel implements ActionListener {
             }
         });
 
-        JButton tradeConfirmButton = setConfirmTradeButton(tradeID, isTraderFirstUser);
+        JButton tradeConfirmButton = setConfirmTradeButton(trade, isTraderFirstUser);
 
         ongoingTradePanel.add(otherTraderName);
         ongoingTradePanel.add(tradeLocation);
@@ -202,17 +222,18 @@ public class OngoingTradesPanel extends JPanel implements ActionListener {
         return ongoingTradePanel;
     }
 
-    private JButton setConfirmTradeButton(String tradeID, boolean isTraderFirstUser) throws TradeNotFoundException {
+    private JButton setConfirmTradeButton(TradeSnapshot trade, boolean isTraderFirstUser) {
         JButton tradeConfirmButton = new JButton();
+        String tradeID = trade.getId();
 
-        boolean hasSecondMeeting = tradeQuery.getSecondMeetingTime(tradeID) != null;
-        boolean hasFirstMeetingCompleted = tradeQuery.isFirstUserConfirmed1(tradeID) && tradeQuery.isSecondUserConfirmed1(tradeID);
-        boolean hasSecondMeetingCompleted = tradeQuery.isFirstUserConfirmed2(tradeID) && tradeQuery.isSecondUserConfirmed2(tradeID);
+        boolean hasSecondMeeting = trade.getSecondMeetingTime() != null;
+        boolean hasFirstMeetingCompleted = trade.isFirstUserConfirmed1() && trade.isSecondUserConfirmed1();
+        boolean hasSecondMeetingCompleted = trade.isFirstUserConfirmed2() && trade.isSecondUserConfirmed2();
         boolean isTraderAbleToConfirm = true;
         if(hasFirstMeetingCompleted && (hasSecondMeeting && !hasSecondMeetingCompleted)) {
-            isTraderAbleToConfirm = isTraderFirstUser ? !tradeQuery.isFirstUserConfirmed2(tradeID) : !tradeQuery.isSecondUserConfirmed2(tradeID); 
+            isTraderAbleToConfirm = isTraderFirstUser ? !trade.isFirstUserConfirmed2() : !trade.isSecondUserConfirmed2();
         } else if(!hasFirstMeetingCompleted) {
-            isTraderAbleToConfirm = isTraderFirstUser ? !tradeQuery.isFirstUserConfirmed1(tradeID) : !tradeQuery.isSecondUserConfirmed1(tradeID);
+            isTraderAbleToConfirm = isTraderFirstUser ? !trade.isFirstUserConfirmed1() : !trade.isSecondUserConfirmed1();
         }
 
         tradeConfirmButton.setText(!isTraderAbleToConfirm ? "Confirmed" : "Confirm");
@@ -223,8 +244,10 @@ public class OngoingTradesPanel extends JPanel implements ActionListener {
         tradeConfirmButton.setBorder(BorderFactory.createLineBorder(gray, 15));
 
         tradeConfirmButton.addActionListener(e -> {
-            try {
+            AsyncBackend.change(tradeConfirmButton, () -> {
                 tradeManager.confirmMeetingGeneral(trader, tradeID);
+                return null;
+            }, done -> {
                 // System.out.println(tradeQuery.isFirstUserConfirmed1(tradeID));
                 // System.out.println(tradeQuery.isSecondUserConfirmed1(tradeID));
                 // System.out.println(tradeQuery.isFirstUserConfirmed2(tradeID));
@@ -233,15 +256,25 @@ public class OngoingTradesPanel extends JPanel implements ActionListener {
                 tradeConfirmButton.setText("Confirmed");
                 tradeConfirmButton.setEnabled(false);
                 tradeConfirmButton.setFont(boldItalic.deriveFont(20f));
-                ((TradePanel) this.getParent()).refreshOngoingTradesPanel();
-            } catch (TradeNotFoundException | UserNotFoundException | AuthorizationException | IOException e1) {
-                e1.printStackTrace();
-            }
+                try {
+                    ((TradePanel) this.getParent()).refreshOngoingTradesPanel();
+                } catch (TradeNotFoundException | UserNotFoundException | AuthorizationException | IOException e1) {
+                    e1.printStackTrace();
+                }
+            });
         });
 
         return tradeConfirmButton;
     }
 
+    private JPanel createLoadingPanel() {
+        JPanel loadingPanel = new JPanel(new BorderLayout());
+        loadingPanel.setPreferredSize(new Dimension(1200, 300));
+        loadingPanel.setBackground(gray2);
+        loadingPanel.add(new LoadingLabel(bold.deriveFont(30f), Color.WHITE), BorderLayout.CENTER);
+        return loadingPanel;
+    }
+
     private JPanel createNoTradesFoundPanel() {
         JPanel noTradesFoundPanel = new JPanel();
         noTradesFoundPanel.setPreferredSize(new Dimension(1200, 300));
@@ -339,36 +372,39 @@ public class OngoingTradesPanel extends JPanel implements ActionListener {
         boolean isSuggestedTrade = e.getActionCommand().equals("<html><b><i><u>Suggest Trade</u></i></b></html>");
         boolean isSuggestedLend = e.getActionCommand().equals("<html><b><i><u>Suggest Lend</u></i></b></html>");
 
-        String[] suggested = null;
-        try {
-            if (isSuggestedLend) {
-                suggested = infoManager.suggestLend(trader, true, normalSuggestionStrategy);
-                if (suggested == null){
-                    suggested = infoManager.suggestLend(trader, true, similarSuggestionStrategy);
-                }
-            }
-            else if (isSuggestedTrade) {
-                suggested = infoManager.suggestTrade(trader, true, normalSuggestionStrategy);
-                if (suggested == null) {
-                    suggested = infoManager.suggestTrade(trader, true, similarSuggestionStrategy);
-                }
-            }
-        } catch (UserNotFoundException | AuthorizationException e1) {
-            e1.printStackTrace();
+        if (!isSuggestedLend && !isSuggestedTrade) {
+            showNewTradeModal(null);
+            return;
         }
+        // Finding a suggestion looks through the other traders, so it is done on a worker thread
+        AsyncBackend.load(this, () -> findSuggestion(isSuggestedLend), suggested -> {
+            if (suggested == null) {
+                JDialog noSuggestionsFoundModal = createNoSuggestsFoundModal();
+                noSuggestionsFoundModal.setVisible(true);
+            }
+            showNewTradeModal(suggested);
+        });
+    }
 
-        if (suggested == null && (isSuggestedLend || isSuggestedTrade)) {
-            JDialog noSuggestionsFoundModal = createNoSuggestsFoundModal();
-            noSuggestionsFoundModal.setVisible(true);
+    // Runs on a worker thread, so it has its own manager
+    private String[] findSuggestion(boolean isSuggestedLend)
+            throws IOException, UserNotFoundException, AuthorizationException {
+        TradingInfoManager infoManager = new TradingInfoManager();
+        if (isSuggestedLend) {
+            String[] suggested = infoManager.suggestLend(trader, true, normalSuggestionStrategy);
+            return suggested != null ? suggested : infoManager.suggestLend(trader, true, similarSuggestionStrategy);
         }
+        String[] suggested = infoManager.suggestTrade(trader, true, normalSuggestionStrategy);
+        return suggested != null ? suggested : infoManager.suggestTrade(trader, true, similarSuggestionStrategy);
+    }
 
+    private void showNewTradeModal(String[] suggested) {
         try {
             JDialog newTradeModal = new AddNewTradeModal(trader, suggested, regular, bold, italic, boldItalic);
             newTradeModal.setVisible(true);
         } catch (IOException | UserNotFoundException | TradableItemNotFoundException e1) {
             e1.printStackTrace();
         }
-
     }
 
     private JDialog createNoSuggestsFoundModal() {
@@ -395,5 +431,17 @@ public class OngoingTradesPanel extends JPanel implements ActionListener {
 
         return noSuggestionsFound;
     }
-    
+
+    /**
+     * The accepted trades of the trader and the other traders in them
+     */
+    private static class OngoingTrades {
+        private final Map<String, TradeSnapshot> trades;
+        private final Map<String, UserSnapshot> users;
+
+        private OngoingTrades(Map<String, TradeSnapshot> trades, Map<String, UserSnapshot> users) {
+            this.trades = trades;
+            this.users = users;
+        }
+    }
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ import backend.exceptions.AuthorizationException;
 import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.TradeNotFoundException;
 import backend.exceptions.UserNotFoundException;
+import frontend.AsyncBackend;
 
 /**
  * Represents the panel where trading occurs
@@ -61,6 +62,7 @@ public class TradePanel extends JPanel  {
     public void refreshOngoingTradesPanel()
             throws UserNotFoundException, TradeNotFoundException, IOException, AuthorizationException {
         this.setVisible(false);
+        AsyncBackend.cancel(this.getComponent(0));
         this.remove(0);
         this.add(new OngoingTradesPanel(trader, regular, bold, italic, boldItalic), 0);
         this.setVisible(true);
@@ -77,6 +79,7 @@ public class TradePanel extends JPanel  {
     public void refreshTradeRequestsPanel() throws UserNotFoundException, TradeNotFoundException,
             TradableItemNotFoundException, IOException, AuthorizationException {
         this.setVisible(false);
+        AsyncBackend.cancel(this.getComponent(1));
         this.remove(1);
         this.add(new TradeRequestsPanel(trader, regular, bold, italic, boldItalic));
         this.setVisible(true);
@@ -9,7 +9,10 @@ import java.awt.GridBagLayout;
 import java.awt.GridLayout;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -18,14 +21,19 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 
 import backend.exceptions.AuthorizationException;
-import backend.exceptions.CannotTradeException;
+import backend.exceptions.ConflictException;
 import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.TradeNotFoundException;
 import backend.exceptions.UserNotFoundException;
 import backend.tradesystem.queries.ItemQuery;
+import backend.tradesystem.queries.ItemSnapshot;
 import backend.tradesystem.queries.TradeQuery;
+import backend.tradesystem.queries.TradeSnapshot;
 import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.UserSnapshot;
 import backend.tradesystem.trader_managers.TradingManager;
+import frontend.AsyncBackend;
+import frontend.components.LoadingLabel;
 import frontend.panels.trader_panel.trader_subpanels.trade_panels.trade_modals.EditTradeModal;
 import frontend.panels.trader_panel.trader_subpanels.trade_panels.trade_modals.TradeDetailsModal;
 
@@ -43,10 +51,6 @@ public class TradeRequestsPanel extends JPanel {
     private final Color green = new Color(27, 158, 36);
     private final Color red = new Color(219, 58, 52);
 
-    private final TradeQuery tradeQuery = new TradeQuery();
-    private final UserQuery userQuery = new UserQuery();
-    private final ItemQuery itemQuery = new ItemQuery();
-
     private final TradingManager tradeManager = new TradingManager();
 
     /**
@@ -90,42 +94,66 @@ public class TradeRequestsPanel extends JPanel {
         this.add(tradeRequestsScrollPane, gbc);
     }
 
-    private JScrollPane setTradeRequestsScrollPane() throws UserNotFoundException, AuthorizationException,
-            TradeNotFoundException, TradableItemNotFoundException {
+    private JScrollPane setTradeRequestsScrollPane() {
         JScrollPane tradeRequestsScrollPane = new JScrollPane();
 
-        JPanel tradeRequestsContainer = setTradeRequestsContainer();
-        
         tradeRequestsScrollPane.setBackground(gray);
         tradeRequestsScrollPane.setPreferredSize(new Dimension(1200, 325));
-        tradeRequestsScrollPane.setViewportView(tradeRequestsContainer);
+        tradeRequestsScrollPane.setViewportView(createLoadingPanel());
         tradeRequestsScrollPane.setBorder(null);
 
+        AsyncBackend.load(this, this::loadTradeRequests, tradeRequests -> {
+            try {
+                tradeRequestsScrollPane.setViewportView(setTradeRequestsContainer(tradeRequests));
+            } catch (UserNotFoundException | TradableItemNotFoundException e) {
+                e.printStackTrace();
+            }
+        });
+
         return tradeRequestsScrollPane;
 
     }
 
-    private JPanel setTradeRequestsContainer() throws UserNotFoundException, AuthorizationException,
-            TradeNotFoundException, TradableItemNotFoundException {
-        JPanel tradeRequestsContainer = new JPanel();
+    // Runs on a worker thread, so it has its own queries
+    private TradeRequests loadTradeRequests() throws IOException, UserNotFoundException, AuthorizationException {
+        TradeQuery tradeQuery = new TradeQuery();
+        UserQuery userQuery = new UserQuery();
+        ItemQuery itemQuery = new ItemQuery();
 
         List<String> requestedTrades = trader.equals("") ? new ArrayList<>() : userQuery.getRequestedTrades(trader);
 
-        if(requestedTrades.isEmpty())
+        // Everything shown is read at once instead of asking for each field of each trade
+        Map<String, TradeSnapshot> trades = tradeQuery.getTradeSnapshots(requestedTrades);
+        Set<String> userIds = new HashSet<>();
+        Set<String> itemIds = new HashSet<>();
+        for (TradeSnapshot trade : trades.values()) {
+            userIds.add(trade.getOtherUserId(trader));
+            itemIds.add(trade.getFirstUserOffer());
+            itemIds.add(trade.getSecondUserOffer());
+        }
+        return new TradeRequests(requestedTrades.size(), trades, userQuery.getUserSnapshots(userIds),
+                itemQuery.getItemSnapshots(itemIds));
+    }
+
+    private JPanel setTradeRequestsContainer(TradeRequests tradeRequests) throws UserNotFoundException,
+            TradableItemNotFoundException {
+        JPanel tradeRequestsContainer = new JPanel();
+
+        if(tradeRequests.requestedCount == 0)
             return createNoTradesFoundPanel();
 
-        int numRows = requestedTrades.size();
+        int numRows = tradeRequests.requestedCount;
         numRows = Math.max(numRows, 4);
 
         tradeRequestsContainer.setLayout(new GridLayout(numRows, 1));
         tradeRequestsContainer.setBackground(gray2);
         tradeRequestsContainer.setBorder(null);
 
-        for (String tradeID : requestedTrades) {
-            boolean isTraderAbleToEdit = tradeQuery.getUserTurnToEdit(tradeID).equals(trader);
+        for (TradeSnapshot trade : tradeRequests.trades.values()) {
+            boolean isTraderAbleToEdit = trade.getUserTurnToEdit().equals(trader);
 
             if(isTraderAbleToEdit) {
-                JPanel tradeRequestPanel = createTradeRequestPanel(tradeID);
+                JPanel tradeRequestPanel = createTradeRequestPanel(trade, tradeRequests.users, tradeRequests.items);
                 tradeRequestsContainer.add(tradeRequestPanel);
             }
         }
@@ -136,9 +164,11 @@ public class TradeRequestsPanel extends JPanel {
         return tradeRequestsContainer;
     }
 
-    private JPanel createTradeRequestPanel(String tradeID) throws TradeNotFoundException, UserNotFoundException,
-            TradableItemNotFoundException {
+    private JPanel createTradeRequestPanel(TradeSnapshot trade, Map<String, UserSnapshot> users,
+            Map<String, ItemSnapshot> items) throws UserNotFoundException, TradableItemNotFoundException {
         JPanel tradeRequestPanel = new JPanel(new GridLayout(1, 7, 10, 0));
+        String tradeID = trade.getId();
+        long tradeVersion = trade.getVersion();
         tradeRequestPanel.setPreferredSize(new Dimension(1000, 75));
         tradeRequestPanel.setBackground(gray);
         tradeRequestPanel.setBorder(BorderFactory.createLineBorder(bg));
@@ -159,23 +189,22 @@ public class TradeRequestsPanel extends JPanel {
         traderItemName.setForeground(Color.BLACK);
         traderItemName.setHorizontalAlignment(JLabel.CENTER);
         
-        if (tradeQuery.getFirstUserId(tradeID).equals(trader)) {
-            otherTraderName.setText(userQuery.getUsername(tradeQuery.getSecondUserId(tradeID)));
-            traderItemName.setText(tradeQuery.getFirstUserOffer(tradeID).equals("") ? "N/A" : itemQuery.getName(tradeQuery.getFirstUserOffer(tradeID)));
-            otherTraderItemName.setText(tradeQuery.getSecondUserOffer(tradeID).equals("") ? "N/A" : itemQuery.getName(tradeQuery.getSecondUserOffer(tradeID)));
+        boolean isTraderFirstUser = trade.getFirstUserId().equals(trader);
+
+        otherTraderName.setText(getUsername(users, trade.getOtherUserId(trader)));
+        if (isTraderFirstUser) {
+            traderItemName.setText(getItemName(items, trade.getFirstUserOffer()));
+            otherTraderItemName.setText(getItemName(items, trade.getSecondUserOffer()));
         } else {
-            otherTraderName.setText(userQuery.getUsername(tradeQuery.getFirstUserId(tradeID)));
-            traderItemName.setText(tradeQuery.getSecondUserOffer(tradeID).equals("") ? "N/A" : itemQuery.getName(tradeQuery.getSecondUserOffer(tradeID)));
-            otherTraderItemName.setText(tradeQuery.getFirstUserOffer(tradeID).equals("") ? "N/A" : itemQuery.getName(tradeQuery.getFirstUserOffer(tradeID)));
+            traderItemName.setText(getItemName(items, trade.getSecondUserOffer()));
+            otherTraderItemName.setText(getItemName(items, trade.getFirstUserOffer()));
         }
 
-        JLabel tradeLocation = new JLabel(tradeQuery.getMeetingLocation(tradeID));
+        JLabel tradeLocation = new JLabel(trade.getMeetingLocation());
         tradeLocation.setFont(regular.deriveFont(20f));
         tradeLocation.setForeground(Color.BLACK);
         tradeLocation.setHorizontalAlignment(JLabel.CENTER);
 
-        boolean isTraderFirstUser = tradeQuery.getFirstUserId(tradeID).equals(trader);
-
         JButton tradeDetailsButton = createTradeRequestButton("Details", gray2);
         tradeDetailsButton.addActionListener(e -> {
             try {
@@ -202,26 +231,43 @@ public class TradeRequestsPanel extends JPanel {
 
         JButton tradeConfirmButton = createTradeRequestButton("Accept", green);
         tradeConfirmButton.addActionListener(e -> {
-            try {
-                tradeManager.acceptRequest(trader, tradeID);
-                ((TradePanel) this.getParent()).refreshOngoingTradesPanel();
-                ((TradePanel) this.getParent()).refreshTradeRequestsPanel();
-            } catch (TradeNotFoundException | UserNotFoundException | AuthorizationException | CannotTradeException
-                    | IOException | TradableItemNotFoundException e1) {
-                e1.printStackTrace();
-            }
-
+            AsyncBackend.change(tradeConfirmButton, () -> tradeManager.acceptRequest(trader, tradeID, tradeVersion),
+                    accepted -> {
+                try {
+                    ((TradePanel) this.getParent()).refreshOngoingTradesPanel();
+                    ((TradePanel) this.getParent()).refreshTradeRequestsPanel();
+                } catch (TradeNotFoundException | UserNotFoundException | AuthorizationException | IOException
+                        | TradableItemNotFoundException e1) {
+                    e1.printStackTrace();
+                }
+            }, failure -> {
+                if (!(failure instanceof ConflictException)) {
+                    failure.printStackTrace();
+                    return;
+                }
+                // The trade changed after it was shown, so show the new version instead of accepting it
+                try {
+                    ((TradePanel) this.getParent()).refreshTradeRequestsPanel();
+                } catch (IOException | TradeNotFoundException | UserNotFoundException | TradableItemNotFoundException
+                        | AuthorizationException e2) {
+                    e2.printStackTrace();
+                }
+            });
         });
         
         JButton tradeRejectButton = createTradeRequestButton("Reject", red);
         tradeRejectButton.addActionListener(e -> {
-            try {
+            AsyncBackend.change(tradeRejectButton, () -> {
                 tradeManager.rescindTradeRequest(tradeID);
-                ((TradePanel) this.getParent()).refreshTradeRequestsPanel();
-            } catch (TradeNotFoundException | UserNotFoundException | AuthorizationException
-                    | TradableItemNotFoundException | IOException e1) {
-                e1.printStackTrace();
-            }
+                return null;
+            }, done -> {
+                try {
+                    ((TradePanel) this.getParent()).refreshTradeRequestsPanel();
+                } catch (TradeNotFoundException | UserNotFoundException | AuthorizationException
+                        | TradableItemNotFoundException | IOException e1) {
+                    e1.printStackTrace();
+                }
+            });
         });
 
         tradeRequestPanel.add(otherTraderName);
@@ -236,6 +282,19 @@ public class TradeRequestsPanel extends JPanel {
         return tradeRequestPanel;
     }
 
+    private String getUsername(Map<String, UserSnapshot> users, String userId) throws UserNotFoundException {
+        UserSnapshot user = users.get(userId);
+        if (user == null) throw new UserNotFoundException(userId);
+        return user.getUsername();
+    }
+
+    private String getItemName(Map<String, ItemSnapshot> items, String itemId) throws TradableItemNotFoundException {
+        if (itemId.equals("")) return "N/A";
+        ItemSnapshot item = items.get(itemId);
+        if (item == null) throw new TradableItemNotFoundException(itemId);
+        return item.getName();
+    }
+
     private JButton createTradeRequestButton(String title, Color bg) {
         JButton tradeRequestButton = new JButton(title);
         tradeRequestButton.setFont(bold.deriveFont(20f));
@@ -246,6 +305,14 @@ public class TradeRequestsPanel extends JPanel {
         return tradeRequestButton;
     }
 
+    private JPanel createLoadingPanel() {
+        JPanel loadingPanel = new JPanel(new BorderLayout());
+        loadingPanel.setPreferredSize(new Dimension(1200, 300));
+        loadingPanel.setBackground(gray2);
+        loadingPanel.add(new LoadingLabel(bold.deriveFont(30f), Color.WHITE), BorderLayout.CENTER);
+        return loadingPanel;
+    }
+
     private JPanel createNoTradesFoundPanel() {
         JPanel noTradesFoundPanel = new JPanel();
         noTradesFoundPanel.setPreferredSize(new Dimension(1200, 300));
@@ -312,4 +379,22 @@ public class TradeRequestsPanel extends JPanel {
 
         return tradeRequestsTitle;
     }
+
+    /**
+     * The trades the trader was asked to make, with the other traders and the items in them
+     */
+    private static class TradeRequests {
+        private final int requestedCount;
+        private final Map<String, TradeSnapshot> trades;
+        private final Map<String, UserSnapshot> users;
+        private final Map<String, ItemSnapshot> items;
+
+        private TradeRequests(int requestedCount, Map<String, TradeSnapshot> trades, Map<String, UserSnapshot> users,
+                              Map<String, ItemSnapshot> items) {
+            this.requestedCount = requestedCount;
+            this.trades = trades;
+            this.users = users;
+            this.items = items;
+        }
+    }
 }
\ No newline at end of file
@@ -29,9 +29,11 @@ import backend.exceptions.AuthorizationException;
 import backend.exceptions.CannotTradeException;
 import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.UserNotFoundException;
-import backend.tradesystem.queries.ItemQuery;
+import backend.exceptions.ConflictException;
 import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.NameQuery;
 import backend.tradesystem.trader_managers.TradingManager;
+import frontend.AsyncBackend;
 
 /**
  * For showing the dialog that adds a new trade
@@ -59,7 +61,7 @@ public class AddNewTradeModal extends JDialog implements ActionListener {
     private final Color red = new Color(219, 58, 52);
 
     private final UserQuery userQuery = new UserQuery();
-    private final ItemQuery itemQuery = new ItemQuery();
+    private final NameQuery nameQuery = new NameQuery();
 
     private final TradingManager tradeManager = new TradingManager();
 
@@ -174,10 +176,12 @@ public class AddNewTradeModal extends JDialog implements ActionListener {
         traders.setForeground(Color.BLACK);
         traders.setOpaque(true);
         traders.addItem(null);
+        // Names every trader at once, so each one finds its name already read
+        nameQuery.getUsernames(allTraders);
         allTraders.forEach(traderId -> {
             if (!traderId.equals(trader)) {
                 try {
-                    traders.addItem(userQuery.getUsername(traderId));
+                    traders.addItem(nameQuery.getUsername(traderId));
                 } catch (UserNotFoundException e2) {
                     e2.printStackTrace();
                 }
@@ -194,9 +198,11 @@ public class AddNewTradeModal extends JDialog implements ActionListener {
                     otherTraderItems.setVisible(false);
                     otherTraderItems.removeAllItems();
                     otherTraderItems.addItem(null);
-                    for (String itemId : userQuery
-                            .getAvailableItems(userQuery.getUserByUsername((String) traders.getSelectedItem()))) {
-                        otherTraderItems.addItem(itemQuery.getName(itemId));
+                    List<String> availableItems = userQuery
+                            .getAvailableItems(userQuery.getUserByUsername((String) traders.getSelectedItem()));
+                    nameQuery.getItemNames(availableItems);
+                    for (String itemId : availableItems) {
+                        otherTraderItems.addItem(nameQuery.getItemName(itemId));
                     }
                     otherTraderItems.setVisible(true);
                     otherTraderItems.setEnabled(true);
@@ -220,10 +226,11 @@ public class AddNewTradeModal extends JDialog implements ActionListener {
                 allTraders.addAll(userQuery.getAllTraders());
             }
             traders.addItem(null);
+            nameQuery.getUsernames(allTraders);
             allTraders.forEach(traderId -> {
                 if (!traderId.equals(trader)) {
                     try {
-                        traders.addItem(userQuery.getUsername(traderId));
+                        traders.addItem(nameQuery.getUsername(traderId));
                     } catch (UserNotFoundException e2) {
                         e2.printStackTrace();
                     }
@@ -262,8 +269,10 @@ public class AddNewTradeModal extends JDialog implements ActionListener {
         traderItems.setPreferredSize(new Dimension(450, 50));
         try {
             traderItems.addItem(null);
-            for (String itemId : userQuery.getAvailableItems(trader)) {
-                traderItems.addItem(itemQuery.getName(itemId));
+            List<String> availableItems = userQuery.getAvailableItems(trader);
+            nameQuery.getItemNames(availableItems);
+            for (String itemId : availableItems) {
+                traderItems.addItem(nameQuery.getItemName(itemId));
             }
         } catch (AuthorizationException | UserNotFoundException | TradableItemNotFoundException exception) {
             exception.printStackTrace();
@@ -445,11 +454,11 @@ public class AddNewTradeModal extends JDialog implements ActionListener {
         addNewTradePanel.add(error);
 
         if (isSuggested) {
-            traders.setSelectedItem(userQuery.getUsername(suggested[1]));
-            traderItems.setSelectedItem(itemQuery.getName(suggested[2]));
+            traders.setSelectedItem(nameQuery.getUsername(suggested[1]));
+            traderItems.setSelectedItem(nameQuery.getItemName(suggested[2]));
 
             if (suggested.length == 4) {
-                otherTraderItems.setSelectedItem(itemQuery.getName(suggested[3]));
+                otherTraderItems.setSelectedItem(nameQuery.getItemName(suggested[3]));
             }
         }
 
@@ -506,31 +515,51 @@ public class AddNewTradeModal extends JDialog implements ActionListener {
                 }
 
             }
+            Date firstMeeting;
+            Date secondMeeting;
             try {
-                Date firstMeeting = dateFormat.parse(firstMeetingString);
-                Date secondMeeting = secondMeetingString.equals("") ? null : dateFormat.parse(secondMeetingString);
+                firstMeeting = dateFormat.parse(firstMeetingString);
+                secondMeeting = secondMeetingString.equals("") ? null : dateFormat.parse(secondMeetingString);
+            } catch (ParseException e2) {
+                error.setText(e2.getMessage());
+                error.setVisible(true);
+                return;
+            }
+            boolean isTraderOffering = traderItems.getSelectedItem() != null;
+            int traderItemIndex = traderItems.getSelectedIndex() - 1;
+            boolean isOtherTraderOffering = otherTraderItems.getSelectedItem() != null;
+            int otherTraderItemIndex = otherTraderItems.getSelectedIndex() - 1;
+            String otherUsername = (String) traders.getSelectedItem();
+            String location = meetingLocationInput.getText();
+            String message = messageInput.getText();
+
+            AsyncBackend.change((Component) e.getSource(), () -> {
+                String otherTrader = userQuery.getUserByUsername(otherUsername);
                 String firstTraderOffer = "";
                 String otherTraderOffer = "";
 
-                if (traderItems.getSelectedItem() != null) {
-                    firstTraderOffer = userQuery.getAvailableItems(trader).get(traderItems.getSelectedIndex() -1);
+                if (isTraderOffering) {
+                    firstTraderOffer = userQuery.getAvailableItems(trader).get(traderItemIndex);
                 }
 
-                if (otherTraderItems.getSelectedItem() != null) {
-                    otherTraderOffer = userQuery
-                            .getAvailableItems(userQuery.getUserByUsername((String) traders.getSelectedItem()))
-                            .get(otherTraderItems.getSelectedIndex() - 1);
+                if (isOtherTraderOffering) {
+                    otherTraderOffer = userQuery.getAvailableItems(otherTrader).get(otherTraderItemIndex);
                 }
-                String message = messageInput.getText();
 
-                tradeManager.requestTrade(trader, userQuery.getUserByUsername((String) traders.getSelectedItem()),
-                        firstMeeting, secondMeeting, meetingLocationInput.getText(), firstTraderOffer, otherTraderOffer,
-                        3, message);
-                this.dispose();
-            } catch (ParseException | UserNotFoundException | AuthorizationException | CannotTradeException e2) {
-                error.setText(e2.getMessage());
-                error.setVisible(true);
-            }
+                return tradeManager.requestTrade(trader, otherTrader, firstMeeting, secondMeeting, location,
+                        firstTraderOffer, otherTraderOffer, 3, message);
+            }, tradeId -> this.dispose(), failure -> {
+                if (failure instanceof ConflictException) {
+                    error.setText("Someone else is changing this right now, please try again");
+                    error.setVisible(true);
+                } else if (failure instanceof UserNotFoundException || failure instanceof AuthorizationException
+                        || failure instanceof CannotTradeException) {
+                    error.setText(failure.getMessage());
+                    error.setVisible(true);
+                } else {
+                    failure.printStackTrace();
+                }
+            });
         }
     }
 
@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 import javax.swing.BorderFactory;
@@ -25,13 +26,15 @@ import javax.swing.JTextField;
 
 import backend.exceptions.AuthorizationException;
 import backend.exceptions.CannotTradeException;
+import backend.exceptions.ConflictException;
 import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.TradeNotFoundException;
 import backend.exceptions.UserNotFoundException;
-import backend.tradesystem.queries.ItemQuery;
 import backend.tradesystem.queries.TradeQuery;
 import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.NameQuery;
 import backend.tradesystem.trader_managers.TradingManager;
+import frontend.AsyncBackend;
 
 /**
  * For showing the dialog that edits a trade
@@ -39,6 +42,7 @@ import backend.tradesystem.trader_managers.TradingManager;
 public class EditTradeModal extends JDialog implements ActionListener {
 	
 	private final String tradeID, trader;
+	private final long tradeVersion;
 	private final boolean isTraderFirstUser;
 
 	private JLabel availableEdits, error;
@@ -60,7 +64,7 @@ public class EditTradeModal extends JDialog implements ActionListener {
 
 	private final UserQuery userQuery = new UserQuery();
 	private final TradeQuery tradeQuery = new TradeQuery();
-	private final ItemQuery itemQuery = new ItemQuery();
+	private final NameQuery nameQuery = new NameQuery();
 
 	private final TradingManager tradeManager = new TradingManager();
 
@@ -82,6 +86,8 @@ public class EditTradeModal extends JDialog implements ActionListener {
 			Font italic, Font boldItalic) throws IOException, TradeNotFoundException {
 
 		this.tradeID = tradeID;		
+		// The version of the trade being edited, so the edit fails if the other trader changes it first
+		this.tradeVersion = tradeQuery.getVersion(tradeID);
 		this.trader = trader;
 		this.isTraderFirstUser = isTraderFirstUser;
 		this.regular = regular;
@@ -164,14 +170,16 @@ public class EditTradeModal extends JDialog implements ActionListener {
 	private void addExistingTradeData() {
 		try {
 			String otherTraderId = isTraderFirstUser ? tradeQuery.getSecondUserId(tradeID) : tradeQuery.getFirstUserId(tradeID);
-			for (String itemId : (userQuery.getAvailableItems(otherTraderId))) {
-				otherTraderItems.addItem(itemQuery.getName(itemId));
+			List<String> availableItems = userQuery.getAvailableItems(otherTraderId);
+			nameQuery.getItemNames(availableItems);
+			for (String itemId : availableItems) {
+				otherTraderItems.addItem(nameQuery.getItemName(itemId));
 			}
 
 			String traderItemId = isTraderFirstUser ? tradeQuery.getFirstUserOffer(tradeID) : tradeQuery.getSecondUserOffer(tradeID);
 			String otherTraderItemId = isTraderFirstUser ? tradeQuery.getSecondUserOffer(tradeID) : tradeQuery.getFirstUserOffer(tradeID);
-			traderItems.setSelectedItem(traderItemId.equals("") ? null : itemQuery.getName(traderItemId));
-			otherTraderItems.setSelectedItem(otherTraderItemId.equals("") ? null : itemQuery.getName(otherTraderItemId));
+			traderItems.setSelectedItem(traderItemId.equals("") ? null : nameQuery.getItemName(traderItemId));
+			otherTraderItems.setSelectedItem(otherTraderItemId.equals("") ? null : nameQuery.getItemName(otherTraderItemId));
 
 			meetingLocationInput.setText(tradeQuery.getMeetingLocation(tradeID));
 			availableEdits.setText("<html><pre>" + tradeQuery.getEditAmountLeft(tradeID) + " Edit(s) Remaining</pre></html>");
@@ -393,8 +401,10 @@ public class EditTradeModal extends JDialog implements ActionListener {
 		traderItems.setPreferredSize(new Dimension(325, 50));
 		traderItems.addItem(null);
 		try {
-			for (String itemId : userQuery.getAvailableItems(trader)) {
-				traderItems.addItem(itemQuery.getName(itemId));
+			List<String> availableItems = userQuery.getAvailableItems(trader);
+			nameQuery.getItemNames(availableItems);
+			for (String itemId : availableItems) {
+				traderItems.addItem(nameQuery.getItemName(itemId));
 			}
 		} catch (UserNotFoundException | AuthorizationException | TradableItemNotFoundException e1) {
 			e1.printStackTrace();
@@ -512,29 +522,51 @@ public class EditTradeModal extends JDialog implements ActionListener {
 				}
 
 			}
+			Date firstMeeting;
+			Date secondMeeting;
 			try {
-				Date firstMeeting = dateFormat.parse(firstMeetingString);
-				Date secondMeeting = secondMeetingString.equals("") ? null : dateFormat.parse(secondMeetingString);
-
+				firstMeeting = dateFormat.parse(firstMeetingString);
+				secondMeeting = secondMeetingString.equals("") ? null : dateFormat.parse(secondMeetingString);
+			} catch (ParseException e2) {
+				error.setText(e2.getMessage());
+				error.setVisible(true);
+				return;
+			}
+			boolean isTraderOffering = traderItems.getSelectedItem() != null;
+			int traderItemIndex = traderItems.getSelectedIndex() - 1;
+			boolean isOtherTraderOffering = otherTraderItems.getSelectedItem() != null;
+			int otherTraderItemIndex = otherTraderItems.getSelectedIndex() - 1;
+			String location = meetingLocationInput.getText();
+			String message = messageInput.getText();
+
+			AsyncBackend.change((Component) e.getSource(), () -> {
 				String thisTraderOffer = "";
 
-				if (traderItems.getSelectedItem() != null) {
-					thisTraderOffer = userQuery.getAvailableItems(trader).get(traderItems.getSelectedIndex() - 1);
+				if (isTraderOffering) {
+					thisTraderOffer = userQuery.getAvailableItems(trader).get(traderItemIndex);
 				}
 
 				String thatTraderOffer = "";
-				if (otherTraderItems.getSelectedItem() != null) {
-					thatTraderOffer = userQuery.getAvailableItems(tradeQuery.getOtherUserId(tradeID, trader)).get(otherTraderItems.getSelectedIndex() - 1);
+				if (isOtherTraderOffering) {
+					thatTraderOffer = userQuery.getAvailableItems(tradeQuery.getOtherUserId(tradeID, trader)).get(otherTraderItemIndex);
 				}
-				tradeManager.counterTradeOffer(trader, tradeID, firstMeeting, secondMeeting,
-						meetingLocationInput.getText(), thisTraderOffer, thatTraderOffer, messageInput.getText());
+				return tradeManager.counterTradeOffer(trader, tradeID, firstMeeting, secondMeeting,
+						location, thisTraderOffer, thatTraderOffer, message, tradeVersion);
+			}, tradeId -> {
 				returnValue = true;
 				this.dispose();
-			} catch (ParseException | TradeNotFoundException | UserNotFoundException | CannotTradeException
-					| AuthorizationException e2) {
-				error.setText(e2.getMessage());
-				error.setVisible(true);
-			}
+			}, failure -> {
+				if (failure instanceof ConflictException) {
+					error.setText("This trade was changed by the other trader, close this window to see the changes.");
+					error.setVisible(true);
+				} else if (failure instanceof TradeNotFoundException || failure instanceof UserNotFoundException
+						|| failure instanceof CannotTradeException || failure instanceof AuthorizationException) {
+					error.setText(failure.getMessage());
+					error.setVisible(true);
+				} else {
+					failure.printStackTrace();
+				}
+			});
 
 		} else {
 			error.setText("Enter a meeting location.");
@@ -3,9 +3,8 @@ package frontend.panels.trader_panel.trader_subpanels.trade_panels.trade_modals;
 import backend.exceptions.TradableItemNotFoundException;
 import backend.exceptions.TradeNotFoundException;
 import backend.exceptions.UserNotFoundException;
-import backend.tradesystem.queries.ItemQuery;
 import backend.tradesystem.queries.TradeQuery;
-import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.queries.NameQuery;
 
 import java.awt.*;
 import java.io.IOException;
@@ -32,8 +31,8 @@ public class TradeDetailsModal extends JDialog {
 	private final Font bold;
 	private final Font italic;
 
-	private final ItemQuery itemQuery = new ItemQuery();
 	private final TradeQuery tradeQuery = new TradeQuery();
+	private final NameQuery nameQuery = new NameQuery();
 
 	private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd yyyy HH:mm", new Locale("en", "US"));
 
@@ -60,13 +59,12 @@ public class TradeDetailsModal extends JDialog {
 		this.regular = regular;
 		this.bold = bold;
 		this.italic = italic;
-		UserQuery userQuery = new UserQuery();
 		if (isTraderFirstUser) {
-			traderName = userQuery.getUsername(tradeQuery.getFirstUserId(tradeID));
-			otherTraderName = userQuery.getUsername(tradeQuery.getSecondUserId(tradeID));
+			traderName = nameQuery.getUsername(tradeQuery.getFirstUserId(tradeID));
+			otherTraderName = nameQuery.getUsername(tradeQuery.getSecondUserId(tradeID));
 		} else {
-			traderName = userQuery.getUsername(tradeQuery.getSecondUserId(tradeID));
-			otherTraderName = userQuery.getUsername(tradeQuery.getFirstUserId(tradeID));
+			traderName = nameQuery.getUsername(tradeQuery.getSecondUserId(tradeID));
+			otherTraderName = nameQuery.getUsername(tradeQuery.getFirstUserId(tradeID));
 		}
 
 		this.setTitle("Trade Details");
@@ -127,7 +125,7 @@ public class TradeDetailsModal extends JDialog {
 	}
 
 	private JLabel setOtherTraderItemRequestName() throws TradeNotFoundException, TradableItemNotFoundException {
-		String otherTraderItemName = isTraderFirstUser ? itemQuery.getName(tradeQuery.getSecondUserOffer(tradeID)) : itemQuery.getName(tradeQuery.getFirstUserOffer(tradeID));
+		String otherTraderItemName = isTraderFirstUser ? nameQuery.getItemName(tradeQuery.getSecondUserOffer(tradeID)) : nameQuery.getItemName(tradeQuery.getFirstUserOffer(tradeID));
 
 		JLabel otherTraderItemRequestName = new JLabel("<html><pre>" + otherTraderItemName + "</pre></html>");
 		otherTraderItemRequestName.setFont(regular.deriveFont(20f));
@@ -139,7 +137,7 @@ public class TradeDetailsModal extends JDialog {
 	}
 
 	private JLabel setTraderItemRequestName() throws TradeNotFoundException, TradableItemNotFoundException {
-		String traderItemName = !isTraderFirstUser ? itemQuery.getName(tradeQuery.getSecondUserOffer(tradeID)) : itemQuery.getName(tradeQuery.getFirstUserOffer(tradeID));
+		String traderItemName = !isTraderFirstUser ? nameQuery.getItemName(tradeQuery.getSecondUserOffer(tradeID)) : nameQuery.getItemName(tradeQuery.getFirstUserOffer(tradeID));
 
 		JLabel traderItemRequestName = new JLabel(
 				"<html><pre>" + traderItemName + "</pre></html>");
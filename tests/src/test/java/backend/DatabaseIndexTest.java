@@ -0,0 +1,119 @@
+package backend;
+
+import backend.models.TradableItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Moving items between keys as they change, and the ids handed out for a key
+ */
+public class DatabaseIndexTest {
+    private final DatabaseIndex index = new DatabaseIndex(item -> Arrays.asList(((TradableItem) item).getName(),
+            ((TradableItem) item).getDesc()));
+
+    @Test
+    public void changedItemMovesToItsNewKeys() {
+        TradableItem item = new TradableItem("hat", "red");
+        TradableItem other = new TradableItem("hat", "blue");
+        index.add(item);
+        index.add(other);
+        assertEquals(ids(item, other), index.get("hat"));
+
+        index.add(new TradableItemWithId(item.getId(), "scarf", "red"));
+        assertEquals(ids(other), index.get("hat"));
+        assertEquals(ids(item), index.get("scarf"));
+        assertEquals(ids(item), index.get("red"));
+    }
+
+    @Test
+    public void removedItemIsNotFound() {
+        TradableItem item = new TradableItem("hat", "red");
+        index.add(item);
+        index.remove(item.getId());
+        index.remove(item.getId());
+        assertTrue(index.get("hat").isEmpty());
+        assertTrue(index.get("red").isEmpty());
+        assertTrue(index.get("never used").isEmpty());
+    }
+
+    @Test
+    public void idsAreTheOnesAtTheTimeOfAsking() {
+        TradableItem item = new TradableItem("hat", "red");
+        index.add(item);
+        Set<String> ids = index.get("hat");
+        index.add(new TradableItem("hat", "green"));
+        index.remove(item.getId());
+
+        assertEquals(ids(item), ids);
+        assertTrue(ids.contains(item.getId()));
+        assertFalse(ids.contains("unknown id"));
+        assertThrows(UnsupportedOperationException.class, () -> ids.add("unknown id"));
+        assertThrows(UnsupportedOperationException.class, () -> ids.remove(item.getId()));
+    }
+
+    @Test
+    public void unchangedKeyHandsOutTheSameIds() {
+        TradableItem item = new TradableItem("hat", "red");
+        index.add(item);
+        Set<String> ids = index.get("hat");
+        index.add(new TradableItem("scarf", "red"));
+
+        assertSame(ids, index.get("hat"));
+        assertEquals(ids(item), index.get("hat"));
+    }
+
+    @Test
+    public void removedIdIsForgotten() {
+        TradableItem item = new TradableItem("hat", "hat");
+        DatabaseIndex other = new DatabaseIndex(indexed ->
+                Collections.singletonList(((TradableItem) indexed).getName()));
+        index.add(item);
+        Set<String> ids = index.get("hat");
+        other.add(item);
+        index.remove(item.getId());
+        assertTrue(IdTable.findNumber(item.getId()) >= 0);
+
+        other.remove(item.getId());
+        assertEquals(-1, IdTable.findNumber(item.getId()));
+        // The numbers of forgotten ids are handed out again, which doesn't change what was already handed out
+        index.add(new TradableItem("hat", "blue"));
+        assertEquals(Collections.singleton(item.getId()), ids);
+    }
+
+    @Test
+    public void rebuildKeepsOnlyTheGivenItems() {
+        TradableItem kept = new TradableItem("hat", "red");
+        index.add(kept);
+        index.add(new TradableItem("hat", "blue"));
+        index.rebuild(Collections.singletonList(kept));
+        assertEquals(ids(kept), index.get("hat"));
+        assertTrue(index.get("blue").isEmpty());
+    }
+
+    private static Set<String> ids(TradableItem... items) {
+        Set<String> ids = new HashSet<>();
+        for (TradableItem item : items)
+            ids.add(item.getId());
+        return ids;
+    }
+
+    /**
+     * A tradable item with a given id, as if an item was changed
+     */
+    private static class TradableItemWithId extends TradableItem {
+        private final String id;
+
+        private TradableItemWithId(String id, String name, String desc) {
+            super(name, desc);
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package backend;
+
+import backend.exceptions.ConflictException;
+import backend.exceptions.EntryNotFoundException;
+import backend.models.Idable;
+import backend.models.users.Trader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Saving to the log, reading the log back, and folding it into the .ser file
+ */
+public class DatabaseTest {
+    @TempDir
+    File directory;
+
+    private String filePath;
+    private File logFile;
+
+    @BeforeEach
+    public void setUp() {
+        filePath = new File(directory, "users.ser").getPath();
+        logFile = new File(filePath + Database.LOG_FILE_EXTENSION);
+    }
+
+    @Test
+    public void changesAreReadBackFromTheLog() throws EntryNotFoundException {
+        Database database = new Database(filePath);
+        Trader kept = new Trader("kept", "password", "Toronto");
+        Trader deleted = new Trader("deleted", "password", "Toronto");
+        database.commit(Arrays.asList(kept, deleted), Collections.emptyList());
+        kept.setTradeCount(3);
+        database.update(kept);
+        database.delete(deleted.getId());
+        assertTrue(logFile.exists());
+
+        Database reread = new Database(filePath);
+        Trader read = (Trader) reread.populate(kept.getId());
+        assertEquals(3, read.getTradeCount());
+        assertEquals(2, read.getVersion());
+        assertFalse(reread.contains(deleted.getId()));
+    }
+
+    @Test
+    public void longLogIsFoldedIntoTheFile() throws EntryNotFoundException {
+        Database database = new Database(filePath);
+        Trader trader = new Trader("trader", "password", "Toronto");
+        for (int i = 1; i <= 64; i++) {
+            trader.setTradeCount(i);
+            database.update(trader);
+        }
+        assertFalse(logFile.exists());
+
+        Trader read = (Trader) new Database(filePath).populate(trader.getId());
+        assertEquals(64, read.getTradeCount());
+        assertEquals(64, read.getVersion());
+    }
+
+    @Test
+    public void unfinishedRecordIsDropped() throws IOException, EntryNotFoundException {
+        Database database = new Database(filePath);
+        Trader trader = new Trader("trader", "password", "Toronto");
+        database.update(trader);
+        trader.setTradeCount(1);
+        database.update(trader);
+        long complete = logFile.length();
+        trader.setTradeCount(2);
+        database.update(trader);
+        // As if the program stopped halfway through appending the last record
+        try (RandomAccessFile log = new RandomAccessFile(logFile, "rw")) {
+            log.setLength(complete + (log.length() - complete) / 2);
+        }
+
+        Database reread = new Database(filePath);
+        assertEquals(1, ((Trader) reread.populate(trader.getId())).getTradeCount());
+        assertFalse(logFile.exists());
+
+        trader.setTradeCount(5);
+        reread.update(trader);
+        assertEquals(5, ((Trader) new Database(filePath).populate(trader.getId())).getTradeCount());
+    }
+
+    @Test
+    public void recordWithWrongChecksumIsDropped() throws IOException, EntryNotFoundException {
+        Database database = new Database(filePath);
+        Trader trader = new Trader("trader", "password", "Toronto");
+        database.update(trader);
+        trader.setTradeCount(1);
+        database.update(trader);
+        try (RandomAccessFile log = new RandomAccessFile(logFile, "rw")) {
+            log.seek(log.length() - 1);
+            byte last = log.readByte();
+            log.seek(log.length() - 1);
+            log.writeByte(last ^ 1);
+        }
+
+        Trader read = (Trader) new Database(filePath).populate(trader.getId());
+        assertEquals(0, read.getTradeCount());
+        assertEquals(1, read.getVersion());
+    }
+
+    @Test
+    public void nothingChangesIfTheRecordCantBeWritten() throws EntryNotFoundException {
+        Database database = new Database(filePath);
+        Trader trader = new Trader("trader", "password", "Toronto");
+        database.update(trader);
+        Trader changed = (Trader) database.populate(trader.getId());
+        changed.setTradeCount(1);
+
+        assertThrows(UncheckedIOException.class,
+                () -> database.commit(Arrays.asList(changed, new UnwritableItem()), Collections.emptyList()));
+        assertEquals(0, ((Trader) database.populate(trader.getId())).getTradeCount());
+        assertEquals(0, ((Trader) new Database(filePath).populate(trader.getId())).getTradeCount());
+    }
+
+    @Test
+    public void nothingChangesIfTheFileCantBeSaved() throws EntryNotFoundException {
+        Database database = new Database(filePath);
+        Trader trader = new Trader("trader", "password", "Toronto");
+        database.update(trader);
+        // The items are written next to the .ser file first, which can't be done with a directory in the way
+        assertTrue(new File(filePath + ".tmp").mkdir());
+
+        assertThrows(IOException.class, () -> database.save(new HashMap<>()));
+        assertTrue(database.contains(trader.getId()));
+        assertTrue(new Database(filePath).contains(trader.getId()));
+    }
+
+    @Test
+    public void oldFileIsReadAndConverted()throws IOException, EntryNotFoundException {
+        Trader trader = new Trader("trader", "password", "Toronto");
+        HashMap<Object, Object> oldItems = new HashMap<>();
+        oldItems.put(trader.getId(), trader);
+        oldItems.put("not an item", "something else");
+        try (ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(filePath))) {
+            output.writeObject(oldItems);
+        }
+
+        Database database = new Database(filePath);
+        assertEquals(Collections.singleton(trader.getId()), database.getIds());
+        assertEquals(1, database.getVersion(trader.getId()));
+        assertEquals(Collections.singleton(trader.getId()), new Database(filePath).getIds());
+    }
+
+    @Test
+    public void staleUpdateIsRejected() throws EntryNotFoundException {
+        Database database = new Database(filePath);
+        Trader trader = new Trader("trader", "password", "Toronto");
+        database.update(trader, 0);
+        Trader first = (Trader) database.populate(trader.getId());
+        Trader second = (Trader) database.populate(trader.getId());
+        first.setTradeCount(1);
+        database.update(first, 1);
+        second.setTradeCount(2);
+
+        assertThrows(ConflictException.class, () -> database.update(second, 1));
+        assertEquals(1, ((Trader) database.populate(trader.getId())).getTradeCount());
+    }
+
+    @Test
+    public void updateReturnsTheOldItem() throws EntryNotFoundException {
+        Database database = new Database(filePath);
+        Trader trader = new Trader("trader", "password", "Toronto");
+        assertSame(trader, database.update(trader, 0));
+        Trader changed = (Trader) database.populate(trader.getId());
+        changed.setTradeCount(1);
+
+        assertEquals(0, ((Trader) database.update(changed, 1)).getTradeCount());
+        changed = (Trader) database.populate(trader.getId());
+        changed.setTradeCount(2);
+        assertEquals(1, ((Trader) database.update(changed)).getTradeCount());
+    }
+
+    @Test
+    public void readItemsAreCopies() throws EntryNotFoundException {
+        Database database = new Database(filePath);
+        Trader trader = new Trader("trader", "password", "Toronto");
+        database.update(trader);
+        trader.setTradeCount(1);
+        ((Trader) database.populate(trader.getId())).setTradeCount(2);
+
+        assertEquals(0, ((Trader) database.populate(trader.getId())).getTradeCount());
+    }
+
+    @Test
+    public void sharedItemsAreReplacedNotChanged() throws EntryNotFoundException {
+        Database database = new Database(filePath);
+        Trader trader = new Trader("trader", "password", "Toronto");
+        database.update(trader);
+        Trader read = (Trader) database.read(trader.getId());
+        assertSame(read, database.readAll(Collections.singletonList(trader.getId())).get(trader.getId()));
+        trader.setTradeCount(1);
+        database.update(trader);
+
+        assertEquals(0, read.getTradeCount());
+        assertEquals(1, ((Trader) database.read(trader.getId())).getTradeCount());
+    }
+
+    @Test
+    public void sortedIndexReadsARange() {
+        Database database = new Database(filePath);
+        database.addSortedIndex("id", Comparator.comparing(Idable::getId));
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Trader trader = new Trader("trader" + i, "password", "Toronto");
+            database.update(trader);
+            ids.add(trader.getId());
+        }
+        database.update(database.populateAll(ids.subList(0, 1)).get(ids.get(0)));
+        database.delete(ids.remove(9));
+        Collections.sort(ids);
+
+        assertEquals(ids.subList(2, 5), database.getSorted("id", 2, 3));
+        assertEquals(ids.subList(7, 9), database.getSorted("id", 7, 5));
+        assertEquals(Collections.emptyList(), database.getSorted("id", 20, 5));
+
+        Database reread = new Database(filePath);
+        reread.addSortedIndex("id", Comparator.comparing(Idable::getId));
+        assertEquals(ids, reread.getSorted("id", 0, Integer.MAX_VALUE));
+    }
+
+    /**
+     * An item that can't be written, since it isn't one of the models and can't be serialized
+     */
+    private static class UnwritableItem implements Idable {
+        private long version;
+
+        @Override
+        public String getId() {
+            return "unwritable";
+        }
+
+        @Override
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public void setVersion(long version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package backend;
+
+import backend.models.ModelCodec;
+import backend.models.TradableItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sharing ids that are read, and numbering the ids that are in indexes
+ */
+public class IdTableTest {
+    @Test
+    public void readIdIsSharedWithoutANumber() throws IOException {
+        String id = UUID.randomUUID().toString();
+        String first = readId(id);
+        String second = readId(id);
+
+        assertEquals(id, first);
+        assertSame(first, second);
+        assertEquals(-1, IdTable.findNumber(id));
+    }
+
+    @Test
+    public void indexedIdIsNumberedUntilRemoved() throws IOException {
+        DatabaseIndex index = new DatabaseIndex(item -> Collections.singletonList(((TradableItem) item).getName()));
+        TradableItem item = new TradableItem("hat", "red");
+        String read = readId(item.getId());
+        index.add(item);
+        int number = IdTable.findNumber(item.getId());
+
+        assertTrue(number >= 0);
+        assertSame(read, IdTable.getId(number));
+        assertSame(read, readId(item.getId()));
+        index.remove(item.getId());
+        assertEquals(-1, IdTable.findNumber(item.getId()));
+    }
+
+    private static String readId(String id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ModelCodec.writeId(new DataOutputStream(bytes), id);
+        return ModelCodec.readId(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
@@ -0,0 +1,56 @@
+package backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Adding and removing values, including values that were placed further along because their slot was taken
+ */
+public class IntSetTest {
+    @Test
+    public void valuesAreFoundAfterOthersAreRemoved() {
+        IntSet set = new IntSet();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(1);
+        // Few distinct values, so the same slots are taken and freed over and over
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(300);
+            if (random.nextBoolean())
+                assertEquals(expected.add(value), set.add(value));
+            else
+                assertEquals(expected.remove(value), set.remove(value));
+            assertEquals(expected.size(), set.size());
+        }
+        for (int value = 0; value < 300; value++)
+            assertEquals(expected.contains(value), set.contains(value), "value " + value);
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).sorted().toArray(), set.toSortedArray());
+    }
+
+    @Test
+    public void removingEverythingEmptiesTheSet() {
+        IntSet set = new IntSet();
+        for (int value = 0; value < 1000; value++)
+            assertTrue(set.add(value));
+        assertFalse(set.add(500));
+        for (int value = 999; value >= 0; value -= 2)
+            assertTrue(set.remove(value));
+        for (int value = 0; value < 1000; value++)
+            assertEquals(value % 2 == 0, set.contains(value));
+        for (int value = 0; value < 1000; value += 2)
+            assertTrue(set.remove(value));
+        assertTrue(set.isEmpty());
+        assertFalse(set.remove(0));
+        assertEquals(0, set.toSortedArray().length);
+    }
+
+    @Test
+    public void negativeValuesAreRejected() {
+        IntSet set = new IntSet();
+        assertThrows(IllegalArgumentException.class, () -> set.add(-1));
+        assertFalse(set.contains(-1));
+        assertFalse(set.remove(-1));
+    }
+}
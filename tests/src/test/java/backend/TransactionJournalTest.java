@@ -0,0 +1,135 @@
+package backend;
+
+import backend.exceptions.ConflictException;
+import backend.exceptions.EntryNotFoundException;
+import backend.models.TradableItem;
+import backend.models.users.Trader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Committing several databases at once, and finishing such a commit after the program stopped halfway through it
+ */
+public class TransactionJournalTest {
+    @TempDir
+    File directory;
+
+    @Test
+    public void commitChangesEveryDatabase() throws EntryNotFoundException {
+        Database users = database("users.ser");
+        Database items = database("tradableitems.ser");
+        Trader trader = new Trader("trader", "password", "Toronto");
+        TradableItem item = new TradableItem("item", "description");
+        Database.commitAll(Arrays.asList(
+                new Database.Batch(items, Collections.singletonList(item), Collections.emptyList(), Collections.emptyMap()),
+                new Database.Batch(users, Collections.singletonList(trader), Collections.emptyList(), Collections.emptyMap())));
+
+        assertTrue(database("users.ser").contains(trader.getId()));
+        assertTrue(database("tradableitems.ser").contains(item.getId()));
+        assertFalse(new File(directory, TransactionJournal.FILE_NAME).exists());
+    }
+
+    @Test
+    public void conflictChangesNothing() throws EntryNotFoundException {
+        Database users = database("users.ser");
+        Database items = database("tradableitems.ser");
+        Trader trader = new Trader("trader", "password", "Toronto");
+        users.update(trader);
+        TradableItem item = new TradableItem("item", "description");
+        Trader stale = (Trader) users.populate(trader.getId());
+        stale.setTradeCount(1);
+
+        assertThrows(ConflictException.class, () -> Database.commitAll(Arrays.asList(
+                new Database.Batch(items, Collections.singletonList(item), Collections.emptyList(), Collections.emptyMap()),
+                new Database.Batch(users, Collections.singletonList(stale), Collections.emptyList(),
+                        Collections.singletonMap(trader.getId(), 0L)))));
+        assertFalse(items.contains(item.getId()));
+        assertEquals(0, ((Trader) users.populate(trader.getId())).getTradeCount());
+    }
+
+    @Test
+    public void unfinishedCommitIsFinishedWhenRead(@TempDir File scratch, @TempDir File stopped) throws IOException,
+            EntryNotFoundException {
+        // Makes the log records of a commit, then writes them to a journal without appending them to any log
+        Trader trader = new Trader("trader", "password", "Toronto");
+        TradableItem item = new TradableItem("item", "description");
+        new Database(new File(scratch, "users.ser").getPath()).update(trader);
+        new Database(new File(scratch, "tradableitems.ser").getPath()).update(item);
+        Map<String, byte[]> records = new LinkedHashMap<>();
+        records.put("tradableitems.ser", readRecord(new File(scratch, "tradableitems.ser.log")));
+        records.put("users.ser", readRecord(new File(scratch, "users.ser.log")));
+        TransactionJournal.get(directory).write(records);
+        // The next commit was only partially written when the program stopped
+        File journal = new File(directory, TransactionJournal.FILE_NAME);
+        long complete = journal.length();
+        TransactionJournal.get(directory).write(records);
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.setLength(complete + 10);
+        }
+        Files.copy(journal.toPath(), new File(stopped, TransactionJournal.FILE_NAME).toPath());
+
+        Database users = new Database(new File(stopped, "users.ser").getPath());
+        assertEquals(trader.getUsername(), ((Trader) users.populate(trader.getId())).getUsername());
+        assertTrue(new Database(new File(stopped, "tradableitems.ser").getPath()).contains(item.getId()));
+        assertFalse(new File(stopped, TransactionJournal.FILE_NAME).exists());
+        assertEquals(1, users.getIds().size());
+    }
+
+    @Test
+    public void keptCommitDoesNotUndoLaterCommits(@TempDir File restarted) throws IOException,
+            EntryNotFoundException {
+        Database users = database("users.ser");
+        Database items = database("tradableitems.ser");
+        users.size();
+        // The log of the users can't be written to while a directory is in the way
+        File usersLog = new File(directory, "users.ser" + Database.LOG_FILE_EXTENSION);
+        File blocker = new File(usersLog, "blocker");
+        assertTrue(blocker.mkdirs());
+        Trader trader = new Trader("trader", "password", "Toronto");
+        Database.commitAll(Arrays.asList(
+                new Database.Batch(items, Collections.singletonList(new TradableItem("item", "description")),
+                        Collections.emptyList(), Collections.emptyMap()),
+                new Database.Batch(users, Collections.singletonList(trader), Collections.emptyList(),
+                        Collections.emptyMap())));
+        assertTrue(users.contains(trader.getId()));
+
+        assertTrue(blocker.delete() && usersLog.delete());
+        Trader changed = (Trader) users.populate(trader.getId());
+        changed.setTradeCount(1);
+        Database.commitAll(Arrays.asList(
+                new Database.Batch(items, Collections.singletonList(new TradableItem("other", "description")),
+                        Collections.emptyList(), Collections.emptyMap()),
+                new Database.Batch(users, Collections.singletonList(changed), Collections.emptyList(),
+                        Collections.emptyMap())));
+        changed.setTradeCount(2);
+        users.update(changed);
+        assertFalse(new File(directory, TransactionJournal.FILE_NAME).exists());
+
+        // As if the program started again
+        for (File file : directory.listFiles())
+            Files.copy(file.toPath(), new File(restarted, file.getName()).toPath());
+        Database reread = new Database(new File(restarted, "users.ser").getPath());
+        assertEquals(2, ((Trader) reread.populate(trader.getId())).getTradeCount());
+        assertEquals(2, new Database(new File(restarted, "tradableitems.ser").getPath()).size());
+        assertEquals(0, restarted.listFiles((dir, name) -> name.startsWith(TransactionJournal.FILE_NAME)).length);
+    }
+
+    private Database database(String fileName) {
+        return new Database(new File(directory, fileName).getPath());
+    }
+
+    private static byte[] readRecord(File log) throws IOException {
+        try (DataInputStream input = new DataInputStream(new FileInputStream(log))) {
+            return Database.readFramed(input, log.length());
+        }
+    }
+}
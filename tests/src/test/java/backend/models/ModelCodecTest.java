@@ -0,0 +1,150 @@
+package backend.models;
+
+import backend.models.users.Admin;
+import backend.models.users.Trader;
+import backend.tradesystem.TraderProperties;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writing every model and reading it back, and reading what older versions wrote
+ */
+public class ModelCodecTest {
+    @Test
+    public void everyModelIsReadBackTheSame() throws IOException {
+        Trader trader = new Trader("trader", "password", "Toronto", 3, 2, 1);
+        trader.setTradeCount(2);
+        trader.setVersion(7);
+        Trade trade = new Trade(trader.getId(), UUID.randomUUID().toString(), new Date(1000), null, "Toronto",
+                UUID.randomUUID().toString(), null, 3, "message");
+        List<Idable> items = Arrays.asList(trader, new Admin("admin", "password"), trade,
+                new TradableItem("item", "description"), new Report(trader.getId(), "someone", "report"),
+                new Review(trader.getId(), "someone", 4.5, "review"), new Message("someone", trader.getId(), 3, "hi"),
+                new Conversation("someone", trader.getId()), new OtherItem("other"));
+        for (Idable item : items) {
+            Idable copy = ModelCodec.copy(item);
+            assertSame(item.getClass(), copy.getClass());
+            assertEquals(item.getId(), copy.getId());
+            assertEquals(item.getVersion(), copy.getVersion());
+            assertArrayEquals(write(item), write(copy), item.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void idsAreReadBack() throws IOException {
+        for (String id : Arrays.asList(UUID.randomUUID().toString(), "not a uuid", "", null,
+                UUID.randomUUID().toString().toUpperCase())) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ModelCodec.writeId(new DataOutputStream(bytes), id);
+            assertEquals(id, ModelCodec.readId(input(bytes.toByteArray())));
+        }
+    }
+
+    @Test
+    public void versionOneItemsAreAtVersionOne() throws IOException {
+        TradableItem item = new TradableItem("item", "description");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ModelCodec.writeItem(new DataOutputStream(bytes), item);
+
+        Idable read = ModelCodec.readVersionedItem(input(bytes.toByteArray()), ModelCodec.OLDEST_VERSION);
+        assertEquals(item.getId(), read.getId());
+        assertEquals(1, read.getVersion());
+    }
+
+    @Test
+    public void traderWithoutTradeCountWeekIsRead() throws IOException {
+        Trader trader = new Trader("trader", "password", "Toronto");
+        trader.setTradeCount(2);
+        byte[] bytes = write(trader);
+        // Drops the week of the trade count, which is followed by isIdle and the city
+        int weekEnd = bytes.length - 1 - 4 - "Toronto".length();
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        legacy.write(1);
+        legacy.write(bytes, 9, weekEnd - 8 - 9);
+        legacy.write(bytes, weekEnd, bytes.length - weekEnd);
+
+        Trader read = (Trader) ModelCodec.readItem(input(legacy.toByteArray()));
+        assertEquals(trader.getId(), read.getId());
+        assertEquals(trader.getUsername(), read.getUsername());
+        assertEquals("Toronto", read.getCity());
+        // Without the week the counts were last reset in, the count is from a past week
+        assertEquals(0, read.getTradeCount());
+
+        Map<TraderProperties, Integer> limits = Trader.getDefaultLimits();
+        Map<TraderProperties, Integer> reset = new EnumMap<>(TraderProperties.class);
+        reset.put(TraderProperties.LAST_TRADE_COUNT_UPDATE, (int) Trader.getCurrentWeek());
+        Trader.setDefaultLimits(reset);
+        try {
+            read = (Trader) ModelCodec.readItem(input(legacy.toByteArray()));
+            assertEquals(2, read.getTradeCount());
+        } finally {
+            Trader.setDefaultLimits(limits);
+        }
+    }
+
+    @Test
+    public void reportWithoutIdIsRead() throws IOException {
+        Report report = new Report("from", "on", "report");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(5);
+        report.write(output);
+
+        Report read = (Report) ModelCodec.readItem(input(bytes.toByteArray()));
+        assertEquals("from", read.getFromUserId());
+        assertEquals("on", read.getReportOnUserId());
+        assertEquals("report", read.getMessage());
+    }
+
+    @Test
+    public void unknownVersionIsRejected() {
+        assertThrows(StreamCorruptedException.class, () -> ModelCodec.checkVersion((byte) (ModelCodec.VERSION + 1)));
+        assertThrows(StreamCorruptedException.class, () -> ModelCodec.checkVersion((byte) 0));
+    }
+
+    private static byte[] write(Idable item) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ModelCodec.writeVersionedItem(new DataOutputStream(bytes), item);
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * An item that isn't one of the models, so it is written with Java serialization
+     */
+    private static class OtherItem implements Idable, Serializable {
+        private final String id;
+        private long version;
+
+        private OtherItem(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public void setVersion(long version) {
+            this.version = version;
+        }
+    }
+}
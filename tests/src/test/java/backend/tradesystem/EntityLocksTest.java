@@ -0,0 +1,202 @@
+package backend.tradesystem;
+
+import backend.DatabaseFilePaths;
+import backend.exceptions.AuthorizationException;
+import backend.exceptions.CannotTradeException;
+import backend.exceptions.TradeNotFoundException;
+import backend.tradesystem.admin_managers.HandleItemRequestsManager;
+import backend.tradesystem.general_managers.LoginManager;
+import backend.tradesystem.queries.TradeQuery;
+import backend.tradesystem.queries.UserQuery;
+import backend.tradesystem.trader_managers.TraderManager;
+import backend.tradesystem.trader_managers.TradingManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The locks of the entries, and operations on the same traders running at the same time
+ */
+public class EntityLocksTest {
+    private static final int TRADERS = 3;
+    private static final int ITEMS_PER_TRADER = 20;
+    private static final int THREADS = 8;
+    private static final int TRADES_PER_THREAD = 100;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @TempDir
+    static File root;
+
+    private static final List<String> traderIds = new ArrayList<>();
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        System.setProperty(DatabaseFilePaths.ROOT_DIRECTORY_PROPERTY, root.getPath());
+        assertTrue(new File(DatabaseFilePaths.USER.getFilePath()).getParentFile().mkdirs());
+        File config = new File(DatabaseFilePaths.TRADER_CONFIG.getFilePath());
+        assertTrue(config.getParentFile().mkdirs());
+        Properties properties = new Properties();
+        properties.setProperty(TraderProperties.TRADE_LIMIT.getProperty(), "" + Integer.MAX_VALUE);
+        properties.setProperty(TraderProperties.INCOMPLETE_TRADE_LIM.getProperty(), "" + Integer.MAX_VALUE);
+        properties.setProperty(TraderProperties.MINIMUM_AMOUNT_NEEDED_TO_BORROW.getProperty(), "0");
+        try (Writer writer = new FileWriter(config)) {
+            properties.store(writer, "");
+        }
+
+        LoginManager loginManager = new LoginManager();
+        TraderManager traderManager = new TraderManager();
+        for (int i = 0; i < TRADERS; i++) {
+            String traderId = loginManager.registerUser("trader" + i, "Password1234", UserTypes.TRADER);
+            for (int j = 0; j < ITEMS_PER_TRADER; j++)
+                traderManager.addRequestItem(traderId, "item" + j, "description");
+            traderIds.add(traderId);
+        }
+        new HandleItemRequestsManager().acceptAllItemRequests();
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        System.clearProperty(DatabaseFilePaths.ROOT_DIRECTORY_PROPERTY);
+    }
+
+    @Test
+    public void idsAlwaysUseTheSameLock() {
+        EntityLocks locks = new EntityLocks();
+        for (int i = 0; i < 1000; i++) {
+            String id = UUID.randomUUID().toString();
+            int stripe = locks.getStripe(id);
+            assertTrue(stripe >= 0 && stripe < locks.getStripeCount());
+            assertEquals(stripe, locks.getStripe(new String(id)));
+        }
+    }
+
+    @Test
+    public void lockTakenOutOfOrderIsOnlyGottenOnceReleased() throws Exception {
+        EntityLocks locks = new EntityLocks();
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            locks.lock(1);
+            assertFalse(other.submit(() -> locks.tryLock(1)).get());
+            locks.unlock(1);
+            assertTrue(other.submit(() -> locks.tryLock(1)).get());
+            assertFalse(locks.tryLock(1));
+            other.submit(() -> locks.unlock(1)).get();
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void tradesBetweenTheSameTradersAllFinish() throws Exception {
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            long seed = i;
+            results.add(executor.submit(() -> {
+                trade(new Random(seed), accepted);
+                return null;
+            }));
+        }
+        executor.shutdown();
+        try {
+            // A ConflictException would mean an operation gave up waiting for a lock
+            for (Future<?> result : results)
+                result.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(accepted.get() > 0);
+
+        // Every request left over still offers items its traders have, so none were skipped for being locked
+        UserQuery userQuery = new UserQuery();
+        TradeQuery tradeQuery = new TradeQuery();
+        for (String traderId : traderIds) {
+            for (String tradeId : userQuery.getRequestedTrades(traderId)) {
+                String firstOffer = tradeQuery.getFirstUserOffer(tradeId);
+                String secondOffer = tradeQuery.getSecondUserOffer(tradeId);
+                assertTrue(userQuery.getAvailableItems(tradeQuery.getFirstUserId(tradeId)).contains(firstOffer));
+                assertTrue(userQuery.getAvailableItems(tradeQuery.getSecondUserId(tradeId)).contains(secondOffer));
+            }
+        }
+    }
+
+    @Test
+    public void acceptingWaitsForTheOtherRequestsOfTheTraders() throws Exception {
+        LoginManager loginManager = new LoginManager();
+        TraderManager traderManager = new TraderManager();
+        String[] traders = new String[3];
+        for (int i = 0; i < traders.length; i++) {
+            traders[i] = loginManager.registerUser("waiting" + i, "Password1234", UserTypes.TRADER);
+            traderManager.addRequestItem(traders[i], "item", "description");
+        }
+        new HandleItemRequestsManager().acceptAllItemRequests();
+        UserQuery userQuery = new UserQuery();
+        String item = userQuery.getAvailableItems(traders[0]).get(0);
+        Date meeting = new Date(System.currentTimeMillis() + DAY);
+        TradingManager tradingManager = new TradingManager();
+        String accepted = tradingManager.requestTrade(traders[0], traders[1], meeting, null, "location", item,
+                userQuery.getAvailableItems(traders[1]).get(0), 3, "message");
+        String invalid = tradingManager.requestTrade(traders[0], traders[2], meeting, null, "location", item,
+                userQuery.getAvailableItems(traders[2]).get(0), 3, "message");
+
+        // Someone else holds the other request for longer than an operation would wait for a lock taken out of order
+        CountDownLatch isLocked = new CountDownLatch(1);
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        Future<?> holder = other.submit(() -> {
+            Manager manager = new TradeQuery();
+            manager.beginTransaction();
+            try {
+                manager.lockEntities(invalid);
+                isLocked.countDown();
+                Thread.sleep(1500);
+            } finally {
+                manager.endTransaction();
+            }
+            return null;
+        });
+        other.shutdown();
+        isLocked.await();
+
+        assertTrue(tradingManager.acceptRequest(traders[1], accepted));
+        holder.get();
+        assertFalse(userQuery.getRequestedTrades(traders[0]).contains(invalid));
+        assertFalse(userQuery.getRequestedTrades(traders[2]).contains(invalid));
+    }
+
+    /**
+     * Requests trades between random traders and accepts them. Accepting makes the other requests with the same
+     * items invalid, which changes every trade of both traders at once.
+     */
+    private static void trade(Random random, AtomicInteger accepted) throws Exception {
+        TradingManager tradingManager = new TradingManager();
+        UserQuery userQuery = new UserQuery();
+        for (int i = 0; i < TRADES_PER_THREAD; i++) {
+            String first = traderIds.get(random.nextInt(TRADERS));
+            String second = traderIds.get(random.nextInt(TRADERS));
+            if (first.equals(second)) continue;
+            List<String> firstItems = userQuery.getAvailableItems(first);
+            List<String> secondItems = userQuery.getAvailableItems(second);
+            if (firstItems.isEmpty() || secondItems.isEmpty()) continue;
+            try {
+                String tradeId = tradingManager.requestTrade(first, second, new Date(System.currentTimeMillis() + DAY),
+                        null, "location", firstItems.get(random.nextInt(firstItems.size())),
+                        secondItems.get(random.nextInt(secondItems.size())), 3, "message");
+                if (tradingManager.acceptRequest(second, tradeId))
+                    accepted.incrementAndGet();
+            } catch (TradeNotFoundException | CannotTradeException | AuthorizationException e) {
+                // Another thread traded one of the items away first
+            }
+        }
+    }
+}